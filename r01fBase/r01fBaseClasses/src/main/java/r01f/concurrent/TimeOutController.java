@@ -1,58 +1,268 @@
 package r01f.concurrent;
 
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
 import com.google.common.annotations.GwtIncompatible;
 
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.Accessors;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs tasks with a deadline
+ * <p>
+ * Tasks are run at a shared bounded pool of daemon threads (NOT a new thread for every task) and the deadline
+ * is enforced with the task's {@link Future}: if the task does NOT finish in time, it's cancelled (the thread is interrupted)
+ * and a {@link TimeoutException} is thrown
+ * </p>
+ * <p>
+ * The pool can be sized using system properties:
+ * <ul>
+ * 		<li>-D{@value #THREADS_SYSTEM_PROPERTY}=n: the number of threads (defaults to 4 x available processors)</li>
+ * 		<li>-D{@value #QUEUE_SIZE_SYSTEM_PROPERTY}=n: the number of tasks waiting for a thread (defaults to 1024)</li>
+ * </ul>
+ * If the queue is full the task is rejected and a {@link TimeoutException} is thrown
+ * (see {@link #getMetrics()} to monitor the queue depth and the timed out tasks)
+ * </p>
+ */
 @GwtIncompatible
+@Slf4j
 public class TimeOutController {
-///////////////////////////////////////////////////////////////////////////////
+/////////////////////////////////////////////////////////////////////////////////////////
+//	CONSTANTS
+/////////////////////////////////////////////////////////////////////////////////////////
+	public static final String THREADS_SYSTEM_PROPERTY = "r01f.timeOutController.threads";
+	public static final String QUEUE_SIZE_SYSTEM_PROPERTY = "r01f.timeOutController.queueSize";
+/////////////////////////////////////////////////////////////////////////////////////////
+//	SHARED EXECUTORS
+/////////////////////////////////////////////////////////////////////////////////////////
+	private static final ThreadPoolExecutor EXECUTOR;
+	private static final ScheduledThreadPoolExecutor DEADLINE_SCHEDULER;
+	static {
+		int threads = Integer.getInteger(THREADS_SYSTEM_PROPERTY,
+										 Runtime.getRuntime().availableProcessors() * 4);
+		int queueSize = Integer.getInteger(QUEUE_SIZE_SYSTEM_PROPERTY,
+										   1024);
+		EXECUTOR = new ThreadPoolExecutor(threads,threads,
+										  60,TimeUnit.SECONDS,
+										  new ArrayBlockingQueue<Runnable>(queueSize),
+										  _threadFactory("r01f-timeout-guard"),
+										  new ThreadPoolExecutor.AbortPolicy());
+		EXECUTOR.allowCoreThreadTimeOut(true);		// do NOT keep idle threads
+
+		DEADLINE_SCHEDULER = new ScheduledThreadPoolExecutor(1,
+															 _threadFactory("r01f-timeout-deadline"));
+		DEADLINE_SCHEDULER.setRemoveOnCancelPolicy(true);	// the deadlines of the finished tasks are NOT kept at the queue
+	}
+	private static final AtomicLong TIMED_OUT_TASKS = new AtomicLong();
+	private static final AtomicLong REJECTED_TASKS = new AtomicLong();
+/////////////////////////////////////////////////////////////////////////////////////////
 // CONSTRUCTOR
-///////////////////////////////////////////////////////////////////////////////
+/////////////////////////////////////////////////////////////////////////////////////////
 	private TimeOutController() {
 		super();
 	}
-///////////////////////////////////////////////////////////////////////////////
-//	METODOS
-///////////////////////////////////////////////////////////////////////////////
-    /**
-     * Runs the task and waits the given timeout milis befoure returning
-     * If the task does NOT returns within the given timeout milis the thread is interrupted and an exception is thrown
-     * Caller must override Thread.interrupt() to kill the thread or anything
-     * @param task
-     * @param timeout
-     * @throws TimeoutException 
-     */
-    public static void execute(final Thread task,final long timeout) throws TimeoutException {
-        task.start();
-        try {
-            task.join(timeout);
-        } catch (InterruptedException e) {
-            /* Interrupted */
-        }
-        if (task.isAlive()) {
-            task.interrupt();
-            throw new TimeoutException();
-        }
-    }
-    /**
-     * Runs the task in a daemon Thread and waits the given time
-     * @param task
-     * @param timeout
-     * @throws TimeoutException if time is out and task is not finished
-     */
-    public static void execute(final Runnable task,final long timeout) throws TimeoutException {
-        Thread t = new Thread(task,"Timeout guard");	
-        t.setDaemon(true);
-        execute(t,timeout);
-    }
-    /**
-     * Signals that the task timed out.
-     */
-    public static class TimeoutException 
-    			extends Exception {
-        private static final long serialVersionUID = 273515211929706600L;
+/////////////////////////////////////////////////////////////////////////////////////////
+//	METHODS
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Runs the task and waits the given timeout milis before returning
+	 * If the task does NOT returns within the given timeout milis the thread is interrupted and an exception is thrown
+	 * Caller must override Thread.interrupt() to kill the thread or anything
+	 * @param task
+	 * @param timeout
+	 * @throws TimeoutException
+	 * @deprecated a new thread is started for every task: use {@link #execute(Runnable, long)} or {@link #call(Callable, long)}
+	 */
+	@Deprecated
+	public static void execute(final Thread task,final long timeout) throws TimeoutException {
+		task.start();
+		try {
+			task.join(timeout);
+		} catch (InterruptedException e) {
+			/* Interrupted */
+		}
+		if (task.isAlive()) {
+			task.interrupt();
+			TIMED_OUT_TASKS.incrementAndGet();
+			throw new TimeoutException();
+		}
+	}
+	/**
+	 * Runs the task at the shared pool and waits the given time
+	 * As when a new thread was started for every task, an exception thrown by the task is NOT propagated
+	 * to the caller: it's logged (use {@link #call(Callable, long)} to get it)
+	 * @param task
+	 * @param timeout
+	 * @throws TimeoutException if time is out and task is not finished
+	 */
+	public static void execute(final Runnable task,final long timeout) throws TimeoutException {
+		try {
+			TimeOutController.call(new Callable<Void>() {
+											@Override
+											public Void call() {
+												try {
+													task.run();
+												} catch (Throwable th) {
+													log.error("Timeout guarded task {} failed: {}",
+															  task,th.getMessage(),th);
+												}
+												return null;
+											}
+								   },
+								   timeout);
+		} catch (ExecutionException execEx) {
+			throw new IllegalStateException(execEx.getCause());		// cannot happen: the task does NOT throw
+		}
+	}
+	/**
+	 * Runs the task at the shared pool and waits the given time for the result
+	 * @param task
+	 * @param timeout
+	 * @return the task result
+	 * @throws TimeoutException if time is out and task is not finished (the task is cancelled)
+	 * @throws ExecutionException if the task threw an exception (it's the cause)
+	 */
+	public static <T> T call(final Callable<T> task,final long timeout) throws TimeoutException,
+																			   ExecutionException {
+		Future<T> future = _submit(task);
+		try {
+			return future.get(timeout,TimeUnit.MILLISECONDS);
+		} catch (java.util.concurrent.TimeoutException timeoutEx) {
+			future.cancel(true);		// interrupt the task
+			TIMED_OUT_TASKS.incrementAndGet();
+			throw new TimeoutException("The task did NOT finish in " + timeout + " millis");
+		} catch (InterruptedException intEx) {
+			future.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new TimeoutException("Interrupted while waiting for the task to finish");
+		}
+	}
+	/**
+	 * Runs the task at the shared pool WITHOUT blocking the caller
+	 * If the task does NOT finish in the given time, it's cancelled and the returned future is completed
+	 * with a {@link TimeoutException}
+	 * @param task
+	 * @param timeout
+	 * @return
+	 */
+	public static <T> CompletableFuture<T> callAsync(final Callable<T> task,final long timeout) {
+		final CompletableFuture<T> outFuture = new CompletableFuture<T>();
+		final Future<?> taskFuture;
+		try {
+			taskFuture = _submit(new Runnable() {
+										@Override
+										public void run() {
+											try {
+												outFuture.complete(task.call());
+											} catch (Throwable th) {
+												outFuture.completeExceptionally(th);
+											}
+										}
+								 });
+		} catch (TimeoutException rejectedEx) {
+			outFuture.completeExceptionally(rejectedEx);
+			return outFuture;
+		}
+		final ScheduledFuture<?> deadline = DEADLINE_SCHEDULER.schedule(new Runnable() {
+																				@Override
+																				public void run() {
+																					if (outFuture.completeExceptionally(new TimeoutException("The task did NOT finish in " + timeout + " millis"))) {
+																						taskFuture.cancel(true);
+																						TIMED_OUT_TASKS.incrementAndGet();
+																					}
+																				}
+																		 },
+																		 timeout,TimeUnit.MILLISECONDS);
+		// the deadline is NOT needed anymore once the task finishes
+		outFuture.whenComplete((result,th) -> deadline.cancel(false));
+		return outFuture;
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	METRICS
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * @return a snapshot of the shared pool metrics
+	 */
+	public static TimeOutControllerMetrics getMetrics() {
+		return new TimeOutControllerMetrics(EXECUTOR.getQueue().size(),
+											EXECUTOR.getActiveCount(),
+											EXECUTOR.getPoolSize(),
+											EXECUTOR.getCompletedTaskCount(),
+											TIMED_OUT_TASKS.get(),
+											REJECTED_TASKS.get());
+	}
+	/**
+	 * Shared pool metrics
+	 */
+	@Accessors(prefix="_")
+	@RequiredArgsConstructor
+	public static class TimeOutControllerMetrics {
+		@Getter private final int _queueDepth;				// tasks waiting for a thread
+		@Getter private final int _activeTasks;
+		@Getter private final int _poolSize;
+		@Getter private final long _completedTasks;
+		@Getter private final long _timedOutTasks;
+		@Getter private final long _rejectedTasks;			// tasks rejected because the queue was full
 
-        /** Create an instance */
-        public TimeoutException() {
-        }
-    }
+		@Override
+		public String toString() {
+			return "queue depth=" + _queueDepth + ", active=" + _activeTasks + ", pool size=" + _poolSize
+				 + ", completed=" + _completedTasks + ", timed out=" + _timedOutTasks + ", rejected=" + _rejectedTasks;
+		}
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	PRIVATE METHODS
+/////////////////////////////////////////////////////////////////////////////////////////
+	private static <T> Future<T> _submit(final Callable<T> task) throws TimeoutException {
+		try {
+			return EXECUTOR.submit(task);
+		} catch (RejectedExecutionException rejEx) {
+			REJECTED_TASKS.incrementAndGet();
+			throw new TimeoutException("The task could NOT be run: the timeout guard pool queue is full (" + EXECUTOR.getQueue().size() + " tasks waiting)");
+		}
+	}
+	private static Future<?> _submit(final Runnable task) throws TimeoutException {
+		return _submit(Executors.callable(task));
+	}
+	private static ThreadFactory _threadFactory(final String namePrefix) {
+		final AtomicInteger threadNum = new AtomicInteger();
+		return new DaemonThreadFactory(new ThreadFactory() {
+												@Override
+												public Thread newThread(final Runnable r) {
+													return new Thread(r,namePrefix + "-" + threadNum.incrementAndGet());
+												}
+									   });
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	EXCEPTION
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Signals that the task timed out.
+	 */
+	public static class TimeoutException
+				extends Exception {
+		private static final long serialVersionUID = 273515211929706600L;
+
+		/** Create an instance */
+		public TimeoutException() {
+		}
+		public TimeoutException(final String msg) {
+			super(msg);
+		}
+	}
 }
@@ -0,0 +1,165 @@
+package r01f.io;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * InputStream that replaces on the fly every occurrence of a byte pattern with a replacement
+ * The stream is NEVER fully loaded in memory: the underlying stream is read in blocks and only the bytes
+ * that could be the start of the pattern are kept between reads
+ * <pre class='brush:java'>
+ * 		@Cleanup InputStream is = new ByteReplacingInputStream(request.getInputStream(),
+ * 															   "localhost:8888".getBytes(StandardCharsets.UTF_8),
+ * 															   "appserver:8080".getBytes(StandardCharsets.UTF_8));
+ * </pre>
+ * BEWARE! the pattern is expected to be short (ie: a host name): every buffered position is compared against the whole pattern
+ */
+public class ByteReplacingInputStream
+     extends FilterInputStream {
+/////////////////////////////////////////////////////////////////////////////////////////
+//  CONSTANTS
+/////////////////////////////////////////////////////////////////////////////////////////
+	private static final int BUFFER_SIZE = 8 * 1024;
+/////////////////////////////////////////////////////////////////////////////////////////
+//  FIELDS
+/////////////////////////////////////////////////////////////////////////////////////////
+	private final byte[] _pattern;
+	private final byte[] _replacement;
+
+	/** The bytes read from the underlying stream: the ones between _bufferPos and _bufferLimit are NOT returned yet */
+	private final byte[] _buffer;
+	private int _bufferPos = 0;
+	private int _bufferLimit = 0;
+
+	/** The position of the next replacement byte to be returned (-1 if a replacement is NOT being returned) */
+	private int _replacementPos = -1;
+
+	/** True if the underlying stream end has been reached */
+	private boolean _eof = false;
+
+	/** Used by {@link #read()} */
+	private final byte[] _singleByte = new byte[1];
+/////////////////////////////////////////////////////////////////////////////////////////
+//  CONSTRUCTOR
+/////////////////////////////////////////////////////////////////////////////////////////
+	public ByteReplacingInputStream(final InputStream in,
+									final byte[] pattern,final byte[] replacement) {
+		super(in);
+		if (pattern == null || pattern.length == 0) throw new IllegalArgumentException("The pattern to be replaced cannot be empty!");
+		_pattern = pattern;
+		_replacement = replacement != null ? replacement : new byte[0];
+		_buffer = new byte[Math.max(BUFFER_SIZE,2 * pattern.length)];
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//  METHODS
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Override
+	public int read() throws IOException {
+		int n = this.read(_singleByte,0,1);
+		return n > 0 ? _singleByte[0] & 0xff : -1;
+	}
+	@Override
+	public int read(final byte[] b,final int off,final int len) throws IOException {
+		if (off < 0 || len < 0 || len > b.length - off) throw new IndexOutOfBoundsException();
+		if (len == 0) return 0;
+		int n = 0;
+		while (n < len) {
+			// [1] - a replacement is being returned
+			if (_replacementPos >= 0) {
+				int count = Math.min(_replacement.length - _replacementPos,len - n);
+				System.arraycopy(_replacement,_replacementPos,
+								 b,off + n,count);
+				n += count;
+				_replacementPos += count;
+				if (_replacementPos == _replacement.length) _replacementPos = -1;
+				continue;
+			}
+			// [2] - scan the buffered bytes: the ones at the last (pattern length - 1) positions
+			//		 could be the start of the pattern so they're NOT returned until more bytes are read (or eof)
+			int scanLimit = _eof ? _bufferLimit
+								 : _bufferLimit - _pattern.length + 1;
+			int scanEnd = Math.min(scanLimit,_bufferPos + (len - n));
+			int pos = _bufferPos;
+			boolean match = false;
+			while (pos < scanEnd) {
+				if (pos + _pattern.length <= _bufferLimit && _matchesPatternAt(pos)) {
+					match = true;
+					break;
+				}
+				pos++;
+			}
+			int count = pos - _bufferPos;
+			System.arraycopy(_buffer,_bufferPos,
+							 b,off + n,count);
+			n += count;
+			_bufferPos = pos;
+			if (match) {
+				_bufferPos += _pattern.length;
+				_replacementPos = 0;
+				continue;
+			}
+			if (n == len) break;
+
+			// [3] - the buffered bytes are NOT enough: read more
+			if (_eof) break;		// ... all the buffered bytes were returned
+			if (n > 0 && this.in.available() <= 0) break;		// do not block if some bytes are already returned
+			_fill();
+		}
+		return n > 0 ? n : -1;
+	}
+	@Override
+	public long skip(final long n) throws IOException {
+		if (n <= 0) return 0;
+		byte[] buffer = new byte[(int)Math.min(n,BUFFER_SIZE)];
+		long skipped = 0;
+		while (skipped < n) {
+			int count = this.read(buffer,0,(int)Math.min(n - skipped,buffer.length));
+			if (count < 0) break;
+			skipped += count;
+		}
+		return skipped;
+	}
+	@Override
+	public int available() throws IOException {
+		return _replacementPos >= 0 ? _replacement.length - _replacementPos
+									: 0;
+	}
+	@Override
+	public boolean markSupported() {
+		return false;
+	}
+	@Override
+	public synchronized void mark(final int readlimit) {
+		// not supported
+	}
+	@Override
+	public synchronized void reset() throws IOException {
+		throw new IOException("mark/reset NOT supported");
+	}
+	/**
+	 * Moves the pending bytes to the buffer start and reads from the underlying stream
+	 * (it blocks until some bytes are available)
+	 */
+	private void _fill() throws IOException {
+		int pending = _bufferLimit - _bufferPos;
+		if (_bufferPos > 0) {
+			System.arraycopy(_buffer,_bufferPos,
+							 _buffer,0,pending);
+			_bufferPos = 0;
+			_bufferLimit = pending;
+		}
+		int count = this.in.read(_buffer,_bufferLimit,_buffer.length - _bufferLimit);
+		if (count < 0) {
+			_eof = true;
+		} else {
+			_bufferLimit += count;
+		}
+	}
+	private boolean _matchesPatternAt(final int pos) {
+		for (int i = 0; i < _pattern.length; i++) {
+			if (_buffer[pos + i] != _pattern[i]) return false;
+		}
+		return true;
+	}
+}
@@ -0,0 +1,145 @@
+package r01f.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ByteReplacingInputStreamTest {
+/////////////////////////////////////////////////////////////////////////////////////////
+//	
+/////////////////////////////////////////////////////////////////////////////////////////
+	private static final String PATTERN = "localhost:8888";
+	private static final String REPLACEMENT = "appserver:8080";
+/////////////////////////////////////////////////////////////////////////////////////////
+//	
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Test
+	public void testReplace() throws IOException {
+		Assert.assertEquals("http://appserver:8080/a and http://appserver:8080/b",
+							_replace("http://localhost:8888/a and http://localhost:8888/b",
+									 PATTERN,REPLACEMENT,
+									 Integer.MAX_VALUE));
+		Assert.assertEquals("appserver:8080appserver:8080",
+							_replace("localhost:8888localhost:8888",
+									 PATTERN,REPLACEMENT,
+									 Integer.MAX_VALUE));
+	}
+	@Test
+	public void testReplaceWithShorterLongerAndEmptyReplacement() throws IOException {
+		Assert.assertEquals("[x]",
+							_replace("[localhost:8888]",PATTERN,"x",Integer.MAX_VALUE));
+		Assert.assertEquals("[a-much-longer-replacement-than-the-pattern]",
+							_replace("[localhost:8888]",PATTERN,"a-much-longer-replacement-than-the-pattern",Integer.MAX_VALUE));
+		Assert.assertEquals("[]",
+							_replace("[localhost:8888]",PATTERN,"",Integer.MAX_VALUE));
+	}
+	@Test
+	public void testMatchSplitAcrossReads() throws IOException {
+		String text = "http://localhost:8888/a and http://localhost:8888/b";
+		String expected = "http://appserver:8080/a and http://appserver:8080/b";
+		for (int chunkSize = 1; chunkSize <= text.length(); chunkSize++) {
+			Assert.assertEquals("chunk size=" + chunkSize,
+								expected,
+								_replace(text,PATTERN,REPLACEMENT,chunkSize));
+		}
+	}
+	@Test
+	public void testPartialMatchAtEof() throws IOException {
+		Assert.assertEquals("http://localhost:88",
+							_replace("http://localhost:88",PATTERN,REPLACEMENT,3));
+		Assert.assertEquals("localhost:888",
+							_replace("localhost:888",PATTERN,REPLACEMENT,Integer.MAX_VALUE));
+		Assert.assertEquals("l",
+							_replace("l",PATTERN,REPLACEMENT,1));
+		Assert.assertEquals("",
+							_replace("",PATTERN,REPLACEMENT,1));
+	}
+	@Test
+	public void testOverlappingPatternPrefix() throws IOException {
+		// the pattern start is repeated before the match
+		Assert.assertEquals("llocalhostappserver:8080",
+							_replace("llocalhostlocalhost:8888",PATTERN,REPLACEMENT,5));
+		Assert.assertEquals("aab",
+							_replace("aaaab","aa","a",1));
+	}
+	@Test
+	public void testBigStreamAcrossBufferBoundaries() throws IOException {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 5000; i++) {
+			sb.append("line ").append(i).append(" http://localhost:8888/path").append(i).append('\n');
+		}
+		String text = sb.toString();
+		String expected = text.replace(PATTERN,REPLACEMENT);
+		Assert.assertEquals(expected,_replace(text,PATTERN,REPLACEMENT,Integer.MAX_VALUE));
+		Assert.assertEquals(expected,_replace(text,PATTERN,REPLACEMENT,1000));
+		Assert.assertEquals(expected,_replace(text,PATTERN,REPLACEMENT,7));
+	}
+	@Test
+	public void testBulkReadDoesNotReturnByteByByteWhenNothingIsAvailable() throws IOException {
+		// a servlet-like stream: available() is always 0
+		byte[] data = "0123456789abcdefghij".getBytes(StandardCharsets.UTF_8);
+		InputStream is = new ByteReplacingInputStream(new ChunkedStream(data,10),
+													  PATTERN.getBytes(StandardCharsets.UTF_8),
+													  REPLACEMENT.getBytes(StandardCharsets.UTF_8));
+		byte[] buffer = new byte[100];
+		int n = is.read(buffer,0,buffer.length);
+		Assert.assertTrue("read " + n + " bytes",n > 1);
+		is.close();
+	}
+	@Test
+	public void testSingleByteReadAndSkip() throws IOException {
+		InputStream is = new ByteReplacingInputStream(new ChunkedStream("[localhost:8888]".getBytes(StandardCharsets.UTF_8),2),
+													  PATTERN.getBytes(StandardCharsets.UTF_8),
+													  "xyz".getBytes(StandardCharsets.UTF_8));
+		Assert.assertEquals('[',is.read());
+		Assert.assertEquals('x',is.read());
+		Assert.assertEquals(1,is.skip(1));
+		Assert.assertEquals('z',is.read());
+		Assert.assertEquals(']',is.read());
+		Assert.assertEquals(-1,is.read());
+		is.close();
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	
+/////////////////////////////////////////////////////////////////////////////////////////
+	private static String _replace(final String text,
+								   final String pattern,final String replacement,
+								   final int chunkSize) throws IOException {
+		InputStream is = new ByteReplacingInputStream(new ChunkedStream(text.getBytes(StandardCharsets.UTF_8),chunkSize),
+													  pattern.getBytes(StandardCharsets.UTF_8),
+													  replacement.getBytes(StandardCharsets.UTF_8));
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		byte[] buffer = new byte[37];		// an odd size so the reads do NOT align with the chunks
+		int n;
+		while ((n = is.read(buffer)) >= 0) {
+			os.write(buffer,0,n);
+		}
+		is.close();
+		return new String(os.toByteArray(),StandardCharsets.UTF_8);
+	}
+	/**
+	 * Returns at most chunkSize bytes at every read and nothing as available (like a servlet request stream)
+	 */
+	private static class ChunkedStream
+		         extends ByteArrayInputStream {
+		private final int _chunkSize;
+
+		ChunkedStream(final byte[] data,final int chunkSize) {
+			super(data);
+			_chunkSize = chunkSize;
+		}
+		@Override
+		public synchronized int read(final byte[] b,final int off,final int len) {
+			return super.read(b,off,Math.min(len,_chunkSize));
+		}
+		@Override
+		public synchronized int available() {
+			return 0;
+		}
+	}
+}
@@ -23,6 +23,7 @@ import com.google.common.annotations.GwtIncompatible;
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
 import com.google.common.collect.FluentIterable;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
 import com.google.common.reflect.TypeToken;
 import com.google.common.reflect.TypeToken.TypeSet;
@@ -36,6 +37,8 @@ import r01f.model.metadata.annotations.MetaDataForType;
 import r01f.model.metadata.annotations.ModelObjectData;
 import r01f.reflection.ReflectionUtils;
 import r01f.reflection.outline.TypeOutline;
+import r01f.reflection.scanner.ClasspathIndex;
+import r01f.reflection.scanner.ScanResultsCache;
 import r01f.reflection.scanner.ScannerFilter;
 import r01f.types.CanBeRepresentedAsString;
 import r01f.types.JavaPackage;
@@ -86,6 +89,10 @@ public class TypeMetaDataInspector
 
 	@Getter private final Map<JavaPackage,Boolean> _initialized = Maps.newHashMapWithExpectedSize(2);
 
+	/**
+	 * The @ModelObjectData annotated types found at every package by classloader (the classpath is only scanned once)
+	 */
+	private static final ScanResultsCache<JavaPackage,Set<Class<?>>> MODEL_OBJ_TYPES_BY_PACKAGE = new ScanResultsCache<JavaPackage,Set<Class<?>>>(64);
 /////////////////////////////////////////////////////////////////////////////////////////
 //
 /////////////////////////////////////////////////////////////////////////////////////////
@@ -94,10 +101,25 @@ public class TypeMetaDataInspector
 														  									   appCode)));
 	}
 	public static Reflections buildAnnotationsScanner(final JavaPackage pckg) {
+		return TypeMetaDataInspector.buildAnnotationsScanner(pckg,
+															 null);		// all the roots
+	}
+	/**
+	 * Builds a scanner for the given package at the classpath roots (jars or classes dirs) accepted by the given filter
+	 * (ie: the roots without a {@link ClasspathIndex}: see {@link ClasspathIndex#notIndexedRoots()})
+	 * @param pckg
+	 * @param rootsFilter
+	 * @return the scanner or null if there's NO root to be scanned
+	 */
+	public static Reflections buildAnnotationsScanner(final JavaPackage pckg,
+													  final Predicate<URL> rootsFilter) {
 		String modelObjPackage = pckg.asString();
 
 		List<URL> modelObjTypesUrl = new ArrayList<URL>();
-		modelObjTypesUrl.addAll(ClasspathHelper.forPackage(modelObjPackage));	// xxx.model.*
+		for (URL root : ClasspathHelper.forPackage(modelObjPackage)) {	// xxx.model.*
+			if (rootsFilter == null || rootsFilter.apply(root)) modelObjTypesUrl.add(root);
+		}
+		if (rootsFilter != null && modelObjTypesUrl.isEmpty()) return null;
 		Reflections ref = new Reflections(new ConfigurationBuilder()
 													.setUrls(// org.reflections.ClasspathHelper seems to return ONLY the jar or path containing the given package
 															 // ... so the package MUST be added back to the url to minimize scan time and unneeded class loading
@@ -120,6 +142,37 @@ public class TypeMetaDataInspector
 																 new TypeAnnotationsScanner()));
 		return ref;
 	}
+	/**
+	 * Finds all the @ModelObjectData annotated types (or their sub-types) at the given package
+	 * The build-time {@link ClasspathIndex} is used for the classpath roots (jars or classes dirs) that contain an index;
+	 * the roots without an index are scanned
+	 * @param pckg
+	 * @return
+	 */
+	public static Set<Class<?>> findModelObjectTypesAt(final JavaPackage pckg) {
+		ClassLoader classLoader = ScanResultsCache.classLoaderOrDefault(null);	// the thread context classloader
+		Set<Class<?>> outTypes = MODEL_OBJ_TYPES_BY_PACKAGE.get(classLoader,pckg);
+		if (outTypes != null) return outTypes;
+
+		ClasspathIndex index = ClasspathIndex.forClassLoader(classLoader);
+		if (index.isEmpty()) {
+			Reflections reflections = TypeMetaDataInspector.buildAnnotationsScanner(pckg);
+			outTypes = reflections.getTypesAnnotatedWith(ModelObjectData.class);
+		} else {
+			log.info("Finding model objects at {} using the classpath index",pckg);
+			// the annotated types and direct sub-types found at the roots without an index are merged with the indexed ones
+			// BEFORE computing the closure (a model object hierarchy might span indexed and NOT indexed roots)
+			Reflections reflections = TypeMetaDataInspector.buildAnnotationsScanner(pckg,
+																					index.notIndexedRoots());	// only scan the roots without an index
+			outTypes = index.typesAnnotatedWith(ModelObjectData.class,false,	// do not honor inherited (as org.reflections' getTypesAnnotatedWith does)
+												ImmutableSet.of(pckg),ScannerFilter.DEFAULT_TYPE_FILTER,
+												classLoader,
+												reflections);
+		}
+		outTypes = ImmutableSet.copyOf(outTypes);
+		MODEL_OBJ_TYPES_BY_PACKAGE.put(classLoader,pckg,outTypes);
+		return outTypes;
+	}
 /////////////////////////////////////////////////////////////////////////////////////////
 //
 /////////////////////////////////////////////////////////////////////////////////////////
@@ -156,8 +209,7 @@ public class TypeMetaDataInspector
 		}
 
 		// [1] - Find every type annotated with ModelObjectData
-		Reflections reflections = TypeMetaDataInspector.buildAnnotationsScanner(pckg);
-		Set<Class<?>> modelObjTypes = reflections.getTypesAnnotatedWith(ModelObjectData.class);
+		Set<Class<?>> modelObjTypes = TypeMetaDataInspector.findModelObjectTypesAt(pckg);
 
 		// [2] - For every found type, look at the @ModelObjectData annotation and load the ModelObjectMetaData
 		if (CollectionUtils.hasData(modelObjTypes)) {
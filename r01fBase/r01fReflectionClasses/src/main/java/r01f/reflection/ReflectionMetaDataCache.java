@@ -0,0 +1,429 @@
+package r01f.reflection;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Per-type reflection metadata cache
+ * <p>
+ * Walking a type hierarchy calling getDeclaredFields() / getDeclaredMethods() / getDeclaredField()... is expensive
+ * (every call copies the reflection objects and a lookup miss throws an exception), so the type's fields, methods and
+ * constructors are resolved ONCE and held in a {@link ClassValue} (that does NOT prevent the type from being unloaded).
+ * </p>
+ * <p>
+ * Member access is done through {@link MethodHandle}s created once by member and adapted to generic signatures:
+ * <ul>
+ * 		<li>field getter: (Object)Object</li>
+ * 		<li>field setter: (Object,Object)void</li>
+ * 		<li>method invoker: (Object,Object[])Object</li>
+ * 		<li>constructor invoker: (Object[])Object</li>
+ * </ul>
+ * so they can be called using {@link MethodHandle#invokeExact(Object...)} without the {@link Method#invoke(Object, Object...)}
+ * access checks and argument boxing into a new array.
+ * </p>
+ * BEWARE! the returned reflection objects ({@link Field}, {@link Method}...) are SHARED: their accessible flag MUST NOT be reset
+ * and the returned arrays and maps MUST NOT be modified
+ */
+@Slf4j
+public final class ReflectionMetaDataCache {
+/////////////////////////////////////////////////////////////////////////////////////////
+//  CONSTANTS
+/////////////////////////////////////////////////////////////////////////////////////////
+	private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class,Object.class);
+	private static final MethodType SETTER_TYPE = MethodType.methodType(void.class,Object.class,Object.class);
+	private static final Class<?>[] NO_PARAMS = new Class<?>[0];
+/////////////////////////////////////////////////////////////////////////////////////////
+//  CACHE
+/////////////////////////////////////////////////////////////////////////////////////////
+	private static final ClassValue<TypeMetaData> TYPE_METADATA = new ClassValue<TypeMetaData>() {
+																		@Override
+																		protected TypeMetaData computeValue(final Class<?> type) {
+																			return new TypeMetaData(type);
+																		}
+																  };
+/////////////////////////////////////////////////////////////////////////////////////////
+//  CONSTRUCTOR
+/////////////////////////////////////////////////////////////////////////////////////////
+	private ReflectionMetaDataCache() {
+		// no instances
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//  FIELDS
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Returns all the type's fields indexed by name going through all the type's hierarchy
+	 * (the fields at the base types override the ones with the same name at the sub-types)
+	 * @param type
+	 * @return an UNMODIFIABLE map
+	 */
+	public static Map<String,Field> allFieldsMap(final Class<?> type) {
+		return TYPE_METADATA.get(type).getAllFieldsMap();
+	}
+	/**
+	 * Returns all the fields declared at the type's hierarchy (the type's fields first)
+	 * BEWARE! the returned array is shared: do NOT modify it
+	 * @param type
+	 * @return
+	 */
+	static Field[] declaredFieldsInHierarchy(final Class<?> type) {
+		return TYPE_METADATA.get(type).getDeclaredFieldsInHierarchy();
+	}
+	/**
+	 * Returns the type's field with the given name (the first one found from the type up to it's base types)
+	 * @param type
+	 * @param fieldName
+	 * @return the field or null if it does NOT exists
+	 */
+	public static Field fieldOrNull(final Class<?> type,final String fieldName) {
+		return TYPE_METADATA.get(type).getFieldsByName()
+									  .get(fieldName);
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//  METHODS
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Returns all the methods declared at the type's hierarchy (excluding {@link Object})
+	 * BEWARE! the returned array is shared: do NOT modify it
+	 * @param type
+	 * @return
+	 */
+	static Method[] allMethods(final Class<?> type) {
+		return TYPE_METADATA.get(type).getAllMethods();
+	}
+	/**
+	 * Returns the method with the given name and param types (the first one found from the type up to it's base types INCLUDING {@link Object})
+	 * @param type
+	 * @param methodName
+	 * @param paramTypes
+	 * @return the method or null if it does NOT exists
+	 */
+	public static Method methodOrNull(final Class<?> type,
+									  final String methodName,final Class<?>... paramTypes) {
+		return TYPE_METADATA.get(type).methodOrNull(methodName,paramTypes);
+	}
+	/**
+	 * Returns a method with the given name regardless of it's param types
+	 * BEWARE! as {@link ReflectionUtils#methodNotMatchingParamTypes(Class, String)} always did, if there are
+	 * 		   many methods with the same name at the type hierarchy, the FIRST one declared at the top-most type is returned
+	 * @param type
+	 * @param methodName
+	 * @return the method or null if it does NOT exists
+	 */
+	static Method methodByNameOrNull(final Class<?> type,
+									 final String methodName) {
+		return TYPE_METADATA.get(type).methodByNameOrNull(methodName);
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//  CONSTRUCTORS
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Returns the type's constructor with the given param types
+	 * @param type
+	 * @param paramTypes
+	 * @return the constructor or null if it does NOT exists
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> Constructor<T> constructorOrNull(final Class<T> type,
+													   final Class<?>... paramTypes) {
+		return (Constructor<T>)TYPE_METADATA.get(type).constructorOrNull(paramTypes);
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//  METHOD HANDLES
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Returns a (Object)Object {@link MethodHandle} that gets the field value
+	 * (if the field is static the param is ignored)
+	 * <pre class='brush:java'>
+	 * 		Object value = (Object)ReflectionMetaDataCache.fieldGetter(field).invokeExact(obj);
+	 * </pre>
+	 * @param field
+	 * @return
+	 */
+	public static MethodHandle fieldGetter(final Field field) {
+		return TYPE_METADATA.get(field.getDeclaringClass())
+							.handleFor(field,false);
+	}
+	/**
+	 * Returns a (Object,Object)void {@link MethodHandle} that sets the field value
+	 * (if the field is static the first param is ignored)
+	 * <pre class='brush:java'>
+	 * 		ReflectionMetaDataCache.fieldSetter(field).invokeExact(obj,value);
+	 * </pre>
+	 * @param field
+	 * @return the handle or null if the field cannot be set using a method handle (ie: final fields)
+	 */
+	public static MethodHandle fieldSetter(final Field field) {
+		return TYPE_METADATA.get(field.getDeclaringClass())
+							.handleFor(field,true);
+	}
+	/**
+	 * Returns a (Object,Object[])Object {@link MethodHandle} that invokes the method
+	 * (if the method is static the first param is ignored; if the method is void it returns null)
+	 * <pre class='brush:java'>
+	 * 		Object returned = (Object)ReflectionMetaDataCache.methodInvoker(method).invokeExact(obj,args);
+	 * </pre>
+	 * @param method
+	 * @return
+	 */
+	public static MethodHandle methodInvoker(final Method method) {
+		return TYPE_METADATA.get(method.getDeclaringClass())
+							.handleFor(method,false);
+	}
+	/**
+	 * Returns a (Object[])Object {@link MethodHandle} that invokes the constructor
+	 * <pre class='brush:java'>
+	 * 		Object instance = (Object)ReflectionMetaDataCache.constructorInvoker(constructor).invokeExact(args);
+	 * </pre>
+	 * @param constructor
+	 * @return
+	 */
+	public static MethodHandle constructorInvoker(final Constructor<?> constructor) {
+		return TYPE_METADATA.get(constructor.getDeclaringClass())
+							.handleFor(constructor,false);
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//  ARGUMENTS CHECK
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Checks if the given arguments can be passed to a method or constructor invoker handle
+	 * (a handle would fail with a {@link ClassCastException} or {@link NullPointerException} where
+	 * {@link Method#invoke(Object, Object...)} throws an {@link IllegalArgumentException}, so if the
+	 * arguments do NOT match, the reflective invocation should be used)
+	 * @param paramTypes
+	 * @param args
+	 * @return
+	 */
+	public static boolean argsMatch(final Class<?>[] paramTypes,final Object[] args) {
+		int argCount = args != null ? args.length : 0;
+		if (paramTypes.length != argCount) return false;
+		for (int i = 0; i < argCount; i++) {
+			Class<?> paramType = paramTypes[i];
+			Object arg = args[i];
+			if (arg == null) {
+				if (paramType.isPrimitive()) return false;
+			} else if (!_wrapperOf(paramType).isInstance(arg)) {
+				return false;
+			}
+		}
+		return true;
+	}
+	private static Class<?> _wrapperOf(final Class<?> type) {
+		if (!type.isPrimitive()) return type;
+		if (type == int.class) return Integer.class;
+		if (type == long.class) return Long.class;
+		if (type == boolean.class) return Boolean.class;
+		if (type == double.class) return Double.class;
+		if (type == float.class) return Float.class;
+		if (type == short.class) return Short.class;
+		if (type == byte.class) return Byte.class;
+		if (type == char.class) return Character.class;
+		return Void.class;
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//  TYPE METADATA
+/////////////////////////////////////////////////////////////////////////////////////////
+	private static final class TypeMetaData {
+		private final Class<?> _type;
+		// Resolved when the metadata is created (the fields are the most used)
+		private final Field[] _declaredFieldsInHierarchy;
+		private final Map<String,Field> _allFieldsMap;
+		private final Map<String,Field> _fieldsByName;
+		// Lazily resolved
+		private volatile Method[] _allMethods;
+		private final ConcurrentMap<MemberKey,Object> _methods = new ConcurrentHashMap<MemberKey,Object>();
+		private final ConcurrentMap<String,Object> _methodsByName = new ConcurrentHashMap<String,Object>();
+		private final ConcurrentMap<MemberKey,Object> _constructors = new ConcurrentHashMap<MemberKey,Object>();
+		private final ConcurrentMap<Member,Object> _getterHandles = new ConcurrentHashMap<Member,Object>();
+		private final ConcurrentMap<Member,Object> _setterHandles = new ConcurrentHashMap<Member,Object>();
+
+		TypeMetaData(final Class<?> type) {
+			_type = type;
+			List<Field> declaredFields = new ArrayList<Field>();
+			Map<String,Field> allFieldsMap = new LinkedHashMap<String,Field>();		// order!!!
+			Map<String,Field> fieldsByName = new ConcurrentHashMap<String,Field>();
+			for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+				for (Field f : c.getDeclaredFields()) {
+					declaredFields.add(f);
+					allFieldsMap.put(f.getName(),f);
+					if (!fieldsByName.containsKey(f.getName())) fieldsByName.put(f.getName(),f);
+				}
+			}
+			_declaredFieldsInHierarchy = declaredFields.toArray(new Field[declaredFields.size()]);
+			_allFieldsMap = Collections.unmodifiableMap(allFieldsMap);
+			_fieldsByName = fieldsByName;
+		}
+		Field[] getDeclaredFieldsInHierarchy() {
+			return _declaredFieldsInHierarchy;
+		}
+		Map<String,Field> getAllFieldsMap() {
+			return _allFieldsMap;
+		}
+		Map<String,Field> getFieldsByName() {
+			return _fieldsByName;
+		}
+		Method[] getAllMethods() {
+			Method[] outMethods = _allMethods;
+			if (outMethods == null) {
+				List<Method> methods = new ArrayList<Method>();
+				for (Class<?> c = _type; c != null && c != Object.class; c = c.getSuperclass()) {
+					methods.addAll(Arrays.asList(c.getDeclaredMethods()));
+				}
+				outMethods = methods.toArray(new Method[methods.size()]);
+				_allMethods = outMethods;
+			}
+			return outMethods;
+		}
+		Method methodOrNull(final String methodName,final Class<?>[] paramTypes) {
+			MemberKey key = new MemberKey(methodName,paramTypes);
+			Object outMethod = _methods.get(key);
+			if (outMethod == null) {
+				outMethod = NOT_FOUND;
+				for (Class<?> c = _type; c != null; c = c.getSuperclass()) {
+					try {
+						outMethod = c.getDeclaredMethod(methodName,key.getParamTypes());
+						break;
+					} catch (NoSuchMethodException nsmEx) {
+						/* Ignore */
+					}
+				}
+				_methods.putIfAbsent(key.copy(),outMethod);
+			}
+			return outMethod != NOT_FOUND ? (Method)outMethod : null;
+		}
+		Method methodByNameOrNull(final String methodName) {
+			Object outMethod = _methodsByName.get(methodName);
+			if (outMethod == null) {
+				outMethod = NOT_FOUND;
+				for (Method m : this.getAllMethods()) {		// the first one declared at every type; the top-most type wins
+					if (!m.getName().equals(methodName)) continue;
+					if (outMethod == NOT_FOUND
+					 || ((Method)outMethod).getDeclaringClass() != m.getDeclaringClass()) outMethod = m;
+				}
+				_methodsByName.putIfAbsent(methodName,outMethod);
+			}
+			return outMethod != NOT_FOUND ? (Method)outMethod : null;
+		}
+		Constructor<?> constructorOrNull(final Class<?>[] paramTypes) {
+			MemberKey key = new MemberKey("<init>",paramTypes);
+			Object outConstructor = _constructors.get(key);
+			if (outConstructor == null) {
+				try {
+					outConstructor = _type.getDeclaredConstructor(key.getParamTypes());
+				} catch (NoSuchMethodException nsmEx) {
+					outConstructor = NOT_FOUND;
+				}
+				_constructors.putIfAbsent(key.copy(),outConstructor);
+			}
+			return outConstructor != NOT_FOUND ? (Constructor<?>)outConstructor : null;
+		}
+		MethodHandle handleFor(final Member member,final boolean setter) {
+			ConcurrentMap<Member,Object> handles = setter ? _setterHandles : _getterHandles;
+			Object outHandle = handles.get(member);
+			if (outHandle == null) {
+				outHandle = _createHandle(member,setter);
+				handles.putIfAbsent(member,outHandle);
+			}
+			return outHandle != NOT_FOUND ? (MethodHandle)outHandle : null;
+		}
+		private Object _createHandle(final Member member,final boolean setter) {
+			try {
+				// BEWARE! the handle is created using a private copy of the member so
+				// 		   the caller's member accessible flag is NOT modified
+				boolean isStatic = Modifier.isStatic(member.getModifiers());
+				MethodHandles.Lookup lookup = MethodHandles.lookup();
+				MethodHandle handle = null;
+				if (member instanceof Field) {
+					Field field = _type.getDeclaredField(member.getName());
+					ReflectionUtils.makeAccessible(field);
+					if (setter) {
+						handle = lookup.unreflectSetter(field);
+						if (isStatic) handle = MethodHandles.dropArguments(handle,0,Object.class);
+						handle = handle.asType(SETTER_TYPE);
+					} else {
+						handle = lookup.unreflectGetter(field);
+						if (isStatic) handle = MethodHandles.dropArguments(handle,0,Object.class);
+						handle = handle.asType(GETTER_TYPE);
+					}
+				} else if (member instanceof Method) {
+					Method method = _type.getDeclaredMethod(member.getName(),((Method)member).getParameterTypes());
+					ReflectionUtils.makeAccessible(method);
+					int paramCount = method.getParameterTypes().length;
+					handle = lookup.unreflect(method)
+								   .asFixedArity();
+					if (isStatic) handle = MethodHandles.dropArguments(handle,0,Object.class);
+					handle = handle.asType(MethodType.genericMethodType(paramCount + 1))
+								   .asSpreader(Object[].class,paramCount);
+				} else if (member instanceof Constructor) {
+					Constructor<?> constructor = _type.getDeclaredConstructor(((Constructor<?>)member).getParameterTypes());
+					ReflectionUtils.makeAccessible(constructor);
+					int paramCount = constructor.getParameterTypes().length;
+					handle = lookup.unreflectConstructor(constructor)
+								   .asFixedArity()
+								   .asType(MethodType.genericMethodType(paramCount))
+								   .asSpreader(Object[].class,paramCount);
+				}
+				return handle != null ? handle : NOT_FOUND;
+			} catch (Throwable th) {
+				// ie: final fields cannot be set using a method handle
+				log.trace("Cannot create a method handle for {}: {}",member,th.getMessage());
+				return NOT_FOUND;
+			}
+		}
+	}
+	/**
+	 * Marks a member that does NOT exists (a {@link ConcurrentHashMap} cannot store nulls)
+	 */
+	private static final Object NOT_FOUND = new Object();
+	/**
+	 * A method or constructor lookup key
+	 */
+	private static final class MemberKey {
+		private final String _name;
+		private final Class<?>[] _paramTypes;
+		private final int _hashCode;
+
+		MemberKey(final String name,final Class<?>[] paramTypes) {
+			_name = name;
+			_paramTypes = paramTypes != null ? paramTypes : NO_PARAMS;
+			_hashCode = 31 * name.hashCode() + Arrays.hashCode(_paramTypes);
+		}
+		Class<?>[] getParamTypes() {
+			return _paramTypes;
+		}
+		/**
+		 * The stored keys hold their own copy of the param types array (the caller might modify it)
+		 * @return
+		 */
+		MemberKey copy() {
+			return new MemberKey(_name,_paramTypes.clone());
+		}
+		@Override
+		public int hashCode() {
+			return _hashCode;
+		}
+		@Override
+		public boolean equals(final Object obj) {
+			if (this == obj) return true;
+			if (!(obj instanceof MemberKey)) return false;
+			MemberKey other = (MemberKey)obj;
+			return _name.equals(other._name)
+				&& Arrays.equals(_paramTypes,other._paramTypes);
+		}
+	}
+}
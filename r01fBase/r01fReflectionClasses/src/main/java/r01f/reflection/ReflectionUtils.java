@@ -1,6 +1,7 @@
 package r01f.reflection;
 
 import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.AccessibleObject;
 import java.lang.reflect.Array;
 import java.lang.reflect.Constructor;
@@ -624,7 +625,7 @@ public class ReflectionUtils {
 /////////////////////////////////////////////////////////////////////////////////////////
 //  OBJECT BUILDING METHODS
 /////////////////////////////////////////////////////////////////////////////////////////
-	private static final Object[] EMPTY_OBJECT_ARRAY = new Object[0];
+	public static final Object[] EMPTY_OBJECT_ARRAY = new Object[0];
 	private static final Class<?>[]  EMPTY_CLASS_ARRAY  = new Class<?>[0];
 	/**
 	 * Returns an instance of a generic type from it's fully qualified name (name including package)
@@ -715,8 +716,25 @@ public class ReflectionUtils {
 																		constructorArgsTypes,
 																		force);
 			if (constructor != null) {
-				newObj = constructor.newInstance(constructorArgs != null ? constructorArgs
-											   						  	 : new Object[] {});
+				Object[] args = constructorArgs != null ? constructorArgs
+											   			: EMPTY_OBJECT_ARRAY;
+				// the instance is created using a cached method handle (see ReflectionMetaDataCache) BUT
+				// only if the constructor is accessible (the handle by-passes the access checks) and the
+				// args match the constructor params (otherwise newInstance throws the expected exceptions)
+				boolean accessible = force
+								  || (Modifier.isPublic(constructor.getModifiers()) && Modifier.isPublic(type.getModifiers()));
+				MethodHandle constructorInvoker = accessible && ReflectionMetaDataCache.argsMatch(constructor.getParameterTypes(),args)
+														? ReflectionMetaDataCache.constructorInvoker(constructor)
+														: null;
+				if (constructorInvoker != null) {
+					try {
+						newObj = (Object)constructorInvoker.invokeExact(args);
+					} catch (Throwable th) {
+						throw new InvocationTargetException(th);	// same as newInstance
+					}
+				} else {
+					newObj = constructor.newInstance(args);
+				}
 			} else {
 				throw ReflectionException.noConstructorException(type,constructorArgsTypes);
 			}
@@ -826,19 +844,19 @@ public class ReflectionUtils {
 	public static Constructor<?> getConstructor(final Class<?> type,
 												final Class<?>[] constructorArgsTypes,
 												final boolean force) {
-		Constructor<?> constructor = null;
-		try {
-//			constructor = ConstructorUtils.getAccessibleConstructor(type,(constructorArgsTypes != null ? constructorArgsTypes
-//																									   : new Class<?>[] {}));
-//			if (constructor == null && force) {
-				constructor = type.getDeclaredConstructor(constructorArgsTypes != null ? constructorArgsTypes
-																					   : new Class<?>[] {}); 	// Constructor
-				if (force) ReflectionUtils.makeAccessible(constructor);	  // Hacer accesible el constructor vacio
-//			}
-		} catch (NoSuchMethodException nsmEx) {
-			/* the constructor does NOT exists */
+		// the constructor is resolved once (see ReflectionMetaDataCache)
+		Constructor<?> constructor = ReflectionMetaDataCache.constructorOrNull(type,
+																			   constructorArgsTypes);
+		if (constructor != null && force) {
+			// BEWARE! the cached constructor is shared: an accessible copy is returned
+			try {
+				constructor = type.getDeclaredConstructor(constructor.getParameterTypes());
+			} catch (NoSuchMethodException nsmEx) {
+				throw ReflectionException.of(nsmEx);
+			}
+			ReflectionUtils.makeAccessible(constructor);	  // Hacer accesible el constructor vacio
 		}
-		 return constructor;
+		return constructor;
 	}
 	/**
 	 * Finds a constructor that suits the provided params given that they can not be in the 
@@ -895,13 +913,9 @@ public class ReflectionUtils {
 	 * @return un array de objetos {@link Method} con la definicion de los metodos
 	 */
 	public static Method[] allMethods(final Class<?> type) {
-		List<Method> methods = new ArrayList<Method>();
-		for (Class<?> c = type; c != Object.class; c = c.getSuperclass()) {
-			Method[] declaredMethods = c.getDeclaredMethods();
-			if (declaredMethods != null)  methods.addAll(Arrays.asList(declaredMethods));
-		}
-		Method[] outMethods = new Method[methods.size()];
-		return methods.toArray(outMethods);
+		// the methods are resolved once (see ReflectionMetaDataCache)
+		return ReflectionMetaDataCache.allMethods(type)
+									  .clone();
 	}
 	/**
 	 * Devuelve un metodo ESTATICO de una clase
@@ -972,20 +986,10 @@ public class ReflectionUtils {
 	 */
 	public static Method methodMatchingParamTypes(final Class<?> type,
 									  			  final String methodName,final Class<?>... paramTypes) {
-		Method outMethod = null;
-		for (Class<?> t = type; t != Object.class; t = t.getSuperclass()) {
-			if (t == null) break;
-			try  {
-				Method m = t.getDeclaredMethod(methodName,paramTypes != null ? paramTypes
-																			 : new Class[] {});
-				if (m != null) {
-					outMethod = m;
-					break;
-				}
-			} catch (NoSuchMethodException nsmEx) {
-				/* Ignore */
-			}
-		}
+		// the method is resolved once (see ReflectionMetaDataCache)
+		Method outMethod = ReflectionMetaDataCache.methodOrNull(type,
+																methodName,paramTypes);
+		if (outMethod != null && outMethod.getDeclaringClass() == Object.class) outMethod = null;	// Object's methods are NOT taken into account
 		return outMethod;
 	}
 	/**
@@ -998,18 +1002,9 @@ public class ReflectionUtils {
 	 */
 	public static Method methodNotMatchingParamTypes(final Class<?> type,
 													 final String methodName) {
-		Method outMethod = null;
-		for (Class<?> t = type; t != Object.class; t = t.getSuperclass()) {
-			if (t == null) break;
-			Method[] methods = t.getDeclaredMethods();
-			for (Method m : methods) {
-				if (m.getName().equals(methodName)) {
-					outMethod = m;
-					break;
-				}
-			}
-		}
-		return outMethod;
+		// the method is resolved once (see ReflectionMetaDataCache)
+		return ReflectionMetaDataCache.methodByNameOrNull(type,
+														  methodName);
 	}
 	/**
 	 * Invokes a method on a given object
@@ -1025,9 +1020,22 @@ public class ReflectionUtils {
 																								 (method != null ? method : "null"),
 																								 (obj != null ? obj.getClass() : "null")));
 		try {
+			// the method is invoked using a cached method handle (see ReflectionMetaDataCache)
+			// (if the args do NOT match the method params, Method.invoke throws the expected IllegalArgumentException)
+			Object[] args = argValues != null ? argValues : EMPTY_OBJECT_ARRAY;
+			MethodHandle methodInvoker = ReflectionMetaDataCache.argsMatch(method.getParameterTypes(),args)
+												? ReflectionMetaDataCache.methodInvoker(method)
+												: null;
+			if (methodInvoker != null) {
+				try {
+					return (T)(Object)methodInvoker.invokeExact(obj,args);	 // Invocar al metodo sobre el objeto
+				} catch (Throwable th) {
+					throw new InvocationTargetException(th);	// same as Method.invoke
+				}
+			}
+			
 			ReflectionUtils.makeAccessible(method);	// Ensure the method is accessible
-			return (T)method.invoke(obj,
-									(argValues != null ? argValues : new Object[] {}));	 // Invocar al metodo sobre el objeto
+			return (T)method.invoke(obj,args);
 		} catch (Throwable th) {
 			throw ReflectionException.of(th); 
 		}
@@ -1109,15 +1117,8 @@ public class ReflectionUtils {
 		//			 class.getDeclaredFields() returns public and private fields declared 
 		//									   at the type (ignoring inheritance hierarchy)
 		if (ReflectionUtils.isInterface(type)) return null;
-		Map<String,Field> fields = Maps.newLinkedHashMap();		// order!!!
-		for (Class<?> c = type; c != Object.class; c = c.getSuperclass()) {
-			Field[] declaredFields = c.getDeclaredFields();
-			if (declaredFields != null && declaredFields.length > 0) {
-				for (int i=0; i < declaredFields.length; i++) {
-					fields.put(declaredFields[i].getName(),declaredFields[i]);
-				}
-			}
-		}
+		// the fields are resolved once (see ReflectionMetaDataCache): the returned map is a copy that can be modified
+		Map<String,Field> fields = Maps.newLinkedHashMap(ReflectionMetaDataCache.allFieldsMap(type));		// order!!!
 		return fields;
 	}
 	/**
@@ -1230,16 +1231,8 @@ public class ReflectionUtils {
 	public static Field fieldOrNull(final Class<?> type,final String fieldName) {
 		// PROBLEM:	class.getFields()		 	returns ONLY public fields
 		//			  class.getDeclaredFields() 	returns public fields and private fields in the type (ignoring the super-types)
-		Field outField = null;
-		for (Class<?> c = type; c != Object.class; c = c.getSuperclass()) {
-			try {
-				outField = c.getDeclaredField(fieldName);
-				break;
-			} catch (NoSuchFieldException nsfEx) {
-				/* Ignore */
-			}
-		}
-		return outField;
+		// the field is resolved once (see ReflectionMetaDataCache)
+		return ReflectionMetaDataCache.fieldOrNull(type,fieldName);
 	}
 	/**
 	 * Gets an object's field DEFINITION looking at all the object's hierarchy 
@@ -1336,11 +1329,9 @@ public class ReflectionUtils {
 		// PROBLEMA:	class.getFields()		 devuelve solo miembros PUBLICOS
 		//			  class.getDeclaredFields() devuelve miembros publicos y privados declarados
 		//										en la propia clase (ignora la herencia)
-		for (Class<?> c = type; c != Object.class; c = c.getSuperclass()) {
-			for (Field f : c.getDeclaredFields()) {
-				if (f.getName().startsWith("ajc$")) continue;	// Obviar campos inyectados por AspectJ
-				if (predicate.apply(f)) outFields.add(f);
-			}
+		for (Field f : ReflectionMetaDataCache.declaredFieldsInHierarchy(type)) {
+			if (f.getName().startsWith("ajc$")) continue;	// Obviar campos inyectados por AspectJ
+			if (predicate.apply(f)) outFields.add(f);
 		}
 		return outFields != null && outFields.size() > 0 ? outFields.toArray(new Field[outFields.size()]) 
 														 : new Field[] {};
@@ -1431,10 +1422,11 @@ public class ReflectionUtils {
 		Field memberField = ReflectionUtils.fieldOrNull(type,fieldName,true);
 		if (memberField != null) {
 			try {
-				memberField.set( obj,value );
-			} catch (IllegalArgumentException illArgEx) {
+				_setFieldValue(memberField,
+							   obj,value);
+			} catch (IllegalArgumentException | ClassCastException illArgEx) {
 				throw ReflectionException.illegalArgumentException(memberField.getType(),
-																   value.getClass()); 
+																   value != null ? value.getClass() : null); 
 			} catch (Throwable th) {
 				throw ReflectionException.of(th);							
 			}  
@@ -1442,6 +1434,39 @@ public class ReflectionUtils {
 		}
 		return outSetted;
 	}	
+	/**
+	 * Sets a field value using a cached method handle (see {@link ReflectionMetaDataCache}) 
+	 * if the field cannot be set using a method handle (ie: final fields), {@link Field#set(Object, Object)} is used
+	 * @param field
+	 * @param obj the object (null for static fields)
+	 * @param value
+	 * @throws Throwable
+	 */
+	private static void _setFieldValue(final Field field,
+									   final Object obj,final Object value) throws Throwable {
+		if (value == null && field.getType().isPrimitive()) throw new IllegalArgumentException("Cannot set the primitive field " + field + " to null");
+		MethodHandle setter = ReflectionMetaDataCache.fieldSetter(field);
+		if (setter != null) {
+			setter.invokeExact(obj,value);
+		} else {
+			ReflectionUtils.makeAccessible(field);
+			field.set(obj,value);
+		}
+	}
+	/**
+	 * Gets a field value using a cached method handle (see {@link ReflectionMetaDataCache})
+	 * @param field
+	 * @param obj the object (null for static fields)
+	 * @return
+	 * @throws Throwable
+	 */
+	private static Object _getFieldValue(final Field field,
+										 final Object obj) throws Throwable {
+		MethodHandle getter = ReflectionMetaDataCache.fieldGetter(field);
+		if (getter != null) return (Object)getter.invokeExact(obj);
+		ReflectionUtils.makeAccessible(field);
+		return field.get(obj);
+	}
 	/**
 	 * Sets a static {@link Field}'s value
 	 * @param type
@@ -1497,7 +1522,7 @@ public class ReflectionUtils {
 					// Use accessor methods
 					Method setter = _fieldSetterMethod(obj.getClass(),fieldName,value.getClass());
 					if (setter == null) throw ReflectionException.noMethodException(obj.getClass(),fieldName);
-					setter.invoke(obj,value);
+					ReflectionUtils.invokeMethod(obj,setter,value);
 					// PropertyUtils.setProperty(obj,fieldName,value);
 				} catch (Throwable th) {
 					_warnFieldAccessException(th,
@@ -1609,7 +1634,7 @@ public class ReflectionUtils {
 		T outObj = null;
 		Field memberField = ReflectionUtils.field(obj.getClass(),fieldName,true);
 		try {
-			outObj = (T)memberField.get( obj );
+			outObj = (T)_getFieldValue(memberField,obj);
 		} catch (Throwable th) {
 			throw ReflectionException.of(th); 
 		}
@@ -1628,7 +1653,7 @@ public class ReflectionUtils {
 		T outObj = null;
 		Field memberField = ReflectionUtils.field(type,fieldName,true);
 		try {
-			outObj = (T)memberField.get( null );	// es un tield esttico
+			outObj = (T)_getFieldValue(memberField,null);	// es un tield esttico
 		} catch (Throwable th) {
 			throw ReflectionException.of(th); 
 		}
@@ -1683,7 +1708,7 @@ public class ReflectionUtils {
 					// use accessors
 					Method getter = fieldGetterMethod(obj.getClass(),fieldName,fieldType);
 					if (getter == null) throw ReflectionException.noMethodException(obj.getClass(),fieldName + " getter");
-					outObj = getter.invoke(obj,(Object[])null);
+					outObj = ReflectionUtils.invokeMethod(obj,getter);
 					// outObj = PropertyUtils.getProperty(obj,fieldName);
 				} catch (Throwable th) {
 					_warnFieldAccessException(th,
@@ -1,9 +1,11 @@
 package r01f.reflection.fluent;
 
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 
 import r01f.reflection.ReflectionException;
+import r01f.reflection.ReflectionMetaDataCache;
 import r01f.reflection.ReflectionUtils;
 
 /**
@@ -47,18 +49,24 @@ public final class ConstructorInvoker<T> {
 	 * @return the created instance of <code>T</code>.
 	 * @throws ReflectionException if a new instance cannot be created.
 	 */
+	@SuppressWarnings("unchecked")
 	public T newInstance(final Object... args) {
-		boolean accessible = _constructor.isAccessible();
 		try {
+			// the instance is created using a cached method handle (see ReflectionMetaDataCache)
+			// (if the args do NOT match the constructor params, newInstance throws the expected IllegalArgumentException)
+			Object[] theArgs = args != null ? args : ReflectionUtils.EMPTY_OBJECT_ARRAY;
+			MethodHandle invoker = ReflectionMetaDataCache.argsMatch(_constructor.getParameterTypes(),theArgs)
+										? ReflectionMetaDataCache.constructorInvoker(_constructor)
+										: null;
+			if (invoker != null) return (T)(Object)invoker.invokeExact(theArgs);
+			
 			ReflectionUtils.makeAccessible(_constructor);
-			T newInstance = _constructor.newInstance(args);
+			T newInstance = _constructor.newInstance(theArgs);
 			return newInstance;
 		} catch (Throwable t) {
 			Throwable cause = t instanceof InvocationTargetException ? t.getCause() : t;
 			if (cause instanceof RuntimeException) throw (RuntimeException)cause;
 			throw ReflectionException.of(cause);
-		} finally {
-			ReflectionUtils.setAccessibleIgnoringExceptions(_constructor,accessible);
 		}
 	}
 	/**
@@ -72,10 +80,8 @@ public final class ConstructorInvoker<T> {
 //	METODOS PRIVADOS
 ///////////////////////////////////////////////////////////////////////////////	
 	private static <T> Constructor<T> constructor(final Class<T> target,final Class<?>... parameterTypes) {
-		try {
-			return target.getDeclaredConstructor(parameterTypes);
-		} catch (NoSuchMethodException nsmEx) {
-			throw ReflectionException.noConstructorException(target.getClass(),parameterTypes);
-		}
+		Constructor<T> constructor = ReflectionMetaDataCache.constructorOrNull(target,parameterTypes);	// resolved once
+		if (constructor == null) throw ReflectionException.noConstructorException(target.getClass(),parameterTypes);
+		return constructor;
 	}	
 }
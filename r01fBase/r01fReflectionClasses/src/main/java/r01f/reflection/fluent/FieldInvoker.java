@@ -1,10 +1,12 @@
 package r01f.reflection.fluent;
 
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Field;
 
 import com.google.common.reflect.TypeToken;
 
 import r01f.reflection.ReflectionException;
+import r01f.reflection.ReflectionMetaDataCache;
 import r01f.reflection.ReflectionUtils;
 
 
@@ -27,6 +29,7 @@ import r01f.reflection.ReflectionUtils;
  *   // Sets the value of the static field "count" to 3
  *   Reflection.staticField("count").ofType(int.class).in(Person.class).set(3);
  * </pre>
+ * The field is resolved once and accessed through a cached method handle (see {@link ReflectionMetaDataCache})
  */
 
 public final class FieldInvoker<T> {
@@ -35,14 +38,12 @@ public final class FieldInvoker<T> {
 /////////////////////////////////////////////////////////////////////////////////////////	
 	private final Object _targetObj;
 	private final Field _field;
-	private final boolean _accessible;
 ///////////////////////////////////////////////////////////////////////////////
 //	CONSTRUCTOR
 ///////////////////////////////////////////////////////////////////////////////
 	private FieldInvoker(final Object target,final Field field) {
 		_targetObj = target;
 		_field = field;
-		_accessible = field.isAccessible();
 	}
 ///////////////////////////////////////////////////////////////////////////////
 //	FLUENT API FACTORY
@@ -64,12 +65,18 @@ public final class FieldInvoker<T> {
 	 */
 	public void set(final T value) {
 		try {
-			ReflectionUtils.setAccessible(_field,true);
-			_field.set(_targetObj,value);
-		} catch (Exception ex) {
-			throw ReflectionException.of(ex);
-		} finally {
-			ReflectionUtils.setAccessibleIgnoringExceptions(_field,_accessible);
+			// (a null value for a primitive field is NOT set using the handle: Field.set throws the expected IllegalArgumentException)
+			MethodHandle setter = value != null || !_field.getType().isPrimitive() ? ReflectionMetaDataCache.fieldSetter(_field)
+																				   : null;
+			if (setter != null) {
+				setter.invokeExact(_targetObj,(Object)value);
+			} else {
+				// ie: final fields cannot be set using a method handle
+				ReflectionUtils.makeAccessible(_field);
+				_field.set(_targetObj,value);
+			}
+		} catch (Throwable th) {
+			throw ReflectionException.of(th);
 		}
 	}
 	/**
@@ -81,13 +88,14 @@ public final class FieldInvoker<T> {
 	@SuppressWarnings("unchecked")
 	public T get() {
 		try {
-			ReflectionUtils.setAccessible(_field,true);
+			MethodHandle getter = ReflectionMetaDataCache.fieldGetter(_field);
+			if (getter != null) return (T)(Object)getter.invokeExact(_targetObj);
+			
+			ReflectionUtils.makeAccessible(_field);
 			T outFieldValue = (T)_field.get(_targetObj);
 			return outFieldValue;
-		} catch (Exception ex) {
-			throw ReflectionException.of(ex);
-		} finally {
-			ReflectionUtils.setAccessibleIgnoringExceptions(_field,_accessible);
+		} catch (Throwable th) {
+			throw ReflectionException.of(th);
 		}
 	}
 	/**
@@ -104,7 +112,6 @@ public final class FieldInvoker<T> {
 	private static <T> FieldInvoker<T> _createInvoker(final String fieldName,final Class<?> expectedType,final Object target) {
 		if (target == null) throw new NullPointerException("Target should not be null");
 		Field field = _lookupInClassHierarchy(fieldName,_typeOf(target));
-		_makeAccessible(field);
 		_verifyCorrectType(field,expectedType);
 		return new FieldInvoker<T>(target,field);
 	}
@@ -113,36 +120,15 @@ public final class FieldInvoker<T> {
 		return target.getClass();
 	}
 	private static Field _lookupInClassHierarchy(final String fieldName,final Class<?> declaringType) {
-		Field field = null;
-		Class<?> target = declaringType;
-		while (target != null) {
-			field = _field(fieldName,target);
-			if (field != null) break;
-			target = target.getSuperclass();
-		}
+		Field field = ReflectionMetaDataCache.fieldOrNull(declaringType,fieldName);	// resolved once
 		if (field != null) return field;
 		throw ReflectionException.noFieldException(declaringType,fieldName);
 	}
-	private static void _makeAccessible(final Field field) {
-		boolean isAccessible = field.isAccessible();
-		try {
-			ReflectionUtils.makeAccessible(field);
-		} finally {
-			ReflectionUtils.setAccessibleIgnoringExceptions(field,isAccessible);
-		}		
-	}
 	private static void _verifyCorrectType(final Field field,final Class<?> expectedType) {
 		if (expectedType == null) return;	// es el caso en el que el tipo esperado nose conoce;
 		Class<?> actualType = field.getType();
 		if (!expectedType.isAssignableFrom(actualType)) throw _incorrectFieldType(field,actualType,expectedType);
 	}
-	private static Field _field(String fieldName, Class<?> declaringType) {
-		try {
-			return declaringType.getDeclaredField(fieldName);
-		} catch (NoSuchFieldException e) {
-			return null;
-		}
-	}
 	private static IllegalArgumentException _incorrectFieldType(final Field field,final Class<?> actual,final Class<?> expected) {
 		String fieldTypeName = field.getDeclaringClass().getName();
 		throw new IllegalArgumentException("The type of the field " + field.getName() + 
@@ -1,10 +1,12 @@
 package r01f.reflection.fluent;
 
 
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 
 import r01f.reflection.ReflectionException;
+import r01f.reflection.ReflectionMetaDataCache;
 import r01f.reflection.ReflectionUtils;
 
 /**
@@ -23,6 +25,7 @@ import r01f.reflection.ReflectionUtils;
  *   // Equivalent to call 'person.getName()'
  *   String name = Reflection.method("getName").withReturnType(String.class).in(person).invoke();
  * </pre>
+ * The method is resolved once and invoked through a cached method handle (see {@link ReflectionMetaDataCache})
  */
 
 public final class MethodInvoker<T> {
@@ -53,16 +56,20 @@ public final class MethodInvoker<T> {
 	 */
 	@SuppressWarnings("unchecked")
 	public T invoke(final Object... args) {
-		boolean accessible = _method.isAccessible();
 		try {
+			// (if the args do NOT match the method params, Method.invoke throws the expected IllegalArgumentException)
+			Object[] theArgs = args != null ? args : ReflectionUtils.EMPTY_OBJECT_ARRAY;
+			MethodHandle invoker = ReflectionMetaDataCache.argsMatch(_method.getParameterTypes(),theArgs)
+										? ReflectionMetaDataCache.methodInvoker(_method)
+										: null;
+			if (invoker != null) return (T)(Object)invoker.invokeExact(_targetObj,theArgs);
+			
 			ReflectionUtils.makeAccessible(_method);
-			return (T) _method.invoke(_targetObj,args);
+			return (T) _method.invoke(_targetObj,theArgs);
 		} catch (Throwable t) {
 			Throwable cause = t instanceof InvocationTargetException ? t.getCause() : t;
 			if (cause instanceof RuntimeException) throw (RuntimeException)cause;
 			throw ReflectionException.of(cause);
-		} finally {
-			ReflectionUtils.setAccessibleIgnoringExceptions(_method,accessible);
 		}
 	}
 	/**
@@ -85,23 +92,8 @@ public final class MethodInvoker<T> {
 		return target.getClass();
 	}
 	private static Method _lookupInClassHierarchy(final String methodName,final Class<?> targetType,final Class<?>[] parameterTypes) {
-		Method method = null;
-		Class<?> type = targetType;
-		while (type != null) {
-			method = _findMethod(type,methodName,parameterTypes);
-			if (method != null) break;
-			type = type.getSuperclass();
-		}
+		Method method = ReflectionMetaDataCache.methodOrNull(targetType,methodName,parameterTypes);		// resolved once
 		if (method == null) throw ReflectionException.noMethodException(targetType,methodName);
 		return method;
 	}
-	private static Method _findMethod(final Class<?> type,final String methodName,final Class<?>[] parameterTypes) {
-		try {
-			return type.getDeclaredMethod(methodName,parameterTypes);
-		} catch (SecurityException e) {
-			return null;
-		} catch (NoSuchMethodException e) {
-			return null;
-		}
-	}
 }
@@ -2,15 +2,20 @@ package r01f.reflection.scanner;
 
 import java.lang.annotation.Annotation;
 import java.net.URL;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 
 import org.reflections.Reflections;
+import org.reflections.scanners.SubTypesScanner;
 import org.reflections.scanners.TypeAnnotationsScanner;
 import org.reflections.util.ConfigurationBuilder;
 
 import com.google.common.base.Predicate;
 import com.google.common.collect.FluentIterable;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
 
 import lombok.extern.slf4j.Slf4j;
 import r01f.types.JavaPackage;
@@ -21,6 +26,14 @@ import r01f.util.types.collections.CollectionUtils;
 public class AnnotatedWithScanner 
 	 extends ClasspathScannerBase {
 /////////////////////////////////////////////////////////////////////////////////////////
+//  CACHE
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * The found annotated types by classLoader and [annotationType name,packages] when the default scanner filter is used
+	 * (the classpath does NOT change so the scan result can be reused)
+	 */
+	private static final ScanResultsCache<List<Object>,Set<Class<?>>> ANNOTATED_TYPES_CACHE = new ScanResultsCache<List<Object>,Set<Class<?>>>(256);
+/////////////////////////////////////////////////////////////////////////////////////////
 //  
 /////////////////////////////////////////////////////////////////////////////////////////
 	/**
@@ -53,6 +66,9 @@ public class AnnotatedWithScanner
 	}
 	/**
 	 * Finds types annotated at given packages
+	 * The build-time {@link ClasspathIndex} is used for the classpath roots (jars or classes dirs) that contain an index;
+	 * the roots without an index are scanned (if the default scanner filter is used, the result is cached so the packages are only scanned once)
+	 * BEWARE! the returned set is immutable (as the scan result already was when any annotated type was found)
 	 * @param annotationType
 	 * @param pckgs
 	 * @param scannerFilter
@@ -63,11 +79,53 @@ public class AnnotatedWithScanner
 													  		 				   		   final Collection<JavaPackage> pckgs,
 													  		 				   		   final Predicate<JavaPackage> scannerFilter,
 													  		 				   		   final ClassLoader otherClassLoader) {
-		log.info("...finding types annotated with {} at packages {} (BEWARE that every type between the type to be found and the supertype MUST be accesible in the package names list)",
-				 annotationType,pckgs);
+		List<Object> cacheKey = scannerFilter == null ? Arrays.<Object>asList(annotationType.getName(),	// the type is NOT referenced
+													  						  pckgs != null ? Sets.newHashSet(pckgs) : null)
+													  : null;	// the filter is NOT part of the key: a filtered scan is NOT cached
+		Set<Class<?>> outAnnotatedTypes = cacheKey != null ? ANNOTATED_TYPES_CACHE.get(otherClassLoader,cacheKey)
+														   : null;
+		if (outAnnotatedTypes != null) return outAnnotatedTypes;
+
+		ClasspathIndex index = ClasspathIndex.forClassLoader(otherClassLoader);
+		if (index.isEmpty()) {
+			outAnnotatedTypes = _scanTypesAnnotatedWitAtPackages(annotationType,
+																 pckgs,
+																 scannerFilter,
+																 otherClassLoader);
+		} else {
+			log.info("...finding types annotated with {} at packages {} using the classpath index",
+					 annotationType,pckgs);
+			// the annotated types and direct sub-types found at the roots without an index are merged with the indexed ones
+			// BEFORE computing the closure (a type hierarchy might span indexed and NOT indexed roots)
+			Reflections notIndexedRoots = _scanNotIndexedRoots(pckgs,
+															   scannerFilter,
+															   otherClassLoader,
+															   index,
+															   new SubTypesScanner(true),		// true = exclude object class
+															   new TypeAnnotationsScanner());
+			outAnnotatedTypes = index.typesAnnotatedWith(annotationType,true,	// honor inherited (as the scan does)
+														 pckgs,
+														 scannerFilter != null ? ScannerFilter.createScannerFilter(scannerFilter)
+																 			   : ScannerFilter.DEFAULT_TYPE_FILTER,
+														 otherClassLoader,
+														 notIndexedRoots);
+		}
+		if (outAnnotatedTypes == null) return null;	// do NOT cache failures
+
+		outAnnotatedTypes = ImmutableSet.copyOf(outAnnotatedTypes);
+		if (cacheKey != null) ANNOTATED_TYPES_CACHE.put(otherClassLoader,cacheKey,outAnnotatedTypes);
+		return outAnnotatedTypes;
+	}
+	private static <A extends Annotation> Set<Class<?>> _scanTypesAnnotatedWitAtPackages(final Class<A> annotationType,
+													  		 				   		     final Collection<JavaPackage> pckgs,
+													  		 				   		     final Predicate<JavaPackage> scannerFilter,
+													  		 				   		     final ClassLoader otherClassLoader) {
 		Collection<URL> pckgUrls = _urlsForPackages(pckgs,
 											  		otherClassLoader);
 		
+		log.info("...finding types annotated with {} at packages {} (BEWARE that every type between the type to be found and the supertype MUST be accesible in the package names list)",
+				 annotationType,pckgs);
+		
 		Set<Class<?>> putAnnotatedTypes = null;
 		if (CollectionUtils.isNullOrEmpty(pckgUrls)) {
 			log.error("Could NOT get any URL for packages {} from any classloader!!!",pckgs);
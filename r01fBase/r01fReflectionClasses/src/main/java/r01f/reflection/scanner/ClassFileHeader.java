@@ -0,0 +1,137 @@
+package r01f.reflection.scanner;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.Accessors;
+
+/**
+ * The header of a class file: the type name, it's super-type, interfaces and access flags
+ * <p>
+ * Only the constant pool and the header are read (as ASM's ClassReader does before visiting the members)
+ * so the type is NOT loaded (neither it's static initializers are run)
+ * </p>
+ * see https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html
+ */
+@Accessors(prefix="_")
+@RequiredArgsConstructor(access=AccessLevel.PRIVATE)
+final class ClassFileHeader {
+/////////////////////////////////////////////////////////////////////////////////////////
+//  CONSTANTS
+/////////////////////////////////////////////////////////////////////////////////////////
+	private static final int MAGIC = 0xCAFEBABE;
+
+	private static final int ACC_INTERFACE = 0x0200;
+	private static final int ACC_ABSTRACT = 0x0400;
+	private static final int ACC_ANNOTATION = 0x2000;
+/////////////////////////////////////////////////////////////////////////////////////////
+//  FIELDS
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Getter private final String _typeName;
+	@Getter private final String _superTypeName;		// null for java.lang.Object and interfaces
+	@Getter private final String[] _interfaceNames;
+	@Getter private final int _accessFlags;
+/////////////////////////////////////////////////////////////////////////////////////////
+//  METHODS
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * @return true if the type is NOT an interface, an abstract type or an annotation
+	 */
+	public boolean isInstanciable() {
+		return (_accessFlags & (ACC_INTERFACE | ACC_ABSTRACT | ACC_ANNOTATION)) == 0;
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//  READ
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Reads the class file header
+	 * BEWARE! the stream is NOT closed
+	 * @param is
+	 * @return
+	 * @throws IOException if the stream is NOT a class file
+	 */
+	public static ClassFileHeader read(final InputStream is) throws IOException {
+		DataInputStream dis = new DataInputStream(is);
+		if (dis.readInt() != MAGIC) throw new IOException("NOT a class file!");
+		dis.readUnsignedShort();		// minor version
+		dis.readUnsignedShort();		// major version
+
+		// [1] - Constant pool: only the utf8 and class entries are kept
+		int poolCount = dis.readUnsignedShort();
+		String[] utf8s = new String[poolCount];
+		int[] classNameIndexes = new int[poolCount];
+		for (int i = 1; i < poolCount; i++) {
+			int tag = dis.readUnsignedByte();
+			switch (tag) {
+			case 1:				// utf8
+				utf8s[i] = dis.readUTF();
+				break;
+			case 7:				// class
+				classNameIndexes[i] = dis.readUnsignedShort();
+				break;
+			case 8:				// string
+			case 16:			// method type
+			case 19:			// module
+			case 20:			// package
+				_skip(dis,2);
+				break;
+			case 15:			// method handle
+				_skip(dis,3);
+				break;
+			case 3:				// integer
+			case 4:				// float
+			case 9:				// field ref
+			case 10:			// method ref
+			case 11:			// interface method ref
+			case 12:			// name and type
+			case 17:			// dynamic
+			case 18:			// invoke dynamic
+				_skip(dis,4);
+				break;
+			case 5:				// long
+			case 6:				// double
+				_skip(dis,8);
+				i++;			// 8 byte constants take two entries
+				break;
+			default:
+				throw new IOException("Unknown constant pool tag " + tag);
+			}
+		}
+		// [2] - Header
+		int accessFlags = dis.readUnsignedShort();
+		String typeName = _className(dis.readUnsignedShort(),
+									 utf8s,classNameIndexes);
+		String superTypeName = _className(dis.readUnsignedShort(),
+										  utf8s,classNameIndexes);
+		int interfaceCount = dis.readUnsignedShort();
+		String[] interfaceNames = new String[interfaceCount];
+		for (int i = 0; i < interfaceCount; i++) {
+			interfaceNames[i] = _className(dis.readUnsignedShort(),
+										   utf8s,classNameIndexes);
+		}
+		return new ClassFileHeader(typeName,superTypeName,interfaceNames,
+								   accessFlags);
+	}
+	private static String _className(final int classIndex,
+									 final String[] utf8s,final int[] classNameIndexes) {
+		if (classIndex == 0) return null;
+		String internalName = utf8s[classNameIndexes[classIndex]];
+		return internalName != null ? internalName.replace('/','.')
+									: null;
+	}
+	private static void _skip(final DataInputStream dis,final int bytes) throws IOException {
+		int skipped = 0;
+		while (skipped < bytes) {
+			int n = dis.skipBytes(bytes - skipped);
+			if (n <= 0) {
+				dis.readByte();		// throws EOFException at the end of the stream
+				n = 1;
+			}
+			skipped += n;
+		}
+	}
+}
@@ -0,0 +1,378 @@
+package r01f.reflection.scanner;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.annotation.Annotation;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import org.reflections.Reflections;
+import org.reflections.scanners.SubTypesScanner;
+import org.reflections.scanners.TypeAnnotationsScanner;
+
+import com.google.common.base.Predicate;
+
+import lombok.extern.slf4j.Slf4j;
+import r01f.types.JavaPackage;
+import r01f.util.types.collections.CollectionUtils;
+
+/**
+ * A build-time classpath index: the sub-types and annotated types found when the classes were compiled
+ * (see {@link ClasspathIndexProcessor}) so the classpath does NOT have to be scanned at runtime
+ * <p>
+ * Every jar (or classes dir) built with the {@link ClasspathIndexProcessor} annotation processor
+ * contains a {@value #INDEX_RESOURCE} resource with lines like:
+ * <pre>
+ * 		P r01f.model							<- an indexed package
+ * 		S r01f.model.MyBaseType r01f.model.MyType	<- a direct super-type and it's sub-type
+ * 		A r01f.annotations.MyAnnotation r01f.model.MyType	<- a (runtime) annotation and an annotated type
+ * </pre>
+ * All the index resources visible from a classloader are merged so the super-type of a type might be at another jar.
+ * </p>
+ * <p>
+ * BEWARE! the index only covers the classpath roots (jars or classes dirs) that contain an index resource:
+ * the scanners use the index for those roots and fall back to classpath scanning for the roots without an index
+ * (see {@link #isIndexed(URL)}); the direct relations found scanning those roots are merged with the indexed ones
+ * BEFORE the sub-types closure is computed, so a type hierarchy can span indexed and NOT indexed roots.
+ * The index can be disabled using the -D{@value #DISABLED_SYSTEM_PROPERTY}=true system property
+ * </p>
+ */
+@Slf4j
+public final class ClasspathIndex {
+/////////////////////////////////////////////////////////////////////////////////////////
+//  CONSTANTS
+/////////////////////////////////////////////////////////////////////////////////////////
+	public static final String INDEX_RESOURCE = "META-INF/r01f/classpath-index.idx";
+	public static final String DISABLED_SYSTEM_PROPERTY = "r01f.classpathIndex.disabled";
+
+	static final char PACKAGE_LINE = 'P';
+	static final char SUBTYPE_LINE = 'S';
+	static final char ANNOTATED_LINE = 'A';
+
+	private static final ClasspathIndex EMPTY = new ClasspathIndex(Collections.<String>emptySet(),
+																   Collections.<String,Set<String>>emptyMap(),
+																   Collections.<String,Set<String>>emptyMap());
+/////////////////////////////////////////////////////////////////////////////////////////
+//  CACHE
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * The index by classloader (weak keys so the classloaders can be discarded)
+	 */
+	private static final Map<ClassLoader,ClasspathIndex> INDEXES = Collections.synchronizedMap(new WeakHashMap<ClassLoader,ClasspathIndex>());
+/////////////////////////////////////////////////////////////////////////////////////////
+//  FIELDS
+/////////////////////////////////////////////////////////////////////////////////////////
+	private final Set<String> _roots;
+	private final Map<String,Set<String>> _subTypesBySuperType;
+	private final Map<String,Set<String>> _typesByAnnotation;
+/////////////////////////////////////////////////////////////////////////////////////////
+//  CONSTRUCTOR
+/////////////////////////////////////////////////////////////////////////////////////////
+	private ClasspathIndex(final Set<String> roots,
+						   final Map<String,Set<String>> subTypesBySuperType,
+						   final Map<String,Set<String>> typesByAnnotation) {
+		_roots = roots;
+		_subTypesBySuperType = subTypesBySuperType;
+		_typesByAnnotation = typesByAnnotation;
+	}
+	/**
+	 * Returns the index merging all the index resources visible from the given classloader
+	 * @param classLoader
+	 * @return
+	 */
+	public static ClasspathIndex forClassLoader(final ClassLoader classLoader) {
+		ClassLoader theClassLoader = classLoader != null ? classLoader : ClasspathIndex.class.getClassLoader();
+		if (Boolean.getBoolean(DISABLED_SYSTEM_PROPERTY)) return EMPTY;
+		synchronized(INDEXES) {
+			ClasspathIndex outIndex = INDEXES.get(theClassLoader);
+			if (outIndex == null) {
+				outIndex = _load(theClassLoader);
+				INDEXES.put(theClassLoader,outIndex);
+			}
+			return outIndex;
+		}
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//  METHODS
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * @return true if there's NO index
+	 */
+	public boolean isEmpty() {
+		return _roots.isEmpty();
+	}
+	/**
+	 * Checks if a classpath root (a jar or classes dir url as returned by org.reflections' ClasspathHelper.forPackage)
+	 * contains an index; if not, the root MUST be scanned
+	 * @param root
+	 * @return
+	 */
+	public boolean isIndexed(final URL root) {
+		return root != null
+			&& _roots.contains(root.toExternalForm());
+	}
+	/**
+	 * @return a filter for the classpath roots that do NOT contain an index (see {@link #isIndexed(URL)})
+	 */
+	public Predicate<URL> notIndexedRoots() {
+		return new Predicate<URL>() {
+						@Override
+						public boolean apply(final URL root) {
+							return !ClasspathIndex.this.isIndexed(root);
+						}
+			   };
+	}
+	/**
+	 * Returns the (transitive) sub-types of the given type at the given packages
+	 * @param superType
+	 * @param pckgs
+	 * @param filter the type filter (see {@link ScannerFilter})
+	 * @param classLoader the classloader used to load the types
+	 * @return
+	 */
+	public <T> Set<Class<? extends T>> subTypesOf(final Class<T> superType,
+												  final Collection<JavaPackage> pckgs,final Predicate<String> filter,
+												  final ClassLoader classLoader) {
+		return this.subTypesOf(superType,
+							   pckgs,filter,
+							   classLoader,
+							   (Map<String,? extends Collection<String>>)null);
+	}
+	/**
+	 * Returns the (transitive) sub-types of the given type at the given packages
+	 * @param superType
+	 * @param pckgs
+	 * @param filter the type filter (see {@link ScannerFilter})
+	 * @param classLoader the classloader used to load the types
+	 * @param notIndexedRoots the scan of the roots without an index (it MUST contain a {@link SubTypesScanner}): it's direct sub-types are
+	 * 						  merged with the indexed ones before computing the closure
+	 * @return
+	 */
+	public <T> Set<Class<? extends T>> subTypesOf(final Class<T> superType,
+												  final Collection<JavaPackage> pckgs,final Predicate<String> filter,
+												  final ClassLoader classLoader,
+												  final Reflections notIndexedRoots) {
+		return this.subTypesOf(superType,
+							   pckgs,filter,
+							   classLoader,
+							   _scanned(notIndexedRoots,SubTypesScanner.class));
+	}
+	@SuppressWarnings("unchecked")
+	<T> Set<Class<? extends T>> subTypesOf(final Class<T> superType,
+										   final Collection<JavaPackage> pckgs,final Predicate<String> filter,
+										   final ClassLoader classLoader,
+										   final Map<String,? extends Collection<String>> scannedSubTypesBySuperType) {
+		Set<Class<? extends T>> outTypes = new LinkedHashSet<Class<? extends T>>();
+		for (String typeName : subTypeNamesOf(Collections.singleton(superType.getName()),
+											   scannedSubTypesBySuperType)) {
+			Class<?> type = _loadIfAt(typeName,
+									  pckgs,filter,
+									  classLoader);
+			if (type != null) outTypes.add((Class<? extends T>)type);
+		}
+		return outTypes;
+	}
+	/**
+	 * Returns the types annotated with the given annotation at the given packages
+	 * @param annotationType
+	 * @param honorInherited if false, all the sub-types of the annotated types are also returned (as org.reflections does);
+	 * 						 if true, only the sub-types where the annotation is present (it's @Inherited) are returned
+	 * @param pckgs
+	 * @param filter the type filter (see {@link ScannerFilter})
+	 * @param classLoader the classloader used to load the types
+	 * @return
+	 */
+	public Set<Class<?>> typesAnnotatedWith(final Class<? extends Annotation> annotationType,final boolean honorInherited,
+											final Collection<JavaPackage> pckgs,final Predicate<String> filter,
+											final ClassLoader classLoader) {
+		return this.typesAnnotatedWith(annotationType,honorInherited,
+									   pckgs,filter,
+									   classLoader,
+									   null,null);
+	}
+	/**
+	 * Returns the types annotated with the given annotation at the given packages
+	 * @param annotationType
+	 * @param honorInherited if false, all the sub-types of the annotated types are also returned (as org.reflections does);
+	 * 						 if true, only the sub-types where the annotation is present (it's @Inherited) are returned
+	 * @param pckgs
+	 * @param filter the type filter (see {@link ScannerFilter})
+	 * @param classLoader the classloader used to load the types
+	 * @param notIndexedRoots the scan of the roots without an index (it MUST contain a {@link SubTypesScanner} and a {@link TypeAnnotationsScanner}):
+	 * 						  it's annotated types and direct sub-types are merged with the indexed ones before computing the closure
+	 * @return
+	 */
+	public Set<Class<?>> typesAnnotatedWith(final Class<? extends Annotation> annotationType,final boolean honorInherited,
+											final Collection<JavaPackage> pckgs,final Predicate<String> filter,
+											final ClassLoader classLoader,
+											final Reflections notIndexedRoots) {
+		return this.typesAnnotatedWith(annotationType,honorInherited,
+									   pckgs,filter,
+									   classLoader,
+									   _scanned(notIndexedRoots,TypeAnnotationsScanner.class),_scanned(notIndexedRoots,SubTypesScanner.class));
+	}
+	Set<Class<?>> typesAnnotatedWith(final Class<? extends Annotation> annotationType,final boolean honorInherited,
+									 final Collection<JavaPackage> pckgs,final Predicate<String> filter,
+									 final ClassLoader classLoader,
+									 final Map<String,? extends Collection<String>> scannedTypesByAnnotation,
+									 final Map<String,? extends Collection<String>> scannedSubTypesBySuperType) {
+		Set<String> annotated = new LinkedHashSet<String>();
+		_addAll(annotated,_typesByAnnotation.get(annotationType.getName()));
+		if (scannedTypesByAnnotation != null) _addAll(annotated,scannedTypesByAnnotation.get(annotationType.getName()));
+		if (annotated.isEmpty()) return new LinkedHashSet<Class<?>>();
+
+		Set<String> candidates = new LinkedHashSet<String>(annotated);
+		candidates.addAll(subTypeNamesOf(annotated,
+										  scannedSubTypesBySuperType));
+
+		Set<Class<?>> outTypes = new LinkedHashSet<Class<?>>();
+		for (String typeName : candidates) {
+			Class<?> type = _loadIfAt(typeName,
+									  pckgs,filter,
+									  classLoader);
+			if (type == null) continue;
+			if (honorInherited
+			 && !annotated.contains(typeName)
+			 && !type.isAnnotationPresent(annotationType)) continue;
+			outTypes.add(type);
+		}
+		return outTypes;
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//  PRIVATE METHODS
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Computes the sub-types closure over a single graph: the indexed direct sub-types PLUS the scanned ones
+	 * @param superTypeNames
+	 * @param scannedSubTypesBySuperType the direct sub-types found at the roots without an index (might be null)
+	 * @return
+	 */
+	Set<String> subTypeNamesOf(final Set<String> superTypeNames,
+								final Map<String,? extends Collection<String>> scannedSubTypesBySuperType) {
+		Set<String> outSubTypes = new LinkedHashSet<String>();
+		Deque<String> pending = new ArrayDeque<String>(superTypeNames);
+		while (!pending.isEmpty()) {
+			String superTypeName = pending.poll();
+			_addAllPending(outSubTypes,pending,
+						   _subTypesBySuperType.get(superTypeName));
+			if (scannedSubTypesBySuperType != null) _addAllPending(outSubTypes,pending,
+																   scannedSubTypesBySuperType.get(superTypeName));
+		}
+		return outSubTypes;
+	}
+	private static void _addAllPending(final Set<String> subTypes,final Deque<String> pending,
+									   final Collection<String> directSubTypes) {
+		if (directSubTypes == null) return;
+		for (String subType : directSubTypes) {
+			if (subTypes.add(subType)) pending.add(subType);
+		}
+	}
+	private static void _addAll(final Set<String> set,final Collection<String> values) {
+		if (values != null) set.addAll(values);
+	}
+	/**
+	 * Returns the direct relations stored by the given scanner (super-type to sub-types or annotation to annotated types)
+	 * @param scanned
+	 * @param scannerType
+	 * @return
+	 */
+	private static Map<String,? extends Collection<String>> _scanned(final Reflections scanned,
+																	 final Class<?> scannerType) {
+		if (scanned == null) return null;
+		return scanned.getStore()
+					  .get(scannerType.getSimpleName())		// the scanner index (see org.reflections.util.Utils.index)
+					  .asMap();
+	}
+	private static Class<?> _loadIfAt(final String typeName,
+									  final Collection<JavaPackage> pckgs,final Predicate<String> filter,
+									  final ClassLoader classLoader) {
+		if (!_isAt(typeName,pckgs)) return null;
+		if (filter != null && !filter.apply(typeName + ".class")) return null;	// the filter is applied to the class file as org.reflections does
+		try {
+			return Class.forName(typeName,false,
+								 classLoader != null ? classLoader : ClasspathIndex.class.getClassLoader());
+		} catch (Throwable th) {
+			// the index might be stale
+			log.warn("Indexed type {} could NOT be loaded: {}",typeName,th.getMessage());
+			return null;
+		}
+	}
+	private static boolean _isAt(final String typeName,final Collection<JavaPackage> pckgs) {
+		if (CollectionUtils.isNullOrEmpty(pckgs)) return true;
+		for (JavaPackage pckg : pckgs) {
+			if (typeName.startsWith(pckg.asString() + ".")) return true;
+		}
+		return false;
+	}
+	private static ClasspathIndex _load(final ClassLoader classLoader) {
+		try {
+			return ClasspathIndex.load(Collections.list(classLoader.getResources(INDEX_RESOURCE)));
+		} catch (IOException ioEx) {
+			log.error("Could NOT load the classpath indexes: {}",ioEx.getMessage(),ioEx);
+			return EMPTY;
+		}
+	}
+	/**
+	 * Loads the index merging the given index resources
+	 * @param indexUrls
+	 * @return
+	 * @throws IOException
+	 */
+	static ClasspathIndex load(final Collection<URL> indexUrls) throws IOException {
+		Set<String> roots = new HashSet<String>();
+		Set<String> packages = new HashSet<String>();
+		Map<String,Set<String>> subTypesBySuperType = new HashMap<String,Set<String>>();
+		Map<String,Set<String>> typesByAnnotation = new HashMap<String,Set<String>>();
+		for (URL indexUrl : indexUrls) {
+			_read(indexUrl,
+				  packages,subTypesBySuperType,typesByAnnotation);
+			// the root is computed as org.reflections' ClasspathHelper.forPackage does: the resource url without the resource name
+			String indexUrlStr = indexUrl.toExternalForm();
+			roots.add(indexUrlStr.substring(0,indexUrlStr.lastIndexOf(INDEX_RESOURCE)));
+		}
+		log.info("Loaded {} classpath indexes covering {} packages",indexUrls.size(),packages.size());
+		return new ClasspathIndex(roots,
+								  subTypesBySuperType,typesByAnnotation);
+	}
+	private static void _read(final URL indexUrl,
+							  final Set<String> packages,final Map<String,Set<String>> subTypesBySuperType,final Map<String,Set<String>> typesByAnnotation) throws IOException {
+		InputStream is = indexUrl.openStream();
+		try {
+			BufferedReader reader = new BufferedReader(new InputStreamReader(is,StandardCharsets.UTF_8));
+			String line = null;
+			while ((line = reader.readLine()) != null) {
+				String[] parts = line.trim().split(" ");
+				if (parts.length == 2 && parts[0].charAt(0) == PACKAGE_LINE) {
+					packages.add(parts[1]);
+				} else if (parts.length == 3 && parts[0].charAt(0) == SUBTYPE_LINE) {
+					_put(subTypesBySuperType,parts[1],parts[2]);
+				} else if (parts.length == 3 && parts[0].charAt(0) == ANNOTATED_LINE) {
+					_put(typesByAnnotation,parts[1],parts[2]);
+				}
+			}
+		} finally {
+			is.close();
+		}
+	}
+	private static void _put(final Map<String,Set<String>> map,
+							 final String key,final String value) {
+		Set<String> values = map.get(key);
+		if (values == null) {
+			values = new LinkedHashSet<String>();
+			map.put(key,values);
+		}
+		values.add(value);
+	}
+}
@@ -0,0 +1,155 @@
+package r01f.reflection.scanner;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * An annotation processor that writes the {@link ClasspathIndex} of the compiled types
+ * (the direct super-types and the runtime annotations of every type) to {@value ClasspathIndex#INDEX_RESOURCE}
+ * so the {@link SubTypeOfScanner} and {@link AnnotatedWithScanner} do NOT have to scan the classpath at runtime
+ * <p>
+ * The processor is registered as a service (META-INF/services/javax.annotation.processing.Processor) so it's run
+ * when compiling any project that has this module at the classpath.
+ * BEWARE! if the annotation processors are explicitly set (which disables the processors discovery), it must be
+ * also explicitly set:
+ * <pre class='brush:xml'>
+ *		<plugin>
+ *			<groupId>org.apache.maven.plugins</groupId>
+ *			<artifactId>maven-compiler-plugin</artifactId>
+ *			<configuration>
+ *				<annotationProcessors>
+ *					<annotationProcessor>lombok.launch.AnnotationProcessorHider$AnnotationProcessor</annotationProcessor>
+ *					<annotationProcessor>r01f.reflection.scanner.ClasspathIndexProcessor</annotationProcessor>
+ *				</annotationProcessors>
+ *			</configuration>
+ *		</plugin>
+ * </pre>
+ * </p>
+ * BEWARE! if only some types are compiled (an incremental build) the new index entries are merged
+ * with the previous ones (stale entries are ignored at runtime if the type cannot be loaded)
+ */
+@SupportedAnnotationTypes("*")
+public class ClasspathIndexProcessor
+	 extends AbstractProcessor {
+/////////////////////////////////////////////////////////////////////////////////////////
+//  FIELDS
+/////////////////////////////////////////////////////////////////////////////////////////
+	private final Set<String> _lines = new TreeSet<String>();
+/////////////////////////////////////////////////////////////////////////////////////////
+//  PROCESSOR
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+	@Override
+	public boolean process(final Set<? extends TypeElement> annotations,
+						   final RoundEnvironment roundEnv) {
+		if (roundEnv.processingOver()) {
+			_writeIndex();
+		} else {
+			for (Element element : roundEnv.getRootElements()) {
+				if (element instanceof TypeElement) _index((TypeElement)element);
+			}
+		}
+		return false;		// do NOT claim the annotations: other processors (ie lombok) must see them
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//  PRIVATE METHODS
+/////////////////////////////////////////////////////////////////////////////////////////
+	private void _index(final TypeElement type) {
+		String typeName = _binaryName(type);
+		PackageElement pckg = processingEnv.getElementUtils().getPackageOf(type);
+		if (!pckg.isUnnamed()) _lines.add(ClasspathIndex.PACKAGE_LINE + " " + pckg.getQualifiedName());
+
+		// direct super-types
+		_indexSuperType(type.getSuperclass(),typeName);
+		for (TypeMirror iface : type.getInterfaces()) _indexSuperType(iface,typeName);
+
+		// runtime annotations
+		for (AnnotationMirror annot : type.getAnnotationMirrors()) {
+			TypeElement annotType = (TypeElement)annot.getAnnotationType().asElement();
+			Retention retention = annotType.getAnnotation(Retention.class);
+			if (retention == null || retention.value() != RetentionPolicy.RUNTIME) continue;
+			_lines.add(ClasspathIndex.ANNOTATED_LINE + " " + _binaryName(annotType) + " " + typeName);
+		}
+		// nested types
+		for (Element enclosed : type.getEnclosedElements()) {
+			if (enclosed.getKind() == ElementKind.CLASS || enclosed.getKind() == ElementKind.INTERFACE
+			 || enclosed.getKind() == ElementKind.ENUM || enclosed.getKind() == ElementKind.ANNOTATION_TYPE) {
+				_index((TypeElement)enclosed);
+			}
+		}
+	}
+	private void _indexSuperType(final TypeMirror superType,final String typeName) {
+		if (superType == null || superType.getKind() != TypeKind.DECLARED) return;
+		TypeElement superTypeElement = (TypeElement)((DeclaredType)superType).asElement();
+		String superTypeName = _binaryName(superTypeElement);
+		if (Object.class.getName().equals(superTypeName)) return;
+		_lines.add(ClasspathIndex.SUBTYPE_LINE + " " + superTypeName + " " + typeName);
+	}
+	private String _binaryName(final TypeElement type) {
+		return processingEnv.getElementUtils()
+							.getBinaryName(type)
+							.toString();
+	}
+	private void _writeIndex() {
+		if (_lines.isEmpty()) return;
+		// merge with the previous index (if any)
+		try {
+			FileObject prevIndex = processingEnv.getFiler()
+												.getResource(StandardLocation.CLASS_OUTPUT,"",ClasspathIndex.INDEX_RESOURCE);
+			BufferedReader reader = new BufferedReader(new InputStreamReader(prevIndex.openInputStream(),StandardCharsets.UTF_8));
+			try {
+				String line = null;
+				while ((line = reader.readLine()) != null) {
+					if (!line.trim().isEmpty()) _lines.add(line.trim());
+				}
+			} finally {
+				reader.close();
+			}
+		} catch (IOException ioEx) {
+			// there's no previous index
+		}
+		try {
+			FileObject index = processingEnv.getFiler()
+											.createResource(StandardLocation.CLASS_OUTPUT,"",ClasspathIndex.INDEX_RESOURCE);
+			Writer writer = new OutputStreamWriter(index.openOutputStream(),StandardCharsets.UTF_8);
+			try {
+				for (String line : _lines) {
+					writer.write(line);
+					writer.write('\n');
+				}
+			} finally {
+				writer.close();
+			}
+		} catch (IOException ioEx) {
+			processingEnv.getMessager()
+						 .printMessage(Diagnostic.Kind.WARNING,"Could NOT write the classpath index: " + ioEx.getMessage());
+		}
+	}
+}
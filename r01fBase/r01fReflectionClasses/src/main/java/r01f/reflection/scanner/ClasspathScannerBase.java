@@ -4,9 +4,14 @@ import java.net.URL;
 import java.util.Collection;
 import java.util.List;
 
+import org.reflections.Reflections;
+import org.reflections.scanners.Scanner;
 import org.reflections.util.ClasspathHelper;
+import org.reflections.util.ConfigurationBuilder;
 
 import com.google.common.base.Function;
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
@@ -23,16 +28,39 @@ abstract class ClasspathScannerBase {
 /////////////////////////////////////////////////////////////////////////////////////////
 	protected static Collection<URL> _urlsForPackages(final Collection<JavaPackage> pckgNames,
 											  		  final ClassLoader otherClassLoader) {
+		return _urlsForPackages(pckgNames,
+								otherClassLoader,
+								null);		// all the roots
+	}
+	/**
+	 * Returns the urls of the given packages at the classpath roots (jars or classes dirs) accepted by the given filter
+	 * (ie: the roots without a {@link ClasspathIndex}: see {@link ClasspathIndex#notIndexedRoots()})
+	 * @param pckgNames
+	 * @param otherClassLoader
+	 * @param rootsFilter
+	 * @return
+	 */
+	protected static Collection<URL> _urlsForPackages(final Collection<JavaPackage> pckgNames,
+											  		  final ClassLoader otherClassLoader,
+											  		  final Predicate<URL> rootsFilter) {
 		if (CollectionUtils.isNullOrEmpty(pckgNames)) throw new IllegalArgumentException();
 		List<URL> outUrls = Lists.newLinkedList();
 		for (JavaPackage pckgName : pckgNames) {
 			outUrls.addAll(_urlsForPackage(pckgName,
-										   otherClassLoader));
+										   otherClassLoader,
+										   rootsFilter));
 		}
 		return Sets.newLinkedHashSet(outUrls);
 	}
 	protected static Collection<URL> _urlsForPackage(final JavaPackage pckg,
                                                      final ClassLoader otherClassLoader) {
+		return _urlsForPackage(pckg,
+							   otherClassLoader,
+							   null);		// all the roots
+	}
+	protected static Collection<URL> _urlsForPackage(final JavaPackage pckg,
+                                                     final ClassLoader otherClassLoader,
+                                                     final Predicate<URL> rootsFilter) {
 		ClassLoader[] classLoaders = _scanClassLoaders(otherClassLoader);
          
 		// org.reflections.ClasspathHelper seems to return ONLY the jar or path containing the given package
@@ -41,6 +69,7 @@ abstract class ClasspathScannerBase {
                                                              classLoaders);
         if (CollectionUtils.hasData(outUrls)) {
         	outUrls = FluentIterable.from(outUrls)
+        							.filter(rootsFilter != null ? rootsFilter : Predicates.<URL>alwaysTrue())
                                     .transform(new Function<URL,URL>() {
 														@Override
 														public URL apply(final URL url) {
@@ -58,6 +87,36 @@ abstract class ClasspathScannerBase {
          }
          return outUrls;
 	}
+	/**
+	 * Scans the given packages at the classpath roots (jars or classes dirs) that do NOT contain a {@link ClasspathIndex}
+	 * BEWARE! the scanner store only contains the DIRECT super-type to sub-type (or annotation to type) relations: they're merged
+	 * 		   with the index ones BEFORE the sub-types closure is computed (see {@link ClasspathIndex#subTypesOf(Class, Collection, Predicate, ClassLoader, Reflections)})
+	 * 		   so a type hierarchy that spans indexed and NOT indexed roots is followed
+	 * @param pckgs
+	 * @param scannerFilter
+	 * @param otherClassLoader
+	 * @param index
+	 * @param scanners
+	 * @return the scanner or null if there's NO root to be scanned
+	 */
+	protected static Reflections _scanNotIndexedRoots(final Collection<JavaPackage> pckgs,
+													  final Predicate<JavaPackage> scannerFilter,
+													  final ClassLoader otherClassLoader,
+													  final ClasspathIndex index,
+													  final Scanner... scanners) {
+		Collection<URL> pckgUrls = _urlsForPackages(pckgs,
+											  		otherClassLoader,
+											  		index.notIndexedRoots());	// only scan the roots without an index
+		if (CollectionUtils.isNullOrEmpty(pckgUrls)) return null;	// all the roots are indexed: nothing to scan
+
+		log.info("...scanning the classpath roots without an index: {}",pckgUrls);
+		Predicate<String> theScannerFilter = scannerFilter != null ? ScannerFilter.createScannerFilter(scannerFilter)
+																   : ScannerFilter.DEFAULT_TYPE_FILTER;
+		return new Reflections(new ConfigurationBuilder()
+										.setUrls(pckgUrls)
+										.filterInputsBy(theScannerFilter)
+										.setScanners(scanners));
+	}
 	private static ClassLoader[] _scanClassLoaders(final ClassLoader otherClassLoader) {
 		ClassLoader[] outClassLoaders =	otherClassLoader != null ? ClasspathHelper.classLoaders(ClasspathHelper.staticClassLoader(),
 											 						 							ClasspathHelper.contextClassLoader(),
@@ -0,0 +1,86 @@
+package r01f.reflection.scanner;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * A cache for classpath scan results by classloader
+ * <p>
+ * BEWARE! the scan results reference types loaded by the classloader, so a static cache could prevent
+ * a webapp classloader from being collected when the webapp is redeployed:
+ * <ul>
+ * 		<li>the classloader is weakly referenced (the cache does NOT prevent it from being collected)</li>
+ * 		<li>the results are softly referenced (otherwise they would strongly reference the classloader
+ * 			through the found types and the classloader would never be collected)</li>
+ * 		<li>the number of results by classloader is bounded</li>
+ * </ul>
+ * The keys MUST NOT reference types loaded by the classloader (ie use the type name instead of the type)
+ * </p>
+ * @param <K>
+ * @param <V>
+ */
+public final class ScanResultsCache<K,V> {
+/////////////////////////////////////////////////////////////////////////////////////////
+//  FIELDS
+/////////////////////////////////////////////////////////////////////////////////////////
+	private final int _maxSizeByClassLoader;
+	private final Cache<ClassLoader,Cache<K,V>> _cache = CacheBuilder.newBuilder()
+																	 .weakKeys()
+																	 .build();
+/////////////////////////////////////////////////////////////////////////////////////////
+//  CONSTRUCTOR
+/////////////////////////////////////////////////////////////////////////////////////////
+	public ScanResultsCache(final int maxSizeByClassLoader) {
+		_maxSizeByClassLoader = maxSizeByClassLoader;
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//  METHODS
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Returns the cached scan result
+	 * @param classLoader the classloader used to scan (if null the thread context classloader)
+	 * @param key
+	 * @return the cached result or null if it's NOT cached
+	 */
+	public V get(final ClassLoader classLoader,final K key) {
+		Cache<K,V> results = _cache.getIfPresent(ScanResultsCache.classLoaderOrDefault(classLoader));
+		return results != null ? results.getIfPresent(key) : null;
+	}
+	/**
+	 * Caches a scan result
+	 * @param classLoader the classloader used to scan (if null the thread context classloader)
+	 * @param key
+	 * @param value
+	 */
+	public void put(final ClassLoader classLoader,final K key,final V value) {
+		try {
+			_cache.get(ScanResultsCache.classLoaderOrDefault(classLoader),
+					   new Callable<Cache<K,V>>() {
+							@Override
+							public Cache<K,V> call() {
+								return CacheBuilder.newBuilder()
+												   .softValues()
+												   .maximumSize(_maxSizeByClassLoader)
+												   .build();
+							}
+					   })
+				  .put(key,value);
+		} catch (ExecutionException exEx) {
+			throw new IllegalStateException(exEx.getCause());	// cannot happen
+		}
+	}
+	/**
+	 * Returns the given classloader or the one used when it's null (the thread context classloader)
+	 * @param classLoader
+	 * @return
+	 */
+	public static ClassLoader classLoaderOrDefault(final ClassLoader classLoader) {
+		if (classLoader != null) return classLoader;
+		ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+		return contextClassLoader != null ? contextClassLoader
+										  : ScanResultsCache.class.getClassLoader();
+	}
+}
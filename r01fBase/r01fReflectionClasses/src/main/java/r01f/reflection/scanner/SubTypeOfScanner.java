@@ -1,7 +1,9 @@
 package r01f.reflection.scanner;
 
 import java.net.URL;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 
 import org.reflections.Reflections;
@@ -10,6 +12,8 @@ import org.reflections.util.ConfigurationBuilder;
 
 import com.google.common.base.Predicate;
 import com.google.common.collect.FluentIterable;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
 
 import lombok.extern.slf4j.Slf4j;
 import r01f.types.JavaPackage;
@@ -20,6 +24,14 @@ import r01f.util.types.collections.CollectionUtils;
 public class SubTypeOfScanner 
 	 extends ClasspathScannerBase {
 /////////////////////////////////////////////////////////////////////////////////////////
+//  CACHE
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * The found subtypes by classLoader and [superType name,packages] when the default scanner filter is used
+	 * (the classpath does NOT change so the scan result can be reused)
+	 */
+	private static final ScanResultsCache<List<Object>,Set<?>> SUBTYPES_CACHE = new ScanResultsCache<List<Object>,Set<?>>(256);
+/////////////////////////////////////////////////////////////////////////////////////////
 //  
 /////////////////////////////////////////////////////////////////////////////////////////
 	/**
@@ -62,21 +74,65 @@ public class SubTypeOfScanner
 	}
 	/**
 	 * Finds subTypes of a given type scanning at given packages
+	 * The build-time {@link ClasspathIndex} is used for the classpath roots (jars or classes dirs) that contain an index;
+	 * the roots without an index are scanned (if the default scanner filter is used, the result is cached so the packages are only scanned once)
+	 * BEWARE! the returned set is immutable (as the scan result already was when any subtype was found)
 	 * @param superType
 	 * @param pckgs
 	 * @param scannerFilter
 	 * @param otherClassLoader
 	 * @return
 	 */
+	@SuppressWarnings("unchecked")
 	public static <T> Set<Class<? extends T>> findSubTypesAt(final Class<T> superType,
 													  		 final Collection<JavaPackage> pckgs,
 													  		 final Predicate<JavaPackage> scannerFilter,
 													  		 final ClassLoader otherClassLoader) {
-		log.info("...finding subtypes of {} at packages {} (BEWARE that every type between the type to be found and the supertype MUST be accesible in the package names list)",
-				 superType,pckgs);
+		List<Object> cacheKey = scannerFilter == null ? Arrays.<Object>asList(superType.getName(),		// the type is NOT referenced
+													  						  pckgs != null ? Sets.newHashSet(pckgs) : null)
+													  : null;	// the filter is NOT part of the key: a filtered scan is NOT cached
+		Set<Class<? extends T>> outSubTypes = cacheKey != null ? (Set<Class<? extends T>>)SUBTYPES_CACHE.get(otherClassLoader,cacheKey)
+															   : null;
+		if (outSubTypes != null) return outSubTypes;
+
+		ClasspathIndex index = ClasspathIndex.forClassLoader(otherClassLoader);
+		if (index.isEmpty()) {
+			outSubTypes = _scanSubTypesAt(superType,
+										  pckgs,
+										  scannerFilter,
+										  otherClassLoader);
+		} else {
+			log.info("...finding subtypes of {} at packages {} using the classpath index",
+					 superType,pckgs);
+			// the direct sub-types found at the roots without an index are merged with the indexed ones
+			// BEFORE computing the closure (a type hierarchy might span indexed and NOT indexed roots)
+			Reflections notIndexedRoots = _scanNotIndexedRoots(pckgs,
+															   scannerFilter,
+															   otherClassLoader,
+															   index,
+															   new SubTypesScanner(true));	// true = exclude object class
+			outSubTypes = index.subTypesOf(superType,
+										   pckgs,
+										   scannerFilter != null ? ScannerFilter.createScannerFilter(scannerFilter)
+												   				 : ScannerFilter.DEFAULT_TYPE_FILTER,
+										   otherClassLoader,
+										   notIndexedRoots);
+		}
+		if (outSubTypes == null) return null;	// do NOT cache failures
+		
+		outSubTypes = ImmutableSet.copyOf(outSubTypes);
+		if (cacheKey != null) SUBTYPES_CACHE.put(otherClassLoader,cacheKey,outSubTypes);
+		return outSubTypes;
+	}
+	private static <T> Set<Class<? extends T>> _scanSubTypesAt(final Class<T> superType,
+													  		   final Collection<JavaPackage> pckgs,
+													  		   final Predicate<JavaPackage> scannerFilter,
+													  		   final ClassLoader otherClassLoader) {
 		Collection<URL> pckgUrls = _urlsForPackages(pckgs,
 											  		otherClassLoader);
 		
+		log.info("...finding subtypes of {} at packages {} (BEWARE that every type between the type to be found and the supertype MUST be accesible in the package names list)",
+				 superType,pckgs);
 		Set<Class<? extends T>> outSubTypes = null;
 		if (CollectionUtils.isNullOrEmpty(pckgUrls)) {
 			log.error("Could NOT get any URL for packages {} from any classloader!!!",pckgs);
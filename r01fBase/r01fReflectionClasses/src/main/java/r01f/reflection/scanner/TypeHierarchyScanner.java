@@ -0,0 +1,299 @@
+package r01f.reflection.scanner;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.reflections.vfs.Vfs;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+
+import lombok.extern.slf4j.Slf4j;
+import r01f.concurrent.DaemonThreadFactory;
+import r01f.reflection.ReflectionUtils;
+import r01f.types.JavaPackage;
+import r01f.util.types.collections.CollectionUtils;
+
+/**
+ * A thread-safe sub-types scanner
+ * <p>
+ * Unlike {@link SubTypeOfScanner} (org.reflections based):
+ * <ul>
+ * 		<li>The classpath urls containing the packages are scanned in parallel (using a pool of threads just for the scan:
+ * 			reading the jars is blocking I/O so the common ForkJoinPool is NOT used)</li>
+ * 		<li>Only the class files' headers are read (see {@link ClassFileHeader}): just the found sub-types are loaded</li>
+ * 		<li>The packages are scanned ONCE: the type hierarchy is cached and shared for every requested super-type
+ * 			(see {@link #findSubTypesAt(Collection, Collection, boolean, ClassLoader)})</li>
+ * </ul>
+ * The build-time {@link ClasspathIndex} is used for the classpath roots (jars or classes dirs) that contain an index:
+ * only the roots without an index are scanned.
+ * </p>
+ * Usage:
+ * <pre class='brush:java'>
+ * 		Set<Class<? extends MyType>> subTypes = TypeHierarchyScanner.findSubTypesAt(MyType.class,
+ * 																					 Arrays.asList(JavaPackage.of("r01f")),
+ * 																					 true,		// just instanciable types
+ * 																					 classLoader);
+ * </pre>
+ * BEWARE! as with {@link SubTypeOfScanner}, every type between the sub-type and the super-type MUST be
+ * 		   at the scanned packages
+ */
+@Slf4j
+public class TypeHierarchyScanner
+	 extends ClasspathScannerBase {
+/////////////////////////////////////////////////////////////////////////////////////////
+//  CACHE
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * The scanned type hierarchies by classLoader and packages
+	 * (the classLoader is weakly referenced and the hierarchies are softly referenced: see {@link ScanResultsCache})
+	 */
+	private static final ScanResultsCache<Set<JavaPackage>,TypeHierarchy> HIERARCHIES = new ScanResultsCache<Set<JavaPackage>,TypeHierarchy>(32);
+	/**
+	 * The max number of threads used to scan the classpath urls
+	 */
+	private static final int SCAN_THREADS = Math.max(2,Math.min(8,Runtime.getRuntime().availableProcessors()));
+/////////////////////////////////////////////////////////////////////////////////////////
+//  METHODS
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Finds the sub-types of a given type at the given packages
+	 * @param superType
+	 * @param pckgs
+	 * @param instanciableOnly if true, interfaces and abstract types are NOT returned (nor loaded)
+	 * @param classLoader
+	 * @return
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> Set<Class<? extends T>> findSubTypesAt(final Class<T> superType,
+															 final Collection<JavaPackage> pckgs,
+															 final boolean instanciableOnly,
+															 final ClassLoader classLoader) {
+		Map<Class<?>,Set<Class<?>>> subTypes = TypeHierarchyScanner.findSubTypesAt(Collections.<Class<?>>singleton(superType),
+																				  pckgs,
+																				  instanciableOnly,
+																				  classLoader);
+		Set<?> outSubTypes = subTypes.get(superType);
+		return (Set<Class<? extends T>>)outSubTypes;
+	}
+	/**
+	 * Finds the sub-types of ALL the given types at the given packages in a single pass
+	 * @param superTypes
+	 * @param pckgs
+	 * @param instanciableOnly if true, interfaces and abstract types are NOT returned (nor loaded)
+	 * @param classLoader
+	 * @return the sub-types by super-type
+	 */
+	public static Map<Class<?>,Set<Class<?>>> findSubTypesAt(final Collection<Class<?>> superTypes,
+															 final Collection<JavaPackage> pckgs,
+															 final boolean instanciableOnly,
+															 final ClassLoader classLoader) {
+		if (CollectionUtils.isNullOrEmpty(pckgs)) throw new IllegalArgumentException("The packages to be scanned are needed!");
+		ClassLoader theClassLoader = classLoader != null ? classLoader : TypeHierarchyScanner.class.getClassLoader();
+
+		TypeHierarchy hierarchy = _hierarchyFor(pckgs,
+												theClassLoader);
+		Map<Class<?>,Set<Class<?>>> outSubTypes = new LinkedHashMap<Class<?>,Set<Class<?>>>(superTypes.size());
+		for (Class<?> superType : superTypes) {
+			outSubTypes.put(superType,
+							hierarchy.subTypesOf(superType,instanciableOnly));
+		}
+		return outSubTypes;
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//  PRIVATE METHODS
+/////////////////////////////////////////////////////////////////////////////////////////
+	private static TypeHierarchy _hierarchyFor(final Collection<JavaPackage> pckgs,
+											   final ClassLoader classLoader) {
+		Set<JavaPackage> thePckgs = Sets.newHashSet(pckgs);
+		TypeHierarchy outHierarchy = HIERARCHIES.get(classLoader,thePckgs);
+		if (outHierarchy != null) return outHierarchy;
+
+		// only the roots without an index are scanned
+		ClasspathIndex index = ClasspathIndex.forClassLoader(classLoader);
+		long startTS = System.currentTimeMillis();
+		Map<String,ClassFileHeader> headers = _scan(_urlsForPackages(thePckgs,
+																	 classLoader,
+																	 index.isEmpty() ? null : index.notIndexedRoots()));
+		log.info("...scanned {} types at packages {} in {} millis",
+				 headers.size(),thePckgs,System.currentTimeMillis() - startTS);
+		outHierarchy = new TypeHierarchy(thePckgs,classLoader,
+										 index,headers);
+		// another thread might have scanned the same packages at the same time: both hierarchies are equivalent
+		HIERARCHIES.put(classLoader,thePckgs,outHierarchy);
+		return outHierarchy;
+	}
+	/**
+	 * Scans every url in parallel
+	 * The pool is created just for the scan (the packages are scanned once) so no thread is kept
+	 * (a long-lived pool thread would also keep a reference to the context classloader of the thread that created it)
+	 * @param urls
+	 * @return the class file headers by type name
+	 */
+	private static Map<String,ClassFileHeader> _scan(final Collection<URL> urls) {
+		Map<String,ClassFileHeader> outHeaders = new HashMap<String,ClassFileHeader>();
+		if (urls.isEmpty()) return outHeaders;
+		if (urls.size() == 1) {
+			for (ClassFileHeader header : _scan(urls.iterator().next())) {
+				outHeaders.put(header.getTypeName(),header);
+			}
+			return outHeaders;
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(urls.size(),SCAN_THREADS),
+																new DaemonThreadFactory());
+		try {
+			List<Future<List<ClassFileHeader>>> tasks = new ArrayList<Future<List<ClassFileHeader>>>(urls.size());
+			for (final URL url : urls) {
+				tasks.add(executor.submit(new Callable<List<ClassFileHeader>>() {
+													@Override
+													public List<ClassFileHeader> call() {
+														return _scan(url);
+													}
+								  		  }));
+			}
+			for (Future<List<ClassFileHeader>> task : tasks) {
+				for (ClassFileHeader header : task.get()) {
+					outHeaders.put(header.getTypeName(),header);
+				}
+			}
+		} catch (InterruptedException intEx) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while scanning " + urls,intEx);
+		} catch (ExecutionException exEx) {
+			throw new IllegalStateException("Could NOT scan " + urls,exEx.getCause());	// cannot happen: _scan(url) does NOT throw
+		} finally {
+			executor.shutdownNow();
+		}
+		return outHeaders;
+	}
+	private static List<ClassFileHeader> _scan(final URL url) {
+		List<ClassFileHeader> outHeaders = new ArrayList<ClassFileHeader>();
+		Vfs.Dir dir = null;
+		try {
+			dir = Vfs.fromURL(url);
+			for (Vfs.File file : dir.getFiles()) {
+				if (!file.getName().endsWith(".class")) continue;
+				InputStream is = null;
+				try {
+					is = file.openInputStream();
+					outHeaders.add(ClassFileHeader.read(is));
+				} catch (IOException ioEx) {
+					log.warn("Could NOT read the class file {} at {}: {}",
+							 file.getRelativePath(),url,ioEx.getMessage());
+				} finally {
+					if (is != null) try { is.close(); } catch (IOException ioEx) { /* ignore */ }
+				}
+			}
+		} catch (Throwable th) {
+			log.error("Could NOT scan {}: {}",url,th.getMessage(),th);
+		} finally {
+			if (dir != null) dir.close();
+		}
+		return outHeaders;
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//  TYPE HIERARCHY
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * The type hierarchy of the types at some packages: from the build-time index (the indexed roots) and from
+	 * the class files' headers (the roots without an index)
+	 * (the headers are NOT kept: just the direct sub-types and the NOT instanciable type names)
+	 * The indexed and the scanned direct sub-types are a single graph: a type hierarchy might span indexed and NOT indexed roots
+	 */
+	static class TypeHierarchy {
+		private final Set<JavaPackage> _pckgs;
+		private final ClassLoader _classLoader;
+		private final ClasspathIndex _index;
+		private final Map<String,Set<String>> _directSubTypes;
+		private final Set<String> _notInstanciableTypes;
+		private final ConcurrentMap<List<Object>,Set<Class<?>>> _subTypes = new ConcurrentHashMap<List<Object>,Set<Class<?>>>();
+
+		TypeHierarchy(final Set<JavaPackage> pckgs,final ClassLoader classLoader,
+					  final ClasspathIndex index,final Map<String,ClassFileHeader> headers) {
+			_pckgs = pckgs;
+			_classLoader = classLoader;
+			_index = index;
+			_directSubTypes = _directSubTypesOf(headers);
+			_notInstanciableTypes = _notInstanciableTypesOf(headers);
+		}
+		Set<Class<?>> subTypesOf(final Class<?> superType,final boolean instanciableOnly) {
+			List<Object> key = Arrays.<Object>asList(superType.getName(),instanciableOnly);
+			Set<Class<?>> outSubTypes = _subTypes.get(key);
+			if (outSubTypes != null) return outSubTypes;
+
+			outSubTypes = ImmutableSet.copyOf(_loadSubTypesOf(superType.getName(),instanciableOnly));
+			_subTypes.putIfAbsent(key,outSubTypes);
+			return outSubTypes;
+		}
+		private Set<Class<?>> _loadSubTypesOf(final String superTypeName,final boolean instanciableOnly) {
+			Set<Class<?>> outSubTypes = new LinkedHashSet<Class<?>>();
+			Predicate<String> filter = ScannerFilter.DEFAULT_TYPE_FILTER;
+			// the closure is computed ONCE over the indexed AND the scanned direct sub-types
+			for (String subTypeName : _index.subTypeNamesOf(Collections.singleton(superTypeName),
+															 _directSubTypes)) {
+				// only the types at the packages are loaded
+				if (instanciableOnly && _notInstanciableTypes.contains(subTypeName)) continue;
+				if (!_isAt(subTypeName) || !filter.apply(subTypeName + ".class")) continue;
+				try {
+					Class<?> subType = Class.forName(subTypeName,false,
+													 _classLoader);
+					if (instanciableOnly && !ReflectionUtils.isInstanciable(subType)) continue;		// an indexed type (there's NO header)
+					outSubTypes.add(subType);
+				} catch (Throwable th) {
+					log.warn("Could NOT load type {}: {}",subTypeName,th.getMessage());
+				}
+			}
+			return outSubTypes;
+		}
+		private boolean _isAt(final String typeName) {
+			for (JavaPackage pckg : _pckgs) {
+				if (typeName.startsWith(pckg.asString() + ".")) return true;
+			}
+			return false;
+		}
+		private static Map<String,Set<String>> _directSubTypesOf(final Map<String,ClassFileHeader> headers) {
+			Map<String,Set<String>> outSubTypes = new HashMap<String,Set<String>>();
+			for (ClassFileHeader header : headers.values()) {
+				if (header.getSuperTypeName() != null) _put(outSubTypes,header.getSuperTypeName(),header.getTypeName());
+				for (String iface : header.getInterfaceNames()) _put(outSubTypes,iface,header.getTypeName());
+			}
+			return outSubTypes;
+		}
+		private static Set<String> _notInstanciableTypesOf(final Map<String,ClassFileHeader> headers) {
+			Set<String> outTypes = new HashSet<String>();
+			for (ClassFileHeader header : headers.values()) {
+				if (!header.isInstanciable()) outTypes.add(header.getTypeName());
+			}
+			return outTypes;
+		}
+		private static void _put(final Map<String,Set<String>> map,
+								 final String key,final String value) {
+			Set<String> values = map.get(key);
+			if (values == null) {
+				values = new LinkedHashSet<String>();
+				map.put(key,values);
+			}
+			values.add(value);
+		}
+	}
+}
@@ -0,0 +1,166 @@
+package r01f.reflection.scanner;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+
+import r01f.types.JavaPackage;
+
+public class ClasspathIndexTest {
+/////////////////////////////////////////////////////////////////////////////////////////
+//	TYPES (indexed by the ClasspathIndexProcessor when the tests are compiled)
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Retention(RetentionPolicy.RUNTIME)
+	public static @interface Marker {
+		// just a marker
+	}
+	public static interface Base {
+		// just a type
+	}
+	@Marker
+	public static class Middle
+			 implements Base {
+		// just a type
+	}
+	public static class Leaf
+				extends Middle {
+		// just a type
+	}
+	private static final Collection<JavaPackage> PCKGS = ImmutableSet.of(JavaPackage.of(ClasspathIndexTest.class));
+/////////////////////////////////////////////////////////////////////////////////////////
+//	THE INDEX GENERATED BY THE BUILD
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Test
+	public void testBuildGeneratedIndex() throws Exception {
+		ClassLoader classLoader = ClasspathIndexTest.class.getClassLoader();
+		String testClassesRoot = ClasspathIndexTest.class.getProtectionDomain()
+														 .getCodeSource()
+														 .getLocation()
+														 .toExternalForm();
+		// the index generated when the test classes were compiled
+		URL generatedIndex = null;
+		for (URL indexUrl : Collections.list(classLoader.getResources(ClasspathIndex.INDEX_RESOURCE))) {
+			if (indexUrl.toExternalForm().startsWith(testClassesRoot)) generatedIndex = indexUrl;
+		}
+		Assert.assertNotNull("The build did NOT generate the classpath index of the test classes",generatedIndex);
+		List<String> lines = _readLines(generatedIndex);
+		Assert.assertTrue(lines.contains("P " + ClasspathIndexTest.class.getPackage().getName()));
+		Assert.assertTrue(lines.contains("S " + Base.class.getName() + " " + Middle.class.getName()));
+		Assert.assertTrue(lines.contains("S " + Middle.class.getName() + " " + Leaf.class.getName()));
+		Assert.assertTrue(lines.contains("A " + Marker.class.getName() + " " + Middle.class.getName()));
+
+		// the index is used
+		ClasspathIndex index = ClasspathIndex.forClassLoader(classLoader);
+		Assert.assertFalse(index.isEmpty());
+		Assert.assertTrue(index.isIndexed(new URL(testClassesRoot)));
+		Assert.assertEquals(Sets.<Class<?>>newHashSet(Middle.class,Leaf.class),
+							new HashSet<Class<?>>(index.subTypesOf(Base.class,
+																   PCKGS,null,
+																   classLoader)));
+		Assert.assertEquals(Sets.<Class<?>>newHashSet(Middle.class,Leaf.class),
+							index.typesAnnotatedWith(Marker.class,false,
+													 PCKGS,null,
+													 classLoader));
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	A TYPE HIERARCHY THAT SPANS INDEXED AND SCANNED ROOTS
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Test
+	public void testIndexedSuperTypeScannedSubType() throws Exception {
+		// Base -> Middle is indexed; Middle -> Leaf is found scanning a root without an index
+		ClasspathIndex index = _index("S " + Base.class.getName() + " " + Middle.class.getName());
+		Map<String,Collection<String>> scanned = _edges(Middle.class,Leaf.class);
+
+		Assert.assertEquals(Sets.<Class<?>>newHashSet(Middle.class,Leaf.class),
+							new HashSet<Class<?>>(index.subTypesOf(Base.class,
+																   PCKGS,null,
+																   ClasspathIndexTest.class.getClassLoader(),
+																   scanned)));
+	}
+	@Test
+	public void testScannedSuperTypeIndexedSubType() throws Exception {
+		// Base -> Middle is found scanning a root without an index; Middle -> Leaf is indexed
+		ClasspathIndex index = _index("S " + Middle.class.getName() + " " + Leaf.class.getName());
+		Map<String,Collection<String>> scanned = _edges(Base.class,Middle.class);
+
+		Assert.assertEquals(Sets.<Class<?>>newHashSet(Middle.class,Leaf.class),
+							new HashSet<Class<?>>(index.subTypesOf(Base.class,
+																   PCKGS,null,
+																   ClasspathIndexTest.class.getClassLoader(),
+																   scanned)));
+	}
+	@Test
+	public void testScannedAnnotatedTypeIndexedSubType() throws Exception {
+		// Middle is annotated at a root without an index; Middle -> Leaf is indexed
+		ClasspathIndex index = _index("S " + Middle.class.getName() + " " + Leaf.class.getName());
+		Map<String,Collection<String>> scannedAnnotated = _edges(Marker.class,Middle.class);
+
+		Assert.assertEquals(Sets.<Class<?>>newHashSet(Middle.class,Leaf.class),
+							index.typesAnnotatedWith(Marker.class,false,
+													 PCKGS,null,
+													 ClasspathIndexTest.class.getClassLoader(),
+													 scannedAnnotated,null));
+		// Marker is NOT @Inherited
+		Assert.assertEquals(Sets.<Class<?>>newHashSet(Middle.class),
+							index.typesAnnotatedWith(Marker.class,true,
+													 PCKGS,null,
+													 ClasspathIndexTest.class.getClassLoader(),
+													 scannedAnnotated,null));
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	
+/////////////////////////////////////////////////////////////////////////////////////////
+	private static ClasspathIndex _index(final String... lines) throws Exception {
+		File root = Files.createTempDirectory("r01f-classpath-index").toFile();
+		root.deleteOnExit();
+		File indexFile = new File(root,ClasspathIndex.INDEX_RESOURCE);
+		indexFile.getParentFile().mkdirs();
+		indexFile.deleteOnExit();
+		Writer writer = new OutputStreamWriter(Files.newOutputStream(indexFile.toPath()),StandardCharsets.UTF_8);
+		try {
+			writer.write("P " + ClasspathIndexTest.class.getPackage().getName() + "\n");
+			for (String line : lines) writer.write(line + "\n");
+		} finally {
+			writer.close();
+		}
+		return ClasspathIndex.load(Collections.singleton(indexFile.toURI().toURL()));
+	}
+	private static Map<String,Collection<String>> _edges(final Class<?> from,final Class<?> to) {
+		Map<String,Collection<String>> outEdges = new HashMap<String,Collection<String>>();
+		outEdges.put(from.getName(),Collections.singleton(to.getName()));
+		return outEdges;
+	}
+	private static List<String> _readLines(final URL url) throws Exception {
+		List<String> outLines = new ArrayList<String>();
+		InputStream is = url.openStream();
+		try {
+			BufferedReader reader = new BufferedReader(new InputStreamReader(is,StandardCharsets.UTF_8));
+			String line = null;
+			while ((line = reader.readLine()) != null) outLines.add(line.trim());
+		} finally {
+			is.close();
+		}
+		return outLines;
+	}
+}
@@ -0,0 +1,109 @@
+package r01f.reflection.scanner;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+
+import r01f.reflection.scanner.TypeHierarchyScanner.TypeHierarchy;
+import r01f.types.JavaPackage;
+
+public class TypeHierarchyScannerTest {
+/////////////////////////////////////////////////////////////////////////////////////////
+//	TYPES
+/////////////////////////////////////////////////////////////////////////////////////////
+	public static interface Base {
+		// just a type
+	}
+	public static abstract class AbstractMiddle
+					  implements Base {
+		// just a type
+	}
+	public static class Middle
+				extends AbstractMiddle {
+		// just a type
+	}
+	public static class Leaf
+				extends Middle {
+		// just a type
+	}
+	private static final Set<JavaPackage> PCKGS = ImmutableSet.of(JavaPackage.of(TypeHierarchyScannerTest.class));
+/////////////////////////////////////////////////////////////////////////////////////////
+//	A TYPE HIERARCHY THAT SPANS INDEXED AND SCANNED ROOTS
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Test
+	public void testIndexedSuperTypesScannedSubTypes() throws Exception {
+		// Base -> AbstractMiddle -> Middle are indexed; Middle -> Leaf is found scanning a root without an index
+		ClasspathIndex index = _index("S " + Base.class.getName() + " " + AbstractMiddle.class.getName(),
+									  "S " + AbstractMiddle.class.getName() + " " + Middle.class.getName());
+		TypeHierarchy hierarchy = new TypeHierarchy(PCKGS,TypeHierarchyScannerTest.class.getClassLoader(),
+													index,_headersOf(Leaf.class));
+
+		Assert.assertEquals(Sets.<Class<?>>newHashSet(AbstractMiddle.class,Middle.class,Leaf.class),
+							hierarchy.subTypesOf(Base.class,false));
+		Assert.assertEquals(Sets.<Class<?>>newHashSet(Middle.class,Leaf.class),
+							hierarchy.subTypesOf(Base.class,true));			// just instanciable
+	}
+	@Test
+	public void testScannedSuperTypesIndexedSubTypes() throws Exception {
+		// Base -> AbstractMiddle -> Middle are found scanning a root without an index; Middle -> Leaf is indexed
+		ClasspathIndex index = _index("S " + Middle.class.getName() + " " + Leaf.class.getName());
+		TypeHierarchy hierarchy = new TypeHierarchy(PCKGS,TypeHierarchyScannerTest.class.getClassLoader(),
+													index,_headersOf(AbstractMiddle.class,Middle.class));
+
+		Assert.assertEquals(Sets.<Class<?>>newHashSet(Middle.class,Leaf.class),
+							hierarchy.subTypesOf(Base.class,true));
+		Assert.assertEquals(Sets.<Class<?>>newHashSet(Leaf.class),
+							hierarchy.subTypesOf(Middle.class,true));
+	}
+	@Test
+	public void testScannedOnly() throws Exception {
+		TypeHierarchy hierarchy = new TypeHierarchy(PCKGS,TypeHierarchyScannerTest.class.getClassLoader(),
+													ClasspathIndex.load(Collections.<java.net.URL>emptySet()),	// no index
+													_headersOf(AbstractMiddle.class,Middle.class,Leaf.class));
+		Assert.assertEquals(Sets.<Class<?>>newHashSet(Middle.class,Leaf.class),
+							hierarchy.subTypesOf(Base.class,true));
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	
+/////////////////////////////////////////////////////////////////////////////////////////
+	private static Map<String,ClassFileHeader> _headersOf(final Class<?>... types) throws Exception {
+		Map<String,ClassFileHeader> outHeaders = new HashMap<String,ClassFileHeader>();
+		for (Class<?> type : types) {
+			InputStream is = type.getResourceAsStream(type.getName().substring(type.getName().lastIndexOf('.') + 1) + ".class");
+			try {
+				ClassFileHeader header = ClassFileHeader.read(is);
+				outHeaders.put(header.getTypeName(),header);
+			} finally {
+				is.close();
+			}
+		}
+		return outHeaders;
+	}
+	private static ClasspathIndex _index(final String... lines) throws Exception {
+		File root = Files.createTempDirectory("r01f-classpath-index").toFile();
+		root.deleteOnExit();
+		File indexFile = new File(root,ClasspathIndex.INDEX_RESOURCE);
+		indexFile.getParentFile().mkdirs();
+		indexFile.deleteOnExit();
+		Writer writer = new OutputStreamWriter(Files.newOutputStream(indexFile.toPath()),StandardCharsets.UTF_8);
+		try {
+			for (String line : lines) writer.write(line + "\n");
+		} finally {
+			writer.close();
+		}
+		return ClasspathIndex.load(Collections.singleton(indexFile.toURI().toURL()));
+	}
+}
@@ -0,0 +1,107 @@
+package r01f.benchmarks;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import r01f.io.ChunkedInputStream;
+import r01f.io.ChunkedInputStreamChunksProducer;
+import r01f.io.ChunkedOutputStream;
+import r01f.io.ChunkedOutputStreamChunksConsumer;
+
+/**
+ * {@link ChunkedInputStream} / {@link ChunkedOutputStream} throughput
+ * (an in-memory payload is read / written using the given chunk size)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations=3,time=1)
+@Measurement(iterations=5,time=1)
+@Fork(1)
+public class ChunkedStreamsBenchmark {
+/////////////////////////////////////////////////////////////////////////////////////////
+//  PARAMS
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Param({ "1048576" })		// 1MB
+	private int _payloadSize;
+
+	@Param({ "1024","65536" })
+	private int _chunkSize;
+/////////////////////////////////////////////////////////////////////////////////////////
+//  STATE
+/////////////////////////////////////////////////////////////////////////////////////////
+	private byte[] _payload;
+	private byte[] _readBuffer;
+
+	@Setup
+	public void setup() {
+		_payload = new byte[_payloadSize];
+		new Random(1234).nextBytes(_payload);
+		_readBuffer = new byte[8 * 1024];
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//  BENCHMARKS
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Benchmark
+	public long read() throws IOException {
+		ChunkedInputStream is = new ChunkedInputStream(new ChunkedInputStreamChunksProducer() {
+																@Override
+																public byte[] get(final long offset) {
+																	if (offset >= _payload.length) return null;
+																	int chunkLength = (int)Math.min(_chunkSize,
+																									_payload.length - offset);
+																	byte[] chunk = new byte[chunkLength];
+																	System.arraycopy(_payload,(int)offset,
+																					 chunk,0,
+																					 chunkLength);
+																	return chunk;
+																}
+													   });
+		long outRead = 0;
+		try {
+			int n = 0;
+			while ((n = is.read(_readBuffer)) != -1) outRead += n;
+		} finally {
+			is.close();
+		}
+		return outRead;
+	}
+	@Benchmark
+	public long write() throws IOException {
+		final long[] consumed = new long[1];
+		ChunkedOutputStream os = new ChunkedOutputStream(_chunkSize * 2,_chunkSize,
+														 new ChunkedOutputStreamChunksConsumer() {
+																@Override
+																public boolean put(final long offset,
+																				   final byte[] bytes) {
+																	consumed[0] += bytes.length;
+																	return true;
+																}
+														 });
+		try {
+			int written = 0;
+			while (written < _payload.length) {
+				int len = Math.min(_readBuffer.length,_payload.length - written);
+				os.write(_payload,written,len);
+				written += len;
+			}
+			os.flush();
+		} finally {
+			os.close();
+		}
+		return consumed[0];
+	}
+}
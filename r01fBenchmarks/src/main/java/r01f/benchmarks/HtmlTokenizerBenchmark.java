@@ -0,0 +1,67 @@
+package r01f.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import r01f.html.parser.HtmlTokenizerFlowable;
+
+/**
+ * HTML tokenizer throughput (see {@link HtmlTokenizerFlowable})
+ * The score is the number of documents tokenized per millisecond; the document size is given by the numSections param
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations=3,time=2)
+@Measurement(iterations=5,time=2)
+@Fork(1)
+public class HtmlTokenizerBenchmark {
+/////////////////////////////////////////////////////////////////////////////////////////
+//  PARAMS
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Param({ "10","1000" })
+	private int _numSections;
+/////////////////////////////////////////////////////////////////////////////////////////
+//  STATE
+/////////////////////////////////////////////////////////////////////////////////////////
+	private String _html;
+
+	@Setup
+	public void setup() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("<!DOCTYPE html>\n")
+		  .append("<html lang='es'>\n")
+		  .append("<head><meta charset='UTF-8'><title>r01f benchmark</title></head>\n")
+		  .append("<body>\n");
+		for (int i = 0; i < _numSections; i++) {
+			sb.append("<!-- section ").append(i).append(" -->\n")
+			  .append("<div id='section").append(i).append("' class='section'>\n")
+			  .append("\t<h2 class=\"title\">Section ").append(i).append("</h2>\n")
+			  .append("\t<p>El veloz murciélago hindú comía feliz cardillo y kiwis. <a href='/a/b/").append(i).append("?x=1&amp;y=2'>link</a></p>\n")
+			  .append("\t<img src='/img/").append(i).append(".png' alt='image'/>\n")
+			  .append("</div>\n");
+		}
+		sb.append("</body>\n</html>");
+		_html = sb.toString();
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//  BENCHMARKS
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Benchmark
+	public long tokenize() {
+		return HtmlTokenizerFlowable.createFrom(_html)
+									.count()
+									.blockingGet();
+	}
+}
@@ -0,0 +1,83 @@
+package r01f.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import r01f.http.loadbalance.LoadBalancedBackendServerStats;
+import r01f.http.loadbalance.LoadBalancerIDs.LoadBalancedServiceID;
+import r01f.http.loadbalance.LoadBalancerManager;
+import r01f.http.loadbalance.balancer.LoadBalancerContext;
+import r01f.http.loadbalance.balancer.LoadBalancerContextVoidImpl;
+import r01f.types.url.Url;
+
+/**
+ * {@link LoadBalancerManager#chooseServerFor(LoadBalancedServiceID, LoadBalancerContext)} throughput
+ * (the servers are NOT contacted: only the server selection is measured)
+ * Run with more than one thread to measure contention:
+ * <pre>
+ * 		> java -jar r01fBenchmarks.jar LoadBalancerManagerBenchmark -t 8
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations=3,time=1)
+@Measurement(iterations=5,time=1)
+@Fork(1)
+@Threads(1)
+public class LoadBalancerManagerBenchmark {
+/////////////////////////////////////////////////////////////////////////////////////////
+//  PARAMS
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Param({ "3","30" })
+	private int _numServers;
+/////////////////////////////////////////////////////////////////////////////////////////
+//  STATE
+/////////////////////////////////////////////////////////////////////////////////////////
+	private static final LoadBalancedServiceID SERVICE_ID = LoadBalancedServiceID.named("benchmark");
+	private final LoadBalancerContext _ctx = new LoadBalancerContextVoidImpl();
+	private LoadBalancerManager _loadBalancer;
+
+	@Setup
+	public void setup() {
+		List<Url> urls = new ArrayList<Url>(_numServers);
+		for (int i = 0; i < _numServers; i++) {
+			urls.add(Url.from("http://server" + i + ".benchmark.local:8080"));
+		}
+		_loadBalancer = LoadBalancerManager.builder()
+										   .usingNewMetricRegistry()
+										   .withDefaultRefreshInterval()
+										   .withRandomLoadBalancing()
+										   .withServers(SERVICE_ID,urls)
+										   .build();
+	}
+	@TearDown
+	public void tearDown() throws IOException {
+		// the manager refreshes the server lists in the background: stop it
+		if (_loadBalancer != null) _loadBalancer.close();
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//  BENCHMARKS
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Benchmark
+	public LoadBalancedBackendServerStats chooseServer() {
+		return _loadBalancer.chooseServerFor(SERVICE_ID,
+											 _ctx);
+	}
+}
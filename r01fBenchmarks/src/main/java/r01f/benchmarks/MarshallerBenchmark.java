@@ -0,0 +1,84 @@
+package r01f.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import r01f.objectstreamer.MarshallerBuilder;
+import r01f.objectstreamer.MarshallerImpl;
+import r01f.types.JavaPackage;
+
+/**
+ * JSON / XML marshalling and unmarshalling through {@link MarshallerImpl}
+ * (the object tree size is given by the numChildren param)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations=3,time=2)
+@Measurement(iterations=5,time=2)
+@Fork(1)
+public class MarshallerBenchmark {
+/////////////////////////////////////////////////////////////////////////////////////////
+//  PARAMS
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Param({ "1","100" })
+	private int _numChildren;
+/////////////////////////////////////////////////////////////////////////////////////////
+//  STATE
+/////////////////////////////////////////////////////////////////////////////////////////
+	private MarshallerImpl _marshaller;
+	private MarshallerBenchmarkModelObject _obj;
+	private String _json;
+	private String _xml;
+
+	@Setup
+	public void setup() {
+		_marshaller = MarshallerBuilder.findTypesToMarshallAtJavaPackages(JavaPackage.of(MarshallerBenchmark.class))
+									   .build();
+		_obj = MarshallerBenchmarkModelObject.create(_numChildren);
+		_json = _marshaller.forWriting().toJson(_obj);
+		_xml = _marshaller.forWriting().toXml(_obj);
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//  BENCHMARKS
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Benchmark
+	public String writeJson() {
+		return _marshaller.forWriting()
+						  .toJson(_obj);
+	}
+	@Benchmark
+	public int writeJsonToStream() {
+		ByteArrayOutputStream os = new ByteArrayOutputStream(_json.length());
+		_marshaller.forWriting()
+				   .toJson(_obj,os);
+		return os.size();
+	}
+	@Benchmark
+	public MarshallerBenchmarkModelObject readJson() {
+		return _marshaller.forReading()
+						  .fromJson(_json,MarshallerBenchmarkModelObject.class);
+	}
+	@Benchmark
+	public String writeXml() {
+		return _marshaller.forWriting()
+						  .toXml(_obj);
+	}
+	@Benchmark
+	public MarshallerBenchmarkModelObject readXml() {
+		return _marshaller.forReading()
+						  .fromXml(_xml,MarshallerBenchmarkModelObject.class);
+	}
+}
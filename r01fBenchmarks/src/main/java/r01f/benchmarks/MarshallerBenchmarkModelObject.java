@@ -0,0 +1,79 @@
+package r01f.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+import r01f.objectstreamer.annotations.MarshallField;
+import r01f.objectstreamer.annotations.MarshallField.MarshallFieldAsXml;
+import r01f.objectstreamer.annotations.MarshallType;
+
+/**
+ * A model object marshalled at {@link MarshallerBenchmark}
+ */
+@MarshallType(as="benchmarkModelObject")
+@Accessors(prefix="_")
+@NoArgsConstructor
+public class MarshallerBenchmarkModelObject {
+/////////////////////////////////////////////////////////////////////////////////////////
+//  FIELDS
+/////////////////////////////////////////////////////////////////////////////////////////
+	@MarshallField(as="id",
+				   whenXml=@MarshallFieldAsXml(attr=true))
+	@Getter @Setter private long _id;
+
+	@MarshallField(as="name")
+	@Getter @Setter private String _name;
+
+	@MarshallField(as="description")
+	@Getter @Setter private String _description;
+
+	@MarshallField(as="createDate")
+	@Getter @Setter private Date _createDate;
+
+	@MarshallField(as="enabled",
+				   whenXml=@MarshallFieldAsXml(attr=true))
+	@Getter @Setter private boolean _enabled;
+
+	@MarshallField(as="tags",
+				   whenXml=@MarshallFieldAsXml(collectionElementName="tag"))
+	@Getter @Setter private List<String> _tags;
+
+	@MarshallField(as="children",
+				   whenXml=@MarshallFieldAsXml(collectionElementName="child"))
+	@Getter @Setter private List<MarshallerBenchmarkModelObject> _children;
+/////////////////////////////////////////////////////////////////////////////////////////
+//  
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Creates an object tree with the given number of children
+	 * @param numChildren
+	 * @return
+	 */
+	public static MarshallerBenchmarkModelObject create(final int numChildren) {
+		MarshallerBenchmarkModelObject outObj = _create(0);
+		outObj.setChildren(new ArrayList<MarshallerBenchmarkModelObject>(numChildren));
+		for (int i = 1; i <= numChildren; i++) {
+			outObj.getChildren().add(_create(i));
+		}
+		return outObj;
+	}
+	private static MarshallerBenchmarkModelObject _create(final int id) {
+		MarshallerBenchmarkModelObject outObj = new MarshallerBenchmarkModelObject();
+		outObj.setId(id);
+		outObj.setName("object " + id);
+		outObj.setDescription("El veloz murciélago hindú comía feliz cardillo y kiwis (" + id + ")");
+		outObj.setCreateDate(new Date(1500000000000L + id));
+		outObj.setEnabled(id % 2 == 0);
+		List<String> tags = new ArrayList<String>(3);
+		tags.add("tag1");
+		tags.add("tag2");
+		tags.add("tag" + id);
+		outObj.setTags(tags);
+		return outObj;
+	}
+}
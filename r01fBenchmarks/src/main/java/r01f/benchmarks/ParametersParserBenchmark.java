@@ -0,0 +1,56 @@
+package r01f.benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import r01f.types.ParametersParser;
+import r01f.types.ParametersParserNoRegexBased;
+import r01f.types.ParametersParserRegexBased;
+
+/**
+ * {@link ParametersParserNoRegexBased} vs {@link ParametersParserRegexBased}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations=3,time=1)
+@Measurement(iterations=5,time=1)
+@Fork(1)
+public class ParametersParserBenchmark {
+/////////////////////////////////////////////////////////////////////////////////////////
+//  PARAMS
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Param({ "param1=value1",
+			 "param1=value1&param2=value2&param3=value3&param4=value4&param5=value5&param6=value6&param7=value7&param8=value8" })
+	private String _params;
+
+	@Param({ "false","true" })
+	private boolean _decode;
+/////////////////////////////////////////////////////////////////////////////////////////
+//  STATE
+/////////////////////////////////////////////////////////////////////////////////////////
+	private final ParametersParser _noRegexParser = new ParametersParserNoRegexBased();
+	private final ParametersParser _regexParser = new ParametersParserRegexBased();
+/////////////////////////////////////////////////////////////////////////////////////////
+//  BENCHMARKS
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Benchmark
+	public Map<String,String> noRegexBased() {
+		return _noRegexParser.parse(_params,_decode);
+	}
+	@Benchmark
+	public Map<String,String> regexBased() {
+		return _regexParser.parse(_params,_decode);
+	}
+}
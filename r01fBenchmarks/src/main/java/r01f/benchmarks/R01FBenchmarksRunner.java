@@ -0,0 +1,134 @@
+package r01f.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Runs the benchmarks, stores the results as JSON and compares them with a baseline
+ * <pre>
+ * 		> java -cp r01fBenchmarks.jar r01f.benchmarks.R01FBenchmarksRunner [benchmarks regexp]
+ * </pre>
+ * System properties:
+ * <ul>
+ * 		<li>r01f.benchmarks.results: where the results are stored (default: target/r01f-benchmarks.json)</li>
+ * 		<li>r01f.benchmarks.baseline: the baseline results to compare with (default: baseline/r01f-benchmarks.json if it exists)</li>
+ * 		<li>r01f.benchmarks.tolerance: the % a score can drop before being considered a regression (default: 10)</li>
+ * </ul>
+ * To publish a new baseline just copy the results file over the baseline file (the numbers are only comparable if they were
+ * measured at the same hardware / jvm)
+ * If any benchmark has regressed the process exits with status 1 so it can be used as a CI gate.
+ */
+public class R01FBenchmarksRunner {
+/////////////////////////////////////////////////////////////////////////////////////////
+//  CONSTANTS
+/////////////////////////////////////////////////////////////////////////////////////////
+	private static final String DEFAULT_RESULTS = "target/r01f-benchmarks.json";
+	private static final String DEFAULT_BASELINE = "baseline/r01f-benchmarks.json";
+	private static final double DEFAULT_TOLERANCE = 10;
+/////////////////////////////////////////////////////////////////////////////////////////
+//  MAIN
+/////////////////////////////////////////////////////////////////////////////////////////
+	public static void main(final String[] args) throws RunnerException,
+														IOException {
+		String include = args != null && args.length > 0 ? args[0] : "r01f\\.benchmarks\\..*";
+		String results = System.getProperty("r01f.benchmarks.results",DEFAULT_RESULTS);
+		String baseline = System.getProperty("r01f.benchmarks.baseline",DEFAULT_BASELINE);
+		double tolerance = Double.parseDouble(System.getProperty("r01f.benchmarks.tolerance",
+																 Double.toString(DEFAULT_TOLERANCE)));
+
+		// [1] - Run
+		File resultsFile = new File(results);
+		if (resultsFile.getParentFile() != null) resultsFile.getParentFile().mkdirs();
+		Options opts = new OptionsBuilder()
+								.include(include)
+								.resultFormat(ResultFormatType.JSON)
+								.result(resultsFile.getPath())
+								.build();
+		Collection<RunResult> runResults = new Runner(opts).run();
+		System.out.println("\n" + runResults.size() + " benchmarks run: results stored at " + resultsFile.getAbsolutePath());
+
+		// [2] - Compare with the baseline
+		File baselineFile = new File(baseline);
+		if (!baselineFile.exists()) {
+			System.out.println("There's NO baseline at " + baselineFile.getAbsolutePath() + ": copy " + resultsFile.getPath() + " there to publish it");
+			return;
+		}
+		if (R01FBenchmarksRunner._scores(baselineFile).isEmpty()) {
+			System.out.println("The baseline at " + baselineFile.getAbsolutePath() + " has NO scores yet: copy " + resultsFile.getPath() + " there to publish it");
+			return;
+		}
+		int regressions = R01FBenchmarksRunner.compare(baselineFile,resultsFile,
+													   tolerance);
+		if (regressions > 0) System.exit(1);
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//  COMPARE
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Compares two JMH JSON result files and prints the differences
+	 * (all the benchmarks measure throughput so a lower score is worse)
+	 * @param baselineFile
+	 * @param resultsFile
+	 * @param tolerance the % a score can drop before being considered a regression
+	 * @return the number of regressions
+	 * @throws IOException
+	 */
+	public static int compare(final File baselineFile,final File resultsFile,
+							  final double tolerance) throws IOException {
+		Map<String,Double> baselineScores = _scores(baselineFile);
+		Map<String,Double> currentScores = _scores(resultsFile);
+
+		int outRegressions = 0;
+		System.out.println(String.format("\n%-100s %15s %15s %8s","Benchmark","Baseline","Current","Diff %"));
+		for (Map.Entry<String,Double> me : currentScores.entrySet()) {
+			Double baselineScore = baselineScores.get(me.getKey());
+			if (baselineScore == null || baselineScore == 0) {
+				System.out.println(String.format("%-100s %15s %15.3f %8s",me.getKey(),"-",me.getValue(),"NEW"));
+				continue;
+			}
+			double diff = (me.getValue() - baselineScore) * 100 / baselineScore;
+			boolean regression = diff < -tolerance;
+			if (regression) outRegressions++;
+			System.out.println(String.format("%-100s %15.3f %15.3f %+7.1f%s",
+											 me.getKey(),baselineScore,me.getValue(),diff,
+											 regression ? " <<< REGRESSION" : ""));
+		}
+		System.out.println("\n" + outRegressions + " regressions (tolerance " + tolerance + "%)");
+		return outRegressions;
+	}
+	private static Map<String,Double> _scores(final File jmhJsonFile) throws IOException {
+		JsonNode root = new ObjectMapper().readTree(jmhJsonFile);
+		Map<String,Double> outScores = new LinkedHashMap<String,Double>();
+		for (JsonNode result : root) {
+			StringBuilder key = new StringBuilder(result.path("benchmark").asText());
+			JsonNode params = result.path("params");
+			if (params.size() > 0) {
+				// sort the params so the key does not depend on the json properties order
+				Map<String,String> sortedParams = new TreeMap<String,String>();
+				for (Iterator<Map.Entry<String,JsonNode>> it = params.fields(); it.hasNext(); ) {
+					Map.Entry<String,JsonNode> param = it.next();
+					sortedParams.put(param.getKey(),param.getValue().asText());
+				}
+				key.append(sortedParams);
+			}
+			outScores.put(key.toString(),
+						  result.path("primaryMetric").path("score").asDouble());
+		}
+		return outScores;
+	}
+}
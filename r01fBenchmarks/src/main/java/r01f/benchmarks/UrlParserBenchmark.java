@@ -0,0 +1,48 @@
+package r01f.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import r01f.types.url.UrlComponents;
+import r01f.types.url.UrlParserNoRegExp;
+import r01f.types.url.UrlParserRegExpBased;
+
+/**
+ * {@link UrlParserNoRegExp} vs {@link UrlParserRegExpBased}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations=3,time=1)
+@Measurement(iterations=5,time=1)
+@Fork(1)
+public class UrlParserBenchmark {
+/////////////////////////////////////////////////////////////////////////////////////////
+//  PARAMS
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Param({ "www.euskadi.eus",
+			 "http://www.euskadi.eus:8080/contenidos/informacion/r01f/es_def/index.shtml",
+			 "https://www.euskadi.eus/a/b/c/d?param1=value1&param2=value2&param3=value3#anchor" })
+	private String _url;
+/////////////////////////////////////////////////////////////////////////////////////////
+//  BENCHMARKS
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Benchmark
+	public UrlComponents noRegExp() {
+		return new UrlParserNoRegExp(_url).getComponents();
+	}
+	@Benchmark
+	public UrlComponents regExpBased() {
+		return new UrlParserRegExpBased(_url).getComponents();
+	}
+}
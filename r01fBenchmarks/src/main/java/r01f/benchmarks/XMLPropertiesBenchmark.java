@@ -0,0 +1,87 @@
+package r01f.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import r01f.xmlproperties.XMLPropertiesBuilder;
+import r01f.xmlproperties.XMLPropertiesForAppComponent;
+
+/**
+ * XML properties lookups: the properties are loaded from classpath:r01fbench/r01fbench.bench.properties.xml
+ * <ul>
+ * 		<li>cached: the usual case; the value is at the level-1 cache after the first lookup</li>
+ * 		<li>uncached: every lookup evaluates the xpath against the properties DOM</li>
+ * </ul>
+ * Run with more than one thread to measure contention:
+ * <pre>
+ * 		> java -jar r01fBenchmarks.jar XMLPropertiesBenchmark -t 4
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations=3,time=2)
+@Measurement(iterations=5,time=2)
+@Fork(1)
+@Threads(1)
+public class XMLPropertiesBenchmark {
+/////////////////////////////////////////////////////////////////////////////////////////
+//  PARAMS
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Param({ "true","false" })
+	private boolean _useCache;
+/////////////////////////////////////////////////////////////////////////////////////////
+//  STATE
+/////////////////////////////////////////////////////////////////////////////////////////
+	private XMLPropertiesForAppComponent _props;
+
+	@Setup
+	public void setup() {
+		_props = _useCache ? XMLPropertiesBuilder.createForAppComponent("r01fbench","bench")
+												 .usingCache()
+						   : XMLPropertiesBuilder.createForAppComponent("r01fbench","bench")
+												 .notUsingCache();
+		// load the component
+		_props.propertyAt("/bench/simple").asString();
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//  BENCHMARKS
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Benchmark
+	public String simpleValue() {
+		return _props.propertyAt("/bench/simple")
+					 .asString();
+	}
+	@Benchmark
+	public String attributeValue() {
+		return _props.propertyAt("/bench/withAttr/@value")
+					 .asString();
+	}
+	@Benchmark
+	public int numericValue() {
+		return _props.propertyAt("/bench/numeric")
+					 .asInteger();
+	}
+	@Benchmark
+	public String nestedValue() {
+		return _props.propertyAt("/bench/nested/level1/level2/level3")
+					 .asString();
+	}
+	@Benchmark
+	public String predicateValue() {
+		return _props.propertyAt("/bench/list/item[@id='3']")
+					 .asString();
+	}
+}
@@ -2,6 +2,8 @@ package r01f.httpclient;
 
 import java.io.IOException;
 import java.net.HttpURLConnection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 
 import r01f.concurrent.TimeOutController;
 import r01f.types.url.Url;
@@ -38,20 +40,20 @@ abstract class ConnectionRetrieverBase {
 										  proxySettings);
 		} else {
 			try {
-				ObtainConnectionTask task = new ObtainConnectionTask() {
-					@Override
-					public void doit() throws IOException {
-						this.conx = _retrieveConnection(url,
-														proxySettings);
-					}
-				};
-				TimeOutController.execute(task,timeout);
-				outConx = task.conx;
-				if (task.ioException != null) {
-					throw task.ioException;
-				}
+				// the connection is retrieved at the shared timeout guard pool (see TimeOutController)
+				outConx = TimeOutController.call(new Callable<HttpURLConnection>() {
+														@Override
+														public HttpURLConnection call() throws IOException {
+															return _retrieveConnection(url,
+																					   proxySettings);
+														}
+												 },
+												 timeout);
+			} catch (ExecutionException execEx) {
+				if (execEx.getCause() instanceof IOException) throw (IOException)execEx.getCause();
+				throw new IOException(execEx.getCause());
 			} catch (TimeOutController.TimeoutException timeOutEx) {
-				throw new IOException("No se ha podido obtener la conexin con el host '" + url + "' en el tiempo especificado: " + timeout + " millis");
+				throw new IOException("No se ha podido obtener la conexin con el host '" + url + "' en el tiempo especificado: " + timeout + " millis (" + timeOutEx.getMessage() + ")");
 			}
 		}
 		return outConx;
@@ -76,30 +78,4 @@ abstract class ConnectionRetrieverBase {
 	public abstract HttpURLConnection _retrieveConnection(final Url url,
 														  final HttpClientProxySettings proxySettings) throws IOException;
 
-///////////////////////////////////////////////////////////////////////////////
-// AUX TYPE TO HANDLE WITH CONNECTION TIMEOUT
-///////////////////////////////////////////////////////////////////////////////
-	/**
-	 * Aux type that encloses the connection timeout
-	 */
-	abstract class ObtainConnectionTask 
-	    implements Runnable {
-		
-		public java.net.HttpURLConnection conx;
-		public IOException ioException;
-		/**
-		 * Runs whatever
-		 * @throws IOException if an error occurs..
-		 */
-		public abstract void doit() throws IOException;
-		@Override
-		public void run() {
-			try {
-				this.doit();		// Normally here a connection is retrieved
-			} catch (IOException ioEx) {
-				ioException = ioEx;
-			}
-		}
-	}
-	
 }
@@ -1,5 +1,6 @@
 package r01f.httpclient;
 
+import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 
@@ -43,6 +44,85 @@ import r01f.types.url.Url;
  */
 @Slf4j
 public abstract class HttpClient {
+/////////////////////////////////////////////////////////////////////////////////////////
+//  TRANSPORT
+/////////////////////////////////////////////////////////////////////////////////////////
+	private static volatile HttpClientTransport _transport = new HttpClientTransportForHttpURLConnection();
+
+	/**
+	 * Sets the transport used to send the requests (see {@link HttpClientTransport})
+	 * ie: to use a connection pool:
+	 * <pre class='brush:java'>
+	 * 		HttpClient.useTransport(new HttpClientTransportPooled(HttpClientTransportPooledConfig.create()
+	 * 																							.maxConnectionsPerRoute(20)));
+	 * </pre>
+	 * @param transport
+	 */
+	public static void useTransport(final HttpClientTransport transport) {
+		if (transport == null) throw new IllegalArgumentException("The http client transport cannot be null!");
+		log.info("HttpClient transport: {}",transport.getClass().getSimpleName());
+		_transport = transport;
+	}
+	/**
+	 * @return the transport used to send the requests
+	 */
+	public static HttpClientTransport getTransport() {
+		return _transport;
+	}
+
+	private static volatile HttpClientAsyncTransport _asyncTransport;		// lazily created: it starts the NIO reactor threads
+	private static HttpClientTransportAsync _defaultAsyncTransport;			// the lazily created async transport (closed by closeAsyncTransport())
+
+	/**
+	 * Sets the non-blocking transport used by the async terminal steps (ie: getResponseAsync())
+	 * @param asyncTransport
+	 */
+	public static void useAsyncTransport(final HttpClientAsyncTransport asyncTransport) {
+		if (asyncTransport == null) throw new IllegalArgumentException("The http client async transport cannot be null!");
+		log.info("HttpClient async transport: {}",asyncTransport.getClass().getSimpleName());
+		synchronized(HttpClient.class) {
+			_asyncTransport = asyncTransport;
+			_closeDefaultAsyncTransport();		// the lazily created transport (if any) is no longer used
+		}
+	}
+	/**
+	 * @return the non-blocking transport used by the async terminal steps (a {@link HttpClientTransportAsync} if none was set)
+	 * BEWARE! the lazily created {@link HttpClientTransportAsync} must be closed using {@link #closeAsyncTransport()}
+	 */
+	public static HttpClientAsyncTransport getAsyncTransport() {
+		HttpClientAsyncTransport outTransport = _asyncTransport;
+		if (outTransport == null) {
+			synchronized(HttpClient.class) {
+				if (_asyncTransport == null) {
+					_defaultAsyncTransport = new HttpClientTransportAsync();
+					_asyncTransport = _defaultAsyncTransport;
+				}
+				outTransport = _asyncTransport;
+			}
+		}
+		return outTransport;
+	}
+	/**
+	 * Closes the lazily created async transport (see {@link #getAsyncTransport()}) stopping it's NIO reactor threads
+	 * (ie: call it when the app is undeployed)
+	 * A transport set using {@link #useAsyncTransport(HttpClientAsyncTransport)} is NOT closed: whoever created it must close it
+	 * If the async terminal steps are used afterwards a new transport is lazily created
+	 */
+	public static void closeAsyncTransport() {
+		synchronized(HttpClient.class) {
+			if (_defaultAsyncTransport != null && _asyncTransport == _defaultAsyncTransport) _asyncTransport = null;
+			_closeDefaultAsyncTransport();
+		}
+	}
+	private static void _closeDefaultAsyncTransport() {
+		if (_defaultAsyncTransport == null) return;
+		try {
+			_defaultAsyncTransport.close();
+		} catch (IOException ioEx) {
+			log.warn("Could NOT close the async http client transport: {}",ioEx.getMessage());
+		}
+		_defaultAsyncTransport = null;
+	}
 
 /////////////////////////////////////////////////////////////////////////////////////////
 //  CONSTRUCTORS
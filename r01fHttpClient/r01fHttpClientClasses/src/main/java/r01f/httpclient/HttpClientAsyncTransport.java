@@ -0,0 +1,26 @@
+package r01f.httpclient;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A non-blocking {@link HttpClientTransport}: the request is sent WITHOUT blocking the calling thread
+ * (see {@link HttpClient#useAsyncTransport(HttpClientAsyncTransport)} and {@link HttpClientTransportAsync})
+ * <p>
+ * It's used by the async terminal steps of the fluent api:
+ * <pre class='brush:java'>
+ * 		CompletableFuture<HttpResponse> response = HttpClient.forUrl("http://www.euskadi.eus")
+ * 															 .GET()
+ * 															 .getResponseAsync()
+ * 																.directNoAuthConnected();
+ * </pre>
+ * </p>
+ */
+public interface HttpClientAsyncTransport {
+	/**
+	 * Sends the request WITHOUT blocking: the returned future is completed when the server response is received
+	 * (or completed exceptionally if the request fails)
+	 * @param request
+	 * @return
+	 */
+	public CompletableFuture<HttpResponse> executeAsync(final HttpClientTransportRequest request);
+}
@@ -1,6 +1,7 @@
 package r01f.httpclient;
 
 import java.io.BufferedReader;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -8,6 +9,7 @@ import java.net.HttpURLConnection;
 import java.nio.charset.Charset;
 import java.util.Collection;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.commons.io.IOUtils;
 
@@ -191,6 +193,8 @@ public class HttpClientRequestBuilderConnectionRetrieveStepBase<T> {
 	
 		protected final HttpRequestPayloadWrapper _payload;			// Payload (usually only for POST method-calls BUT, either GET & DELETE could support payloads
 		
+		protected final HttpClientTransport _transport;				// the transport used to send the request (null: the one at HttpClient.useTransport)
+		
 		
 		public abstract R provideResponse(final HttpClientProxySettings proxySettings,
 										  final long conxTimeOut,
@@ -209,10 +213,33 @@ public class HttpClientRequestBuilderConnectionRetrieveStepBase<T> {
 								  final long conxTimeOut,
 								  final HttpTargetServerAuth auth,
 								  final boolean useGAEHttpFetch) throws IOException {
-			return new HttpResponse(_getConnection(proxySettings,
-												   conxTimeOut,
-												   auth,
-												   useGAEHttpFetch));
+			// the request is sent using the request transport or the configured one (see HttpClient.useTransport)
+			HttpClientTransport transport = _transport != null ? _transport : HttpClient.getTransport();
+			return new HttpClientRequestBuilderResponseStep(_method,
+															_targetUrl,
+															_targetServerCharset,
+											 				_headers,_cookies,
+											 				_payload,
+											 				proxySettings,
+											 				conxTimeOut,
+											 				auth)
+								.getResponse(transport,
+											 auth);
+		}
+		CompletableFuture<HttpResponse> _getResponseAsync(final HttpClientProxySettings proxySettings,
+								  	 					  final long conxTimeOut,
+								  	 					  final HttpTargetServerAuth auth) throws IOException {
+			// the request is sent using the configured non-blocking transport (see HttpClient.useAsyncTransport)
+			return new HttpClientRequestBuilderResponseStep(_method,
+															_targetUrl,
+															_targetServerCharset,
+											 				_headers,_cookies,
+											 				_payload,
+											 				proxySettings,
+											 				conxTimeOut,
+											 				auth)
+								.getResponseAsync(HttpClient.getAsyncTransport(),
+												  auth);
 		}
 		HttpURLConnection _getConnection(final HttpClientProxySettings proxySettings,
 									  	 final long conxTimeOut,
@@ -337,12 +364,17 @@ public class HttpClientRequestBuilderConnectionRetrieveStepBase<T> {
 								  final long conxTimeOut,
 								  final HttpTargetServerAuth auth,
 								  final boolean userGAEUrlFetch) throws IOException {
-			InputStream responseIs = _getConnection(proxySettings,
-													conxTimeOut,
-													auth,
-													userGAEUrlFetch)
-											.getInputStream();
-			return responseIs;
+			HttpResponse response = _getResponse(proxySettings,
+												 conxTimeOut,
+												 auth,
+												 userGAEUrlFetch);
+			// as HttpURLConnection.getInputStream() does, fail if the server returned an error
+			if (response.getCodeNumber() >= 400) {
+				response.discard();
+				if (response.isNotFound()) throw new FileNotFoundException(_targetUrl.asString());
+				throw new IOException("Server returned HTTP response code: " + response.getCodeNumber() + " for URL: " + _targetUrl);
+			}
+			return response.loadAsStream();
 		}
 	}
 }
@@ -3,6 +3,7 @@ package r01f.httpclient;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
 
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
@@ -28,6 +29,15 @@ public abstract class HttpClientRequestBuilderConnectionRetrieveSteps {
 		}
 	}
 ///////////////////////////////////////////////////////////////////////////////
+// 	Async HttpResponse
+///////////////////////////////////////////////////////////////////////////////
+	public static class HttpClientRequestBuilderConnectionRetrieveForAsyncResponseStep
+		 		extends HttpClientRequestBuilderConnectionRetrieveStepBase<CompletableFuture<HttpResponse>> {
+		HttpClientRequestBuilderConnectionRetrieveForAsyncResponseStep(final HttpClientRequestConnectionProvider<CompletableFuture<HttpResponse>> responseProvider) {
+			super(responseProvider);
+		}
+	}
+///////////////////////////////////////////////////////////////////////////////
 // InputStream
 ///////////////////////////////////////////////////////////////////////////////
 	public static class HttpClientRequestBuilderConnectionRetrieveForInputStreamStep
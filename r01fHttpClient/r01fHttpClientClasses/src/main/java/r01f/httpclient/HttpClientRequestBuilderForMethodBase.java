@@ -6,11 +6,13 @@ import java.net.HttpURLConnection;
 import java.nio.charset.Charset;
 import java.util.Collection;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import com.google.common.collect.Maps;
 
 import r01f.httpclient.HttpClient.RequestMethod;
 import r01f.httpclient.HttpClientRequestBuilderConnectionRetrieveStepBase.HttpClientRequestConnectionProvider;
+import r01f.httpclient.HttpClientRequestBuilderConnectionRetrieveSteps.HttpClientRequestBuilderConnectionRetrieveForAsyncResponseStep;
 import r01f.httpclient.HttpClientRequestBuilderConnectionRetrieveSteps.HttpClientRequestBuilderConnectionRetrieveForHttpUrlConnectionStep;
 import r01f.httpclient.HttpClientRequestBuilderConnectionRetrieveSteps.HttpClientRequestBuilderConnectionRetrieveForInputStreamStep;
 import r01f.httpclient.HttpClientRequestBuilderConnectionRetrieveSteps.HttpClientRequestBuilderConnectionRetrieveForLinesStep;
@@ -41,6 +43,8 @@ public abstract class HttpClientRequestBuilderForMethodBase<SELF_TYPE extends Ht
 	
 	protected long _conxTimeOut;				// timeout to get a connection with server
 	
+	protected HttpClientTransport _transport;	// the transport used to send this request (null: the one at HttpClient.useTransport)
+	
 	// proxy settings When is used this ¿?
 	//private HttpClientProxySettings _proxySettings;
 
@@ -88,6 +92,28 @@ public abstract class HttpClientRequestBuilderForMethodBase<SELF_TYPE extends Ht
 		return new HttpRequestPayloadWrapper(_payload);
 	}
 /////////////////////////////////////////////////////////////////////////////////////////
+//  TRANSPORT
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Sets the transport used to send this request (see {@link HttpClientTransport})
+	 * If not set, the transport configured at {@link HttpClient#useTransport(HttpClientTransport)} is used
+	 * <pre class='brush:java'>
+	 * 		HttpResponse response = HttpClient.forUrl(url)
+	 * 										  .GET()
+	 * 										  .usingTransport(pooledTransport)
+	 * 										  .getResponse()
+	 * 										  .directNoAuthConnected();
+	 * </pre>
+	 * BEWARE! the methods returning a raw {@link HttpURLConnection} (getConnection()) always use
+	 * the {@link HttpClientTransportForHttpURLConnection} transport
+	 * @param transport
+	 */
+	@SuppressWarnings("unchecked")
+	public SELF_TYPE usingTransport(final HttpClientTransport transport) {
+		_transport = transport;
+		return (SELF_TYPE)this;
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
 //
 /////////////////////////////////////////////////////////////////////////////////////////
 	/**
@@ -99,7 +125,8 @@ public abstract class HttpClientRequestBuilderForMethodBase<SELF_TYPE extends Ht
 																																   _targetServerCharset,
 																																   _method,
 																																   _headers,_cookies,
-																																   HttpClientRequestBuilderForMethodBase.this.getPayloadWrapper()) {
+																																   HttpClientRequestBuilderForMethodBase.this.getPayloadWrapper(),
+																																   _transport) {
 															@Override
 															public HttpResponse provideResponse(final HttpClientProxySettings proxySettings,
 																							    final long conxTimeOut,
@@ -112,6 +139,29 @@ public abstract class HttpClientRequestBuilderForMethodBase<SELF_TYPE extends Ht
 												  };
 		return new HttpClientRequestBuilderConnectionRetrieveForResponseStep(responseProvider);
 	}
+	/**
+	 * Sends the request WITHOUT blocking the calling thread using the non-blocking transport
+	 * (see {@link HttpClient#useAsyncTransport(HttpClientAsyncTransport)})
+	 * The returned future is completed when the server response is received
+	 */
+	public HttpClientRequestBuilderConnectionRetrieveForAsyncResponseStep getResponseAsync() {
+		HttpClientRequestConnectionProvider<CompletableFuture<HttpResponse>> responseProvider = new HttpClientRequestConnectionProvider<CompletableFuture<HttpResponse>>(_targetUrl,
+																																										 _targetServerCharset,
+																																										 _method,
+																																										 _headers,_cookies,
+																																										 HttpClientRequestBuilderForMethodBase.this.getPayloadWrapper(),
+																																										 _transport) {
+																							@Override
+																							public CompletableFuture<HttpResponse> provideResponse(final HttpClientProxySettings proxySettings,
+																															    				   final long conxTimeOut,
+																															    				   final HttpTargetServerAuth auth) throws IOException {
+																								return _getResponseAsync(proxySettings,
+																														 conxTimeOut,
+																														 auth);
+																							}
+																			  };
+		return new HttpClientRequestBuilderConnectionRetrieveForAsyncResponseStep(responseProvider);
+	}
 	/**
 	 * Gets the server response in an object that contains the stream in an InputStream
 	 * and the server response code
@@ -122,7 +172,8 @@ public abstract class HttpClientRequestBuilderForMethodBase<SELF_TYPE extends Ht
 																																   _targetServerCharset,
 																																   _method,
 																																   _headers,_cookies,
-																																   HttpClientRequestBuilderForMethodBase.this.getPayloadWrapper()) {
+																																   HttpClientRequestBuilderForMethodBase.this.getPayloadWrapper(),
+																																   _transport) {
 																						@Override
 																						public HttpResponse provideResponse(final HttpClientProxySettings proxySettings,
 																														    final long conxTimeOut,
@@ -143,7 +194,8 @@ public abstract class HttpClientRequestBuilderForMethodBase<SELF_TYPE extends Ht
 																																   			 _targetServerCharset,
 																																   			 _method,
 																																   			 _headers,_cookies,
-																																   			 HttpClientRequestBuilderForMethodBase.this.getPayloadWrapper()) {
+																																   			 HttpClientRequestBuilderForMethodBase.this.getPayloadWrapper(),
+																																   			 _transport) {
 																							@Override
 																							public HttpURLConnection provideResponse(final HttpClientProxySettings proxySettings,
 																														    		 final long conxTimeOut,
@@ -165,7 +217,8 @@ public abstract class HttpClientRequestBuilderForMethodBase<SELF_TYPE extends Ht
 																																   			 _targetServerCharset,
 																																   			 _method,
 																																   			 _headers,_cookies,
-																																   			 HttpClientRequestBuilderForMethodBase.this.getPayloadWrapper()) {
+																																   			 HttpClientRequestBuilderForMethodBase.this.getPayloadWrapper(),
+																																   			 _transport) {
 																							@Override
 																							public HttpURLConnection provideResponse(final HttpClientProxySettings proxySettings,
 																															    	 final long conxTimeOut,
@@ -188,7 +241,8 @@ public abstract class HttpClientRequestBuilderForMethodBase<SELF_TYPE extends Ht
 																										   			   _targetServerCharset,
 																										   			   _method,
 																										   			   _headers,_cookies,
-																										   			   HttpClientRequestBuilderForMethodBase.this.getPayloadWrapper()) {
+																										   			   HttpClientRequestBuilderForMethodBase.this.getPayloadWrapper(),
+																										   			   _transport) {
 																				@Override
 																				public String provideResponse(final HttpClientProxySettings proxySettings,
 																											  final long conxTimeOut,
@@ -213,7 +267,8 @@ public abstract class HttpClientRequestBuilderForMethodBase<SELF_TYPE extends Ht
 																										   			   _targetServerCharset,
 																										   			   _method,
 																										   			   _headers,_cookies,
-																										   			   HttpClientRequestBuilderForMethodBase.this.getPayloadWrapper()) {
+																										   			   HttpClientRequestBuilderForMethodBase.this.getPayloadWrapper(),
+																										   			   _transport) {
 																				@Override
 																				public String provideResponse(final HttpClientProxySettings proxySettings,
 																											  final long conxTimeOut,
@@ -239,7 +294,8 @@ public abstract class HttpClientRequestBuilderForMethodBase<SELF_TYPE extends Ht
 																										   			   _targetServerCharset,
 																										   			   _method,
 																										   			   _headers,_cookies,
-																										   			   HttpClientRequestBuilderForMethodBase.this.getPayloadWrapper()) {
+																										   			   HttpClientRequestBuilderForMethodBase.this.getPayloadWrapper(),
+																										   			   _transport) {
 																				@Override
 																				public String provideResponse(final HttpClientProxySettings proxySettings,
 																											  final long conxTimeOut,
@@ -266,7 +322,8 @@ public abstract class HttpClientRequestBuilderForMethodBase<SELF_TYPE extends Ht
 																										   			   _targetServerCharset,
 																										   			   _method,
 																										   			   _headers,_cookies,
-																										   			   HttpClientRequestBuilderForMethodBase.this.getPayloadWrapper()) {
+																										   			   HttpClientRequestBuilderForMethodBase.this.getPayloadWrapper(),
+																										   			   _transport) {
 																				@Override
 																				public String provideResponse(final HttpClientProxySettings proxySettings,
 																											  final long conxTimeOut,
@@ -290,7 +347,8 @@ public abstract class HttpClientRequestBuilderForMethodBase<SELF_TYPE extends Ht
 																										   			   						   _targetServerCharset,
 																										   			   						   _method,
 																										   			   						   _headers,_cookies,
-																										   			   						   HttpClientRequestBuilderForMethodBase.this.getPayloadWrapper()) {
+																										   			   						   HttpClientRequestBuilderForMethodBase.this.getPayloadWrapper(),
+																										   			   						   _transport) {
 																							@Override
 																							public Collection<String> provideResponse(final HttpClientProxySettings proxySettings,
 																															    	  final long conxTimeOut,
@@ -315,7 +373,8 @@ public abstract class HttpClientRequestBuilderForMethodBase<SELF_TYPE extends Ht
 																										   			   						   _targetServerCharset,
 																										   			   						   _method,
 																										   			   						   _headers,_cookies,
-																										   			   						   HttpClientRequestBuilderForMethodBase.this.getPayloadWrapper()) {
+																										   			   						   HttpClientRequestBuilderForMethodBase.this.getPayloadWrapper(),
+																										   			   						   _transport) {
 																							@Override
 																							public Collection<String> provideResponse(final HttpClientProxySettings proxySettings,
 																														    		  final long conxTimeOut,
@@ -340,7 +399,8 @@ public abstract class HttpClientRequestBuilderForMethodBase<SELF_TYPE extends Ht
 																										   			   						   _targetServerCharset,
 																										   			   						   _method,
 																										   			   						   _headers,_cookies,
-																										   			   						   HttpClientRequestBuilderForMethodBase.this.getPayloadWrapper()) {
+																										   			   						   HttpClientRequestBuilderForMethodBase.this.getPayloadWrapper(),
+																										   			   						   _transport) {
 																							@Override
 																							public Collection<String> provideResponse(final HttpClientProxySettings proxySettings,
 																														    		  final long conxTimeOut,
@@ -367,7 +427,8 @@ public abstract class HttpClientRequestBuilderForMethodBase<SELF_TYPE extends Ht
 																										   			   						   _targetServerCharset,
 																										   			   						   _method,
 																										   			   						   _headers,_cookies,
-																										   			   						   HttpClientRequestBuilderForMethodBase.this.getPayloadWrapper()) {
+																										   			   						   HttpClientRequestBuilderForMethodBase.this.getPayloadWrapper(),
+																										   			   						   _transport) {
 																							@Override
 																							public Collection<String> provideResponse(final HttpClientProxySettings proxySettings,
 																														    		  final long conxTimeOut,
@@ -391,7 +452,8 @@ public abstract class HttpClientRequestBuilderForMethodBase<SELF_TYPE extends Ht
 																						   			   						     _targetServerCharset,
 																						   			   						     _method,
 																						   			   						     _headers,_cookies,
-																						   			   						     HttpClientRequestBuilderForMethodBase.this.getPayloadWrapper()) {
+																						   			   						     HttpClientRequestBuilderForMethodBase.this.getPayloadWrapper(),
+																						   			   						     _transport) {
 																					@Override
 																					public InputStream provideResponse(final HttpClientProxySettings proxySettings,
 																												       final long conxTimeOut,
@@ -415,7 +477,8 @@ public abstract class HttpClientRequestBuilderForMethodBase<SELF_TYPE extends Ht
 																						   			   						     _targetServerCharset,
 																						   			   						     _method,
 																						   			   						     _headers,_cookies,
-																						   			   						     HttpClientRequestBuilderForMethodBase.this.getPayloadWrapper()) {
+																						   			   						     HttpClientRequestBuilderForMethodBase.this.getPayloadWrapper(),
+																						   			   						     _transport) {
 																					@Override
 																					public InputStream provideResponse(final HttpClientProxySettings proxySettings,
 																												       final long conxTimeOut,
@@ -75,15 +75,15 @@ public class HttpClientRequestBuilderPOSTFileMethodStep
 							// Send params
 							if (CollectionUtils.hasData(textParams)) {
 								for (final HttpRequestFormParameter param : textParams) {
-									dos.write(param._serializeFormParam(_targetServerCharset,
-																		true));
+									param._writeFormParam(dos,
+														  _targetServerCharset,true);
 								}
 							}
 							// Send the binary params in the second place; be carefull if there are more than one file
 							if (CollectionUtils.hasData(binaryParams)) {
 								for (final HttpRequestFormParameter param : binaryParams) {
-									dos.write(param._serializeFormParam(_targetServerCharset,
-																		true));
+									param._writeFormParam(dos,
+														  _targetServerCharset,true);
 								}
 							}
 					 	}
@@ -144,16 +144,16 @@ public class HttpClientRequestBuilderPUTMultiPartMethodStep
 							if (CollectionUtils.hasData(textParams)) {
 								for (HttpRequestFormParameter param : textParams) {
 									dos.write("--**R01BOUNDR01**\r\n".getBytes());
-									dos.write(param._serializeFormParam(_targetServerCharset,
-																		true));
+									param._writeFormParam(dos,
+														  _targetServerCharset,true);
 								}
 							}
 							// Send the binary params in the second place; be carefull if there are more than one file
 							if (CollectionUtils.hasData(binaryParams)) {
 								for (HttpRequestFormParameter param : binaryParams) {
 									dos.write("--**R01BOUNDR01**\r\n".getBytes());
-									dos.write(param._serializeFormParam(_targetServerCharset,
-																		true));
+									param._writeFormParam(dos,
+														  _targetServerCharset,true);
 								}
 							}
 							// Finish the multipart
@@ -1,24 +1,20 @@
 package r01f.httpclient;
 
-import java.io.DataOutputStream;
 import java.io.IOException;
 import java.net.HttpURLConnection;
-import java.net.URLConnection;
 import java.nio.charset.Charset;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.commons.codec.binary.Base64;
 import org.apache.http.auth.AuthenticationException;
 import org.apache.http.auth.MalformedChallengeException;
 
-import lombok.Cleanup;
 import lombok.extern.slf4j.Slf4j;
 import r01f.httpclient.HttpClient.RequestMethod;
 import r01f.mime.MimeType;
 import r01f.types.url.Url;
-import r01f.types.url.UrlProtocol;
-import r01f.types.url.UrlProtocol.StandardUrlProtocol;
 import r01f.util.types.collections.CollectionUtils;
 
 @Slf4j
@@ -77,8 +73,58 @@ public class HttpClientRequestBuilderResponseStep
 ///////////////////////////////////////////////////////////////////////////////
 // API
 ///////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Sends the request using the given transport and returns the server response
+	 * @param transport
+	 * @param auth
+	 * @return
+	 * @throws IOException
+	 */
+	public HttpResponse getResponse(final HttpClientTransport transport,
+									final HttpTargetServerAuth auth) throws IOException {
+		_prepareRequest(false,
+						auth);
+		return transport.execute(_transportRequest());
+	}
+	/**
+	 * Sends the request using the given non-blocking transport
+	 * BEWARE! if digest auth is used, the auth challenge request is a blocking one
+	 * @param transport
+	 * @param auth
+	 * @return
+	 * @throws IOException
+	 */
+	public CompletableFuture<HttpResponse> getResponseAsync(final HttpClientAsyncTransport transport,
+															final HttpTargetServerAuth auth) throws IOException {
+		_prepareRequest(false,
+						auth);
+		return transport.executeAsync(_transportRequest());
+	}
 	public HttpURLConnection getConnection(final boolean useGAEHttpFetch,
 										   final HttpTargetServerAuth auth) throws IOException {
+		_prepareRequest(useGAEHttpFetch,
+						auth);
+		// [6]: Establish the connection
+		/*if (!_connected && useGAEHttpFetch) {
+			_doGAERequest(_targetUrl);
+		} else*/
+		 if (!_connected) {
+			// <-- this is where the connection is really done
+			_conx = new HttpClientTransportForHttpURLConnection().openConnection(_transportRequest());
+		}
+		return _conx;
+	}
+///////////////////////////////////////////////////////////////////////////////
+// METODOS PRIVADOS
+///////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Sets the auth, proxy-auth, content & cookie headers
+	 * @param useGAEHttpFetch
+	 * @param auth
+	 * @throws IOException
+	 */
+	private void _prepareRequest(final boolean useGAEHttpFetch,
+								 final HttpTargetServerAuth auth) throws IOException {
 		// [1]: Get the final Url
 		log.trace("Conectig to: {}",_targetUrl);
 		
@@ -154,62 +200,14 @@ public class HttpClientRequestBuilderResponseStep
 			}
 			log.trace(headersDbg.toString());
 		}
-		
-		// [6]: Establish the connection
-		/*if (!_connected && useGAEHttpFetch) {
-			_doGAERequest(_targetUrl);
-		} else*/
-		 if (!_connected) {
-			_doRequest(_targetUrl,
-					  _proxySettings,
-					  _conxTimeOut);			// <-- this is where the connection is really done
-		}
-		return _conx;
 	}
-///////////////////////////////////////////////////////////////////////////////
-// METODOS PRIVADOS
-///////////////////////////////////////////////////////////////////////////////
-	/**
-	 * Exec the server http call, sending headers and url parameters
-	 * @param url the final url
-	 * @param proxySettings
-	 * @param timeout
-	 * @return an InputStream to read the response
-	 * @exception IOException if an I/O error occurs
-	 */
-	private void _doRequest(final Url url,
-							final HttpClientProxySettings proxySettings,
-							final long timeout) throws IOException {
-		log.trace("...retrieving {} connection to {}",
-				  _method,url);
-		// Get the server connection and send headers
-		HttpURLConnection conx = null;
-		UrlProtocol proto = url.getProtocolOrDefault(StandardUrlProtocol.HTTP.toUrlProtocol());
-		if (proto.is(StandardUrlProtocol.HTTPS)) {
-			HttpsConnectionRetriever connectionRetriever = new HttpsConnectionRetriever();
-			conx = connectionRetriever.getConnection(url,
-													 proxySettings,
-													 timeout);
-		} else if (proto.is(StandardUrlProtocol.HTTP)) {
-			HttpConnectionRetriever connectionRetriever = new HttpConnectionRetriever();
-			conx = connectionRetriever.getConnection(url,
-													 proxySettings,
-													 timeout);
-		} else {
-			throw new IOException("Protocol NOT supported: '" + url + "'");
-		}
-		if (conx == null) throw new IOException( "No se ha podido obtener una conexin con '" + url + "'" );
-		conx.setDoInput(true);
-		conx.setUseCaches(false);
-		log.trace("...connection retrieved!");
-		
-		_setConnectionRequestMethod(conx);				// Sets the http method POST/PUT/GET/HEAD/DELETE
-		_sendHeaders(conx);								// Sends the http headers
-		
-		if (_method.hasPayload()) {
-			_sendPayload(conx);	// Sends the payload 
-		}
-		_conx = conx;
+	private HttpClientTransportRequest _transportRequest() {
+		return new HttpClientTransportRequest(_method,
+											  _targetUrl,
+											  _headers,
+											  _payload,
+											  _proxySettings,
+											  _conxTimeOut);
 	}
 	/**
 	 * Execs the server http call using GAE mechanics
@@ -231,45 +229,4 @@ public class HttpClientRequestBuilderResponseStep
 		}
 		_conx = conx;
 	}*/
-	private void _setConnectionRequestMethod(final HttpURLConnection conx) throws IOException {
-		if (_method.isPOST()) {
-			conx.setDoOutput(true);
-			conx.setRequestMethod("POST");
-		} else if (_method.isPUT()) {
-			conx.setDoOutput(true);
-			conx.setRequestMethod("PUT");
-		} else if (_method.isDELETE()) {
-			conx.setRequestMethod("DELETE");
-		} else if (_method.isHEAD()) {
-			conx.setDoOutput(false);
-			conx.setRequestMethod("HEAD");
-		} else if (_method.isGET()) {
-			conx.setDoOutput(false);
-			conx.setRequestMethod("GET");
-		} else {
-			throw new IllegalStateException(_method.name() + " is not supported!");
-		}
-	}
-	/**
-	 * Sends http headers to the servers
-	 * @param conx the server http connection
-	 * @throws IOException if an I/O error occurs
-	 */
-	private void _sendHeaders(final URLConnection conx) throws IOException {
-		if (_headers != null) {
-			for (Map.Entry<String,String> me : _headers.entrySet()) {
-				conx.setRequestProperty(me.getKey(),me.getValue() );
-			}
-		}
-	}
-	/**
-	 * Sends http call payload if the method is POST or PUT in any of its variants
-	 * @param conx the server http connection
-	 * @throws IOException if an I/O error occurs
-	 */
-	private void _sendPayload(final URLConnection conx) throws IOException {
-		@Cleanup DataOutputStream out = new DataOutputStream(conx.getOutputStream());		
-		_payload.payloadToOutputStream(out);
-		out.flush();
-	}
 }
@@ -0,0 +1,28 @@
+package r01f.httpclient;
+
+import java.io.IOException;
+
+/**
+ * The transport that really sends the {@link HttpClient} requests to the server
+ * <p>
+ * The fluent api builds an {@link HttpClientTransportRequest} (the headers are already computed: auth, cookies, content-type...)
+ * and hands it to the transport set at the request builder (see {@link HttpClientRequestBuilderForMethodBase#usingTransport(HttpClientTransport)})
+ * or, if none was set, to the one configured at {@link HttpClient#useTransport(HttpClientTransport)}:
+ * <ul>
+ * 		<li>{@link HttpClientTransportForHttpURLConnection}: the default one; a new {@link java.net.HttpURLConnection} for every request
+ * 			(connection re-use is left to the JDK keep-alive cache)</li>
+ * 		<li>{@link HttpClientTransportPooled}: a bounded per-route connection pool with idle connections eviction</li>
+ * </ul>
+ * BEWARE! the methods returning a raw {@link java.net.HttpURLConnection} (getConnection()) always use
+ * the {@link HttpClientTransportForHttpURLConnection} transport
+ */
+public interface HttpClientTransport {
+	/**
+	 * Sends the request and returns the server response
+	 * BEWARE! the response stream MUST be consumed or closed (see {@link HttpResponse#discard()}) so the connection is released
+	 * @param request
+	 * @return
+	 * @throws IOException
+	 */
+	public HttpResponse execute(final HttpClientTransportRequest request) throws IOException;
+}
@@ -0,0 +1,103 @@
+package r01f.httpclient;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHost;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.RequestBuilder;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import r01f.httpclient.HttpClient.RequestMethod;
+
+/**
+ * Conversions between the {@link HttpClientTransportRequest} / {@link HttpResponse} and the apache http client ones
+ * used by {@link HttpClientTransportPooled} and {@link HttpClientTransportAsync}
+ */
+@NoArgsConstructor(access=AccessLevel.PRIVATE)
+abstract class HttpClientTransportApacheSupport {
+/////////////////////////////////////////////////////////////////////////////////////////
+//  REQUEST
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Creates an apache request builder with the request method, uri, config & headers
+	 * (the payload entity is NOT set)
+	 * @param request
+	 * @param config
+	 * @return
+	 */
+	static RequestBuilder requestBuilderFor(final HttpClientTransportRequest request,
+											final HttpClientTransportPooledConfig config) {
+		RequestBuilder reqBuilder = RequestBuilder.create(methodName(request.getMethod()))
+												  .setUri(request.getUrl().asStringUrlEncodingQueryStringParamsValues())
+												  .setConfig(requestConfigFor(request,config));
+		if (request.getHeaders() != null) {
+			for (Map.Entry<String,String> header : request.getHeaders().entrySet()) {
+				// the content-length is set by the entity
+				if ("Content-Length".equalsIgnoreCase(header.getKey())
+				 || "Transfer-Encoding".equalsIgnoreCase(header.getKey())) continue;
+				reqBuilder.addHeader(header.getKey(),header.getValue());
+			}
+		}
+		return reqBuilder;
+	}
+	static RequestConfig requestConfigFor(final HttpClientTransportRequest request,
+										  final HttpClientTransportPooledConfig config) {
+		RequestConfig.Builder reqConfig = RequestConfig.custom()
+													   .setConnectTimeout(request.getConxTimeOut() > 0 ? (int)request.getConxTimeOut() : -1)
+													   .setConnectionRequestTimeout((int)config.getConnectionRequestTimeOut())
+													   .setSocketTimeout((int)config.getSocketTimeOut());
+		HttpClientProxySettings proxySettings = request.getProxySettings();
+		if (proxySettings != null
+		 && proxySettings.getProxyHost() != null
+		 && proxySettings.getProxyPort() > 0
+		 && proxySettings.isEnabled()) {
+			reqConfig.setProxy(new HttpHost(proxySettings.getProxyHost().asString(),proxySettings.getProxyPort()));
+		}
+		return reqConfig.build();
+	}
+	static String methodName(final RequestMethod method) {
+		if (method.isPOST()) return "POST";
+		if (method.isPUT()) return "PUT";
+		if (method.isDELETE()) return "DELETE";
+		if (method.isHEAD()) return "HEAD";
+		if (method.isGET()) return "GET";
+		throw new IllegalStateException(method.name() + " is not supported!");
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//  RESPONSE
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Wraps the apache response
+	 * @param response
+	 * @return
+	 * @throws IOException
+	 */
+	static HttpResponse responseFrom(final org.apache.http.HttpResponse response) throws IOException {
+		HttpEntity entity = response.getEntity();
+		InputStream responseIs = entity != null ? entity.getContent() : null;
+		return new HttpResponse(response.getStatusLine().getStatusCode(),
+								responseHeaders(response),
+								responseIs != null ? responseIs : new ByteArrayInputStream(new byte[0]));
+	}
+	static Map<String,List<String>> responseHeaders(final org.apache.http.HttpResponse response) {
+		Map<String,List<String>> outHeaders = new LinkedHashMap<String,List<String>>();
+		for (Header header : response.getAllHeaders()) {
+			List<String> values = outHeaders.get(header.getName());
+			if (values == null) {
+				values = new ArrayList<String>(1);
+				outHeaders.put(header.getName(),values);
+			}
+			values.add(header.getValue());
+		}
+		return outHeaders;
+	}
+}
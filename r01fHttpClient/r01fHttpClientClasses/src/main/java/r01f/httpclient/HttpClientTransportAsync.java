@@ -0,0 +1,210 @@
+package r01f.httpclient;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.http.ContentTooLongException;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.methods.RequestBuilder;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.client.methods.HttpAsyncMethods;
+import org.apache.http.nio.entity.ContentBufferEntity;
+import org.apache.http.nio.protocol.AbstractAsyncResponseConsumer;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.apache.http.nio.util.HeapByteBufferAllocator;
+import org.apache.http.nio.util.SimpleInputBuffer;
+import org.apache.http.protocol.HttpContext;
+
+import lombok.Getter;
+import lombok.experimental.Accessors;
+import lombok.extern.slf4j.Slf4j;
+import r01f.concurrent.DaemonThreadFactory;
+import r01f.mime.MimeType;
+
+/**
+ * A non-blocking {@link HttpClientAsyncTransport} backed by the apache NIO http client:
+ * a few IO reactor threads multiplex all the connections so there's NO thread per request
+ * <ul>
+ * 		<li>the connections are pooled (max connections total and per route: see {@link HttpClientTransportPooledConfig})</li>
+ * 		<li>idle connections are evicted by a background thread</li>
+ * </ul>
+ * BEWARE!
+ * <ul>
+ * 		<li>the request payload and the response body are buffered in memory: it's NOT suitable for big payloads / responses
+ * 			(use the blocking api and stream the payload / read the response stream instead)
+ * 			A response whose body is bigger than the configured max size fails with a {@link ContentTooLongException}
+ * 			(see {@link HttpClientTransportPooledConfig#maxBufferedResponseSize(long)})</li>
+ * 		<li>the future callbacks are run at the IO reactor threads: do NOT block at them (use the *Async methods of the {@link CompletableFuture} to switch thread)</li>
+ * 		<li>the transport must be closed when no longer used (the IO reactor threads are daemon threads so they do NOT prevent
+ * 			the JVM exit BUT they're alive until the transport is closed)</li>
+ * </ul>
+ */
+@Slf4j
+@Accessors(prefix="_")
+public class HttpClientTransportAsync
+  implements HttpClientAsyncTransport,
+  			 Closeable {
+/////////////////////////////////////////////////////////////////////////////////////////
+//  FIELDS
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Getter private final HttpClientTransportPooledConfig _config;
+			private final PoolingNHttpClientConnectionManager _connectionManager;
+			private final CloseableHttpAsyncClient _httpClient;
+			private final ScheduledExecutorService _idleConnectionsEvictor;
+			private final AtomicBoolean _closed = new AtomicBoolean(false);
+/////////////////////////////////////////////////////////////////////////////////////////
+//  CONSTRUCTOR
+/////////////////////////////////////////////////////////////////////////////////////////
+	public HttpClientTransportAsync() {
+		this(HttpClientTransportPooledConfig.create());
+	}
+	public HttpClientTransportAsync(final HttpClientTransportPooledConfig config) {
+		_config = config;
+		try {
+			_connectionManager = new PoolingNHttpClientConnectionManager(new DefaultConnectingIOReactor(IOReactorConfig.DEFAULT,
+																										   new DaemonThreadFactory()));	// the IO dispatcher threads
+		} catch (IOReactorException ioReactorEx) {
+			throw new IllegalStateException("Could NOT create the http client NIO reactor: " + ioReactorEx.getMessage(),ioReactorEx);
+		}
+		_connectionManager.setMaxTotal(config.getMaxConnections());
+		_connectionManager.setDefaultMaxPerRoute(config.getMaxConnectionsPerRoute());
+
+		_httpClient = HttpAsyncClients.custom()
+									  .setConnectionManager(_connectionManager)
+									  .disableCookieManagement()			// cookies are sent as headers (see HttpClientRequestBuilderResponseStep)
+									  .setThreadFactory(new DaemonThreadFactory())	// the IO reactor thread
+									  .build();
+		_httpClient.start();
+
+		// the NIO pool does NOT evict the idle connections by itself
+		_idleConnectionsEvictor = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory());
+		long evictEvery = Math.max(1000,config.getIdleConnectionsTimeOut() / 2);
+		_idleConnectionsEvictor.scheduleWithFixedDelay(new Runnable() {
+																@Override
+																public void run() {
+																	_connectionManager.closeExpiredConnections();
+																	if (_config.getIdleConnectionsTimeOut() > 0) _connectionManager.closeIdleConnections(_config.getIdleConnectionsTimeOut(),TimeUnit.MILLISECONDS);
+																}
+													   },
+													   evictEvery,evictEvery,TimeUnit.MILLISECONDS);
+		log.info("Async (NIO) http client transport: {}",config);
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//  TRANSPORT
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Override
+	public CompletableFuture<HttpResponse> executeAsync(final HttpClientTransportRequest request) {
+		final CompletableFuture<HttpResponse> outFuture = new CompletableFuture<HttpResponse>();
+		try {
+			RequestBuilder reqBuilder = HttpClientTransportApacheSupport.requestBuilderFor(request,
+																						   _config);
+			// the NIO client cannot use the blocking payload writer so the payload is buffered
+			// (use a blocking transport to stream big payloads: see HttpRequestPayloadSource)
+			if (request.hasPayload()) {
+				ByteArrayOutputStream payloadOs = new ByteArrayOutputStream(Math.max(32,(int)request.getPayloadContentLength()));
+				request.writePayloadTo(payloadOs);
+				MimeType contentType = request.getPayloadContentType();
+				reqBuilder.setEntity(new ByteArrayEntity(payloadOs.toByteArray(),
+														 contentType != null ? ContentType.parse(contentType.getName()) : null));
+			}
+			// the response body is buffered up to the configured max size
+			_httpClient.execute(HttpAsyncMethods.create(reqBuilder.build()),
+								new MaxSizeBufferingResponseConsumer(_config.getMaxBufferedResponseSize()),
+								new FutureCallback<org.apache.http.HttpResponse>() {
+										@Override
+										public void completed(final org.apache.http.HttpResponse response) {
+											try {
+												outFuture.complete(HttpClientTransportApacheSupport.responseFrom(response));
+											} catch (IOException ioEx) {
+												outFuture.completeExceptionally(ioEx);
+											}
+										}
+										@Override
+										public void failed(final Exception ex) {
+											outFuture.completeExceptionally(ex);
+										}
+										@Override
+										public void cancelled() {
+											outFuture.cancel(false);
+										}
+								});
+		} catch (Throwable th) {
+			outFuture.completeExceptionally(th);
+		}
+		return outFuture;
+	}
+	@Override
+	public void close() throws IOException {
+		if (!_closed.compareAndSet(false,true)) return;		// already closed
+		log.info("Closing the async (NIO) http client transport");
+		_idleConnectionsEvictor.shutdownNow();
+		_httpClient.close();
+	}
+	public boolean isClosed() {
+		return _closed.get();
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//  RESPONSE CONSUMER
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Buffers the response body in memory (as the default apache async client consumer does) BUT
+	 * fails as soon as the body exceeds the max size (instead of buffering any size)
+	 */
+	private static class MaxSizeBufferingResponseConsumer
+	             extends AbstractAsyncResponseConsumer<org.apache.http.HttpResponse> {
+		private final long _maxSize;
+		private volatile org.apache.http.HttpResponse _response;
+		private volatile SimpleInputBuffer _buffer;
+
+		MaxSizeBufferingResponseConsumer(final long maxSize) {
+			_maxSize = maxSize;
+		}
+		@Override
+		protected void onResponseReceived(final org.apache.http.HttpResponse response) {
+			_response = response;
+		}
+		@Override
+		protected void onEntityEnclosed(final HttpEntity entity,
+										final ContentType contentType) throws IOException {
+			long contentLength = entity.getContentLength();
+			_checkSize(contentLength);
+			if (contentLength > Integer.MAX_VALUE) throw new ContentTooLongException("Entity content is too long: " + contentLength);
+			_buffer = new SimpleInputBuffer(contentLength >= 0 ? Math.max(1,(int)contentLength) : 4096,
+											HeapByteBufferAllocator.INSTANCE);
+			_response.setEntity(new ContentBufferEntity(entity,_buffer));
+		}
+		@Override
+		protected void onContentReceived(final ContentDecoder decoder,
+										 final IOControl ioctrl) throws IOException {
+			_buffer.consumeContent(decoder);
+			_checkSize(_buffer.length());
+		}
+		@Override
+		protected org.apache.http.HttpResponse buildResult(final HttpContext context) {
+			return _response;
+		}
+		@Override
+		protected void releaseResources() {
+			_response = null;
+			_buffer = null;
+		}
+		private void _checkSize(final long size) throws ContentTooLongException {
+			if (_maxSize >= 0 && size > _maxSize) throw new ContentTooLongException("The response body is bigger than the max buffered response size (" + _maxSize + " bytes): use the blocking api and read the response stream instead");
+		}
+	}
+}
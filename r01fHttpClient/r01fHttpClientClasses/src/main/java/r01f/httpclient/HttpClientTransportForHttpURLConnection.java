@@ -0,0 +1,141 @@
+package r01f.httpclient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.util.Map;
+
+import lombok.Cleanup;
+import lombok.extern.slf4j.Slf4j;
+import r01f.httpclient.HttpClient.RequestMethod;
+import r01f.types.url.Url;
+import r01f.types.url.UrlProtocol;
+import r01f.types.url.UrlProtocol.StandardUrlProtocol;
+
+/**
+ * The default {@link HttpClientTransport}: a new {@link HttpURLConnection} is opened for every request
+ * using {@link HttpConnectionRetriever} or {@link HttpsConnectionRetriever}
+ * (connection re-use is left to the JDK keep-alive cache)
+ */
+@Slf4j
+public class HttpClientTransportForHttpURLConnection
+  implements HttpClientTransport {
+/////////////////////////////////////////////////////////////////////////////////////////
+//  CONSTANTS
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Known-length payloads up to this size are buffered by {@link HttpURLConnection} so they can be
+	 * re-sent when following a redirect or answering an auth challenge
+	 */
+	public static final long STREAMING_MIN_PAYLOAD_LENGTH = 1024 * 1024;		// 1MB
+/////////////////////////////////////////////////////////////////////////////////////////
+//  TRANSPORT
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Override
+	public HttpResponse execute(final HttpClientTransportRequest request) throws IOException {
+		return new HttpResponse(this.openConnection(request));
+	}
+	/**
+	 * Opens the server connection, sends the headers and the payload (if any)
+	 * @param request
+	 * @return the connection (the response is NOT read)
+	 * @throws IOException if an I/O error occurs
+	 */
+	public HttpURLConnection openConnection(final HttpClientTransportRequest request) throws IOException {
+		Url url = request.getUrl();
+		log.trace("...retrieving {} connection to {}",
+				  request.getMethod(),url);
+		// Get the server connection and send headers
+		HttpURLConnection conx = null;
+		UrlProtocol proto = url.getProtocolOrDefault(StandardUrlProtocol.HTTP.toUrlProtocol());
+		if (proto.is(StandardUrlProtocol.HTTPS)) {
+			HttpsConnectionRetriever connectionRetriever = new HttpsConnectionRetriever();
+			conx = connectionRetriever.getConnection(url,
+													 request.getProxySettings(),
+													 request.getConxTimeOut());
+		} else if (proto.is(StandardUrlProtocol.HTTP)) {
+			HttpConnectionRetriever connectionRetriever = new HttpConnectionRetriever();
+			conx = connectionRetriever.getConnection(url,
+													 request.getProxySettings(),
+													 request.getConxTimeOut());
+		} else {
+			throw new IOException("Protocol NOT supported: '" + url + "'");
+		}
+		if (conx == null) throw new IOException( "No se ha podido obtener una conexin con '" + url + "'" );
+		conx.setDoInput(true);
+		conx.setUseCaches(false);
+		log.trace("...connection retrieved!");
+
+		_setConnectionRequestMethod(conx,
+									request.getMethod());		// Sets the http method POST/PUT/GET/HEAD/DELETE
+		_sendHeaders(conx,
+					 request.getHeaders());						// Sends the http headers
+
+		if (request.hasPayload()) {
+			_sendPayload(conx,
+						 request);								// Sends the payload
+		}
+		return conx;
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//  PRIVATE METHODS
+/////////////////////////////////////////////////////////////////////////////////////////
+	private static void _setConnectionRequestMethod(final HttpURLConnection conx,
+													final RequestMethod method) throws IOException {
+		if (method.isPOST()) {
+			conx.setDoOutput(true);
+			conx.setRequestMethod("POST");
+		} else if (method.isPUT()) {
+			conx.setDoOutput(true);
+			conx.setRequestMethod("PUT");
+		} else if (method.isDELETE()) {
+			conx.setRequestMethod("DELETE");
+		} else if (method.isHEAD()) {
+			conx.setDoOutput(false);
+			conx.setRequestMethod("HEAD");
+		} else if (method.isGET()) {
+			conx.setDoOutput(false);
+			conx.setRequestMethod("GET");
+		} else {
+			throw new IllegalStateException(method.name() + " is not supported!");
+		}
+	}
+	/**
+	 * Sends http headers to the servers
+	 * @param conx the server http connection
+	 * @param headers
+	 */
+	private static void _sendHeaders(final HttpURLConnection conx,
+									 final Map<String,String> headers) {
+		if (headers != null) {
+			for (Map.Entry<String,String> me : headers.entrySet()) {
+				conx.setRequestProperty(me.getKey(),me.getValue() );
+			}
+		}
+	}
+	/**
+	 * Sends http call payload if the method is POST or PUT in any of its variants
+	 * A streamed payload cannot be re-sent, so {@link HttpURLConnection} fails with an {@link java.net.HttpRetryException}
+	 * if the server answers with a redirect or an auth challenge; the payload is streamed only when buffering it is not an option:
+	 * <ul>
+	 * 		<li>if the payload length is unknown, a chunked request is sent</li>
+	 * 		<li>if the payload is larger than {@link #STREAMING_MIN_PAYLOAD_LENGTH} or redirects are not followed, a fixed-length request is sent</li>
+	 * 		<li>otherwise the payload is buffered by {@link HttpURLConnection} (it computes the Content-Length)</li>
+	 * </ul>
+	 * @param conx the server http connection
+	 * @param request
+	 * @throws IOException if an I/O error occurs
+	 */
+	private static void _sendPayload(final HttpURLConnection conx,
+									 final HttpClientTransportRequest request) throws IOException {
+		long payloadContentLength = request.getPayloadContentLength();
+		if (payloadContentLength < 0) {
+			conx.setChunkedStreamingMode(0);		// default chunk size
+		} else if (payloadContentLength > STREAMING_MIN_PAYLOAD_LENGTH
+				|| !conx.getInstanceFollowRedirects()) {
+			conx.setFixedLengthStreamingMode(payloadContentLength);
+		}
+		@Cleanup OutputStream out = conx.getOutputStream();
+		request.writePayloadTo(out);
+	}
+}
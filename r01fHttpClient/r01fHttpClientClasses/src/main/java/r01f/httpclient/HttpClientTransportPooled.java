@@ -0,0 +1,208 @@
+package r01f.httpclient;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.RequestBuilder;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+
+import com.google.common.collect.Maps;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.Accessors;
+import lombok.extern.slf4j.Slf4j;
+import r01f.mime.MimeType;
+
+/**
+ * An {@link HttpClientTransport} that keeps a bounded pool of keep-alive connections per route (host)
+ * <ul>
+ * 		<li>max connections: total and per route (see {@link HttpClientTransportPooledConfig})</li>
+ * 		<li>idle connections are evicted by a background thread</li>
+ * 		<li>pool metrics: see {@link #getPoolStats()}</li>
+ * </ul>
+ * The connection is returned to the pool when the response stream is fully read or closed (see {@link HttpResponse#discard()})
+ * <p>
+ * Usage:
+ * <pre class='brush:java'>
+ * 		HttpClient.useTransport(new HttpClientTransportPooled(HttpClientTransportPooledConfig.create()
+ * 																							.maxConnectionsPerRoute(20)));
+ * </pre>
+ * </p>
+ * BEWARE! the transport must be closed when no longer used (the pooled connections are closed)
+ */
+@Slf4j
+@Accessors(prefix="_")
+public class HttpClientTransportPooled
+  implements HttpClientTransport,
+  			 Closeable {
+/////////////////////////////////////////////////////////////////////////////////////////
+//  FIELDS
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Getter private final HttpClientTransportPooledConfig _config;
+			private final PoolingHttpClientConnectionManager _connectionManager;
+			private final CloseableHttpClient _httpClient;
+
+			private final AtomicLong _executedRequests = new AtomicLong();
+			private final AtomicLong _failedRequests = new AtomicLong();
+/////////////////////////////////////////////////////////////////////////////////////////
+//  CONSTRUCTOR
+/////////////////////////////////////////////////////////////////////////////////////////
+	public HttpClientTransportPooled() {
+		this(HttpClientTransportPooledConfig.create());
+	}
+	public HttpClientTransportPooled(final HttpClientTransportPooledConfig config) {
+		_config = config;
+		_connectionManager = new PoolingHttpClientConnectionManager(config.getConnectionTimeToLive(),TimeUnit.MILLISECONDS);
+		_connectionManager.setMaxTotal(config.getMaxConnections());
+		_connectionManager.setDefaultMaxPerRoute(config.getMaxConnectionsPerRoute());
+		_connectionManager.setValidateAfterInactivity(config.getValidateConnectionsAfterInactivity());
+
+		_httpClient = HttpClients.custom()
+								 .setConnectionManager(_connectionManager)
+								 .evictExpiredConnections()
+								 .evictIdleConnections(config.getIdleConnectionsTimeOut(),TimeUnit.MILLISECONDS)
+								 .disableCookieManagement()			// cookies are sent as headers (see HttpClientRequestBuilderResponseStep)
+								 .disableContentCompression()		// as HttpURLConnection does, the content is NOT decompressed
+								 .build();
+		log.info("Pooled http client transport: {}",config);
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//  TRANSPORT
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Override
+	public HttpResponse execute(final HttpClientTransportRequest request) throws IOException {
+		_executedRequests.incrementAndGet();
+		RequestBuilder reqBuilder = HttpClientTransportApacheSupport.requestBuilderFor(request,
+																					   _config);
+		// payload
+		if (request.hasPayload()) reqBuilder.setEntity(new HttpClientTransportRequestEntity(request));
+
+		// execute
+		CloseableHttpResponse response = null;
+		try {
+			response = _httpClient.execute(reqBuilder.build());
+		} catch (IOException ioEx) {
+			_failedRequests.incrementAndGet();
+			throw ioEx;
+		}
+		// no content (ie HEAD or 204): release the connection now
+		if (response.getEntity() == null) response.close();
+
+		// the response stream releases the connection back to the pool when closed or fully read
+		return HttpClientTransportApacheSupport.responseFrom(response);
+	}
+	@Override
+	public void close() throws IOException {
+		_httpClient.close();
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//  METRICS
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * @return a snapshot of the pool metrics
+	 */
+	public HttpClientTransportPoolStats getPoolStats() {
+		Map<String,HttpClientTransportRoutePoolStats> statsByRoute = Maps.newLinkedHashMap();
+		for (HttpRoute route : _connectionManager.getRoutes()) {
+			statsByRoute.put(route.getTargetHost().toURI(),
+							 _routeStats(_connectionManager.getStats(route)));
+		}
+		return new HttpClientTransportPoolStats(_routeStats(_connectionManager.getTotalStats()),
+												statsByRoute,
+												_executedRequests.get(),_failedRequests.get());
+	}
+	@Accessors(prefix="_")
+	@RequiredArgsConstructor
+	public static class HttpClientTransportPoolStats {
+		@Getter private final HttpClientTransportRoutePoolStats _total;
+		@Getter private final Map<String,HttpClientTransportRoutePoolStats> _byRoute;
+		@Getter private final long _executedRequests;
+		@Getter private final long _failedRequests;
+
+		@Override
+		public String toString() {
+			return "total: " + _total + " > requests=" + _executedRequests + " (" + _failedRequests + " failed), by route: " + _byRoute;
+		}
+	}
+	@Accessors(prefix="_")
+	@RequiredArgsConstructor
+	public static class HttpClientTransportRoutePoolStats {
+		@Getter private final int _leased;			// connections in use
+		@Getter private final int _pending;			// requests waiting for a connection
+		@Getter private final int _available;		// idle connections
+		@Getter private final int _max;
+
+		@Override
+		public String toString() {
+			return "leased=" + _leased + ", pending=" + _pending + ", available=" + _available + ", max=" + _max;
+		}
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//  PRIVATE METHODS
+/////////////////////////////////////////////////////////////////////////////////////////
+	private static HttpClientTransportRoutePoolStats _routeStats(final PoolStats stats) {
+		return new HttpClientTransportRoutePoolStats(stats.getLeased(),stats.getPending(),stats.getAvailable(),
+													 stats.getMax());
+	}
+	/**
+	 * The request payload as an entity: the payload is directly written to the connection stream
+	 * If the content is requested as a stream (see {@link #getContent()}) the payload is buffered in memory
+	 * and later written from the buffer (the payload source can only be read once)
+	 */
+	private static class HttpClientTransportRequestEntity
+		 		 extends AbstractHttpEntity {
+		private final HttpClientTransportRequest _request;
+		private byte[] _buffered;		// the payload once buffered by getContent()
+
+		HttpClientTransportRequestEntity(final HttpClientTransportRequest request) {
+			_request = request;
+			MimeType contentType = request.getPayloadContentType();
+			if (contentType != null) this.setContentType(contentType.getName());
+		}
+		@Override
+		public boolean isRepeatable() {
+			return false;
+		}
+		@Override
+		public long getContentLength() {
+			return _buffered != null ? _buffered.length
+									 : _request.getPayloadContentLength();		// -1 if unknown: chunked
+		}
+		@Override
+		public InputStream getContent() throws IOException {
+			if (_buffered == null) {
+				ByteArrayOutputStream bos = new ByteArrayOutputStream();
+				_request.writePayloadTo(bos);
+				_buffered = bos.toByteArray();
+			}
+			return new ByteArrayInputStream(_buffered);
+		}
+		@Override
+		public void writeTo(final OutputStream os) throws IOException {
+			if (_buffered != null) {
+				os.write(_buffered);
+				os.flush();
+			} else {
+				_request.writePayloadTo(os);
+			}
+		}
+		@Override
+		public boolean isStreaming() {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,86 @@
+package r01f.httpclient;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+/**
+ * {@link HttpClientTransportPooled} config
+ * <pre class='brush:java'>
+ * 		HttpClientTransportPooledConfig config = HttpClientTransportPooledConfig.create()
+ * 																	.maxConnections(200)
+ * 																	.maxConnectionsPerRoute(20)
+ * 																	.closeIdleConnectionsAfter(30000);
+ * </pre>
+ */
+@Accessors(prefix="_")
+@NoArgsConstructor
+public class HttpClientTransportPooledConfig {
+/////////////////////////////////////////////////////////////////////////////////////////
+//  FIELDS
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Getter private int _maxConnections = 200;						// max pooled connections (all routes)
+	@Getter private int _maxConnectionsPerRoute = 20;				// max pooled connections to the same host (route)
+	@Getter private long _idleConnectionsTimeOut = 30000;			// milis a connection can be idle at the pool before being closed
+	@Getter private long _connectionTimeToLive = -1;				// milis a connection can be re-used (-1 = forever)
+	@Getter private long _connectionRequestTimeOut = 5000;			// milis to wait for a free pooled connection
+	@Getter private long _socketTimeOut = -1;						// milis to wait for the server data (-1 = system default)
+	@Getter private int _validateConnectionsAfterInactivity = 2000;	// milis after which an idle connection is checked before being re-used
+	@Getter private long _maxBufferedResponseSize = 16 * 1024 * 1024;	// max bytes of a response body buffered in memory by the async transport (-1 = no limit)
+/////////////////////////////////////////////////////////////////////////////////////////
+//  BUILDER
+/////////////////////////////////////////////////////////////////////////////////////////
+	public static HttpClientTransportPooledConfig create() {
+		return new HttpClientTransportPooledConfig();
+	}
+	public HttpClientTransportPooledConfig maxConnections(final int max) {
+		if (max <= 0) throw new IllegalArgumentException("The max connections must be greater than zero!");
+		_maxConnections = max;
+		return this;
+	}
+	public HttpClientTransportPooledConfig maxConnectionsPerRoute(final int max) {
+		if (max <= 0) throw new IllegalArgumentException("The max connections per route must be greater than zero!");
+		_maxConnectionsPerRoute = max;
+		return this;
+	}
+	public HttpClientTransportPooledConfig closeIdleConnectionsAfter(final long milis) {
+		_idleConnectionsTimeOut = milis;
+		return this;
+	}
+	public HttpClientTransportPooledConfig connectionsTimeToLive(final long milis) {
+		_connectionTimeToLive = milis;
+		return this;
+	}
+	public HttpClientTransportPooledConfig waitForPooledConnection(final long milis) {
+		_connectionRequestTimeOut = milis;
+		return this;
+	}
+	public HttpClientTransportPooledConfig socketTimeOut(final long milis) {
+		_socketTimeOut = milis;
+		return this;
+	}
+	public HttpClientTransportPooledConfig validateConnectionsAfterInactivity(final int milis) {
+		_validateConnectionsAfterInactivity = milis;
+		return this;
+	}
+	/**
+	 * Sets the max size of a response body buffered in memory by the async (NIO) transport: a bigger response fails
+	 * (see {@link HttpClientTransportAsync})
+	 * @param bytes the max size in bytes (-1 = no limit)
+	 * @return
+	 */
+	public HttpClientTransportPooledConfig maxBufferedResponseSize(final long bytes) {
+		_maxBufferedResponseSize = bytes;
+		return this;
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//  
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Override
+	public String toString() {
+		return "max connections=" + _maxConnections + " (" + _maxConnectionsPerRoute + " per route)"
+			 + ", idle timeout=" + _idleConnectionsTimeOut + "ms, time to live=" + _connectionTimeToLive + "ms"
+			 + ", pooled connection wait=" + _connectionRequestTimeOut + "ms, socket timeout=" + _socketTimeOut + "ms"
+			 + ", max buffered response=" + _maxBufferedResponseSize + " bytes";
+	}
+}
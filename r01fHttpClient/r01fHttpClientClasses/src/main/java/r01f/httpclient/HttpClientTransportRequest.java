@@ -0,0 +1,65 @@
+package r01f.httpclient;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.Accessors;
+import r01f.httpclient.HttpClient.RequestMethod;
+import r01f.mime.MimeType;
+import r01f.types.url.Url;
+
+/**
+ * A request to be sent by an {@link HttpClientTransport}
+ * The headers are the final ones: the auth, proxy-auth, cookie, content-type & content-length headers are already set
+ */
+@Accessors(prefix="_")
+@RequiredArgsConstructor(access=AccessLevel.PACKAGE)
+public class HttpClientTransportRequest {
+/////////////////////////////////////////////////////////////////////////////////////////
+//  FIELDS
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Getter private final RequestMethod _method;
+	@Getter private final Url _url;
+	@Getter private final Map<String,String> _headers;
+			private final HttpRequestPayloadWrapper _payload;
+	@Getter private final HttpClientProxySettings _proxySettings;		// null if no proxy is used
+	@Getter private final long _conxTimeOut;							// timeout to get a connection with server (-1 if none)
+/////////////////////////////////////////////////////////////////////////////////////////
+//  PAYLOAD
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * @return true if the request method sends a payload
+	 */
+	public boolean hasPayload() {
+		return _method.hasPayload();
+	}
+	/**
+	 * @return the payload content type (might be null)
+	 */
+	public MimeType getPayloadContentType() {
+		return _payload != null ? _payload.payloadContentType() : null;
+	}
+	/**
+	 * @return the payload length (-1 if unknown)
+	 */
+	public long getPayloadContentLength() {
+		return _payload != null ? _payload.payloadContentLength() : -1;
+	}
+	/**
+	 * Writes the payload to the given stream (the stream is NOT closed)
+	 * @param os
+	 * @throws IOException
+	 */
+	public void writePayloadTo(final OutputStream os) throws IOException {
+		if (_payload == null) return;
+		DataOutputStream dos = os instanceof DataOutputStream ? (DataOutputStream)os
+															  : new DataOutputStream(os);
+		_payload.payloadToOutputStream(dos);
+		dos.flush();
+	}
+}
@@ -8,6 +8,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import com.google.common.collect.Lists;
 
@@ -263,4 +264,60 @@ public class HttpRESTClient {
 		}
 		return outResponse;
 	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	ASYNC (non-blocking: see HttpClient.useAsyncTransport)
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Makes a GET call to an URL WITHOUT blocking the calling thread
+	 * @param url the url to GET
+	 * @param headers the HTTP headers
+	 * @return the server-returned result future (if the call fails, the future is completed with a 500 response as {@link #doGET(Url, Map)} does)
+	 */
+	public static CompletableFuture<HttpResponse> doGETAsync(final Url url,
+									 						 final Map<String, String> headers) {
+		CompletableFuture<HttpResponse> outResponse = null;
+		try {
+			outResponse = HttpClient.forUrl(url)	// url-encode los parametros! en otro caso NO funciona con jersey
+									.disablingProxyCache()
+									.withHeaders(headers)
+									.GET()
+										.getResponseAsync()
+											.notUsingProxy().withoutTimeOut().noAuth();
+		} catch (IOException ioEx) {
+			outResponse = CompletableFuture.completedFuture(_errorResponse(ioEx));
+		}
+		return outResponse.exceptionally(th -> _errorResponse(th));
+	}
+	/**
+	 * Makes a POST call to an URL WITHOUT blocking the calling thread
+	 * @param url the url to POST at
+	 * @param headers the HTTP headers
+	 * @param postPayload the POSTed data
+	 * @param mimeType the content-type of the posted data (if null application/xml is assumed)
+	 * @return the server-returned result future (if the call fails, the future is completed with a 500 response as {@link #doPOST(Url, Map, InputStream, MimeType)} does)
+	 */
+	public static CompletableFuture<HttpResponse> doPOSTAsync(final Url url,
+									  						  final Map<String,String> headers,
+									  						  final InputStream postPayload,
+									  						  final MimeType mimeType) {
+		CompletableFuture<HttpResponse> outResponse = null;
+		try {
+			MimeType theMimeType = mimeType != null ? mimeType
+													: MimeTypes.APPLICATION_XML;
+			outResponse = HttpClient.forUrl(url)	// url-encode los parametros! en otro caso NO funciona con jersey
+									.disablingProxyCache()
+									.withHeaders(headers)
+									.POST()
+										.withPayload(HttpRequestPayload.wrap(postPayload)
+																	   .mimeType(theMimeType))
+									.getResponseAsync()
+										.notUsingProxy().withoutTimeOut().noAuth();
+		} catch (IOException ioEx) {
+			outResponse = CompletableFuture.completedFuture(_errorResponse(ioEx));
+		}
+		return outResponse.exceptionally(th -> _errorResponse(th));
+	}
+	private static HttpResponse _errorResponse(final Throwable th) {
+		return new HttpResponse(500, new ByteArrayInputStream(Throwables.getStackTraceAsString(th).getBytes()));
+	}
 }
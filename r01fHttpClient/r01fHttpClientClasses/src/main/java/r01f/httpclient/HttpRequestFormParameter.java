@@ -1,6 +1,7 @@
 package r01f.httpclient;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.charset.Charset;
 
 public interface HttpRequestFormParameter {
@@ -13,4 +14,19 @@ public interface HttpRequestFormParameter {
 	 */
 	public byte[] _serializeFormParam(Charset targetServerCharset,
 									  boolean multiPart) throws IOException;
+	/**
+	 * Writes the serialized param to the given stream
+	 * (params with a big content should override it to write the content WITHOUT loading it in memory)
+	 * @param os the stream (it's NOT closed)
+	 * @param targetServerCharset the target server charset
+	 * @param multiPart true if the data is posted in multi-part way
+	 * @throws IOException if an I/O error occurs
+	 */
+	public default void _writeFormParam(final OutputStream os,
+										final Charset targetServerCharset,
+										final boolean multiPart) throws IOException {
+		byte[] bytes = _serializeFormParam(targetServerCharset,
+										   multiPart);
+		if (bytes != null) os.write(bytes);
+	}
 }
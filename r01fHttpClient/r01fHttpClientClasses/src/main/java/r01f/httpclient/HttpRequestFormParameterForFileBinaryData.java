@@ -1,14 +1,10 @@
 package r01f.httpclient;
 
-import static r01f.httpclient.HttpRequestFormParameterForMultiPartBinaryData.HttpRequestFormBinaryParameterTransferEncoding.BASE64;
-
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.charset.Charset;
 import java.util.List;
 
-import org.apache.commons.codec.binary.Base64;
-
 import com.google.common.collect.Lists;
 
 import lombok.experimental.Accessors;
@@ -56,39 +52,23 @@ public class HttpRequestFormParameterForFileBinaryData
 //
 /////////////////////////////////////////////////////////////////////////////////////////
 	@Override
-	public byte[] _serializeFormParam(final Charset targetServerCharset,
-									  final boolean multiPart) throws IOException {
+	public void _writeFormParam(final OutputStream os,
+								final Charset targetServerCharset,
+								final boolean multiPart) throws IOException {
 		if (!multiPart) throw new IOException("A file parameter must be POSTed in a multi-part form");
 
 		final Charset theTargetServerCharset = targetServerCharset == null ? Charset.defaultCharset()
 																	 : targetServerCharset;
 
-		byte[] outBytes = null;
 		if (_binaryParts.size() == 1) {
-			// FilePart header
 			final HttpRequestPayloadForFileParameter filePart = CollectionUtils.of(_binaryParts)
 																         .pickOneAndOnlyElement();
 
-			// File Part contents
-			byte[] contentBytes = null;
-			contentBytes = filePart.mustEncodeToTargetServerCharset() ? filePart.getContent(theTargetServerCharset)		// encode the source String to the target server encoding
-																      : filePart.getContent();
-			contentBytes = filePart.getTransferEncoding() == BASE64 ? Base64.encodeBase64(contentBytes)
-													   			    : contentBytes;
-
-			final ByteArrayOutputStream bos = new ByteArrayOutputStream(contentBytes.length);
-			bos.write(contentBytes);
-			bos.flush();
-			bos.close();
-			outBytes = bos.toByteArray();
-
-
-
+			// File Part contents: directly written to the stream (NOT loaded in memory)
+			filePart.writeContentTo(os,
+									theTargetServerCharset);
 		} else {
 			throw new IllegalArgumentException("Se esperaba un unico fichero");
 		}
-
-		return outBytes != null ? outBytes
-								: null;
 	}
 }
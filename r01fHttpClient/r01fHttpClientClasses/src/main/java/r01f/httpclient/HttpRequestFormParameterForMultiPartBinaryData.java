@@ -1,15 +1,11 @@
 package r01f.httpclient;
 
-import static r01f.httpclient.HttpRequestFormParameterForMultiPartBinaryData.HttpRequestFormBinaryParameterTransferEncoding.BASE64;
-
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.charset.Charset;
-import java.util.ArrayList;
 import java.util.List;
 
-import org.apache.commons.codec.binary.Base64;
-
 import com.google.common.collect.Lists;
 
 import lombok.AccessLevel;
@@ -90,12 +86,21 @@ public class HttpRequestFormParameterForMultiPartBinaryData
 	@Override
 	public byte[] _serializeFormParam(final Charset targetServerCharset,
 									  final boolean multiPart) throws IOException {
+		// BEWARE! the whole content is loaded in memory: the param is streamed to the connection using _writeFormParam
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		_writeFormParam(bos,
+						targetServerCharset,multiPart);
+		return bos.toByteArray();
+	}
+	@Override
+	public void _writeFormParam(final OutputStream os,
+								final Charset targetServerCharset,
+								final boolean multiPart) throws IOException {
 		if (!multiPart) throw new IOException("A file parameter must be POSTed in a multi-part form");
 		
 		Charset theTargetServerCharset = targetServerCharset == null ? Charset.defaultCharset()
 																	 : targetServerCharset;
 		
-		byte[] outBytes = null;
 		// If only one file is sent the serialized format is:
 		// 		Content-Disposition: form-data; name="files"; filename="myImage.gif"
 		// 		Content-Type: image/gif
@@ -120,83 +125,48 @@ public class HttpRequestFormParameterForMultiPartBinaryData
 		//
 		// 		... contents of myImage.gif ...
 		//		--MXBOUNDARY--
+		//
+		// The parts are written one after the other directly to the stream: the file contents are NOT loaded in memory
 		if (_binaryParts.size() == 1) {
 			// FilePart header
 			HttpRequestPayloadForFileParameter filePart = CollectionUtils.of(_binaryParts)
 																         .pickOneAndOnlyElement();
-			byte[] headerBytes = Strings.customized("Content-Disposition: form-data; name=\"{}\"; filename=\"{}\"\r\n" +
-													"Content-Type: {}\r\n" +
-													"Content-Transfer-Encoding: {}\r\n\r\n",
-									    			_name,
-									    			filePart.getFileName(),
-									    			filePart.getMimeType().getName(),
-									    			filePart.getTransferEncoding().toString().toLowerCase())
-									    .getBytes(theTargetServerCharset);
+			os.write(Strings.customized("Content-Disposition: form-data; name=\"{}\"; filename=\"{}\"\r\n" +
+										"Content-Type: {}\r\n" +
+										"Content-Transfer-Encoding: {}\r\n\r\n",
+						    			_name,
+						    			filePart.getFileName(),
+						    			filePart.getMimeType().getName(),
+						    			filePart.getTransferEncoding().toString().toLowerCase())
+						    .getBytes(theTargetServerCharset));
 			// File Part contents
-			byte[] contentBytes = null;
-			contentBytes = filePart.mustEncodeToTargetServerCharset() ? filePart.getContent(theTargetServerCharset)		// encode the source String to the target server encoding
-																      : filePart.getContent();
-			contentBytes = filePart.getTransferEncoding() == BASE64 ? Base64.encodeBase64(contentBytes)
-													   			    : contentBytes;	 
-									
-			ByteArrayOutputStream bos = new ByteArrayOutputStream(headerBytes.length + contentBytes.length);
-			bos.write(headerBytes);
-			bos.write(contentBytes);
-			bos.write("\r\n".getBytes());
-			bos.flush();
-			bos.close();
-			outBytes = bos.toByteArray();
+			filePart.writeContentTo(os,
+									theTargetServerCharset);
+			os.write("\r\n".getBytes());
 			
 		} else {
 			// Multiple file parts header
-			byte[] headerBytes = Strings.customized("Content-Disposition: form-data; name=\"{}\"\r\n" +
-													"Content-Type: multipart/mixed; boundary={}\r\n\r\n",
-													_name,
-													"**R01MXBOUNDR01**")
-										.getBytes(theTargetServerCharset);
-			
-			List<byte[]> partsBytes = new ArrayList<byte[]>(_binaryParts.size());
-			int partsBytesLength = 0;
+			os.write(Strings.customized("Content-Disposition: form-data; name=\"{}\"\r\n" +
+										"Content-Type: multipart/mixed; boundary={}\r\n\r\n",
+										_name,
+										"**R01MXBOUNDR01**")
+							.getBytes(theTargetServerCharset));
 			for (HttpRequestPayloadForFileParameter filePart : _binaryParts) {
 				// Current file part header
-				byte[] partHeaderBytes = Strings.customized("--**R01MXBOUNDR01**\r\n" +
-															"Content-Disposition: file; filename=\"{}\"\r\n" +
-															"Content-Type: {}\r\n" + 
-															"Content-Transfer-Encoding: {}\r\n\r\n",
-															filePart.getFileName(),
-											    			filePart.getMimeType().getName(),
-											    			filePart.getTransferEncoding().toString().toLowerCase())
-											    .getBytes(theTargetServerCharset);
+				os.write(Strings.customized("--**R01MXBOUNDR01**\r\n" +
+											"Content-Disposition: file; filename=\"{}\"\r\n" +
+											"Content-Type: {}\r\n" + 
+											"Content-Transfer-Encoding: {}\r\n\r\n",
+											filePart.getFileName(),
+							    			filePart.getMimeType().getName(),
+							    			filePart.getTransferEncoding().toString().toLowerCase())
+							    .getBytes(theTargetServerCharset));
 				// Current file part contents
-				byte[] contentBytes = null;
-				contentBytes = filePart.mustEncodeToTargetServerCharset() ? filePart.getContent(theTargetServerCharset)		// encode the source String to the target server encoding
-																	      : filePart.getContent();
-				contentBytes = filePart.getTransferEncoding() == BASE64 ? Base64.encodeBase64(contentBytes)
-														   			    : contentBytes;
-				ByteArrayOutputStream partBos = new ByteArrayOutputStream(partHeaderBytes.length + contentBytes.length);
-				partBos.write(partHeaderBytes);
-				partBos.write(contentBytes);
-				partBos.write("\r\n".getBytes());
-				partBos.flush();
-				partBos.close();
-				partsBytes.add(partBos.toByteArray());
-				partsBytesLength = partsBytesLength + partBos.size();
+				filePart.writeContentTo(os,
+										theTargetServerCharset);
+				os.write("\r\n".getBytes());
 			}
-			
-			// all together: multiple file parts header + each part (header / contents) + end
-			ByteArrayOutputStream bos = new ByteArrayOutputStream(headerBytes.length + partsBytesLength);
-			
-			bos.write(headerBytes);						// header
-			for (byte[] partBytes : partsBytes) {		// parts
-				bos.write(partBytes);
-			}
-			bos.write("--**R01MXBOUNDR01**--\r\n".getBytes());	// boundary end
-			
-			bos.flush();
-			bos.close();
-			outBytes = bos.toByteArray();
+			os.write("--**R01MXBOUNDR01**--\r\n".getBytes());	// boundary end
 		}
-		return outBytes != null ? outBytes
-								: null;
 	}
 }
@@ -1,7 +1,7 @@
 package r01f.httpclient;
 
 import java.io.File;
-import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
@@ -24,11 +24,23 @@ public class HttpRequestPayload
 		super(content,
 			  mustEncodeToTargetServerCharset);
 	}
+	public HttpRequestPayload(final HttpRequestPayloadSource source,
+							  final boolean mustEncodeToTargetServerCharset) {
+		super(source,
+			  mustEncodeToTargetServerCharset);
+	}
 /////////////////////////////////////////////////////////////////////////////////////////
 //   BUILDERS
 /////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * The stream is NOT loaded in memory: it's sent chunked when the request is sent (and then it's closed)
+	 * BEWARE! the request can be sent only once
+	 * @param is
+	 * @return
+	 * @throws IOException
+	 */
 	public static HttpRequestPayload wrap(final InputStream is) throws IOException {
-		return new HttpRequestPayload(IOUtils.toByteArray(is),
+		return new HttpRequestPayload(HttpRequestPayloadSource.of(is),
 									  false);
 	}
 	public static HttpRequestPayload wrap(final byte[] bytes) {
@@ -36,10 +48,15 @@ public class HttpRequestPayload
 									  false);
 	}
 
+	/**
+	 * The file is NOT loaded in memory: it's transfered to the connection when the request is sent
+	 * @param file
+	 * @return
+	 * @throws IOException
+	 */
 	public static HttpRequestPayload wrap(final File file) throws IOException {
-		@Cleanup InputStream fis = new FileInputStream(file);
-		byte[] fileBytes = IOUtils.toByteArray(fis);
-		return new HttpRequestPayload(fileBytes,
+		if (!file.isFile()) throw new FileNotFoundException(file.getAbsolutePath() + " does NOT exists or it's NOT a file");
+		return new HttpRequestPayload(HttpRequestPayloadSource.of(file),
 									  false);
 	}
 
@@ -1,7 +1,13 @@
 package r01f.httpclient;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.charset.Charset;
 
+import org.apache.commons.codec.binary.Base64OutputStream;
+import org.apache.commons.io.output.CloseShieldOutputStream;
+
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
@@ -17,7 +23,7 @@ abstract class HttpRequestPayloadBase<SELF_TYPE extends HttpRequestPayloadBase<S
 /////////////////////////////////////////////////////////////////////////////////////////
 //  STATUS
 /////////////////////////////////////////////////////////////////////////////////////////	
-	@Getter protected final byte[] _content;
+	@Getter protected final HttpRequestPayloadSource _source;
 	@Getter protected MimeType _mimeType;
 	@Getter protected HttpRequestFormBinaryParameterTransferEncoding _transferEncoding;
 	
@@ -26,7 +32,10 @@ abstract class HttpRequestPayloadBase<SELF_TYPE extends HttpRequestPayloadBase<S
 //  CONSTRUCTOR
 /////////////////////////////////////////////////////////////////////////////////////////
 	protected HttpRequestPayloadBase(final byte[] content) {
-		_content = content;
+		this(HttpRequestPayloadSource.of(content));
+	}
+	protected HttpRequestPayloadBase(final HttpRequestPayloadSource source) {
+		_source = source;
 		_mimeType = MimeTypes.OCTECT_STREAM;	// default
 		_transferEncoding = HttpRequestFormBinaryParameterTransferEncoding.BINARY;
 	}
@@ -35,35 +44,95 @@ abstract class HttpRequestPayloadBase<SELF_TYPE extends HttpRequestPayloadBase<S
 		this(content);
 		_mustEncodeToTargetServerCharset = mustEncodeToTargetServerCharset;
 	}
+	protected HttpRequestPayloadBase(final HttpRequestPayloadSource source,
+									 final boolean mustEncodeToTargetServerCharset) {
+		this(source);
+		_mustEncodeToTargetServerCharset = mustEncodeToTargetServerCharset;
+	}
 /////////////////////////////////////////////////////////////////////////////////////////
 //  FLUENT-APIs
 /////////////////////////////////////////////////////////////////////////////////////////
 	@RequiredArgsConstructor(access=AccessLevel.PROTECTED)
 	public static class HttpRequestPayloadParameterBuilderNameStep<P extends HttpRequestPayloadBase<P>> {
-		private final byte[] _content;
+		private final HttpRequestPayloadSource _source;
 		private final boolean _mustEncodeToTargetServerCharset;
 		private final HttpRequestPayloadParameterFactory<P> _reqPayloadParamFactory;
 		
 		public P withFileName(final String name) {
 			return _reqPayloadParamFactory.createFrom(name,
-													  _content,
+													  _source,
 													  _mustEncodeToTargetServerCharset);
 		}
 	}
 	protected interface HttpRequestPayloadParameterFactory<P extends HttpRequestPayloadBase<P>> {
 		public P createFrom(final String name,
-							final byte[] content,
+							final HttpRequestPayloadSource source,
 							final boolean mustEncodeToTargetServerCharset);
 	}
 /////////////////////////////////////////////////////////////////////////////////////////
-//  
+//  CONTENT
 /////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Loads the content in memory
+	 * BEWARE! if the payload was created from a file or a stream, the whole content is loaded in memory:
+	 * 		   use {@link #writeContentTo(OutputStream, Charset)} instead
+	 * @return
+	 */
+	public byte[] getContent() {
+		try {
+			return _source.asBytes();
+		} catch (IOException ioEx) {
+			throw new UncheckedIOException(ioEx);
+		}
+	}
 	public byte[] getContent(final Charset charset) {
-		return StringEncodeUtils.encode(new String(_content),
+		return StringEncodeUtils.encode(new String(this.getContent()),
 										charset)
 								.toString()
 								.getBytes();
 	}
+	/**
+	 * @param targetServerCharset the target server charset (null if the content is NOT encoded to the target server charset)
+	 * @return the length of the content once transfer-encoded or -1 if unknown
+	 * 		   (it's unknown if the content must be encoded to the target server charset)
+	 */
+	public long getTransferEncodedContentLength(final Charset targetServerCharset) {
+		if (_mustEncodeToTargetServerCharset && targetServerCharset != null) return -1;
+		long length = _source.length();
+		if (length < 0) return -1;
+		return _transferEncoding == HttpRequestFormBinaryParameterTransferEncoding.BASE64 ? ((length + 2) / 3) * 4		// base64 without line breaks
+																						  : length;
+	}
+	/**
+	 * Writes the transfer-encoded content to the given stream WITHOUT loading it in memory
+	 * (unless it must be encoded to the target server charset)
+	 * @param os the stream (it's NOT closed)
+	 * @param targetServerCharset the target server charset (null if the content is NOT encoded to the target server charset)
+	 * @throws IOException
+	 */
+	public void writeContentTo(final OutputStream os,
+							   final Charset targetServerCharset) throws IOException {
+		if (_transferEncoding == HttpRequestFormBinaryParameterTransferEncoding.BASE64) {
+			// the base64 stream must be closed to write the last bytes... but the target stream must NOT be closed
+			OutputStream base64Os = new Base64OutputStream(new CloseShieldOutputStream(os),
+														   true,				// encode
+														   0,null);				// no line breaks
+			_writeRawContentTo(base64Os,
+							   targetServerCharset);
+			base64Os.close();
+		} else {
+			_writeRawContentTo(os,
+							   targetServerCharset);
+		}
+	}
+	private void _writeRawContentTo(final OutputStream os,
+									final Charset targetServerCharset) throws IOException {
+		if (_mustEncodeToTargetServerCharset && targetServerCharset != null) {
+			os.write(this.getContent(targetServerCharset));		// encode the source String to the target server encoding
+		} else {
+			_source.writeTo(os);
+		}
+	}
 /////////////////////////////////////////////////////////////////////////////////////////
 //  
 /////////////////////////////////////////////////////////////////////////////////////////
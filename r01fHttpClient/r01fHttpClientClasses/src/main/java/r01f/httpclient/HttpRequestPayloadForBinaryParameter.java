@@ -1,7 +1,7 @@
 package r01f.httpclient;
 
 import java.io.File;
-import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
@@ -26,11 +26,16 @@ public class HttpRequestPayloadForBinaryParameter
 		super(content,
 			  mustEncodeToTargetServerCharset);
 	}
+	public HttpRequestPayloadForBinaryParameter(final HttpRequestPayloadSource source,
+												final boolean mustEncodeToTargetServerCharset) {
+		super(source,
+			  mustEncodeToTargetServerCharset);
+	}
 /////////////////////////////////////////////////////////////////////////////////////////
 //   BUILDERS
 /////////////////////////////////////////////////////////////////////////////////////////
 	public static HttpRequestPayloadForBinaryParameter wrap(final InputStream is) throws IOException {
-		return new HttpRequestPayloadForBinaryParameter(IOUtils.toByteArray(is),
+		return new HttpRequestPayloadForBinaryParameter(HttpRequestPayloadSource.of(is),	// NOT loaded in memory
 														false);
 	}
 	public static HttpRequestPayloadForBinaryParameter wrap(final byte[] bytes) {
@@ -39,9 +44,8 @@ public class HttpRequestPayloadForBinaryParameter
 	}
 
 	public static HttpRequestPayloadForBinaryParameter wrap(final File file) throws IOException {
-		@Cleanup InputStream fis = new FileInputStream(file);
-		byte[] fileBytes = IOUtils.toByteArray(fis);
-		return new HttpRequestPayloadForBinaryParameter(fileBytes,
+		if (!file.isFile()) throw new FileNotFoundException(file.getAbsolutePath() + " does NOT exists or it's NOT a file");
+		return new HttpRequestPayloadForBinaryParameter(HttpRequestPayloadSource.of(file),	// NOT loaded in memory
 														false);
 	}
 
@@ -1,7 +1,7 @@
 package r01f.httpclient;
 
 import java.io.File;
-import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
@@ -35,24 +35,30 @@ public class HttpRequestPayloadForFileParameter
 			  mustEncodeToTargetServerCharset);
 		_fileName = fileName;
 	}
+	protected HttpRequestPayloadForFileParameter(final String fileName,
+												 final HttpRequestPayloadSource source,
+												 final boolean mustEncodeToTargetServerCharset) {
+		super(source,
+			  mustEncodeToTargetServerCharset);
+		_fileName = fileName;
+	}
 /////////////////////////////////////////////////////////////////////////////////////////
 //   BUILDERS
 /////////////////////////////////////////////////////////////////////////////////////////
 	public static HttpRequestPayloadParameterBuilderNameStep<HttpRequestPayloadForFileParameter> wrap(final InputStream is) throws IOException {
-		return new HttpRequestPayloadParameterBuilderNameStep<HttpRequestPayloadForFileParameter>(IOUtils.toByteArray(is),
+		return new HttpRequestPayloadParameterBuilderNameStep<HttpRequestPayloadForFileParameter>(HttpRequestPayloadSource.of(is),		// NOT loaded in memory
 													  				 							  false,
 													  				 							  _createReqPayloadParamFactory());
 	}
 	public static HttpRequestPayloadParameterBuilderNameStep<HttpRequestPayloadForFileParameter> wrap(final byte[] bytes) {
-		return new HttpRequestPayloadParameterBuilderNameStep<HttpRequestPayloadForFileParameter>(bytes,
+		return new HttpRequestPayloadParameterBuilderNameStep<HttpRequestPayloadForFileParameter>(HttpRequestPayloadSource.of(bytes),
 																								  false,
 																								   _createReqPayloadParamFactory());
 	}
 	
 	public static HttpRequestPayloadParameterBuilderNameStep<HttpRequestPayloadForFileParameter> wrap(final File file) throws IOException {
-		@Cleanup InputStream fis = new FileInputStream(file);
-		byte[] fileBytes = IOUtils.toByteArray(fis);
-		return new HttpRequestPayloadParameterBuilderNameStep<HttpRequestPayloadForFileParameter>(fileBytes,
+		if (!file.isFile()) throw new FileNotFoundException(file.getAbsolutePath() + " does NOT exists or it's NOT a file");
+		return new HttpRequestPayloadParameterBuilderNameStep<HttpRequestPayloadForFileParameter>(HttpRequestPayloadSource.of(file),	// NOT loaded in memory
 																	 							  false,
 																	 							  _createReqPayloadParamFactory());
 	}
@@ -61,13 +67,13 @@ public class HttpRequestPayloadForFileParameter
 	public static HttpRequestPayloadParameterBuilderNameStep<HttpRequestPayloadForFileParameter> wrap(final Reader reader) throws IOException {
 		@Cleanup ReaderInputStream ris = new ReaderInputStream(reader);
 		byte[] readerBytes = IOUtils.toByteArray(ris);
-		return new HttpRequestPayloadParameterBuilderNameStep<HttpRequestPayloadForFileParameter>(readerBytes,
+		return new HttpRequestPayloadParameterBuilderNameStep<HttpRequestPayloadForFileParameter>(HttpRequestPayloadSource.of(readerBytes),
 																	 							  true,
 																	 							  _createReqPayloadParamFactory());
 	}
 	public static HttpRequestPayloadParameterBuilderNameStep<HttpRequestPayloadForFileParameter> wrap(final String str) {
 		byte[] strBytes = str.getBytes();
-		return new HttpRequestPayloadParameterBuilderNameStep<HttpRequestPayloadForFileParameter>(strBytes,
+		return new HttpRequestPayloadParameterBuilderNameStep<HttpRequestPayloadForFileParameter>(HttpRequestPayloadSource.of(strBytes),
 																	 							  true,
 																	 							  _createReqPayloadParamFactory());
 	}
@@ -75,10 +81,10 @@ public class HttpRequestPayloadForFileParameter
 		return new HttpRequestPayloadParameterFactory<HttpRequestPayloadForFileParameter>() {
 						@Override
 						public HttpRequestPayloadForFileParameter createFrom(final String name, 
-																			 final byte[] content,
+																			 final HttpRequestPayloadSource source,
 																			 final boolean mustEncodeToTargetServerCharset) {
 							return new HttpRequestPayloadForFileParameter(name,
-																		  content,
+																		  source,
 																		  mustEncodeToTargetServerCharset);
 						}
 			   };
@@ -0,0 +1,160 @@
+package r01f.httpclient;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+import org.apache.commons.io.IOUtils;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.Accessors;
+
+/**
+ * The source of a request payload: the content is written to the connection stream when the request is sent
+ * so it's NOT loaded in memory
+ * <ul>
+ * 		<li>bytes: the content is already in memory</li>
+ * 		<li>file: the file is transfered to the connection stream using {@link FileChannel#transferTo(long, long, WritableByteChannel)}
+ * 			(the length is known so a fixed-length request is sent)</li>
+ * 		<li>stream: the stream is copied to the connection stream (the length is unknown so a chunked request is sent)
+ * 			BEWARE! the stream can be sent only once and it's closed after being sent</li>
+ * </ul>
+ */
+public interface HttpRequestPayloadSource {
+/////////////////////////////////////////////////////////////////////////////////////////
+//  METHODS
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * @return the content length or -1 if unknown
+	 */
+	public long length();
+	/**
+	 * Writes the content to the given stream (the stream is NOT closed)
+	 * @param os
+	 * @throws IOException
+	 */
+	public void writeTo(final OutputStream os) throws IOException;
+	/**
+	 * Loads the content in memory
+	 * BEWARE! avoid it when the content might be big
+	 * @return
+	 * @throws IOException
+	 */
+	public byte[] asBytes() throws IOException;
+/////////////////////////////////////////////////////////////////////////////////////////
+//  FACTORIES
+/////////////////////////////////////////////////////////////////////////////////////////
+	public static HttpRequestPayloadSource of(final byte[] bytes) {
+		return new HttpRequestPayloadSourceForBytes(bytes);
+	}
+	public static HttpRequestPayloadSource of(final File file) {
+		return new HttpRequestPayloadSourceForFile(file);
+	}
+	public static HttpRequestPayloadSource of(final InputStream is) {
+		return new HttpRequestPayloadSourceForStream(is);
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//  BYTES
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Accessors(prefix="_")
+	@RequiredArgsConstructor
+	public static class HttpRequestPayloadSourceForBytes
+			 implements HttpRequestPayloadSource {
+		@Getter private final byte[] _bytes;
+
+		@Override
+		public long length() {
+			return _bytes != null ? _bytes.length : 0;
+		}
+		@Override
+		public void writeTo(final OutputStream os) throws IOException {
+			if (_bytes != null) os.write(_bytes);
+		}
+		@Override
+		public byte[] asBytes() {
+			return _bytes;
+		}
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//  FILE
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Accessors(prefix="_")
+	@RequiredArgsConstructor
+	public static class HttpRequestPayloadSourceForFile
+			 implements HttpRequestPayloadSource {
+		@Getter private final File _file;
+
+		@Override
+		public long length() {
+			return _file.length();
+		}
+		@Override
+		public void writeTo(final OutputStream os) throws IOException {
+			try (FileChannel fileChannel = FileChannel.open(_file.toPath(),StandardOpenOption.READ)) {
+				// BEWARE! the channel is NOT closed: it would close the stream
+				WritableByteChannel target = Channels.newChannel(os);
+				long size = fileChannel.size();
+				long position = 0;
+				while (position < size) {
+					position += fileChannel.transferTo(position,size - position,
+													   target);
+				}
+			}
+		}
+		@Override
+		public byte[] asBytes() throws IOException {
+			return Files.readAllBytes(_file.toPath());
+		}
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//  STREAM
+/////////////////////////////////////////////////////////////////////////////////////////
+	public static class HttpRequestPayloadSourceForStream
+			 implements HttpRequestPayloadSource {
+		private final InputStream _is;
+		private byte[] _bytes;			// only if the content was loaded in memory (see asBytes())
+		private boolean _consumed;
+
+		public HttpRequestPayloadSourceForStream(final InputStream is) {
+			_is = is;
+		}
+		@Override
+		public long length() {
+			return _bytes != null ? _bytes.length : -1;
+		}
+		@Override
+		public synchronized void writeTo(final OutputStream os) throws IOException {
+			if (_bytes != null) {
+				os.write(_bytes);
+				return;
+			}
+			if (_consumed) throw new IOException("The payload stream was already sent: it cannot be sent again");
+			_consumed = true;
+			try {
+				IOUtils.copyLarge(_is,os,
+								  new byte[8192]);
+			} finally {
+				_is.close();
+			}
+		}
+		@Override
+		public synchronized byte[] asBytes() throws IOException {
+			if (_bytes != null) return _bytes;
+			if (_consumed) throw new IOException("The payload stream was already sent: it cannot be read again");
+			_consumed = true;
+			try {
+				_bytes = IOUtils.toByteArray(_is);
+			} finally {
+				_is.close();
+			}
+			return _bytes;
+		}
+	}
+}
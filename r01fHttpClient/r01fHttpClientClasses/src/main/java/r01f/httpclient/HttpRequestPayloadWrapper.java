@@ -1,14 +1,9 @@
 package r01f.httpclient;
 
-import static r01f.httpclient.HttpRequestFormParameterForMultiPartBinaryData.HttpRequestFormBinaryParameterTransferEncoding.BASE64;
-
-import java.io.ByteArrayOutputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 
-import org.apache.commons.codec.binary.Base64;
-
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.Accessors;
@@ -34,31 +29,22 @@ class HttpRequestPayloadWrapper {
 								: null;
 	}
 	/**
-	 * @return the payload length
+	 * @return the payload length (-1 if unknown: the payload is sent chunked)
 	 */
 	public long payloadContentLength() {
-		long payloadContentLength = -1;
-		if (_payload != null) {
-			byte[] contentBytes = _payload.getTransferEncoding() == BASE64 ? Base64.encodeBase64(_payload.getContent())
-													   			    	   : _payload.getContent();
-			payloadContentLength = contentBytes.length;
-		}
-		return payloadContentLength;
+		return _payload != null ? _payload.getTransferEncodedContentLength(null)
+								: -1;
 	}
 	/**
 	 * Puts the payload into the http connection OutputStream
+	 * The payload is streamed: it's NOT loaded in memory if it was created from a file or a stream
 	 * @param dos the {@link OutputStream}
 	 * @throws IOException if an I/O error occurs
 	 */
 	public void payloadToOutputStream(final DataOutputStream dos) throws IOException {
 		if (_payload != null) {
-			byte[] contentBytes = _payload.getTransferEncoding() == BASE64 ? Base64.encodeBase64(_payload.getContent())
-													   			    	   : _payload.getContent();
-			ByteArrayOutputStream partBos = new ByteArrayOutputStream(contentBytes.length);
-			partBos.write(contentBytes);
-			partBos.flush();
-			partBos.close();
-			dos.write(partBos.toByteArray());
+			_payload.writeContentTo(dos,
+									null);		// the payload is NOT encoded to the target server charset
 		}
 	}
 }
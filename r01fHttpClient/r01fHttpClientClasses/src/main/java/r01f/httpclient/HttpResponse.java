@@ -1,11 +1,15 @@
 package r01f.httpclient;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.nio.charset.Charset;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
 
 import org.apache.commons.io.IOUtils;
 
@@ -48,9 +52,16 @@ public class HttpResponse {
 		_headers = urlConnection.getHeaderFields();
 	}
 	public HttpResponse(final int code,final InputStream is) {
+		this(code,
+			 null,
+			 is);
+	}
+	public HttpResponse(final int code,
+						final Map<String,List<String>> headers,
+						final InputStream is) {
 		_code = code;
 		_inputStream = is;
-		_headers = null;
+		_headers = headers;
 	}
 /////////////////////////////////////////////////////////////////////////////////////////
 //  METHODS   
@@ -64,12 +75,15 @@ public class HttpResponse {
 	}
 	/**
 	 * Load data as a {@link String}
+	 * (the data is decoded if the server sent it compressed)
+	 * BEWARE! the whole response is loaded in memory: use {@link #loadAsString(Charset, long)} or {@link #handleBody(HttpResponseBodyHandler)}
+	 * 		   if the response size is NOT bounded
 	 * @return 
 	 */
 	public String loadAsString(final Charset charset) {
 		String outStr = null;
 		try {
-			@Cleanup InputStream responseIs = _inputStream;
+			@Cleanup InputStream responseIs = this.loadAsDecodedStream();
 			outStr = IOUtils.toString(responseIs,
 									  charset);
 			return outStr;
@@ -78,19 +92,96 @@ public class HttpResponse {
 		}
 		return outStr;
 	}
+	/**
+	 * Load data as a {@link String} BUT fails if the response is bigger than the given size
+	 * @param charset
+	 * @param maxBytes
+	 * @return
+	 * @throws IOException if the response is bigger than the given size (see {@link HttpResponseBodyHandler.HttpResponseBodyTooLargeException})
+	 */
+	public String loadAsString(final Charset charset,
+							   final long maxBytes) throws IOException {
+		return this.handleBody(HttpResponseBodyHandler.ofString(charset,
+																maxBytes));
+	}
 	/**
 	 * Gets an stream from the server response
+	 * (the data is NOT decoded if the server sent it compressed: see {@link #loadAsDecodedStream()})
 	 * @return el stream
 	 */
 	public InputStream loadAsStream() {
 		return _inputStream;
 	}
+	/**
+	 * Gets an stream from the server response that decodes the data as it's read
+	 * if the server sent it compressed (Content-Encoding: gzip or deflate)
+	 * @return
+	 * @throws IOException
+	 */
+	public InputStream loadAsDecodedStream() throws IOException {
+		if (_inputStream == null) return null;
+		String contentEncoding = this.getContentEncoding();
+		if (contentEncoding == null) return _inputStream;
+		if ("gzip".equalsIgnoreCase(contentEncoding) || "x-gzip".equalsIgnoreCase(contentEncoding)) return new GZIPInputStream(_inputStream);
+		if ("deflate".equalsIgnoreCase(contentEncoding)) return new InflaterInputStream(_inputStream);
+		return _inputStream;		// identity or unknown encoding
+	}
+	/**
+	 * Streams the response body to the given handler: the body is NOT loaded in memory (unless the handler does so)
+	 * <ul>
+	 * 		<li>the body is decoded as it's read if the server sent it compressed</li>
+	 * 		<li>the body stream is closed once the handler returns so the connection is released
+	 * 			(returned to the pool if a pooled transport is used)</li>
+	 * </ul>
+	 * @param handler
+	 * @return the handler result
+	 * @throws IOException
+	 */
+	public <T> T handleBody(final HttpResponseBodyHandler<T> handler) throws IOException {
+		if (_inputStream == null) return handler.handle(this,
+														new ByteArrayInputStream(new byte[0]));	// no body (ie HEAD or 204)
+		InputStream bodyIs = null;
+		try {
+			bodyIs = this.loadAsDecodedStream();
+			return handler.handle(this,
+								  bodyIs);
+		} finally {
+			// closing the decoded stream releases the inflater (if any) and closes the raw stream (the connection is released)
+			if (bodyIs != null) {
+				bodyIs.close();
+			} else {
+				_inputStream.close();
+			}
+		}
+	}
 	/**
 	 * Discards the server response data (the inputStream)
 	 * @throws IOException
 	 */
 	public void discard() throws IOException {
-		_inputStream.close();
+		if (_inputStream != null) _inputStream.close();
+	}
+	/**
+	 * @return the body length or -1 if unknown (the Content-Length header is NOT set)
+	 * 		   or if the body is compressed (the decoded length is NOT known)
+	 */
+	public long getContentLength() {
+		if (this.getContentEncoding() != null) return -1;
+		String contentLength = _singleValuedHeaderIgnoringCase("Content-Length");
+		try {
+			return Strings.isNOTNullOrEmpty(contentLength) ? Long.parseLong(contentLength.trim())
+														   : -1;
+		} catch (NumberFormatException nfEx) {
+			return -1;
+		}
+	}
+	/**
+	 * @return the Content-Encoding header (null if the body is NOT encoded)
+	 */
+	public String getContentEncoding() {
+		String contentEncoding = _singleValuedHeaderIgnoringCase("Content-Encoding");
+		return Strings.isNOTNullOrEmpty(contentEncoding) && !"identity".equalsIgnoreCase(contentEncoding.trim()) ? contentEncoding.trim()
+																												 : null;
 	}
 	public HttpResponseCode getCode() {
 		return HttpResponseCode.of(_code);
@@ -183,4 +274,36 @@ public class HttpResponse {
 		return Strings.isNOTNullOrEmpty(enumStr) ? Enums.wrap(enumType).fromName(enumStr)
 												 : null;
 	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//  PRIVATE METHODS
+/////////////////////////////////////////////////////////////////////////////////////////
+	private String _singleValuedHeaderIgnoringCase(final String name) {
+		if (CollectionUtils.isNullOrEmpty(_headers)) return null;
+		for (Map.Entry<String,List<String>> me : _headers.entrySet()) {
+			if (me.getKey() != null		// the HttpURLConnection status line has no name
+			 && me.getKey().equalsIgnoreCase(name)
+			 && CollectionUtils.hasData(me.getValue())) return me.getValue().get(0);
+		}
+		return null;
+	}
+	/**
+	 * Copies the stream
+	 * @param is
+	 * @param os the target stream (null to discard)
+	 * @param maxBytes max bytes to be copied (-1 if no limit)
+	 * @return the number of copied bytes
+	 * @throws IOException
+	 */
+	static long _copyBody(final InputStream is,final OutputStream os,
+						  final long maxBytes) throws IOException {
+		byte[] buffer = new byte[8192];
+		long total = 0;
+		int read;
+		while ((read = is.read(buffer)) != -1) {
+			total += read;
+			if (maxBytes >= 0 && total > maxBytes) throw new HttpResponseBodyHandler.HttpResponseBodyTooLargeException(-1,maxBytes);
+			if (os != null) os.write(buffer,0,read);
+		}
+		return total;
+	}
 }
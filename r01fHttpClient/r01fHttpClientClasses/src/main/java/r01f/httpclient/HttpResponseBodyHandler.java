@@ -0,0 +1,175 @@
+package r01f.httpclient;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+
+import com.google.common.reflect.TypeToken;
+
+import lombok.Cleanup;
+import r01f.file.FileID;
+import r01f.filestore.api.FileStoreAPI;
+import r01f.objectstreamer.Marshaller;
+import r01f.objectstreamer.annotations.MarshallFormat;
+
+/**
+ * Consumes the response body as it's received from the server: the body is NOT loaded in memory
+ * unless the handler does so (ie: {@link #ofString(Charset, long)})
+ * <ul>
+ * 		<li>the body stream is already decoded if the server sent it compressed (Content-Encoding: gzip / deflate)</li>
+ * 		<li>the body stream is closed (and the connection released) once the handler returns (see {@link HttpResponse#handleBody(HttpResponseBodyHandler)})</li>
+ * </ul>
+ * Usage:
+ * <pre class='brush:java'>
+ * 		MyBean bean = response.handleBody(HttpResponseBodyHandler.unmarshalledFromJson(marshaller,
+ * 																					   MyBean.class));
+ * 		String str = response.handleBody(HttpResponseBodyHandler.ofString(Charset.forName("UTF-8"),
+ * 																		  1024 * 1024));	// 1MB max
+ * </pre>
+ * @param <T>
+ */
+@FunctionalInterface
+public interface HttpResponseBodyHandler<T> {
+/////////////////////////////////////////////////////////////////////////////////////////
+//  CONSTANTS
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * The biggest body that can be loaded in memory (a java array cannot be bigger)
+	 */
+	public static final long MAX_IN_MEMORY_BYTES = Integer.MAX_VALUE - 8;
+	/**
+	 * The buffer pre-allocated from the Content-Length header is never bigger than this
+	 * (the header is sent by the server: it cannot be trusted to allocate memory)
+	 */
+	public static final int MAX_PREALLOCATED_BYTES = 8 * 1024 * 1024;		// 8MB
+/////////////////////////////////////////////////////////////////////////////////////////
+//  METHODS
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Handles the response body
+	 * @param response the response (status code & headers)
+	 * @param bodyIs the (decoded) body stream (it's closed by the caller)
+	 * @return
+	 * @throws IOException
+	 */
+	public T handle(final HttpResponse response,
+					final InputStream bodyIs) throws IOException;
+/////////////////////////////////////////////////////////////////////////////////////////
+//  IN-MEMORY (SIZE-LIMITED)
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Loads the body in memory BUT fails if it's bigger than the given size
+	 * @param maxBytes max body size (-1 if no limit other than {@link #MAX_IN_MEMORY_BYTES})
+	 * @return
+	 */
+	public static HttpResponseBodyHandler<byte[]> ofBytes(final long maxBytes) {
+		return (response,bodyIs) -> {
+					long max = maxBytes >= 0 ? Math.min(maxBytes,MAX_IN_MEMORY_BYTES)
+											 : MAX_IN_MEMORY_BYTES;
+					long contentLength = response.getContentLength();		// -1 if unknown or compressed
+					if (contentLength > max) throw new HttpResponseBodyTooLargeException(contentLength,max);	// fail fast
+					ByteArrayOutputStream bos = new ByteArrayOutputStream(contentLength > 0 ? (int)Math.min(contentLength,MAX_PREALLOCATED_BYTES)
+																						   : 1024);
+					HttpResponse._copyBody(bodyIs,bos,
+										   max);
+					return bos.toByteArray();
+			   };
+	}
+	/**
+	 * Loads the body as a {@link String} BUT fails if it's bigger than the given size
+	 * @param charset
+	 * @param maxBytes
+	 * @return
+	 */
+	public static HttpResponseBodyHandler<String> ofString(final Charset charset,
+														   final long maxBytes) {
+		return (response,bodyIs) -> new String(HttpResponseBodyHandler.ofBytes(maxBytes)
+																	  .handle(response,bodyIs),
+											   charset);
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//  UNMARSHALLED
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * The body is unmarshalled as it's received (it's NOT loaded in memory as a string)
+	 * @param marshaller
+	 * @param format
+	 * @param type
+	 * @return
+	 */
+	public static <T> HttpResponseBodyHandler<T> unmarshalled(final Marshaller marshaller,final MarshallFormat format,
+															  final Class<T> type) {
+		return (response,bodyIs) -> marshaller.forReading()
+											  .from(bodyIs,format,
+													type);
+	}
+	public static <T> HttpResponseBodyHandler<T> unmarshalled(final Marshaller marshaller,final MarshallFormat format,
+															  final TypeToken<T> typeToken) {
+		return (response,bodyIs) -> marshaller.forReading()
+											  .from(bodyIs,format,
+													typeToken);
+	}
+	public static <T> HttpResponseBodyHandler<T> unmarshalledFromJson(final Marshaller marshaller,
+																	  final Class<T> type) {
+		return HttpResponseBodyHandler.unmarshalled(marshaller,MarshallFormat.JSON,
+													type);
+	}
+	public static <T> HttpResponseBodyHandler<T> unmarshalledFromXml(final Marshaller marshaller,
+																	 final Class<T> type) {
+		return HttpResponseBodyHandler.unmarshalled(marshaller,MarshallFormat.XML,
+													type);
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//  STREAMED TO A TARGET
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Copies the body to the given stream (the stream is NOT closed)
+	 * @param os
+	 * @return the number of copied bytes
+	 */
+	public static HttpResponseBodyHandler<Long> toOutputStream(final OutputStream os) {
+		return (response,bodyIs) -> HttpResponse._copyBody(bodyIs,os,
+														   -1);
+	}
+	/**
+	 * Copies the body to a file store file
+	 * @param fileStoreApi
+	 * @param dstFileId
+	 * @param overwrite true if the file must be overwritten if it previously exists
+	 * @return the number of copied bytes
+	 */
+	public static HttpResponseBodyHandler<Long> toFileStore(final FileStoreAPI fileStoreApi,
+															final FileID dstFileId,
+															final boolean overwrite) {
+		return (response,bodyIs) -> {
+					@Cleanup OutputStream fileOs = fileStoreApi.getFileOutputStreamForWriting(dstFileId,
+																							  overwrite);
+					return HttpResponse._copyBody(bodyIs,fileOs,
+												  -1);
+			   };
+	}
+	/**
+	 * Discards the body
+	 * @return the number of discarded bytes
+	 */
+	public static HttpResponseBodyHandler<Long> discarding() {
+		return (response,bodyIs) -> HttpResponse._copyBody(bodyIs,null,
+														   -1);
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//  EXCEPTION
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Thrown when the response body is bigger than the allowed size
+	 */
+	public static class HttpResponseBodyTooLargeException
+				extends IOException {
+		private static final long serialVersionUID = -6358409612706286347L;
+
+		public HttpResponseBodyTooLargeException(final long size,final long maxBytes) {
+			super("The response body " + (size > 0 ? "(" + size + " bytes) " : "") + "is bigger than the allowed size: " + maxBytes + " bytes");
+		}
+	}
+}
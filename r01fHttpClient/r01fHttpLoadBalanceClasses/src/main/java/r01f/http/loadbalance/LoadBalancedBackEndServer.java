@@ -15,6 +15,8 @@ public class LoadBalancedBackEndServer {
 /////////////////////////////////////////////////////////////////////////////////////////
 	@Getter private final LoadBalancedBackEndServerID _id;
 	@Getter private final Url _url;
+	@Getter @Setter private int _weight = 1;		// relative capacity (used by the weighted load balancers)
+	@Getter @Setter private String _zone;			// the zone (ie: data center / availability zone) the server is located at (null if unknown)
 	
 	@Getter private LoadBalancedBackedServerListener _listener;
 	
@@ -25,6 +27,10 @@ public class LoadBalancedBackEndServer {
 			private volatile boolean _shortCircuited;
 			private volatile long _shortCircuitExpiration;
 			private volatile long _shortCircuitCount;
+
+	// active health checks & outlier ejection (see LoadBalancerHealthChecker)
+			private volatile boolean _healthy = true;
+			private volatile long _ejectionExpiration;
 /////////////////////////////////////////////////////////////////////////////////////////
 //	CONSTRUCTOR & BUILDER
 /////////////////////////////////////////////////////////////////////////////////////////
@@ -63,8 +69,40 @@ public class LoadBalancedBackEndServer {
 	public boolean isAvailable() {
 		return !this.isExpired() 
 			&& !this.isShortCircuited() 
+			&& !this.isEjected()
+			&& _healthy
 			&& _available;
 	}
+	/**
+	 * Has the last health checks failed? (see LoadBalancerHealthChecker)
+	 * @return true if the server is healthy or it's NOT being health-checked
+	 */
+	public boolean isHealthy() {
+		return _healthy;
+	}
+	public void setHealthy(final boolean healthy) {
+		_healthy = healthy;
+	}
+	/**
+	 * Is this instance currently ejected as an outlier? (see LoadBalancerHealthChecker)
+	 * @return whether or not the server instance is currently ejected
+	 */
+	public boolean isEjected() {
+		return _ejectionExpiration > System.currentTimeMillis();
+	}
+	/**
+	 * Ejects the server instance: it's NOT chosen until the ejection expires
+	 * @param durationInMillis
+	 */
+	public void eject(final long durationInMillis) {
+		_ejectionExpiration = System.currentTimeMillis() + durationInMillis;
+	}
+	/**
+	 * @return the time (millis) when the current ejection expires (only meaningful if the server is ejected)
+	 */
+	public long getEjectionExpiration() {
+		return _ejectionExpiration;
+	}
 	/**
 	 * Is this instance currently in short circuit mode?
 	 * @return whether or not the server instance is currently short-circuited
@@ -109,6 +147,12 @@ public class LoadBalancedBackEndServer {
 		_shortCircuitExpiration = now + timeout;
 		_shortCircuited = true;
 	}
+	/**
+	 * @return the time (millis) when the current short-circuit expires (only meaningful if the server is short-circuited)
+	 */
+	public long getShortCircuitExpiration() {
+		return _shortCircuitExpiration;
+	}
 	/**
 	 * Get the number of seconds until the server instance's circuit breaker is
 	 * no longer tripped.
@@ -3,6 +3,8 @@ package r01f.http.loadbalance;
 import java.util.Collection;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.codahale.metrics.Clock;
 import com.codahale.metrics.Counter;
@@ -12,6 +14,7 @@ import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.SlidingTimeWindowReservoir;
 import com.codahale.metrics.SlidingWindowReservoir;
+import com.codahale.metrics.Snapshot;
 import com.google.common.base.Predicate;
 import com.google.common.collect.FluentIterable;
 
@@ -26,6 +29,13 @@ import r01f.util.types.collections.CollectionUtils;
 @Accessors(prefix="_")
 public class LoadBalancedBackendServerStats {
 /////////////////////////////////////////////////////////////////////////////////////////
+//	CONSTANTS
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * The weight of every new latency sample in the latency exponentially weighted moving average
+	 */
+	public static final double LATENCY_EWMA_ALPHA = 0.3;
+/////////////////////////////////////////////////////////////////////////////////////////
 //	FIELDS
 /////////////////////////////////////////////////////////////////////////////////////////
 	@Getter private final LoadBalancedBackendServerStatsKey _key;
@@ -44,9 +54,17 @@ public class LoadBalancedBackendServerStats {
 	protected final Counter circuitBreakerTrippedCounter;
 	protected final Gauge<Double> _circuitBreakerTimeGauge;
 	protected final Histogram _latencyHistogram;
+	protected final Meter _healthCheckFailureMeter;
 
 	// internal metric tracking
 	protected SlidingTimeWindowReservoir _errorsPerSecond;
+	protected final AtomicLong _latencyEwmaBits = new AtomicLong(Double.doubleToLongBits(-1));	// -1 if there's NO latency sample
+	protected final AtomicInteger _consecutiveErrors = new AtomicInteger();
+
+	// active health checks (see LoadBalancerHealthChecker)
+	protected final AtomicInteger _consecutiveHealthCheckFailures = new AtomicInteger();
+	protected final AtomicInteger _consecutiveHealthCheckSuccesses = new AtomicInteger();
+	protected volatile long _lastHealthCheckLatency = -1;
 /////////////////////////////////////////////////////////////////////////////////////////
 //	CONSTRUCTOR
 /////////////////////////////////////////////////////////////////////////////////////////
@@ -91,6 +109,8 @@ public class LoadBalancedBackendServerStats {
 											  _key.getServiceId().asString(),_key.getServerId().asString(),
 											  "short-circuit-time-remaining"),
 											  _circuitBreakerTimeGauge);
+		_healthCheckFailureMeter = _metrics.meter(MetricRegistry.name(_key.getServiceId().asString(),_key.getServerId().asString(),
+																	  "health-check-failures"));
 		_latencyHistogram = new Histogram(new SlidingWindowReservoir(100));
 		_metrics.register(MetricRegistry.name(objectId,
 											  _key.getServiceId().asString(),_key.getServerId().asString(),
@@ -122,6 +142,42 @@ public class LoadBalancedBackendServerStats {
 	}
 	public void recordLatency(final long latencyInMs) {
 		_latencyHistogram.update(latencyInMs);
+
+		// update the moving average (lock-free)
+		long currBits;
+		long newBits;
+		do {
+			currBits = _latencyEwmaBits.get();
+			double curr = Double.longBitsToDouble(currBits);
+			double ewma = curr < 0 ? latencyInMs		// first sample
+								   : (LATENCY_EWMA_ALPHA * latencyInMs) + ((1 - LATENCY_EWMA_ALPHA) * curr);
+			newBits = Double.doubleToLongBits(ewma);
+		} while (!_latencyEwmaBits.compareAndSet(currBits,newBits));
+	}
+	/**
+	 * The exponentially weighted moving average of the latency: recent requests weigh more than the old ones
+	 * (cheap to read: it's NOT computed from the latency histogram)
+	 * @return the latency average in millis or -1 if there's NO latency sample
+	 */
+	public double getLatencyEwma() {
+		return Double.longBitsToDouble(_latencyEwmaBits.get());
+	}
+	/**
+	 * Discards the latency moving average: it's re-computed from the next latency samples
+	 * (ie: the server was ejected for being slow so the old samples must NOT eject it again once it comes back)
+	 */
+	public void resetLatencyEwma() {
+		_latencyEwmaBits.set(Double.doubleToLongBits(-1));
+	}
+	/**
+	 * A latency percentile of the last requests (ie: 0.95 = p95)
+	 * @param quantile
+	 * @return the latency in millis or -1 if there's NO latency sample
+	 */
+	public double getLatencyPercentile(final double quantile) {
+		Snapshot snapshot = _latencyHistogram.getSnapshot();
+		return snapshot.size() > 0 ? snapshot.getValue(quantile)
+								   : -1;
 	}
 	public void incrementOpenSessions() {
 		_openSessionsCounter.inc();
@@ -135,6 +191,7 @@ public class LoadBalancedBackendServerStats {
 	public void incrementErrors() {
 		_errorMeter.mark();
 		_errorsPerSecond.update(1);
+		_consecutiveErrors.incrementAndGet();
 
 		// should we short circuit the server?
 		int errorCount = _errorsPerSecond.size();
@@ -145,12 +202,30 @@ public class LoadBalancedBackendServerStats {
 			_serverInstance.triggerCircuitBreaker();
 		}
 	}
+	/**
+	 * Records a successful request: the consecutive errors count is reset
+	 */
+	public void recordSuccess() {
+		if (_consecutiveErrors.get() != 0) _consecutiveErrors.set(0);		// avoid a write on every request
+	}
+	/**
+	 * @return the number of request errors since the last successful request (used to eject outliers)
+	 */
+	public int getConsecutiveErrors() {
+		return _consecutiveErrors.get();
+	}
+	public void resetConsecutiveErrors() {
+		_consecutiveErrors.set(0);
+	}
 	public void incrementSentMessages() {
 		_sentMessageMeter.mark();
 	}
 	public double getSentMessagesPerSecond() {
 		return _sentMessageMeter.getOneMinuteRate();
 	}
+	public double getErrorsPerSecond() {
+		return _errorMeter.getOneMinuteRate();
+	}
 	public void incrementReceivedMessages() {
 		_receivedMessageMeter.mark();
 	}
@@ -158,6 +233,39 @@ public class LoadBalancedBackendServerStats {
 		return _receivedMessageMeter.getOneMinuteRate();
 	}
 /////////////////////////////////////////////////////////////////////////////////////////
+//	HEALTH CHECKS
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Records the result of an active health check probe
+	 * (the probe latency is NOT mixed with the requests' latency)
+	 * @param success
+	 * @param latencyInMs
+	 */
+	public void recordHealthCheck(final boolean success,
+								  final long latencyInMs) {
+		_lastHealthCheckLatency = latencyInMs;
+		if (success) {
+			_consecutiveHealthCheckFailures.set(0);
+			_consecutiveHealthCheckSuccesses.incrementAndGet();
+		} else {
+			_healthCheckFailureMeter.mark();
+			_consecutiveHealthCheckSuccesses.set(0);
+			_consecutiveHealthCheckFailures.incrementAndGet();
+		}
+	}
+	public int getConsecutiveHealthCheckFailures() {
+		return _consecutiveHealthCheckFailures.get();
+	}
+	public int getConsecutiveHealthCheckSuccesses() {
+		return _consecutiveHealthCheckSuccesses.get();
+	}
+	/**
+	 * @return the latency of the last health check probe in millis or -1 if the server was never probed
+	 */
+	public long getLastHealthCheckLatency() {
+		return _lastHealthCheckLatency;
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
 //	EQUALS & HASHCODE
 /////////////////////////////////////////////////////////////////////////////////////////	
 	@Override
@@ -0,0 +1,122 @@
+package r01f.http.loadbalance;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.google.common.collect.ImmutableList;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.Accessors;
+import r01f.http.loadbalance.LoadBalancerIDs.LoadBalancedBackEndServerID;
+import r01f.http.loadbalance.LoadBalancerIDs.LoadBalancedServiceID;
+
+/**
+ * The stats of the servers of a service
+ * The available servers are kept in an immutable snapshot that's only re-built when the availability changes,
+ * so choosing a server does NOT filter the servers nor allocates anything:
+ * <ul>
+ * 		<li>a server is added or removed</li>
+ * 		<li>the server list is updated (see {@link LoadBalancerManager})</li>
+ * 		<li>a server in the snapshot is short-circuited (see {@link #invalidateAvailableServers()})</li>
+ * 		<li>the short-circuit or the ejection of a server NOT in the snapshot expires</li>
+ * 		<li>a health check changes the availability of a server (see {@link LoadBalancerHealthChecker})</li>
+ * </ul>
+ * Every availability change increments a version: a snapshot is only valid for the version it was built from,
+ * so a snapshot being built while the availability changes is NOT taken as up to date (it's re-built on the next use)
+ */
+@Accessors(prefix="_")
+class LoadBalancedServiceServerStats {
+/////////////////////////////////////////////////////////////////////////////////////////
+//	FIELDS
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Getter private final LoadBalancedServiceID _serviceId;
+			private final Map<LoadBalancedBackEndServerID,LoadBalancedBackendServerStats> _serverStats = new ConcurrentHashMap<>();
+			private final AtomicReference<AvailableServersSnapshot> _availableServers = new AtomicReference<>();	// null if never built
+			private final AtomicLong _availabilityVersion = new AtomicLong();
+	@Getter private final LoadBalancerRetryBudget _retryBudget;
+
+	// server list update
+			final AtomicBoolean _updating = new AtomicBoolean(false);
+/////////////////////////////////////////////////////////////////////////////////////////
+//	CONSTRUCTOR
+/////////////////////////////////////////////////////////////////////////////////////////
+	LoadBalancedServiceServerStats(final LoadBalancedServiceID serviceId,
+								   final LoadBalancerRetryBudget retryBudget) {
+		_serviceId = serviceId;
+		_retryBudget = retryBudget;
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	SERVER STATS
+/////////////////////////////////////////////////////////////////////////////////////////
+	public Collection<LoadBalancedBackendServerStats> getAll() {
+		return Collections.unmodifiableCollection(_serverStats.values());
+	}
+	public LoadBalancedBackendServerStats get(final LoadBalancedBackEndServerID serverId) {
+		return _serverStats.get(serverId);
+	}
+	public void put(final LoadBalancedBackendServerStats stats) {
+		_serverStats.put(stats.getKey().getServerId(),stats);
+		this.invalidateAvailableServers();
+	}
+	public LoadBalancedBackendServerStats remove(final LoadBalancedBackEndServerID serverId) {
+		LoadBalancedBackendServerStats outRemoved = _serverStats.remove(serverId);
+		if (outRemoved != null) this.invalidateAvailableServers();
+		return outRemoved;
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	AVAILABLE SERVERS
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Returns the available servers snapshot: it's only re-built if the availability changed
+	 * @return an immutable (random-access) list of the available servers
+	 */
+	public List<LoadBalancedBackendServerStats> getAvailableServers() {
+		AvailableServersSnapshot snapshot = _availableServers.get();
+		long version = _availabilityVersion.get();		// BEWARE! read before building: a change while building invalidates the built snapshot
+		if (snapshot == null
+		 || snapshot.getVersion() != version
+		 || snapshot.getValidUntil() <= System.currentTimeMillis()) {
+			AvailableServersSnapshot built = _buildAvailableServersSnapshot(version);
+			_availableServers.compareAndSet(snapshot,built);		// if another thread published first, its snapshot is kept
+			snapshot = built;
+		}
+		return snapshot.getServers();
+	}
+	/**
+	 * Forces the available servers snapshot to be re-built the next time it's used
+	 */
+	public void invalidateAvailableServers() {
+		_availabilityVersion.incrementAndGet();
+	}
+	private AvailableServersSnapshot _buildAvailableServersSnapshot(final long version) {
+		ImmutableList.Builder<LoadBalancedBackendServerStats> available = ImmutableList.builder();
+		long validUntil = Long.MAX_VALUE;
+		for (LoadBalancedBackendServerStats stats : _serverStats.values()) {
+			LoadBalancedBackEndServer server = stats.getServerInstance();
+			if (server.isAvailable()) {
+				available.add(stats);
+			} else {
+				// the snapshot must be re-built when the short-circuit or the ejection expires
+				if (server.isShortCircuited()) validUntil = Math.min(validUntil,server.getShortCircuitExpiration());
+				if (server.isEjected()) validUntil = Math.min(validUntil,server.getEjectionExpiration());
+			}
+		}
+		return new AvailableServersSnapshot(available.build(),
+											validUntil,
+											version);
+	}
+	@Accessors(prefix="_")
+	@RequiredArgsConstructor
+	private static class AvailableServersSnapshot {
+		@Getter private final ImmutableList<LoadBalancedBackendServerStats> _servers;
+		@Getter private final long _validUntil;
+		@Getter private final long _version;		// the availability version the snapshot was built from
+	}
+}
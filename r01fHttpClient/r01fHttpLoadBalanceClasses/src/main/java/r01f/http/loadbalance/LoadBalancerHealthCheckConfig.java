@@ -0,0 +1,100 @@
+package r01f.http.loadbalance;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+/**
+ * {@link LoadBalancerHealthChecker} config
+ * <pre class='brush:java'>
+ * 		LoadBalancerHealthCheckConfig config = LoadBalancerHealthCheckConfig.create()
+ * 																	.probePath("/health")
+ * 																	.probeEvery(5000)
+ * 																	.unhealthyAfter(3).healthyAfter(2)
+ * 																	.ejectAfterConsecutiveErrors(5)
+ * 																	.ejectIfLatencyExceedsMedianBy(3.0);
+ * </pre>
+ */
+@Accessors(prefix="_")
+@NoArgsConstructor
+public class LoadBalancerHealthCheckConfig {
+/////////////////////////////////////////////////////////////////////////////////////////
+//	FIELDS
+/////////////////////////////////////////////////////////////////////////////////////////
+	// active health checks
+	@Getter private String _probePath = "/";						// the path (relative to the server url) of the probe request
+	@Getter private long _probeInterval = 10000;					// milis between two health check rounds
+	@Getter private int _probeTimeOut = 2000;						// milis to wait for the probe response
+	@Getter private int _probeThreads = 2;							// number of threads used to probe the servers
+	@Getter private int _unhealthyThreshold = 3;					// consecutive failed probes to mark a server as unhealthy
+	@Getter private int _healthyThreshold = 2;						// consecutive succeeded probes to mark an unhealthy server as healthy again
+
+	// outlier ejection
+	@Getter private int _consecutiveErrorsToEject = 5;				// consecutive request errors to eject a server (0 = disabled)
+	@Getter private double _latencyEjectionFactor = 3.0;			// a server is ejected if its latency is greater than factor * the service median latency (0 = disabled)
+	@Getter private long _ejectionDuration = 30000;				// milis a server is ejected
+	@Getter private int _maxEjectionPercent = 50;					// max % of the servers of a service that can be ejected at the same time
+/////////////////////////////////////////////////////////////////////////////////////////
+//	BUILDER
+/////////////////////////////////////////////////////////////////////////////////////////
+	public static LoadBalancerHealthCheckConfig create() {
+		return new LoadBalancerHealthCheckConfig();
+	}
+	public LoadBalancerHealthCheckConfig probePath(final String path) {
+		if (path == null) throw new IllegalArgumentException("The probe path cannot be null!");
+		_probePath = path.startsWith("/") ? path : "/" + path;
+		return this;
+	}
+	public LoadBalancerHealthCheckConfig probeEvery(final long milis) {
+		if (milis <= 0) throw new IllegalArgumentException("The probe interval must be greater than zero!");
+		_probeInterval = milis;
+		return this;
+	}
+	public LoadBalancerHealthCheckConfig probeTimeOut(final int milis) {
+		_probeTimeOut = milis;
+		return this;
+	}
+	public LoadBalancerHealthCheckConfig probeThreads(final int threads) {
+		if (threads <= 0) throw new IllegalArgumentException("The probe threads must be greater than zero!");
+		_probeThreads = threads;
+		return this;
+	}
+	public LoadBalancerHealthCheckConfig unhealthyAfter(final int consecutiveFailedProbes) {
+		if (consecutiveFailedProbes <= 0) throw new IllegalArgumentException("The unhealthy threshold must be greater than zero!");
+		_unhealthyThreshold = consecutiveFailedProbes;
+		return this;
+	}
+	public LoadBalancerHealthCheckConfig healthyAfter(final int consecutiveSucceededProbes) {
+		if (consecutiveSucceededProbes <= 0) throw new IllegalArgumentException("The healthy threshold must be greater than zero!");
+		_healthyThreshold = consecutiveSucceededProbes;
+		return this;
+	}
+	public LoadBalancerHealthCheckConfig ejectAfterConsecutiveErrors(final int consecutiveErrors) {
+		_consecutiveErrorsToEject = consecutiveErrors;
+		return this;
+	}
+	public LoadBalancerHealthCheckConfig ejectIfLatencyExceedsMedianBy(final double factor) {
+		if (factor != 0 && factor <= 1) throw new IllegalArgumentException("The latency ejection factor must be greater than one (or zero to disable it)!");
+		_latencyEjectionFactor = factor;
+		return this;
+	}
+	public LoadBalancerHealthCheckConfig ejectFor(final long milis) {
+		_ejectionDuration = milis;
+		return this;
+	}
+	public LoadBalancerHealthCheckConfig maxEjectionPercent(final int percent) {
+		if (percent < 0 || percent > 100) throw new IllegalArgumentException("The max ejection percent must be between 0 and 100!");
+		_maxEjectionPercent = percent;
+		return this;
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Override
+	public String toString() {
+		return "probe path=" + _probePath + " every " + _probeInterval + "ms (timeout=" + _probeTimeOut + "ms)"
+			 + ", unhealthy after " + _unhealthyThreshold + " failed probes, healthy after " + _healthyThreshold + " succeeded probes"
+			 + ", eject after " + _consecutiveErrorsToEject + " consecutive errors or latency > " + _latencyEjectionFactor + " x median"
+			 + " for " + _ejectionDuration + "ms (max " + _maxEjectionPercent + "% servers)";
+	}
+}
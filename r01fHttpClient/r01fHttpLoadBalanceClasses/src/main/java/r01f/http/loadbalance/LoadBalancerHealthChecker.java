@@ -0,0 +1,278 @@
+package r01f.http.loadbalance;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.util.EntityUtils;
+
+import com.google.common.collect.Lists;
+
+import lombok.Getter;
+import lombok.experimental.Accessors;
+import lombok.extern.slf4j.Slf4j;
+import r01f.concurrent.DaemonThreadFactory;
+import r01f.http.loadbalance.LoadBalancerIDs.LoadBalancedServiceID;
+import r01f.types.url.Url;
+import r01f.types.url.UrlPath;
+
+/**
+ * Actively checks the health of the load-balanced servers in the background (NOT at the request path):
+ * <ul>
+ * 		<li>health checks: every server is probed with a GET request to the probe path:
+ * 			a server is marked as unhealthy after a number of consecutive failed probes (any error or a status code &gt;= 400)
+ * 			and healthy again after a number of consecutive succeeded probes</li>
+ * 		<li>outlier ejection: a server is ejected for a while if the requests to it failed consecutively
+ * 			or if its latency is much higher than the median latency of the service servers
+ * 			(the number of ejected servers of a service is bounded so the service is never left without servers)</li>
+ * </ul>
+ * The probe results are recorded at the {@link LoadBalancedBackendServerStats} and the available servers snapshot
+ * of the service is re-built when the availability of a server changes
+ * <p>
+ * Usage:
+ * <pre class='brush:java'>
+ *		LoadBalancerManager loadBalancer = LoadBalancerManager.builder()
+ *														  	  .usingNewMetricRegistry()
+ *															  .withDefaultRefreshInterval()
+ *															  .withRandomLoadBalancing()
+ *															  .withServers(LoadBalancedServiceID.named("test"),
+ *																		   Url.from("http://server1"),Url.from("http://server2"))
+ *															  .withHealthChecks(LoadBalancerHealthCheckConfig.create()
+ *																							.probePath("/health"))
+ *															  .build();
+ * </pre>
+ * </p>
+ * BEWARE! the health checker must be closed when no longer used (see {@link LoadBalancerManager#close()})
+ * 		   (the background threads are daemon threads and they do NOT keep the manager reachable: if the manager is NOT closed,
+ * 			the health checker closes itself once the manager is garbage-collected)
+ */
+@Slf4j
+@Accessors(prefix="_")
+public class LoadBalancerHealthChecker
+  implements Closeable {
+/////////////////////////////////////////////////////////////////////////////////////////
+//	FIELDS
+/////////////////////////////////////////////////////////////////////////////////////////
+			private final WeakReference<LoadBalancerManager> _loadBalancer;	// weak: the scheduler thread must NOT keep the manager alive
+	@Getter private final LoadBalancerHealthCheckConfig _config;
+
+			private final CloseableHttpClient _probeHttpClient;
+			private final ExecutorService _probeExecutor;
+			private final ScheduledExecutorService _scheduler;
+			private final ScheduledFuture<?> _task;
+/////////////////////////////////////////////////////////////////////////////////////////
+//	CONSTRUCTOR
+/////////////////////////////////////////////////////////////////////////////////////////
+	public LoadBalancerHealthChecker(final LoadBalancerManager loadBalancer,
+									 final LoadBalancerHealthCheckConfig config) {
+		_loadBalancer = new WeakReference<>(loadBalancer);
+		_config = config;
+
+		RequestConfig probeRequestConfig = RequestConfig.custom()
+														.setConnectTimeout(config.getProbeTimeOut())
+														.setConnectionRequestTimeout(config.getProbeTimeOut())
+														.setSocketTimeout(config.getProbeTimeOut())
+														.build();
+		_probeHttpClient = HttpClients.custom()
+									  .setDefaultRequestConfig(probeRequestConfig)
+									  .setMaxConnTotal(config.getProbeThreads())
+									  .setMaxConnPerRoute(config.getProbeThreads())
+									  .disableCookieManagement()
+									  .disableAutomaticRetries()
+									  .build();
+		_probeExecutor = Executors.newFixedThreadPool(config.getProbeThreads(),
+													  new DaemonThreadFactory());
+		_scheduler = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory());
+		_task = _scheduler.scheduleWithFixedDelay(new Runnable() {
+															@Override
+															public void run() {
+																LoadBalancerHealthChecker.this.checkNow();
+															}
+												  },
+												  config.getProbeInterval(),config.getProbeInterval(),TimeUnit.MILLISECONDS);
+		log.info("[load balancer] > health checks: {}",config);
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	HEALTH CHECK
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Runs a health check round: every server of every service is probed and the outliers are ejected
+	 * (it's usually called by the scheduler BUT it can also be called to check the servers right now)
+	 */
+	public void checkNow() {
+		LoadBalancerManager loadBalancer = _loadBalancer.get();
+		if (loadBalancer == null) {
+			log.debug("[load balancer] > the load balancer manager was garbage-collected without being closed: closing the health checker");
+			this.close();
+			return;
+		}
+		for (LoadBalancedServiceID serviceId : loadBalancer.getServerList().keySet()) {
+			try {
+				_check(loadBalancer,
+					   serviceId);
+			} catch (Throwable th) {
+				// never let an exception cancel the scheduled task
+				log.error("[load balancer] > error checking the health of service {} servers: {}",
+						  serviceId,th.getMessage(),th);
+			}
+		}
+	}
+	private void _check(final LoadBalancerManager loadBalancer,
+						final LoadBalancedServiceID serviceId) {
+		Collection<LoadBalancedBackendServerStats> serversStats = loadBalancer.getServerStatsOf(serviceId);
+		if (serversStats.isEmpty()) return;
+
+		// [1] - probe the servers in parallel
+		List<Future<Boolean>> probes = Lists.newArrayListWithExpectedSize(serversStats.size());
+		for (final LoadBalancedBackendServerStats serverStats : serversStats) {
+			probes.add(_probeExecutor.submit(() -> _probe(serverStats)));
+		}
+		boolean changed = false;
+		for (Future<Boolean> probe : probes) {
+			try {
+				changed |= probe.get();
+			} catch (Exception ex) {
+				log.warn("[load balancer] > health check error: {}",ex.getMessage());
+			}
+		}
+		// [2] - eject the outliers
+		changed |= this.ejectOutliers(serviceId,serversStats);
+
+		// [3] - the availability of some server changed: re-build the available servers snapshot
+		if (changed) loadBalancer.invalidateAvailableServersOf(serviceId);
+	}
+	/**
+	 * Probes a server and updates its health
+	 * @param serverStats
+	 * @return true if the server health changed
+	 */
+	private boolean _probe(final LoadBalancedBackendServerStats serverStats) {
+		LoadBalancedBackEndServer server = serverStats.getServerInstance();
+		Url probeUrl = server.getUrl().joinWith(UrlPath.from(_config.getProbePath()));
+
+		boolean success = false;
+		long startTime = System.currentTimeMillis();
+		try (CloseableHttpResponse response = _probeHttpClient.execute(new HttpGet(probeUrl.asString()))) {
+			success = response.getStatusLine().getStatusCode() < 400;
+			EntityUtils.consumeQuietly(response.getEntity());		// release the connection
+		} catch (IOException ioEx) {
+			log.debug("[load balancer] > health check probe {} failed: {}",
+					  probeUrl,ioEx.getMessage());
+		}
+		serverStats.recordHealthCheck(success,
+									  System.currentTimeMillis() - startTime);
+
+		// update the server health
+		if (!success
+		 && server.isHealthy()
+		 && serverStats.getConsecutiveHealthCheckFailures() >= _config.getUnhealthyThreshold()) {
+			log.warn("[load balancer] > server {} is unhealthy: {} consecutive health check probes failed",
+					 server.getId(),serverStats.getConsecutiveHealthCheckFailures());
+			server.setHealthy(false);
+			return true;
+		}
+		if (success
+		 && !server.isHealthy()
+		 && serverStats.getConsecutiveHealthCheckSuccesses() >= _config.getHealthyThreshold()) {
+			log.info("[load balancer] > server {} is healthy again",
+					 server.getId());
+			server.setHealthy(true);
+			return true;
+		}
+		return false;
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	OUTLIER EJECTION
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Ejects the servers that failed consecutively or that are much slower than the others
+	 * The consecutive errors and the latency moving average of an ejected server are reset so it's only ejected again
+	 * if it fails or it's slow after it comes back (NOT because of the samples that caused the ejection)
+	 * @param serviceId
+	 * @param serversStats
+	 * @return true if any server was ejected
+	 */
+	boolean ejectOutliers(final LoadBalancedServiceID serviceId,
+								   final Collection<LoadBalancedBackendServerStats> serversStats) {
+		// how many servers can be ejected?
+		int ejected = 0;
+		for (LoadBalancedBackendServerStats serverStats : serversStats) {
+			if (serverStats.getServerInstance().isEjected()) ejected++;
+		}
+		int maxEjected = (serversStats.size() * _config.getMaxEjectionPercent()) / 100;
+		if (ejected >= maxEjected) return false;
+
+		// the median latency of the service servers
+		double medianLatency = _config.getLatencyEjectionFactor() > 0 ? _medianLatencyOf(serversStats)
+																	   : -1;
+		boolean outEjected = false;
+		for (LoadBalancedBackendServerStats serverStats : serversStats) {
+			if (ejected >= maxEjected) break;
+			LoadBalancedBackEndServer server = serverStats.getServerInstance();
+			if (server.isEjected()) continue;
+
+			String reason = null;
+			if (_config.getConsecutiveErrorsToEject() > 0
+			 && serverStats.getConsecutiveErrors() >= _config.getConsecutiveErrorsToEject()) {
+				reason = serverStats.getConsecutiveErrors() + " consecutive errors";
+			} else if (medianLatency > 0
+					&& serverStats.getLatencyEwma() > medianLatency * _config.getLatencyEjectionFactor()) {
+				reason = "latency " + (long)serverStats.getLatencyEwma() + "ms > " + _config.getLatencyEjectionFactor() + " x " + (long)medianLatency + "ms (median)";
+			}
+			if (reason == null) continue;
+
+			log.warn("[load balancer] > ejecting server {} of service {} for {}ms: {}",
+					 server.getId(),serviceId,_config.getEjectionDuration(),reason);
+			server.eject(_config.getEjectionDuration());
+			serverStats.resetConsecutiveErrors();		// do not eject it again as soon as it comes back...
+			serverStats.resetLatencyEwma();				// ... require fresh latency samples
+			ejected++;
+			outEjected = true;
+		}
+		return outEjected;
+	}
+	/**
+	 * @param serversStats
+	 * @return the median latency or -1 if there are NOT enough latency samples to detect outliers
+	 */
+	private static double _medianLatencyOf(final Collection<LoadBalancedBackendServerStats> serversStats) {
+		double[] latencies = new double[serversStats.size()];
+		int n = 0;
+		for (LoadBalancedBackendServerStats serverStats : serversStats) {
+			double latency = serverStats.getLatencyEwma();
+			if (latency >= 0) latencies[n++] = latency;
+		}
+		if (n < 3) return -1;		// an outlier cannot be detected with less than three servers
+		Arrays.sort(latencies,0,n);
+		return (n % 2) == 1 ? latencies[n / 2]
+							: (latencies[(n / 2) - 1] + latencies[n / 2]) / 2;
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	CLOSE
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Override
+	public void close() {
+		_task.cancel(false);
+		_scheduler.shutdownNow();
+		_probeExecutor.shutdownNow();
+		try {
+			_probeHttpClient.close();
+		} catch (IOException ioEx) {
+			log.warn("[load balancer] > could NOT close the health check http client: {}",ioEx.getMessage());
+		}
+	}
+}
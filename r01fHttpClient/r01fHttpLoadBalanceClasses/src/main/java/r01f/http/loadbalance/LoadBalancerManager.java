@@ -1,27 +1,36 @@
 package r01f.http.loadbalance;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 import com.codahale.metrics.MetricRegistry;
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
 import com.google.common.collect.FluentIterable;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
 import lombok.Getter;
 import lombok.experimental.Accessors;
 import lombok.extern.slf4j.Slf4j;
+import r01f.concurrent.DaemonThreadFactory;
 import r01f.http.loadbalance.LoadBalancerIDs.LoadBalancedBackEndServerID;
 import r01f.http.loadbalance.LoadBalancerIDs.LoadBalancedServiceID;
 import r01f.http.loadbalance.LoadBalancerManagerBuilder.LoadBalancerManagerBuilderMetricsRegistryStep;
 import r01f.http.loadbalance.balancer.LoadBalancer;
 import r01f.http.loadbalance.balancer.LoadBalancerContext;
 import r01f.http.loadbalance.serverlist.LoadBalancedServerList;
-import r01f.util.types.collections.CollectionUtils;
 
 /**
  * Load balancer inspired by https://github.com/Kixeye/janus
@@ -37,21 +46,34 @@ import r01f.util.types.collections.CollectionUtils;
  *		LoadBalancerManager loadBalancer = LoadBalancerManager.builder()
  *														  	  .usingNewMetricRegistry()
  *															  .withDefaultRefreshInterval()
- *															  .withRandomLoadBalancing()
+ *															  .withRandomLoadBalancing()		// or withPowerOfTwoChoicesLoadBalancing(), withLeastOutstandingRequestsLoadBalancing()...
  *															  .withServers(LoadBalancedServiceID.named("test"),
  *																		   Url.from("http://www.google.com"),Url.from("http://www.google.es"))
+ *															  .withHealthChecks(LoadBalancerHealthCheckConfig.create()		// optional
+ *																							.probePath("/health"))
  *															  .build();
  *		LoadBalancedHttpClient loadBalancedHttpClient = new LoadBalancedHttpClient(loadBalancer,2);
  * </pre>
+ * The server list is refreshed (and the servers ticked) by a background task every refresh interval so
+ * choosing a server never does the bookkeeping at the request path
+ * BEWARE! the manager should be closed when no longer used (the background tasks are cancelled)
+ * 		   (the server list refresh task does NOT keep the manager reachable: if the manager is NOT closed, the task
+ * 			is cancelled once the manager is garbage-collected)
  */
 @Slf4j
 @Accessors(prefix="_")
-public class LoadBalancerManager {
+public class LoadBalancerManager 
+  implements Closeable {
 /////////////////////////////////////////////////////////////////////////////////////////
 //	CONSTANTS
 /////////////////////////////////////////////////////////////////////////////////////////
 	public static final String REFRESH_INTERVAL_IN_MILLIS = "janus.refreshIntervalInMillis";
 	public static final long DEFAULT_REFRESH_INTERVAL_IN_MILLIS = 30000;
+
+	/**
+	 * Refreshes the server lists of all the load balancers (the refresh is a cheap in-memory task)
+	 */
+	private static final ScheduledExecutorService SERVER_LIST_REFRESHER = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory());
 /////////////////////////////////////////////////////////////////////////////////////////
 //	FIELDS
 /////////////////////////////////////////////////////////////////////////////////////////
@@ -60,11 +82,17 @@ public class LoadBalancerManager {
 	@Getter private final Map<LoadBalancedServiceID,LoadBalancedServerList> _serverList;
 	@Getter private final LoadBalancer _loadBalancer;
 	@Getter private final long _refreshInterval;
+	@Getter private final double _retryBudgetRatio;
+	@Getter private final int _retryBudgetMaxTokens;
 
 	// cache of server lists
 	private final Map<LoadBalancedBackendServerStatsKey,LoadBalancedBackendServerStats> _serverStats = new ConcurrentHashMap<>();
-	private final AtomicBoolean _updatingServer = new AtomicBoolean(false);
-	private long _nextUpdateTime = -1;
+	// ... indexed by service (every service keeps a snapshot of its available servers)
+	private final Map<LoadBalancedServiceID,LoadBalancedServiceServerStats> _serverStatsByService = new ConcurrentHashMap<>();
+
+	// background tasks
+	private final ScheduledFuture<?> _serverListRefreshTask;		// null if the server list is NOT refreshed
+	@Getter private final LoadBalancerHealthChecker _healthChecker;	// null if there're NO active health checks
 /////////////////////////////////////////////////////////////////////////////////////////
 //	CONSTRUCTORS
 /////////////////////////////////////////////////////////////////////////////////////////
@@ -82,15 +110,21 @@ public class LoadBalancerManager {
 		this(loadBalancer,
 			 metricsRegistry,
 			 DEFAULT_REFRESH_INTERVAL_IN_MILLIS,
-			 serverList);
+			 serverList,
+			 null,		// no health checks
+			 LoadBalancerRetryBudget.DEFAULT_RETRY_RATIO,LoadBalancerRetryBudget.DEFAULT_MAX_RETRY_TOKENS);
 	}
 	LoadBalancerManager(final LoadBalancer loadBalancer,
 						final MetricRegistry metricsRegistry,
 						final long refreshInterval,
-						final Collection<LoadBalancedServerList> serverList) {
+						final Collection<LoadBalancedServerList> serverList,
+						final LoadBalancerHealthCheckConfig healthCheckConfig,
+						final double retryBudgetRatio,final int retryBudgetMaxTokens) {
 		_loadBalancer = loadBalancer;
 		_metricRegistry = metricsRegistry;
 		_refreshInterval = refreshInterval;
+		_retryBudgetRatio = retryBudgetRatio;
+		_retryBudgetMaxTokens = retryBudgetMaxTokens;
 		
 		// server list
 		_serverList = Maps.newLinkedHashMapWithExpectedSize(serverList.size());
@@ -108,12 +142,19 @@ public class LoadBalancerManager {
 					LoadBalancedBackendServerStats stat = new LoadBalancedBackendServerStats(servers.getServiceId(),
 																							 server,
 																							 _metricRegistry);
-					_serverStats.put(new LoadBalancedBackendServerStatsKey(servers.getServiceId(),server.getId()),stat);
+					_putServerStats(stat);
 				}
 			}
 		} catch (Exception e) {
 			log.error("Exception initializing the server list", e);
 		}
+		// refresh the server list in the background
+		_serverListRefreshTask = refreshInterval > 0 ? new ServerListRefreshTask(this).scheduleEvery(refreshInterval)
+													 : null;
+		// active health checks
+		_healthChecker = healthCheckConfig != null ? new LoadBalancerHealthChecker(this,
+																				   healthCheckConfig)
+												   : null;
 	}
 /////////////////////////////////////////////////////////////////////////////////////////
 //
@@ -126,38 +167,69 @@ public class LoadBalancerManager {
 	 */
 	public LoadBalancedBackendServerStats chooseServerFor(final LoadBalancedServiceID serviceId,
 														  final LoadBalancerContext context) {
-		// update the server list > update server stats & tick servers (set availability)
-		_updateServerList(serviceId);
+		return this.chooseServerFor(serviceId,
+									context,
+									Collections.<LoadBalancedBackEndServerID>emptySet());
+	}
+	/**
+	 * Get a single server instance chosen through the {@link LoadBalancerManager} BUT skipping the given servers
+	 * (ie: the servers already tried when retrying a request)
+	 * @param serviceId
+	 * @param context some context to help choosing
+	 * @param excludedServers the servers that must NOT be chosen
+	 * @return a server instance chosen through the load balancer or null if there's NO available server but the excluded ones
+	 */
+	public LoadBalancedBackendServerStats chooseServerFor(final LoadBalancedServiceID serviceId,
+														  final LoadBalancerContext context,
+														  final Collection<LoadBalancedBackEndServerID> excludedServers) {
+		LoadBalancedServiceServerStats serviceStats = _serverStatsByService.get(serviceId);
+		if (serviceStats == null) return null;		// unknown service
 
-		// filter the available servers for the given service
-		Collection<LoadBalancedBackendServerStats> serverStats = this.getServerStatsOf(serviceId);
-		Collection<LoadBalancedBackendServerStats> availableServersStats = FluentIterable.from(serverStats)
-																						 .filter(new Predicate<LoadBalancedBackendServerStats>() {
-																										@Override
-																										public boolean apply(final LoadBalancedBackendServerStats server) {																											
-																											if (log.isDebugEnabled()) log.info("[load balancer]: server {} is{}available",
-																																				server.getServerInstance().getId(),
-																																				server.getServerInstance().isAvailable() ? " " : " NOT ");
-																											return server.getServerInstance().isAvailable();
-																										}
-																								  })
-																						 .toList();
-		if (CollectionUtils.isNullOrEmpty(availableServersStats)) return null;	// ...no available servers
+		// the available servers snapshot: it's only re-built if the availability changed
+		List<LoadBalancedBackendServerStats> availableServersStats = _excluding(serviceStats.getAvailableServers(),
+																				excludedServers);
+		if (availableServersStats.isEmpty()) return null;	// ...no available servers
 
 		// choose one
-		return _loadBalancer.chooseWithin(availableServersStats,
-										  context);
+		LoadBalancedBackendServerStats outChosen = _loadBalancer.chooseWithin(availableServersStats,
+																			  context);
+		// the chosen server might have been short-circuited after the snapshot was built: re-build it and choose again
+		if (outChosen != null && !outChosen.getServerInstance().isAvailable()) {
+			log.debug("[load balancer]: server {} is NOT available anymore",
+					  outChosen.getServerInstance().getId());
+			serviceStats.invalidateAvailableServers();
+			availableServersStats = _excluding(serviceStats.getAvailableServers(),
+											   excludedServers);
+			if (availableServersStats.isEmpty()) return null;
+			outChosen = _loadBalancer.chooseWithin(availableServersStats,
+												   context);
+		}
+		return outChosen;
+	}
+	private static List<LoadBalancedBackendServerStats> _excluding(final List<LoadBalancedBackendServerStats> serversStats,
+																   final Collection<LoadBalancedBackEndServerID> excludedServers) {
+		if (excludedServers == null || excludedServers.isEmpty()) return serversStats;	// nothing to exclude (the usual case): do NOT allocate
+		List<LoadBalancedBackendServerStats> outServersStats = Lists.newArrayListWithExpectedSize(serversStats.size());
+		for (LoadBalancedBackendServerStats serverStats : serversStats) {
+			if (!excludedServers.contains(serverStats.getServerInstance().getId())) outServersStats.add(serverStats);
+		}
+		return outServersStats;
+	}
+	/**
+	 * Updates the server list of every service: updates the server stats & ticks the servers (set availability)
+	 * (it's usually called by a background task every refresh interval)
+	 */
+	public void refreshServerList() {
+		for (LoadBalancedServiceServerStats serviceStats : _serverStatsByService.values()) {
+			_updateServerList(serviceStats);
+		}
 	}
-	private void _updateServerList(final LoadBalancedServiceID serviceId) {
+	private void _updateServerList(final LoadBalancedServiceServerStats serviceStats) {
 		// only allow one thread to update the server list
-		if (!_updatingServer.compareAndSet(false,true)) return;
+		if (!serviceStats._updating.compareAndSet(false,true)) return;
 		
+		LoadBalancedServiceID serviceId = serviceStats.getServiceId();
 		try {
-			// has the update interval been met?
-			long now = System.currentTimeMillis();
-			if (_refreshInterval == 0 || _nextUpdateTime > now) return;	// nothing to do
-			_nextUpdateTime = now + _refreshInterval;
-
 			// update server stats with current availability
 			LoadBalancedServerList servers = _serverList.get(serviceId);
 			for (LoadBalancedBackEndServer server : servers.getListOfServers()) {
@@ -171,6 +243,7 @@ public class LoadBalancerManager {
 					stat = new LoadBalancedBackendServerStats(serviceId,
 															  server,
 															  _metricRegistry);
+					_putServerStats(stat);
 				}
 			}
 			// tick all the servers and remove from list if requested
@@ -196,15 +269,30 @@ public class LoadBalancerManager {
 																						
 																							   })
 																					.toList();
+			Collection<LoadBalancedBackendServerStatsKey> removedServers = Lists.newArrayListWithExpectedSize(serversToRemove.size());
 			for (LoadBalancedBackEndServerID serverId : serversToRemove) {
-				_serverStats.remove(new LoadBalancedBackendServerStatsKey(serviceId,serverId));
+				LoadBalancedBackendServerStatsKey key = new LoadBalancedBackendServerStatsKey(serviceId,serverId);
+				_serverStats.remove(key);
+				serviceStats.remove(serverId);
+				removedServers.add(key);
 			}
+			// the load balancer might keep some state for the removed servers
+			if (!removedServers.isEmpty()) _loadBalancer.onServersRemoved(removedServers);
+			// the availability might have changed
+			serviceStats.invalidateAvailableServers();
 		} catch (Exception e) {
 			log.error("[load balancer] > Exception updating the server list", e);
 		} finally {
-			_updatingServer.set(false);
+			serviceStats._updating.set(false);
 		}
 	}
+	private void _putServerStats(final LoadBalancedBackendServerStats stat) {
+		_serverStats.put(stat.getKey(),stat);
+		_serverStatsByService.computeIfAbsent(stat.getKey().getServiceId(),
+											  serviceId -> new LoadBalancedServiceServerStats(serviceId,
+																							  new LoadBalancerRetryBudget(_retryBudgetRatio,_retryBudgetMaxTokens)))
+							 .put(stat);
+	}
 /////////////////////////////////////////////////////////////////////////////////////////
 //	
 /////////////////////////////////////////////////////////////////////////////////////////
@@ -212,15 +300,44 @@ public class LoadBalancerManager {
 		return _serverList.get(serviceId);
 	}
 	public Collection<LoadBalancedBackendServerStats> getServerStatsOf(final LoadBalancedServiceID serviceId) {
-		return this.getServerStatsWithKeyMatching(new Predicate<LoadBalancedBackendServerStatsKey>() {
-															@Override
-															public boolean apply(final LoadBalancedBackendServerStatsKey key) {
-																return key.belongsTo(serviceId);
-															}
-												  });
+		LoadBalancedServiceServerStats serviceStats = _serverStatsByService.get(serviceId);
+		return serviceStats != null ? serviceStats.getAll()
+									: Collections.<LoadBalancedBackendServerStats>emptyList();
 	}
 	public LoadBalancedBackendServerStats getServerStatsOf(final LoadBalancedServiceID serviceId,final LoadBalancedBackEndServerID serverId) {
-		return _serverStats.get(new LoadBalancedBackendServerStatsKey(serviceId,serverId));
+		LoadBalancedServiceServerStats serviceStats = _serverStatsByService.get(serviceId);
+		return serviceStats != null ? serviceStats.get(serverId)
+									: null;
+	}
+	/**
+	 * Returns the available servers of a service
+	 * @param serviceId
+	 * @return an immutable snapshot of the available servers
+	 */
+	public List<LoadBalancedBackendServerStats> getAvailableServerStatsOf(final LoadBalancedServiceID serviceId) {
+		LoadBalancedServiceServerStats serviceStats = _serverStatsByService.get(serviceId);
+		return serviceStats != null ? serviceStats.getAvailableServers()
+									: Collections.<LoadBalancedBackendServerStats>emptyList();
+	}
+	/**
+	 * Returns the retry budget of a service: the retries (and hedged requests) sent to the service
+	 * are bounded to a fraction of the requests
+	 * @param serviceId
+	 * @return the retry budget or null if the service is unknown
+	 */
+	public LoadBalancerRetryBudget getRetryBudgetOf(final LoadBalancedServiceID serviceId) {
+		LoadBalancedServiceServerStats serviceStats = _serverStatsByService.get(serviceId);
+		return serviceStats != null ? serviceStats.getRetryBudget()
+									: null;
+	}
+	/**
+	 * Forces the available servers snapshot of a service to be re-built
+	 * (call it when the availability of a server changes outside the load balancer)
+	 * @param serviceId
+	 */
+	public void invalidateAvailableServersOf(final LoadBalancedServiceID serviceId) {
+		LoadBalancedServiceServerStats serviceStats = _serverStatsByService.get(serviceId);
+		if (serviceStats != null) serviceStats.invalidateAvailableServers();
 	}
 	public Collection<LoadBalancedBackendServerStats> getServerStatsWithKeyMatching(final Predicate<LoadBalancedBackendServerStatsKey> keyPred) {
 		return LoadBalancedBackendServerStats.filterServerStatsWithKeyMatching(_serverStats.values(),
@@ -230,4 +347,45 @@ public class LoadBalancerManager {
 		return LoadBalancedBackendServerStats.filterServerStatsMatching(_serverStats.values(),
 																		pred);
 	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	CLOSE
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Override
+	public void close() throws IOException {
+		if (_serverListRefreshTask != null) _serverListRefreshTask.cancel(false);
+		if (_healthChecker != null) _healthChecker.close();
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	SERVER LIST REFRESH TASK
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Refreshes the server list of a manager scheduled at the static {@link #SERVER_LIST_REFRESHER}
+	 * The manager is only weakly referenced (otherwise the refresher thread would keep every NOT closed manager alive):
+	 * once the manager is garbage-collected the task cancels itself
+	 */
+	private static class ServerListRefreshTask
+			  implements Runnable {
+		private final WeakReference<LoadBalancerManager> _manager;
+		private volatile ScheduledFuture<?> _future;
+
+		ServerListRefreshTask(final LoadBalancerManager manager) {
+			_manager = new WeakReference<>(manager);
+		}
+		ScheduledFuture<?> scheduleEvery(final long interval) {
+			_future = SERVER_LIST_REFRESHER.scheduleWithFixedDelay(this,
+																   interval,interval,TimeUnit.MILLISECONDS);
+			return _future;
+		}
+		@Override
+		public void run() {
+			LoadBalancerManager manager = _manager.get();
+			if (manager == null) {
+				log.debug("The load balancer manager was garbage-collected without being closed: cancelling the server list refresh task");
+				ScheduledFuture<?> future = _future;
+				if (future != null) future.cancel(false);
+				return;
+			}
+			manager.refreshServerList();
+		}
+	}
 }
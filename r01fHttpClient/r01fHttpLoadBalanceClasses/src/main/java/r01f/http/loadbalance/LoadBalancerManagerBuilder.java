@@ -1,6 +1,7 @@
 package r01f.http.loadbalance;
 
 import java.util.Collection;
+import java.util.Map;
 
 import com.codahale.metrics.MetricRegistry;
 import com.google.common.base.Function;
@@ -12,7 +13,13 @@ import lombok.NoArgsConstructor;
 import lombok.RequiredArgsConstructor;
 import r01f.http.loadbalance.LoadBalancerIDs.LoadBalancedServiceID;
 import r01f.http.loadbalance.balancer.LoadBalancer;
+import r01f.http.loadbalance.balancer.LoadBalancerConsistentHashImpl;
+import r01f.http.loadbalance.balancer.LoadBalancerLatencyWeightedImpl;
+import r01f.http.loadbalance.balancer.LoadBalancerLeastOutstandingRequestsImpl;
+import r01f.http.loadbalance.balancer.LoadBalancerPowerOfTwoChoicesImpl;
 import r01f.http.loadbalance.balancer.LoadBalancerRandomImpl;
+import r01f.http.loadbalance.balancer.LoadBalancerWeightedRoundRobinImpl;
+import r01f.http.loadbalance.balancer.LoadBalancerZoneAwareImpl;
 import r01f.http.loadbalance.serverlist.LoadBalancedServerList;
 import r01f.http.loadbalance.serverlist.LoadBalancedServerListFromConfig;
 import r01f.types.url.Url;
@@ -51,6 +58,61 @@ public abstract class LoadBalancerManagerBuilder {
 		public LoadBalancerManagerBuilderServersStep withRandomLoadBalancing() {
 			return this.withLoadBalancer(new LoadBalancerRandomImpl());
 		}
+		/**
+		 * The server with the fewest open requests is chosen
+		 * @return
+		 */
+		public LoadBalancerManagerBuilderServersStep withLeastOutstandingRequestsLoadBalancing() {
+			return this.withLoadBalancer(new LoadBalancerLeastOutstandingRequestsImpl());
+		}
+		/**
+		 * Two random servers are picked and the one with fewer open requests is chosen
+		 * @return
+		 */
+		public LoadBalancerManagerBuilderServersStep withPowerOfTwoChoicesLoadBalancing() {
+			return this.withLoadBalancer(new LoadBalancerPowerOfTwoChoicesImpl());
+		}
+		/**
+		 * A random server is chosen BUT the faster and less loaded servers are more likely to be chosen
+		 * @return
+		 */
+		public LoadBalancerManagerBuilderServersStep withLatencyWeightedLoadBalancing() {
+			return this.withLoadBalancer(new LoadBalancerLatencyWeightedImpl());
+		}
+		/**
+		 * The servers are chosen in turns BUT every server receives a share of the requests proportional to its weight
+		 * (see {@link LoadBalancerManagerBuilderServersStep#withWeightedServers(LoadBalancedServiceID, Map)})
+		 * @return
+		 */
+		public LoadBalancerManagerBuilderServersStep withWeightedRoundRobinLoadBalancing() {
+			return this.withLoadBalancer(new LoadBalancerWeightedRoundRobinImpl());
+		}
+		/**
+		 * The requests with the same affinity key (ie: session or tenant) are routed to the same server so its caches are kept hot
+		 * (the requests without affinity key are routed using power of two choices)
+		 * @return
+		 */
+		public LoadBalancerManagerBuilderServersStep withConsistentHashLoadBalancing() {
+			return this.withLoadBalancer(new LoadBalancerConsistentHashImpl());
+		}
+		/**
+		 * The requests are routed to the servers in the same zone and they spill over to other zones under load
+		 * (see {@link LoadBalancerManagerBuilderServersStep#withZonedServers(LoadBalancedServiceID, Map)})
+		 * @param localZone the zone of this client
+		 * @return
+		 */
+		public LoadBalancerManagerBuilderServersStep withZoneAwareLoadBalancing(final String localZone) {
+			return this.withLoadBalancer(new LoadBalancerZoneAwareImpl(localZone));
+		}
+		/**
+		 * Zone preference + consistent hashing within the zone
+		 * @param localZone the zone of this client
+		 * @return
+		 */
+		public LoadBalancerManagerBuilderServersStep withZoneAwareConsistentHashLoadBalancing(final String localZone) {
+			return this.withLoadBalancer(new LoadBalancerZoneAwareImpl(localZone,
+																	   new LoadBalancerConsistentHashImpl()));
+		}
 		public LoadBalancerManagerBuilderServersStep withLoadBalancer(final LoadBalancer loadBalancer) {
 			return new LoadBalancerManagerBuilderServersStep(_metricsRegistry,
 															 _refreshIntervalInMillis,
@@ -63,6 +125,9 @@ public abstract class LoadBalancerManagerBuilder {
 		private final Long _refreshIntervalInMillis;
 		private final LoadBalancer _loadBalancer;
 		private final Collection<LoadBalancedServerList> _serverList = Lists.newArrayList();
+		private LoadBalancerHealthCheckConfig _healthCheckConfig;
+		private double _retryBudgetRatio = LoadBalancerRetryBudget.DEFAULT_RETRY_RATIO;
+		private int _retryBudgetMaxTokens = LoadBalancerRetryBudget.DEFAULT_MAX_RETRY_TOKENS;
 		
 		public LoadBalancerManagerBuilderServersStep withServers(final LoadBalancedServiceID serviceId,final Url... urls) {
 			return this.withServers(serviceId,Lists.newArrayList(urls));
@@ -78,15 +143,76 @@ public abstract class LoadBalancerManagerBuilder {
 																							   })
 																					.toList()));
 		}
+		/**
+		 * Sets the servers with their weight (relative capacity)
+		 * @param serviceId
+		 * @param weightedUrls the servers' url and weight
+		 * @return
+		 */
+		public LoadBalancerManagerBuilderServersStep withWeightedServers(final LoadBalancedServiceID serviceId,final Map<Url,Integer> weightedUrls) {
+			return this.withServerList(new LoadBalancedServerListFromConfig(serviceId,
+																			FluentIterable.from(weightedUrls.entrySet())
+																		    		.transform(new Function<Map.Entry<Url,Integer>,LoadBalancedBackEndServer>() {
+																										@Override
+																										public LoadBalancedBackEndServer apply(final Map.Entry<Url,Integer> me) {
+																											LoadBalancedBackEndServer server = new LoadBalancedBackEndServer(me.getKey());
+																											server.setWeight(me.getValue() != null ? me.getValue() : 1);
+																											return server;
+																										}
+																							   })
+																					.toList()));
+		}
+		/**
+		 * Sets the servers with their zone (ie: data center / availability zone)
+		 * @param serviceId
+		 * @param zonedUrls the servers' url and zone
+		 * @return
+		 */
+		public LoadBalancerManagerBuilderServersStep withZonedServers(final LoadBalancedServiceID serviceId,final Map<Url,String> zonedUrls) {
+			return this.withServerList(new LoadBalancedServerListFromConfig(serviceId,
+																			FluentIterable.from(zonedUrls.entrySet())
+																		    		.transform(new Function<Map.Entry<Url,String>,LoadBalancedBackEndServer>() {
+																										@Override
+																										public LoadBalancedBackEndServer apply(final Map.Entry<Url,String> me) {
+																											LoadBalancedBackEndServer server = new LoadBalancedBackEndServer(me.getKey());
+																											server.setZone(me.getValue());
+																											return server;
+																										}
+																							   })
+																					.toList()));
+		}
 		public LoadBalancerManagerBuilderServersStep withServerList(final LoadBalancedServerList serverList) {
 			_serverList.add(serverList);
 			return this;
 		}
+		/**
+		 * Actively checks the servers health in the background and ejects the outliers
+		 * (see {@link LoadBalancerHealthChecker})
+		 * @param healthCheckConfig
+		 * @return
+		 */
+		public LoadBalancerManagerBuilderServersStep withHealthChecks(final LoadBalancerHealthCheckConfig healthCheckConfig) {
+			_healthCheckConfig = healthCheckConfig;
+			return this;
+		}
+		/**
+		 * Bounds the retries (and hedged requests) sent to every service (see {@link LoadBalancerRetryBudget})
+		 * @param retryRatio the retries allowed per request (ie: 0.2 = one retry every five requests)
+		 * @param maxRetryTokens max retries allowed in a burst
+		 * @return
+		 */
+		public LoadBalancerManagerBuilderServersStep withRetryBudget(final double retryRatio,final int maxRetryTokens) {
+			_retryBudgetRatio = retryRatio;
+			_retryBudgetMaxTokens = maxRetryTokens;
+			return this;
+		}
 		public LoadBalancerManager build() {
 			return new LoadBalancerManager(_loadBalancer, 
 										   _metricsRegistry, 
 										   _refreshIntervalInMillis,
-										   _serverList);
+										   _serverList,
+										   _healthCheckConfig,
+										   _retryBudgetRatio,_retryBudgetMaxTokens);
 		}
 	}
 }
\ No newline at end of file
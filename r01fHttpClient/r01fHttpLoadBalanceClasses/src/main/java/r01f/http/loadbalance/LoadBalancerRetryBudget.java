@@ -0,0 +1,86 @@
+package r01f.http.loadbalance;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.Getter;
+import lombok.experimental.Accessors;
+
+/**
+ * A token bucket that bounds the retries (and hedged requests) sent to a service
+ * so retries cannot multiply the load when the service is failing (retry storm):
+ * <ul>
+ * 		<li>every request deposits a fraction of a token (the retry ratio): ie 0.2 = at most one retry every five requests</li>
+ * 		<li>every retry withdraws a whole token: if there's NO token left the request is NOT retried</li>
+ * 		<li>the bucket is bounded (max tokens) so a long healthy period does NOT allow a burst of retries</li>
+ * </ul>
+ * The bucket is lock-free: the tokens are kept as thousandths of a token in an {@link AtomicLong}
+ */
+@Accessors(prefix="_")
+public class LoadBalancerRetryBudget {
+/////////////////////////////////////////////////////////////////////////////////////////
+//	CONSTANTS
+/////////////////////////////////////////////////////////////////////////////////////////
+	public static final double DEFAULT_RETRY_RATIO = 0.2;
+	public static final int DEFAULT_MAX_RETRY_TOKENS = 10;
+
+	private static final long TOKEN = 1000;		// a token = 1000 milli-tokens
+/////////////////////////////////////////////////////////////////////////////////////////
+//	FIELDS
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Getter private final double _retryRatio;
+	@Getter private final int _maxTokens;
+			private final long _depositPerRequest;
+			private final AtomicLong _milliTokens;
+/////////////////////////////////////////////////////////////////////////////////////////
+//	CONSTRUCTOR
+/////////////////////////////////////////////////////////////////////////////////////////
+	public LoadBalancerRetryBudget() {
+		this(DEFAULT_RETRY_RATIO,
+			 DEFAULT_MAX_RETRY_TOKENS);
+	}
+	public LoadBalancerRetryBudget(final double retryRatio,
+								   final int maxTokens) {
+		if (retryRatio < 0) throw new IllegalArgumentException("The retry ratio cannot be negative!");
+		if (maxTokens < 0) throw new IllegalArgumentException("The max retry tokens cannot be negative!");
+		_retryRatio = retryRatio;
+		_maxTokens = maxTokens;
+		_depositPerRequest = (long)(retryRatio * TOKEN);
+		_milliTokens = new AtomicLong(maxTokens * TOKEN);		// the bucket is initially full
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	METHODS
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Deposits the retry ratio for a new request
+	 */
+	public void onRequest() {
+		long max = _maxTokens * TOKEN;
+		long curr;
+		do {
+			curr = _milliTokens.get();
+			if (curr >= max) return;		// the bucket is full
+		} while (!_milliTokens.compareAndSet(curr,Math.min(max,curr + _depositPerRequest)));
+	}
+	/**
+	 * Withdraws a token for a retry
+	 * @return true if the request can be retried, false if the budget is exhausted
+	 */
+	public boolean tryAcquireRetry() {
+		long curr;
+		do {
+			curr = _milliTokens.get();
+			if (curr < TOKEN) return false;
+		} while (!_milliTokens.compareAndSet(curr,curr - TOKEN));
+		return true;
+	}
+	/**
+	 * @return the number of retries that can be done right now
+	 */
+	public double getAvailableRetries() {
+		return _milliTokens.get() / (double)TOKEN;
+	}
+	@Override
+	public String toString() {
+		return "retry ratio=" + _retryRatio + ", max tokens=" + _maxTokens + ", available=" + this.getAvailableRetries();
+	}
+}
@@ -3,6 +3,7 @@ package r01f.http.loadbalance.balancer;
 import java.util.Collection;
 
 import r01f.http.loadbalance.LoadBalancedBackendServerStats;
+import r01f.http.loadbalance.LoadBalancedBackendServerStatsKey;
 
 /**
  * Strategy interface for the selection of server instances to connect to
@@ -18,4 +19,14 @@ public interface LoadBalancer {
 	 */
 	LoadBalancedBackendServerStats chooseWithin(Collection<LoadBalancedBackendServerStats> availableServerStats,
 												LoadBalancerContext context);
+	/**
+	 * Called when some servers are removed from the server list so the load balancer can discard
+	 * any state kept for them
+	 * (the servers given to {@link #chooseWithin(Collection, LoadBalancerContext)} are usually just a subset of the server list:
+	 *  ie: the available ones excluding the already tried on a retry; so they cannot be used to find the removed servers)
+	 * @param removedServers
+	 */
+	default void onServersRemoved(final Collection<LoadBalancedBackendServerStatsKey> removedServers) {
+		// nothing to discard by default
+	}
 }
@@ -0,0 +1,160 @@
+package r01f.http.loadbalance.balancer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import lombok.Getter;
+import lombok.experimental.Accessors;
+import r01f.http.loadbalance.LoadBalancedBackEndServer;
+import r01f.http.loadbalance.LoadBalancedBackendServerStats;
+import r01f.http.loadbalance.LoadBalancedBackendServerStatsKey;
+
+/**
+ * Consistent hashing: the requests with the same affinity key (see {@link LoadBalancerContext#getAffinityKey()})
+ * are routed to the same server so the server caches are kept hot
+ * <ul>
+ * 		<li>rendezvous (highest random weight) hashing is used: every server gets a score for the key and the highest wins;
+ * 			when a server is added or removed only the keys of that server are moved</li>
+ * 		<li>the server weight is honored (weighted rendezvous hashing): a server with double weight gets double keys</li>
+ * 		<li>bounded load: if the best server has more open requests than the load factor * the average,
+ * 			the next best server is chosen so a hot key does NOT overload a server</li>
+ * 		<li>if there's NO affinity key the request is routed by the fallback load balancer</li>
+ * </ul>
+ * It's O(n) with the number of available servers
+ * (the server hashes are only computed when the available servers snapshot changes: they're cached by snapshot)
+ */
+@Accessors(prefix="_")
+public class LoadBalancerConsistentHashImpl
+  implements LoadBalancer {
+/////////////////////////////////////////////////////////////////////////////////////////
+//	CONSTANTS
+/////////////////////////////////////////////////////////////////////////////////////////
+	public static final double DEFAULT_LOAD_FACTOR = 1.25;
+
+	private static final HashFunction HASH = Hashing.murmur3_128();
+/////////////////////////////////////////////////////////////////////////////////////////
+//	FIELDS
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Getter private final LoadBalancer _fallback;		// used when there's NO affinity key
+	@Getter private final double _loadFactor;			// 0 = the load is NOT bounded
+
+			private final Cache<Collection<LoadBalancedBackendServerStats>,long[]> _serverHashesBySnapshot = CacheBuilder.newBuilder()
+																														 .weakKeys()	// identity: the snapshot is immutable
+																														 .build();
+/////////////////////////////////////////////////////////////////////////////////////////
+//	CONSTRUCTOR
+/////////////////////////////////////////////////////////////////////////////////////////
+	public LoadBalancerConsistentHashImpl() {
+		this(new LoadBalancerPowerOfTwoChoicesImpl(),
+			 DEFAULT_LOAD_FACTOR);
+	}
+	public LoadBalancerConsistentHashImpl(final LoadBalancer fallback,
+										  final double loadFactor) {
+		if (loadFactor != 0 && loadFactor < 1) throw new IllegalArgumentException("The load factor must be greater than one (or zero to NOT bound the load)!");
+		_fallback = fallback;
+		_loadFactor = loadFactor;
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Override
+	public LoadBalancedBackendServerStats chooseWithin(final Collection<LoadBalancedBackendServerStats> availableServerStats,
+													   final LoadBalancerContext context) {
+		String affinityKey = context != null ? context.getAffinityKey() : null;
+		if (affinityKey == null) return _fallback.chooseWithin(availableServerStats,
+															   context);
+		if (availableServerStats.size() == 1) return LoadBalancerRandomImpl.get(availableServerStats,0);
+
+		// the max open requests of a server (bounded load)
+		long maxOpenRequests = Long.MAX_VALUE;
+		if (_loadFactor > 0) {
+			long totalOpenRequests = 0;
+			for (LoadBalancedBackendServerStats serverStats : availableServerStats) {
+				totalOpenRequests += serverStats.getOpenRequestCount();
+			}
+			maxOpenRequests = (long)Math.ceil(((totalOpenRequests + 1) * _loadFactor) / availableServerStats.size());
+		}
+		// the server with the highest score (and the highest NOT overloaded)
+		long keyHash = HASH.hashString(affinityKey,StandardCharsets.UTF_8).asLong();
+		long[] serverHashes = _serverHashesOf(availableServerStats);
+		int i = 0;
+		LoadBalancedBackendServerStats best = null;
+		double bestScore = Double.NEGATIVE_INFINITY;
+		LoadBalancedBackendServerStats bestNotOverloaded = null;
+		double bestNotOverloadedScore = Double.NEGATIVE_INFINITY;
+		for (LoadBalancedBackendServerStats serverStats : availableServerStats) {
+			double score = _scoreOf(serverStats.getServerInstance(),
+									serverHashes[i++],
+									keyHash);
+			if (score > bestScore) {
+				best = serverStats;
+				bestScore = score;
+			}
+			if (score > bestNotOverloadedScore
+			 && serverStats.getOpenRequestCount() < maxOpenRequests) {
+				bestNotOverloaded = serverStats;
+				bestNotOverloadedScore = score;
+			}
+		}
+		return bestNotOverloaded != null ? bestNotOverloaded : best;
+	}
+	@Override
+	public void onServersRemoved(final Collection<LoadBalancedBackendServerStatsKey> removedServers) {
+		_fallback.onServersRemoved(removedServers);
+	}
+	/**
+	 * Returns the hashes of the servers (in the iteration order)
+	 * only the (immutable) available servers snapshot is cached: a list built for a single choice (ie: excluding the already
+	 * tried servers on a retry) is just hashed
+	 * @param availableServerStats
+	 * @return
+	 */
+	private long[] _serverHashesOf(final Collection<LoadBalancedBackendServerStats> availableServerStats) {
+		if (!(availableServerStats instanceof ImmutableList)) return _hash(availableServerStats);
+
+		long[] outHashes = _serverHashesBySnapshot.getIfPresent(availableServerStats);
+		if (outHashes == null) {
+			outHashes = _hash(availableServerStats);
+			_serverHashesBySnapshot.put(availableServerStats,outHashes);
+		}
+		return outHashes;
+	}
+	private static long[] _hash(final Collection<LoadBalancedBackendServerStats> availableServerStats) {
+		long[] outHashes = new long[availableServerStats.size()];
+		int i = 0;
+		for (LoadBalancedBackendServerStats serverStats : availableServerStats) {
+			outHashes[i++] = HASH.hashString(serverStats.getServerInstance().getId().asString(),StandardCharsets.UTF_8).asLong();
+		}
+		return outHashes;
+	}
+	/**
+	 * Weighted rendezvous hashing score: -weight / ln(hash) where hash is a uniform number in (0,1) computed from the key and the server
+	 * @param server
+	 * @param serverHash
+	 * @param keyHash
+	 * @return
+	 */
+	private static double _scoreOf(final LoadBalancedBackEndServer server,
+								   final long serverHash,
+								   final long keyHash) {
+		long hash = _mix(keyHash ^ serverHash);
+		double uniform = ((hash >>> 11) + 0.5) / (1L << 53);		// (0,1)
+		return -Math.max(1,server.getWeight()) / Math.log(uniform);
+	}
+	/**
+	 * splitmix64 finalizer: spreads the bits of the combined hash
+	 * @param z
+	 * @return
+	 */
+	private static long _mix(final long z) {
+		long outMixed = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		outMixed = (outMixed ^ (outMixed >>> 27)) * 0x94d049bb133111ebL;
+		return outMixed ^ (outMixed >>> 31);
+	}
+}
@@ -1,8 +1,25 @@
 package r01f.http.loadbalance.balancer;
 
 /**
- * A marker interface for context data used when choosing a server
+ * Context data used when choosing a server
+ * <ul>
+ * 		<li>affinity key: the requests with the same key are routed to the same server (ie: a session or tenant id)
+ * 			so the server caches are kept hot (see {@link LoadBalancerConsistentHashImpl})</li>
+ * 		<li>zone: the requests are routed to the servers in the same zone (see {@link LoadBalancerZoneAwareImpl})</li>
+ * </ul>
  */
 public interface LoadBalancerContext {
 	public <C extends LoadBalancerContext> C as(final Class<C> type);
+	/**
+	 * @return the key used to route the requests to the same server or null if there's NO affinity
+	 */
+	public default String getAffinityKey() {
+		return null;
+	}
+	/**
+	 * @return the zone the request originates from or null if unknown
+	 */
+	public default String getZone() {
+		return null;
+	}
 }
@@ -0,0 +1,65 @@
+package r01f.http.loadbalance.balancer;
+
+import java.util.Collection;
+import java.util.concurrent.ThreadLocalRandom;
+
+import r01f.http.loadbalance.LoadBalancedBackendServerStats;
+
+/**
+ * Chooses a server randomly BUT the probability of every server is inversely proportional to its cost:
+ * <pre>
+ * 		cost = latency moving average * (open requests + 1)
+ * </pre>
+ * (see {@link LoadBalancedBackendServerStats#getLatencyEwma()}) so the faster and less loaded servers receive more requests
+ * BUT the slow ones still receive some requests (their latency average is updated when they recover)
+ * <p>
+ * The servers without latency samples (ie: just added) are given the lowest known latency so they're probed
+ * </p>
+ */
+public class LoadBalancerLatencyWeightedImpl
+  implements LoadBalancer {
+/////////////////////////////////////////////////////////////////////////////////////////
+//	CONSTANTS
+/////////////////////////////////////////////////////////////////////////////////////////
+	private static final double MIN_LATENCY = 1.0;		// millis: avoids division by zero with very fast servers
+/////////////////////////////////////////////////////////////////////////////////////////
+//	
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Override
+	public LoadBalancedBackendServerStats chooseWithin(final Collection<LoadBalancedBackendServerStats> availableServerStats,
+													   final LoadBalancerContext context) {
+		if (availableServerStats == null || availableServerStats.isEmpty()) return null;
+		int size = availableServerStats.size();
+		if (size == 1) return LoadBalancerRandomImpl.get(availableServerStats,0);
+
+		// the lowest known latency is used for the servers without latency samples
+		double minLatency = Double.MAX_VALUE;
+		for (LoadBalancedBackendServerStats stats : availableServerStats) {
+			double latency = stats.getLatencyEwma();
+			if (latency >= 0 && latency < minLatency) minLatency = latency;
+		}
+		if (minLatency == Double.MAX_VALUE) minLatency = MIN_LATENCY;		// no latency samples at all
+
+		// weights = 1 / cost
+		double[] weights = new double[size];
+		double totalWeight = 0;
+		int i = 0;
+		for (LoadBalancedBackendServerStats stats : availableServerStats) {
+			double latency = stats.getLatencyEwma();
+			if (latency < 0) latency = minLatency;
+			double cost = Math.max(MIN_LATENCY,latency) * (stats.getOpenRequestCount() + 1);
+			weights[i] = 1.0 / cost;
+			totalWeight += weights[i];
+			i++;
+		}
+		// weighted random choice
+		double point = ThreadLocalRandom.current().nextDouble(totalWeight);
+		i = 0;
+		for (LoadBalancedBackendServerStats stats : availableServerStats) {
+			point -= weights[i];
+			if (point < 0) return stats;
+			i++;
+		}
+		return LoadBalancerRandomImpl.get(availableServerStats,size - 1);	// rounding errors
+	}
+}
@@ -0,0 +1,42 @@
+package r01f.http.loadbalance.balancer;
+
+import java.util.Collection;
+import java.util.concurrent.ThreadLocalRandom;
+
+import r01f.http.loadbalance.LoadBalancedBackendServerStats;
+
+/**
+ * Chooses the server with the fewest open (outstanding) requests
+ * (see {@link LoadBalancedBackendServerStats#getOpenRequestCount()})
+ * If many servers have the same open requests, one of them is randomly chosen so the first one is NOT overloaded
+ * <p>
+ * BEWARE! every server is visited: O(n) (see {@link LoadBalancerPowerOfTwoChoicesImpl} for an O(1) alternative)
+ * </p>
+ */
+public class LoadBalancerLeastOutstandingRequestsImpl
+  implements LoadBalancer {
+/////////////////////////////////////////////////////////////////////////////////////////
+//	
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Override
+	public LoadBalancedBackendServerStats chooseWithin(final Collection<LoadBalancedBackendServerStats> availableServerStats,
+													   final LoadBalancerContext context) {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		LoadBalancedBackendServerStats outChosen = null;
+		long minOpenRequests = Long.MAX_VALUE;
+		int ties = 0;
+		for (LoadBalancedBackendServerStats stats : availableServerStats) {
+			long openRequests = stats.getOpenRequestCount();
+			if (openRequests < minOpenRequests) {
+				minOpenRequests = openRequests;
+				outChosen = stats;
+				ties = 1;
+			} else if (openRequests == minOpenRequests) {
+				// reservoir sampling: every tied server has the same probability to be chosen
+				ties++;
+				if (random.nextInt(ties) == 0) outChosen = stats;
+			}
+		}
+		return outChosen;
+	}
+}
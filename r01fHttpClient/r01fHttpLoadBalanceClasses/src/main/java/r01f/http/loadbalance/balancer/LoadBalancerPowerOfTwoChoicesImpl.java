@@ -0,0 +1,42 @@
+package r01f.http.loadbalance.balancer;
+
+import java.util.Collection;
+import java.util.concurrent.ThreadLocalRandom;
+
+import r01f.http.loadbalance.LoadBalancedBackendServerStats;
+
+/**
+ * Power of two choices: two servers are randomly chosen and the one with fewer open requests is used
+ * (if both have the same open requests, the one with the lower latency is used)
+ * <p>
+ * It's O(1) and it avoids the herd behavior of the least-outstanding-requests strategy when the stats are stale
+ * (every client sending its requests to the same "best" server)
+ * </p>
+ */
+public class LoadBalancerPowerOfTwoChoicesImpl
+  implements LoadBalancer {
+/////////////////////////////////////////////////////////////////////////////////////////
+//	
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Override
+	public LoadBalancedBackendServerStats chooseWithin(final Collection<LoadBalancedBackendServerStats> availableServerStats,
+													   final LoadBalancerContext context) {
+		if (availableServerStats == null || availableServerStats.isEmpty()) return null;
+		int size = availableServerStats.size();
+		if (size == 1) return LoadBalancerRandomImpl.get(availableServerStats,0);
+
+		// two distinct random servers
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int firstIndex = random.nextInt(size);
+		int secondIndex = random.nextInt(size - 1);
+		if (secondIndex >= firstIndex) secondIndex++;
+		LoadBalancedBackendServerStats first = LoadBalancerRandomImpl.get(availableServerStats,firstIndex);
+		LoadBalancedBackendServerStats second = LoadBalancerRandomImpl.get(availableServerStats,secondIndex);
+
+		// the least loaded one
+		long firstOpenRequests = first.getOpenRequestCount();
+		long secondOpenRequests = second.getOpenRequestCount();
+		if (firstOpenRequests != secondOpenRequests) return firstOpenRequests < secondOpenRequests ? first : second;
+		return first.getLatencyEwma() <= second.getLatencyEwma() ? first : second;
+	}
+}
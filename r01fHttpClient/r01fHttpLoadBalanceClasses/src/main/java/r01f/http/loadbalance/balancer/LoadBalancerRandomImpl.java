@@ -1,8 +1,8 @@
 package r01f.http.loadbalance.balancer;
 
-import java.security.SecureRandom;
 import java.util.Collection;
-import java.util.UUID;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 
 import com.google.common.collect.Iterables;
 
@@ -10,21 +10,32 @@ import r01f.http.loadbalance.LoadBalancedBackendServerStats;
 
 /**
  * Randomly chooses a server from the given collection of servers.
+ * (a cheap non-cryptographic per-thread random generator is used: there's NO contention between threads)
  */
 public class LoadBalancerRandomImpl
   implements LoadBalancer {
 /////////////////////////////////////////////////////////////////////////////////////////
 //	
-/////////////////////////////////////////////////////////////////////////////////////////
-	private final SecureRandom RANDOM = new SecureRandom(UUID.randomUUID().toString().getBytes());
-/////////////////////////////////////////////////////////////////////////////////////////
-//	
 /////////////////////////////////////////////////////////////////////////////////////////
 	@Override
 	public LoadBalancedBackendServerStats chooseWithin(final Collection<LoadBalancedBackendServerStats> availableServerStats,
 													   final LoadBalancerContext context) {
-		int index = RANDOM.nextInt(availableServerStats.size());
-		return Iterables.get(availableServerStats,
-							 index);
+		if (availableServerStats == null || availableServerStats.isEmpty()) return null;
+		int index = ThreadLocalRandom.current().nextInt(availableServerStats.size());
+		return LoadBalancerRandomImpl.get(availableServerStats,
+										  index);
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Gets the element at the given position: O(1) if the collection is a {@link List}
+	 * @param col
+	 * @param index
+	 * @return
+	 */
+	static <T> T get(final Collection<T> col,final int index) {
+		return col instanceof List ? ((List<T>)col).get(index)
+								   : Iterables.get(col,index);
 	}
 }
@@ -0,0 +1,100 @@
+package r01f.http.loadbalance.balancer;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import r01f.http.loadbalance.LoadBalancedBackEndServer;
+import r01f.http.loadbalance.LoadBalancedBackendServerStats;
+import r01f.http.loadbalance.LoadBalancedBackendServerStatsKey;
+import r01f.http.loadbalance.LoadBalancerIDs.LoadBalancedServiceID;
+
+/**
+ * Smooth weighted round robin (as nginx does): every server receives a share of the requests proportional
+ * to its weight (see {@link LoadBalancedBackEndServer#getWeight()}) BUT the requests to the same server are interleaved
+ * with the requests to the others
+ * ie: with weights a=5, b=1, c=1 the sequence is a a b a c a a (NOT a a a a a b c)
+ * <p>
+ * On every choice:
+ * <ol>
+ * 		<li>the current weight of every server is increased by its weight</li>
+ * 		<li>the server with the highest current weight is chosen</li>
+ * 		<li>the current weight of the chosen server is decreased by the total weight</li>
+ * </ol>
+ * </p>
+ * The current weights are kept by service: the choices for different services do NOT contend with each other
+ * and the current weights of the servers removed from the server list are discarded (see {@link #onServersRemoved(Collection)})
+ * BEWARE! the current weights are NOT discarded when a server is just missing from the servers to choose within
+ * (ie: it's short-circuited or it was already tried on a retry) so its interleaving is kept when it's chosen again
+ */
+public class LoadBalancerWeightedRoundRobinImpl
+  implements LoadBalancer {
+/////////////////////////////////////////////////////////////////////////////////////////
+//	FIELDS
+/////////////////////////////////////////////////////////////////////////////////////////
+	private final Map<LoadBalancedServiceID,ServiceWeights> _weightsByService = new ConcurrentHashMap<>();
+/////////////////////////////////////////////////////////////////////////////////////////
+//	
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Override
+	public LoadBalancedBackendServerStats chooseWithin(final Collection<LoadBalancedBackendServerStats> availableServerStats,
+													   final LoadBalancerContext context) {
+		if (availableServerStats == null || availableServerStats.isEmpty()) return null;
+		LoadBalancedServiceID serviceId = availableServerStats.iterator().next()
+															  .getKey().getServiceId();
+		ServiceWeights weights = _weightsByService.computeIfAbsent(serviceId,
+																   id -> new ServiceWeights());
+		return weights.chooseWithin(availableServerStats);
+	}
+	@Override
+	public void onServersRemoved(final Collection<LoadBalancedBackendServerStatsKey> removedServers) {
+		for (LoadBalancedBackendServerStatsKey key : removedServers) {
+			ServiceWeights weights = _weightsByService.get(key.getServiceId());
+			if (weights != null) weights.remove(key);
+		}
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * The current weights of a service servers
+	 */
+	private static class ServiceWeights {
+		// current weight by server
+		private final Map<LoadBalancedBackendServerStatsKey,long[]> _currentWeights = new HashMap<>();
+
+		synchronized LoadBalancedBackendServerStats chooseWithin(final Collection<LoadBalancedBackendServerStats> availableServerStats) {
+			LoadBalancedBackendServerStats outChosen = null;
+			long[] chosenCurrentWeight = null;
+			long totalWeight = 0;
+			for (LoadBalancedBackendServerStats stats : availableServerStats) {
+				long weight = Math.max(1,stats.getServerInstance().getWeight());
+				long[] currentWeight = _currentWeights.computeIfAbsent(stats.getKey(),
+																	   key -> new long[1]);
+				currentWeight[0] += weight;
+				totalWeight += weight;
+				if (chosenCurrentWeight == null || currentWeight[0] > chosenCurrentWeight[0]) {
+					outChosen = stats;
+					chosenCurrentWeight = currentWeight;
+				}
+			}
+			if (chosenCurrentWeight != null) chosenCurrentWeight[0] -= totalWeight;
+			return outChosen;
+		}
+		synchronized void remove(final LoadBalancedBackendServerStatsKey key) {
+			_currentWeights.remove(key);
+		}
+		synchronized int size() {
+			return _currentWeights.size();
+		}
+	}
+	/**
+	 * @param serviceId
+	 * @return the number of servers which current weight is kept for the given service
+	 */
+	int trackedServerCount(final LoadBalancedServiceID serviceId) {
+		ServiceWeights weights = _weightsByService.get(serviceId);
+		return weights != null ? weights.size() : 0;
+	}
+}
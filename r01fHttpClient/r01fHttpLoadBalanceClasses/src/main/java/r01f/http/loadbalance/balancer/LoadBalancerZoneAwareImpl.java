@@ -0,0 +1,127 @@
+package r01f.http.loadbalance.balancer;
+
+import java.util.Collection;
+import java.util.List;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+
+import lombok.Getter;
+import lombok.experimental.Accessors;
+import r01f.http.loadbalance.LoadBalancedBackendServerStats;
+import r01f.http.loadbalance.LoadBalancedBackendServerStatsKey;
+
+/**
+ * Zone preference: the requests are routed to the servers in the same zone (ie: data center / availability zone) as the client
+ * and they spill over to the other zones when:
+ * <ul>
+ * 		<li>there's NO available server in the same zone</li>
+ * 		<li>the same-zone servers are under load: their average open requests is greater than the spill-over factor * the average
+ * 			of all the servers</li>
+ * </ul>
+ * The zone is the one of the request context (see {@link LoadBalancerContext#getZone()}) or the local zone if the context has NO zone
+ * The servers are chosen within the selected zone(s) by the delegate load balancer
+ * <p>
+ * The available servers are only partitioned by zone when the available servers snapshot changes: the partition is cached
+ * by snapshot (the snapshots are weakly referenced so the partition is discarded along with the snapshot)
+ * </p>
+ */
+@Accessors(prefix="_")
+public class LoadBalancerZoneAwareImpl
+  implements LoadBalancer {
+/////////////////////////////////////////////////////////////////////////////////////////
+//	CONSTANTS
+/////////////////////////////////////////////////////////////////////////////////////////
+	public static final double DEFAULT_SPILL_OVER_FACTOR = 2.0;
+/////////////////////////////////////////////////////////////////////////////////////////
+//	FIELDS
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Getter private final String _localZone;			// the client zone (used if the context has NO zone)
+	@Getter private final LoadBalancer _delegate;		// chooses the server within the zone(s)
+	@Getter private final double _spillOverFactor;
+
+			private final Cache<Collection<LoadBalancedBackendServerStats>,ImmutableListMultimap<String,LoadBalancedBackendServerStats>> _zoneServersBySnapshot = CacheBuilder.newBuilder()
+																																												 .weakKeys()	// identity: the snapshot is immutable
+																																												 .build();
+/////////////////////////////////////////////////////////////////////////////////////////
+//	CONSTRUCTOR
+/////////////////////////////////////////////////////////////////////////////////////////
+	public LoadBalancerZoneAwareImpl(final String localZone) {
+		this(localZone,
+			 new LoadBalancerPowerOfTwoChoicesImpl(),
+			 DEFAULT_SPILL_OVER_FACTOR);
+	}
+	public LoadBalancerZoneAwareImpl(final String localZone,
+									 final LoadBalancer delegate) {
+		this(localZone,
+			 delegate,
+			 DEFAULT_SPILL_OVER_FACTOR);
+	}
+	public LoadBalancerZoneAwareImpl(final String localZone,
+									 final LoadBalancer delegate,
+									 final double spillOverFactor) {
+		if (spillOverFactor < 1) throw new IllegalArgumentException("The spill over factor must be greater than one!");
+		_localZone = localZone;
+		_delegate = delegate;
+		_spillOverFactor = spillOverFactor;
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Override
+	public LoadBalancedBackendServerStats chooseWithin(final Collection<LoadBalancedBackendServerStats> availableServerStats,
+													   final LoadBalancerContext context) {
+		String zone = context != null && context.getZone() != null ? context.getZone() : _localZone;
+		if (zone == null) return _delegate.chooseWithin(availableServerStats,
+														context);
+		List<LoadBalancedBackendServerStats> zoneServerStats = _zoneServersOf(availableServerStats,
+																			  zone);
+		// spill over to the other zones?
+		boolean spillOver = zoneServerStats.isEmpty()
+						 || zoneServerStats.size() == availableServerStats.size()		// all the servers are in the zone
+						 || _isUnderLoad(zoneServerStats,availableServerStats);
+		return _delegate.chooseWithin(spillOver ? availableServerStats : zoneServerStats,
+									  context);
+	}
+	@Override
+	public void onServersRemoved(final Collection<LoadBalancedBackendServerStatsKey> removedServers) {
+		_delegate.onServersRemoved(removedServers);
+	}
+	private boolean _isUnderLoad(final Collection<LoadBalancedBackendServerStats> zoneServerStats,
+								 final Collection<LoadBalancedBackendServerStats> availableServerStats) {
+		long zoneOpenRequests = 0;
+		for (LoadBalancedBackendServerStats serverStats : zoneServerStats) {
+			zoneOpenRequests += serverStats.getOpenRequestCount();
+		}
+		long totalOpenRequests = 0;
+		for (LoadBalancedBackendServerStats serverStats : availableServerStats) {
+			totalOpenRequests += serverStats.getOpenRequestCount();
+		}
+		double zoneAvg = zoneOpenRequests / (double)zoneServerStats.size();
+		double totalAvg = (totalOpenRequests + 1) / (double)availableServerStats.size();	// +1 so an idle service does NOT spill over
+		return zoneAvg > totalAvg * _spillOverFactor;
+	}
+	private List<LoadBalancedBackendServerStats> _zoneServersOf(final Collection<LoadBalancedBackendServerStats> availableServerStats,
+																final String zone) {
+		// only the (immutable) available servers snapshot is cached: a list built for a single choice (ie: excluding the already
+		// tried servers on a retry) is just partitioned
+		if (!(availableServerStats instanceof ImmutableList)) return _partitionByZone(availableServerStats).get(zone);
+
+		ImmutableListMultimap<String,LoadBalancedBackendServerStats> serverStatsByZone = _zoneServersBySnapshot.getIfPresent(availableServerStats);
+		if (serverStatsByZone == null) {
+			serverStatsByZone = _partitionByZone(availableServerStats);
+			_zoneServersBySnapshot.put(availableServerStats,serverStatsByZone);
+		}
+		return serverStatsByZone.get(zone);		// empty if there's NO server in the zone
+	}
+	private static ImmutableListMultimap<String,LoadBalancedBackendServerStats> _partitionByZone(final Collection<LoadBalancedBackendServerStats> availableServerStats) {
+		ImmutableListMultimap.Builder<String,LoadBalancedBackendServerStats> outServerStatsByZone = ImmutableListMultimap.builder();
+		for (LoadBalancedBackendServerStats serverStats : availableServerStats) {
+			String serverZone = serverStats.getServerInstance().getZone();
+			if (serverZone != null) outServerStatsByZone.put(serverZone,serverStats);
+		}
+		return outServerStatsByZone.build();
+	}
+}
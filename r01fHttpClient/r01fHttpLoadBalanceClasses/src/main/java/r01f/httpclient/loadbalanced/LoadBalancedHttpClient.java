@@ -1,24 +1,58 @@
 package r01f.httpclient.loadbalanced;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
 import org.apache.http.HttpHost;
 import org.apache.http.HttpRequest;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.ResponseHandler;
 import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.AbstractExecutionAwareRequest;
+import org.apache.http.concurrent.FutureCallback;
 import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
 import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
 
+import com.google.common.collect.ImmutableSet;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.Accessors;
 import lombok.extern.slf4j.Slf4j;
+import r01f.concurrent.DaemonThreadFactory;
 import r01f.exceptions.Throwables;
 import r01f.http.loadbalance.LoadBalancedBackEndServer;
 import r01f.http.loadbalance.LoadBalancedBackendServerStats;
+import r01f.http.loadbalance.LoadBalancerIDs.LoadBalancedBackEndServerID;
 import r01f.http.loadbalance.LoadBalancerIDs.LoadBalancedServiceID;
 import r01f.http.loadbalance.LoadBalancerManager;
+import r01f.http.loadbalance.LoadBalancerRetryBudget;
 import r01f.http.loadbalance.exception.LoadBalancerNOServerAvailableException;
 import r01f.http.loadbalance.exception.LoadBalancerRetriesExceededException;
+import r01f.httpclient.loadbalanced.LoadBalancedHttpClientUtil.LoadBalancerHttpRequestAsyncExecutor;
 import r01f.httpclient.loadbalanced.LoadBalancedHttpClientUtil.LoadBalancerHttpRequestExecutor;
 import r01f.types.url.Url;
 import r01f.types.url.UrlPath;
@@ -45,8 +79,17 @@ import r01f.types.url.UrlQueryString;
  *		LoadBalancedHttpClient loadBalancedHttpClient = new LoadBalancedHttpClient(loadBalancer,
  *																				   serviceId,
  *																				   2);
+ *		// ... or with a retry policy (backoff & hedged requests)
+ *		LoadBalancedHttpClient loadBalancedHttpClient = new LoadBalancedHttpClient(loadBalancer,
+ *																				   serviceId,
+ *																				   2,
+ *																				   LoadBalancedHttpClientRetryPolicy.create()
+ *																				   				.hedgeIdempotentRequests());
  *
  *		// [2] - Execute load balanced
+ *		// ... requests of the same tenant are routed to the same server (using withConsistentHashLoadBalancing())
+ *		loadBalancedHttpClient.executeWithLoadBalancer(new LoadBalancerContextForHttpRequest(httpGet)
+ *																.withAffinityTo(tenantId));
  *		for (int i=0; i < 10; i++) {
  *			HttpGet httpGet = new HttpGet(Url.from(UrlPath.from("search"),UrlQueryString.fromUrlEncodedParamsString("q=bilbao"))
  *											 .asString());
@@ -60,17 +103,57 @@ import r01f.types.url.UrlQueryString;
  *			}
  *		}
  * </pre>
+ * Retries:
+ * <ul>
+ * 		<li>a failed request is retried at another server: the servers already tried are NOT chosen again</li>
+ * 		<li>if the retry policy sets some retryable status codes (ie: 502, 503 or 504: see {@link LoadBalancedHttpClientRetryPolicy})
+ * 			a response with any of them is a failed request: it's discarded and the request is retried
+ * 			(if every attempt fails a {@link LoadBalancerRetriesExceededException} is thrown)</li>
+ * 		<li>if the retry policy sets a backoff the retries are delayed with an exponential backoff with jitter
+ * 			(see {@link LoadBalancedHttpClientRetryPolicy}): BEWARE! the blocking client sleeps at the calling thread</li>
+ * 		<li>if the calling thread is interrupted the request is NOT retried anymore (the interrupt flag is kept)</li>
+ * 		<li>the retries are bounded by the service retry budget (see {@link LoadBalancerRetryBudget}) so a failing service
+ * 			does NOT receive a retry storm</li>
+ * 		<li>if hedging is enabled, a second request to another server is sent if the response of an idempotent request
+ * 			takes longer than the server latency percentile (ie: p95): the first response wins and the other request is cancelled
+ * 			(the blocking client sends the first request at the calling thread and the hedged one at a bounded pool: if the pool
+ * 			 is exhausted the request is NOT hedged)</li>
+ * </ul>
  */
 @Slf4j
 public class LoadBalancedHttpClient {
 /////////////////////////////////////////////////////////////////////////////////////////
+//	CONSTANTS
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Delays the hedged requests and the async retries
+	 */
+	private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory());
+	/**
+	 * Max number of blocking hedged requests in flight (the first request is sent at the calling thread, only the hedged ones use a pool thread)
+	 */
+	private static final int MAX_HEDGED_REQUESTS_IN_FLIGHT = 64;
+	/**
+	 * Executes the blocking hedged requests: if every thread is busy the request is NOT hedged
+	 */
+	private static final ExecutorService HEDGED_REQUESTS_EXECUTOR = new ThreadPoolExecutor(0,MAX_HEDGED_REQUESTS_IN_FLIGHT,
+																						   60,TimeUnit.SECONDS,
+																						   new SynchronousQueue<Runnable>(),
+																						   new DaemonThreadFactory());
+	/**
+	 * Only the idempotent requests are hedged
+	 */
+	private static final Set<String> IDEMPOTENT_METHODS = ImmutableSet.of("GET","HEAD","OPTIONS","TRACE","PUT","DELETE");
+/////////////////////////////////////////////////////////////////////////////////////////
 //	FILEDS
 /////////////////////////////////////////////////////////////////////////////////////////
 	private final LoadBalancerManager _loadBalancer;
 	private final LoadBalancedServiceID _serviceId;
 	private final int _numRetries;
+	private final LoadBalancedHttpClientRetryPolicy _retryPolicy;
 	
 	private final HttpClient _httpClient;
+	private volatile CloseableHttpAsyncClient _httpAsyncClient;		// lazily created (see executeWithLoadBalancerAsync)
 /////////////////////////////////////////////////////////////////////////////////////////
 //	CONSTRUCTOR
 /////////////////////////////////////////////////////////////////////////////////////////
@@ -90,14 +173,44 @@ public class LoadBalancedHttpClient {
 			 				  .build(),
 			 numRetries);
 	}
+	@SuppressWarnings("resource")
+	public LoadBalancedHttpClient(final LoadBalancerManager loadBalancer,
+								  final LoadBalancedServiceID serviceId,
+								  final int numRetries,
+								  final LoadBalancedHttpClientRetryPolicy retryPolicy) {
+		this(loadBalancer,
+			 serviceId,
+			 // create an http client with some timeouts
+			 HttpClientBuilder.create()
+			 				  .setDefaultRequestConfig(RequestConfig.custom()
+																	.setConnectTimeout(5 * 1000)				// the time to establish the connection with the remote host
+																	.setConnectionRequestTimeout(10 * 1000)		// the time to wait for a connection from the connection manager/pool
+																	.setSocketTimeout(5 * 1000)			// after establishing the connection; maximum time of inactivity between two data packets
+																	.build())
+			 				  .build(),
+			 numRetries,
+			 retryPolicy);
+	}
 	public LoadBalancedHttpClient(final LoadBalancerManager loadBalancer,
 								  final LoadBalancedServiceID serviceId,
 								  final HttpClient httpClient,
 								  final int numRetries) {
+		this(loadBalancer,
+			 serviceId,
+			 httpClient,
+			 numRetries,
+			 LoadBalancedHttpClientRetryPolicy.create());
+	}
+	public LoadBalancedHttpClient(final LoadBalancerManager loadBalancer,
+								  final LoadBalancedServiceID serviceId,
+								  final HttpClient httpClient,
+								  final int numRetries,
+								  final LoadBalancedHttpClientRetryPolicy retryPolicy) {
 		_loadBalancer = loadBalancer;
 		_serviceId = serviceId;
 		_httpClient = httpClient;
 		_numRetries = numRetries;
+		_retryPolicy = retryPolicy;
 	}
 /////////////////////////////////////////////////////////////////////////////////////////
 //	
@@ -112,6 +225,62 @@ public class LoadBalancedHttpClient {
 /////////////////////////////////////////////////////////////////////////////////////////
 //	
 /////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Executes the request WITHOUT blocking the calling thread using a non-blocking (NIO) http client
+	 * The future is completed with the response or completed exceptionally with a {@link LoadBalancerNOServerAvailableException}
+	 * or a {@link LoadBalancerRetriesExceededException}
+	 * @param req
+	 * @return
+	 */
+	public CompletableFuture<HttpResponse> executeWithLoadBalancerAsync(final HttpRequest req) {
+		return this.executeWithLoadBalancerAsync(req,(HttpContext)null);	// no context
+	}
+	public CompletableFuture<HttpResponse> executeWithLoadBalancerAsync(final HttpRequest req,
+																		final HttpContext httpContext) {
+		return this.executeWithLoadBalancerAsync(new LoadBalancerContextForHttpRequest(req),
+												 httpContext);
+	}
+	/**
+	 * Same as {@link #executeWithLoadBalancerAsync(HttpRequest)} BUT the context can route the request
+	 * (ie: affinity to a tenant or zone preference)
+	 * @param context
+	 * @return
+	 */
+	public CompletableFuture<HttpResponse> executeWithLoadBalancerAsync(final LoadBalancerContextForHttpRequest context) {
+		return this.executeWithLoadBalancerAsync(context,(HttpContext)null);	// no context
+	}
+	public CompletableFuture<HttpResponse> executeWithLoadBalancerAsync(final LoadBalancerContextForHttpRequest context,
+																		final HttpContext httpContext) {
+		final HttpRequest req = context.getHttpRequest();
+
+		// ensure that the requests does NOT contains the host part
+		Url url = Url.from(req.getRequestLine().getUri());
+		if (url.getHost() != null) throw new IllegalArgumentException("The [request uri] MUST NOT contain the host part in order to be load balanced!");
+
+		// every request deposits into the service retry budget
+		LoadBalancerRetryBudget retryBudget = _loadBalancer.getRetryBudgetOf(_serviceId);
+		if (retryBudget != null) retryBudget.onRequest();
+
+		// execute the request
+		boolean hedge = _retryPolicy.isHedging() && _isHedgeable(req);
+		return _executeWithLoadBalancerAsync(// context to help choosing the server
+											 context,
+											 // request executor: every hedged request is sent with a copy of the request so it can be cancelled
+											 hedge ? serverStats -> _asyncAttemptOf(serverStats,_copyOf(req),httpContext)
+												   : serverStats -> _asyncAttemptOf(serverStats,req,httpContext),
+											 hedge,
+											 ConcurrentHashMap.<LoadBalancedBackEndServerID>newKeySet(),		// tried servers
+											 retryBudget,
+											 0);
+	}
+	/**
+	 * Closes the non-blocking http client (if it was used)
+	 * @throws IOException
+	 */
+	public void closeAsyncClient() throws IOException {
+		CloseableHttpAsyncClient asyncClient = _httpAsyncClient;
+		if (asyncClient != null) asyncClient.close();
+	}
 	public HttpResponse executeWithLoadBalancer(final HttpRequest req) throws LoadBalancerNOServerAvailableException,
 																			  LoadBalancerRetriesExceededException {
 		return this.executeWithLoadBalancer(req,(HttpContext)null);	// no context
@@ -119,26 +288,41 @@ public class LoadBalancedHttpClient {
 	public HttpResponse executeWithLoadBalancer(final HttpRequest req,
 												final HttpContext httpContext) throws LoadBalancerNOServerAvailableException,
 																			  		  LoadBalancerRetriesExceededException {
+		return this.executeWithLoadBalancer(new LoadBalancerContextForHttpRequest(req),
+											httpContext);
+	}
+	/**
+	 * Same as {@link #executeWithLoadBalancer(HttpRequest)} BUT the context can route the request
+	 * (ie: affinity to a tenant or zone preference)
+	 * @param context
+	 * @return
+	 * @throws LoadBalancerNOServerAvailableException
+	 * @throws LoadBalancerRetriesExceededException
+	 */
+	public HttpResponse executeWithLoadBalancer(final LoadBalancerContextForHttpRequest context) throws LoadBalancerNOServerAvailableException,
+																									  	LoadBalancerRetriesExceededException {
+		return this.executeWithLoadBalancer(context,(HttpContext)null);	// no context
+	}
+	public HttpResponse executeWithLoadBalancer(final LoadBalancerContextForHttpRequest context,
+												final HttpContext httpContext) throws LoadBalancerNOServerAvailableException,
+																			  		  LoadBalancerRetriesExceededException {
+		final HttpRequest req = context.getHttpRequest();
+
 		// ensure that the requests does NOT contains the host part
 		Url url = Url.from(req.getRequestLine().getUri());
 		if (url.getHost() != null) throw new IllegalArgumentException("The [request uri] MUST NOT contain the host part in order to be load balanced!");
-		
+
+		// every request deposits into the service retry budget
+		LoadBalancerRetryBudget retryBudget = _loadBalancer.getRetryBudgetOf(_serviceId);
+		if (retryBudget != null) retryBudget.onRequest();
+
 		// execute the request
+		boolean hedge = _retryPolicy.isHedging() && _isHedgeable(req);
 		return _executeWithLoadBalancer(// context to help choosing the server
-										new LoadBalancerContextForHttpRequest(req),
-										// request executor
-										new LoadBalancerHttpRequestExecutor() {
-													@Override
-													public HttpResponse execute(final LoadBalancedBackEndServer choosenServer) {
-														HttpHost host = HttpHost.create(choosenServer.getUrl().getHost().asString());
-														try {
-															return httpContext != null ? _httpClient.execute(host,req,httpContext)
-																					   : _httpClient.execute(host,req);
-														} catch (Exception ex) {
-															throw Throwables.throwUnchecked(ex);
-														}
-													}
-										 });
+										context,
+										req,httpContext,
+										hedge,
+										retryBudget);
 	}
 	public <T> T executeWithLoadBalancer(final HttpRequest req,
 										 final ResponseHandler<? extends T> responseHandler) throws LoadBalancerNOServerAvailableException,
@@ -163,29 +347,395 @@ public class LoadBalancedHttpClient {
 /////////////////////////////////////////////////////////////////////////////////////////
 //	
 /////////////////////////////////////////////////////////////////////////////////////////	
-	protected HttpResponse _executeWithLoadBalancer(final LoadBalancerContextForHttpRequest context,
-													final LoadBalancerHttpRequestExecutor executor) throws LoadBalancerNOServerAvailableException,
-																										   LoadBalancerRetriesExceededException {
-		HttpResponse httpResponse = null;
-		
-		int retries = _numRetries;
-		do {
-			// get a load balanced server
+	private HttpResponse _executeWithLoadBalancer(final LoadBalancerContextForHttpRequest context,
+												  final HttpRequest req,final HttpContext httpContext,
+												  final boolean hedge,
+													final LoadBalancerRetryBudget retryBudget) throws LoadBalancerNOServerAvailableException,
+																									  LoadBalancerRetriesExceededException {
+		Set<LoadBalancedBackEndServerID> triedServers = ConcurrentHashMap.newKeySet();
+		for (int retry = 0; retry <= _numRetries; retry++) {
+			// a retry: spend the retry budget & backoff
+			if (retry > 0) {
+				if (Thread.currentThread().isInterrupted()) {
+					log.warn("[load balancer] > the calling thread was interrupted: the request to service {} is NOT retried",_serviceId);
+					break;
+				}
+				if (!_retryBudgetAllowsRetry(retryBudget)) break;
+				long backOff = _retryPolicy.backOffFor(retry);
+				if (backOff > 0) {
+					try {
+						Thread.sleep(backOff);
+					} catch (InterruptedException intEx) {
+						Thread.currentThread().interrupt();
+						break;
+					}
+				}
+			}
+			// get a load balanced server (NOT already tried)
 			LoadBalancedBackendServerStats choosenServerStats = _loadBalancer.chooseServerFor(_serviceId,
-																							  context);
-			if (choosenServerStats == null) throw new LoadBalancerNOServerAvailableException(_serviceId);
+																							  context,
+																							  triedServers);
+			if (choosenServerStats == null) {
+				if (triedServers.isEmpty()) throw new LoadBalancerNOServerAvailableException(_serviceId);
+				log.warn("[load balancer] > every available server of service {} was already tried",_serviceId);
+				break;
+			}
+			triedServers.add(choosenServerStats.getServerInstance().getId());
 			
 			if (log.isDebugEnabled()) log.debug("[load balance] > choosen sericeId/server={}",
 					  							choosenServerStats.getKey().asString());
 
-			// make the http request
-			httpResponse = LoadBalancedHttpClientUtil.executeWithLoadBalancer(choosenServerStats,
-																			  executor);
-			retries = retries - 1;
-		} while (httpResponse == null
-			  && retries >= 0);
-		if (httpResponse == null) throw new LoadBalancerRetriesExceededException(_serviceId,_numRetries);
-		
-		return httpResponse;
+			// make the http request: 
+			//		- a NOT hedged request is executed at the calling thread
+			//		- a hedged request is executed at the calling thread BUT the hedged one is executed at another thread
+			//		  (every one with a copy of the request so it can be cancelled)
+			HttpResponse httpResponse = hedge ? _executeHedgedBlocking(context,
+																	   choosenServerStats,
+																	   req,httpContext,
+																	   triedServers,
+																	   retryBudget)
+											  : _executeAttempt(choosenServerStats,
+													  			req,httpContext);
+			if (httpResponse != null) return httpResponse;
+		}
+		throw new LoadBalancerRetriesExceededException(_serviceId,_numRetries);
+	}
+	private CompletableFuture<HttpResponse> _executeWithLoadBalancerAsync(final LoadBalancerContextForHttpRequest context,
+																			final Function<LoadBalancedBackendServerStats,LoadBalancedHttpRequestAttempt> attemptLauncher,
+																			final boolean hedge,
+																			final Set<LoadBalancedBackEndServerID> triedServers,
+																			final LoadBalancerRetryBudget retryBudget,
+																			final int retry) {
+		// get a load balanced server (NOT already tried)
+		LoadBalancedBackendServerStats choosenServerStats = _loadBalancer.chooseServerFor(_serviceId,
+																						  context,
+																						  triedServers);
+		if (choosenServerStats == null) return triedServers.isEmpty() ? _failed(new LoadBalancerNOServerAvailableException(_serviceId))
+																	  : _failed(new LoadBalancerRetriesExceededException(_serviceId,_numRetries));
+		triedServers.add(choosenServerStats.getServerInstance().getId());
+
+		if (log.isDebugEnabled()) log.debug("[load balance] > choosen sericeId/server={}",
+				  							choosenServerStats.getKey().asString());
+
+		// make the http request and retry with another server if it fails
+		CompletableFuture<HttpResponse> responseFuture = hedge ? _executeHedged(context,
+																				choosenServerStats,
+																				attemptLauncher,attemptLauncher,
+																				triedServers,
+																				retryBudget)
+															   : attemptLauncher.apply(choosenServerStats).getResponse();
+		return responseFuture.thenCompose(httpResponse -> {
+								 			if (httpResponse != null) return CompletableFuture.completedFuture(httpResponse);
+								 			if (retry >= _numRetries
+								 			 || !_retryBudgetAllowsRetry(retryBudget)) return LoadBalancedHttpClient.<HttpResponse>_failed(new LoadBalancerRetriesExceededException(_serviceId,_numRetries));
+								 			// backoff & retry
+								 			return _delay(_retryPolicy.backOffFor(retry + 1))
+								 						.thenCompose(nothing -> _executeWithLoadBalancerAsync(context,
+								 																			  attemptLauncher,
+								 																			  hedge,
+								 																			  triedServers,
+								 																			  retryBudget,
+								 																			  retry + 1));
+							 			  });
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	HEDGING
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Sends the request to the chosen server and, if the response is NOT received after the server latency percentile (ie: p95),
+	 * sends a hedged request to another server: the first response wins and the other request is cancelled
+	 * @param context
+	 * @param choosenServerStats
+	 * @param attemptLauncher launches the request to the chosen server
+	 * @param hedgedAttemptLauncher launches the hedged request
+	 * @param triedServers
+	 * @param retryBudget
+	 * @return the first received response or null if every request failed
+	 */
+	private CompletableFuture<HttpResponse> _executeHedged(final LoadBalancerContextForHttpRequest context,
+														   final LoadBalancedBackendServerStats choosenServerStats,
+														   final Function<LoadBalancedBackendServerStats,LoadBalancedHttpRequestAttempt> attemptLauncher,
+														   final Function<LoadBalancedBackendServerStats,LoadBalancedHttpRequestAttempt> hedgedAttemptLauncher,
+														   final Set<LoadBalancedBackEndServerID> triedServers,
+														   final LoadBalancerRetryBudget retryBudget) {
+		final LoadBalancedHedgedRequests hedgedRequests = new LoadBalancedHedgedRequests();
+		hedgedRequests.add(attemptLauncher.apply(choosenServerStats));
+
+		// the hedging delay cannot be computed if there's NO latency sample
+		double latencyPercentile = choosenServerStats.getLatencyPercentile(_retryPolicy.getHedgingLatencyPercentile());
+		if (latencyPercentile < 0) return hedgedRequests.getResponse();
+
+		long hedgingDelay = Math.max(_retryPolicy.getHedgingMinDelay(),(long)latencyPercentile);
+		final ScheduledFuture<?> hedgingTask = SCHEDULER.schedule(() -> {
+																		try {
+																			if (hedgedRequests.isDone()) return;	// the response was already received
+																			LoadBalancedBackendServerStats hedgedServerStats = _loadBalancer.chooseServerFor(_serviceId,
+																																							 context,
+																																							 triedServers);
+																			if (hedgedServerStats == null) return;	// there's NO other available server
+																			if (!_retryBudgetAllowsRetry(retryBudget)) return;
+																			triedServers.add(hedgedServerStats.getServerInstance().getId());
+																			log.debug("[load balancer] > NO response from {} after {}ms: hedging the request to {}",
+																					  choosenServerStats.getServerInstance().getId(),hedgingDelay,
+																					  hedgedServerStats.getServerInstance().getId());
+																			hedgedRequests.add(hedgedAttemptLauncher.apply(hedgedServerStats));
+																		} catch (Throwable th) {
+																			log.error("[load balancer] > error hedging the request: {}",th.getMessage(),th);
+																		}
+																  },
+																  hedgingDelay,TimeUnit.MILLISECONDS);
+		return hedgedRequests.getResponse()
+							 .whenComplete((httpResponse,th) -> hedgingTask.cancel(false));
+	}
+	/**
+	 * Same as {@link #_executeHedged(LoadBalancerContextForHttpRequest, LoadBalancedBackendServerStats, Function, Function, Set, LoadBalancerRetryBudget)}
+	 * BUT the request to the chosen server is executed at the calling thread: only the hedged request (if any) is executed
+	 * at the bounded {@link #HEDGED_REQUESTS_EXECUTOR}
+	 * @return the first received response or null if every request failed
+	 */
+	private HttpResponse _executeHedgedBlocking(final LoadBalancerContextForHttpRequest context,
+												final LoadBalancedBackendServerStats choosenServerStats,
+												final HttpRequest req,final HttpContext httpContext,
+												final Set<LoadBalancedBackEndServerID> triedServers,
+												final LoadBalancerRetryBudget retryBudget) {
+		final HttpRequest attemptReq = _copyOf(req);
+		final CompletableFuture<HttpResponse> attemptResponse = new CompletableFuture<HttpResponse>();
+		CompletableFuture<HttpResponse> outResponse = _executeHedged(context,
+																	 choosenServerStats,
+																	 // the request to the chosen server is executed below at the calling thread
+																	 serverStats -> new LoadBalancedHttpRequestAttempt(attemptResponse,
+																			 										   attemptReq),
+																	 // the hedged request is executed at another thread
+																	 serverStats -> _hedgedAttemptOf(serverStats,
+																			 						 _copyOf(req),httpContext),
+																	 triedServers,
+																	 retryBudget);
+		try {
+			attemptResponse.complete(_executeAttempt(choosenServerStats,
+													 attemptReq,httpContext));
+		} catch (Throwable th) {
+			attemptResponse.completeExceptionally(th);		// the hedged request (if any) might still succeed
+		}
+		try {
+			return outResponse.get();
+		} catch (InterruptedException intEx) {
+			Thread.currentThread().interrupt();				// keep the interrupt flag: the request is NOT retried
+			outResponse.thenAccept(httpResponse -> {		// nobody waits for the hedged response anymore: release the connection
+										if (httpResponse != null) EntityUtils.consumeQuietly(httpResponse.getEntity());
+								   });
+			return null;
+		} catch (ExecutionException exEx) {
+			return null;									// cannot happen: the response is completed with null if every request failed
+		}
+	}
+	private LoadBalancedHttpRequestAttempt _hedgedAttemptOf(final LoadBalancedBackendServerStats serverStats,
+															final HttpRequest attemptReq,final HttpContext httpContext) {
+		CompletableFuture<HttpResponse> responseFuture = null;
+		try {
+			responseFuture = CompletableFuture.supplyAsync(() -> _executeAttempt(serverStats,
+																				 attemptReq,httpContext),
+														   HEDGED_REQUESTS_EXECUTOR);
+		} catch (RejectedExecutionException rejEx) {
+			log.warn("[load balancer] > there're {} hedged requests in flight: the request to {} is NOT hedged",
+					 MAX_HEDGED_REQUESTS_IN_FLIGHT,serverStats.getServerInstance().getId());
+			responseFuture = CompletableFuture.completedFuture(null);
+		}
+		return new LoadBalancedHttpRequestAttempt(responseFuture,
+												  attemptReq);
+	}
+	/**
+	 * Can the request be sent twice?
+	 * @param req
+	 * @return
+	 */
+	private static boolean _isHedgeable(final HttpRequest req) {
+		// only idempotent requests
+		if (!IDEMPOTENT_METHODS.contains(req.getRequestLine().getMethod().toUpperCase())) return false;
+		// the request must be copied so every hedged request can be cancelled
+		if (!(req instanceof AbstractExecutionAwareRequest)) return false;
+		// ... and the payload must be copied and sent twice
+		if (req instanceof HttpEntityEnclosingRequest) {
+			HttpEntity entity = ((HttpEntityEnclosingRequest)req).getEntity();
+			if (entity != null
+			 && (!entity.isRepeatable() || !(entity instanceof Cloneable))) return false;
+		}
+		return true;
+	}
+	private static HttpRequest _copyOf(final HttpRequest req) {
+		try {
+			return (HttpRequest)((AbstractExecutionAwareRequest)req).clone();
+		} catch (CloneNotSupportedException cnsEx) {
+			throw new IllegalStateException("Could NOT copy the request in order to hedge it: " + cnsEx.getMessage(),cnsEx);
+		}
+	}
+	/**
+	 * A request sent to a server
+	 */
+	@Accessors(prefix="_")
+	@RequiredArgsConstructor
+	private static class LoadBalancedHttpRequestAttempt {
+		@Getter private final CompletableFuture<HttpResponse> _response;	// completed with null if the request failed
+				private final HttpRequest _request;
+
+		void cancel() {
+			if (_request instanceof AbstractExecutionAwareRequest) ((AbstractExecutionAwareRequest)_request).abort();
+		}
+	}
+	/**
+	 * The requests sent to different servers: the first response wins and the other requests are cancelled
+	 */
+	private static class LoadBalancedHedgedRequests {
+		private final CompletableFuture<HttpResponse> _response = new CompletableFuture<HttpResponse>();
+		private final Collection<LoadBalancedHttpRequestAttempt> _attempts = new CopyOnWriteArrayList<>();
+		private final AtomicInteger _pending = new AtomicInteger();
+
+		CompletableFuture<HttpResponse> getResponse() {
+			return _response;
+		}
+		boolean isDone() {
+			return _response.isDone();
+		}
+		void add(final LoadBalancedHttpRequestAttempt attempt) {
+			_pending.incrementAndGet();
+			_attempts.add(attempt);
+			attempt.getResponse()
+				   .whenComplete((httpResponse,th) -> {
+					   				if (httpResponse != null) {
+					   					if (_response.complete(httpResponse)) {
+					   						// the first response wins: cancel the other requests
+					   						for (LoadBalancedHttpRequestAttempt other : _attempts) {
+					   							if (other != attempt) other.cancel();
+					   						}
+					   					} else {
+					   						// another request won: release the connection
+					   						EntityUtils.consumeQuietly(httpResponse.getEntity());
+					   					}
+					   				} else if (_pending.decrementAndGet() == 0) {
+					   					_response.complete(null);		// every request failed
+					   				}
+				   				 });
+			if (_response.isDone() && !attempt.getResponse().isDone()) attempt.cancel();	// too late
+		}
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Executes the request at the given server (at the calling thread)
+	 * @param serverStats
+	 * @param attemptReq
+	 * @param httpContext
+	 * @return the response or null if the request failed or the server returned a retryable status
+	 */
+	private HttpResponse _executeAttempt(final LoadBalancedBackendServerStats serverStats,
+										 final HttpRequest attemptReq,final HttpContext httpContext) {
+		HttpResponse httpResponse = LoadBalancedHttpClientUtil.executeWithLoadBalancer(serverStats,
+																					   _executorFor(attemptReq,httpContext));
+		return _nullIfRetryable(serverStats,
+								httpResponse);
+	}
+	/**
+	 * A retryable 5xx response (ie: 503) is a failed attempt: the response is discarded (the connection is released)
+	 * so the request is retried at another server and a fast error response does NOT win a hedged request race
+	 * @param serverStats
+	 * @param httpResponse
+	 * @return the response or null if it's a retryable one
+	 */
+	private HttpResponse _nullIfRetryable(final LoadBalancedBackendServerStats serverStats,
+										  final HttpResponse httpResponse) {
+		if (httpResponse == null
+		 || !_retryPolicy.isRetryableStatusCode(httpResponse.getStatusLine().getStatusCode())) return httpResponse;
+		log.warn("[load balancer] > {} returned {}: retrying another server",
+				 serverStats.getServerInstance().getId(),httpResponse.getStatusLine());
+		EntityUtils.consumeQuietly(httpResponse.getEntity());
+		return null;
+	}
+	private LoadBalancerHttpRequestExecutor _executorFor(final HttpRequest attemptReq,
+														 final HttpContext httpContext) {
+		return new LoadBalancerHttpRequestExecutor() {
+						@Override
+						public HttpResponse execute(final LoadBalancedBackEndServer choosenServer) {
+							HttpHost host = HttpHost.create(choosenServer.getUrl().getHost().asString());
+							try {
+								return httpContext != null ? _httpClient.execute(host,attemptReq,httpContext)
+														   : _httpClient.execute(host,attemptReq);
+							} catch (Exception ex) {
+								// aborted: a hedged request to another server won
+								if (attemptReq instanceof AbstractExecutionAwareRequest
+								 && ((AbstractExecutionAwareRequest)attemptReq).isAborted()) throw new CancellationException("The request to " + host + " was cancelled");
+								throw Throwables.throwUnchecked(ex);
+							}
+						}
+			   };
+	}
+	private LoadBalancedHttpRequestAttempt _asyncAttemptOf(final LoadBalancedBackendServerStats serverStats,
+														   final HttpRequest attemptReq,
+														   final HttpContext httpContext) {
+		CompletableFuture<HttpResponse> responseFuture = LoadBalancedHttpClientUtil.executeWithLoadBalancerAsync(serverStats,
+											 new LoadBalancerHttpRequestAsyncExecutor() {
+														@Override
+														public CompletableFuture<HttpResponse> execute(final LoadBalancedBackEndServer choosenServer) {
+															HttpHost host = HttpHost.create(choosenServer.getUrl().getHost().asString());
+															final CompletableFuture<HttpResponse> outFuture = new CompletableFuture<HttpResponse>();
+															final Future<HttpResponse> reqFuture = _getHttpAsyncClient().execute(host,attemptReq,httpContext,
+																						  new FutureCallback<HttpResponse>() {
+																									@Override
+																									public void completed(final HttpResponse response) {
+																										outFuture.complete(response);
+																									}
+																									@Override
+																									public void failed(final Exception ex) {
+																										outFuture.completeExceptionally(ex);
+																									}
+																									@Override
+																									public void cancelled() {
+																										outFuture.cancel(false);
+																									}
+																						  });
+															// aborting the request cancels it (see LoadBalancedHttpRequestAttempt)
+															if (attemptReq instanceof AbstractExecutionAwareRequest) ((AbstractExecutionAwareRequest)attemptReq).setCancellable(() -> reqFuture.cancel(true));
+															return outFuture;
+														}
+											 });
+		return new LoadBalancedHttpRequestAttempt(responseFuture.thenApply(httpResponse -> _nullIfRetryable(serverStats,
+																											 httpResponse)),
+												  attemptReq);
+	}
+	private boolean _retryBudgetAllowsRetry(final LoadBalancerRetryBudget retryBudget) {
+		if (retryBudget == null || retryBudget.tryAcquireRetry()) return true;
+		log.warn("[load balancer] > the retry budget of service {} is exhausted: the request is NOT retried",_serviceId);
+		return false;
+	}
+	private static CompletableFuture<Void> _delay(final long millis) {
+		if (millis <= 0) return CompletableFuture.completedFuture(null);
+		CompletableFuture<Void> outFuture = new CompletableFuture<Void>();
+		SCHEDULER.schedule(() -> outFuture.complete(null),
+						   millis,TimeUnit.MILLISECONDS);
+		return outFuture;
+	}
+	private CloseableHttpAsyncClient _getHttpAsyncClient() {
+		CloseableHttpAsyncClient outClient = _httpAsyncClient;
+		if (outClient == null) {
+			synchronized(this) {
+				if (_httpAsyncClient == null) {
+					CloseableHttpAsyncClient asyncClient = HttpAsyncClients.custom()
+																		   .setDefaultRequestConfig(RequestConfig.custom()
+																												 .setConnectTimeout(5 * 1000)
+																												 .setConnectionRequestTimeout(10 * 1000)
+																												 .setSocketTimeout(5 * 1000)
+																												 .build())
+																		   .build();
+					asyncClient.start();
+					_httpAsyncClient = asyncClient;
+				}
+				outClient = _httpAsyncClient;
+			}
+		}
+		return outClient;
+	}
+	private static <T> CompletableFuture<T> _failed(final Throwable th) {
+		CompletableFuture<T> outFuture = new CompletableFuture<T>();
+		outFuture.completeExceptionally(th);
+		return outFuture;
 	}
 }
@@ -0,0 +1,113 @@
+package r01f.httpclient.loadbalanced;
+
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.primitives.Ints;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+/**
+ * {@link LoadBalancedHttpClient} retry policy
+ * <ul>
+ * 		<li>retryable status codes: a response with any of these status codes (ie: 502, 503 & 504) is a failed request
+ * 			so the request is retried at another server (none by default: retrying on a status code is opt-in)</li>
+ * 		<li>backoff: the retries are delayed an exponentially growing random time (full jitter) so the retries
+ * 			of many clients are NOT synchronized (no backoff by default: the blocking client waits at the calling thread)</li>
+ * 		<li>hedging: if the response of an idempotent request is NOT received after the latency percentile of the server (ie: p95)
+ * 			a second request is sent to another server: the first received response wins and the other request is cancelled</li>
+ * </ul>
+ * BEWARE! the retries and the hedged requests are also bounded by the service retry budget (see LoadBalancerRetryBudget)
+ * <pre class='brush:java'>
+ * 		LoadBalancedHttpClientRetryPolicy policy = LoadBalancedHttpClientRetryPolicy.create()
+ * 																	.retryOnStatusCodes(502,503,504)
+ * 																	.backOff(50,2000)
+ * 																	.hedgeIdempotentRequestsAfterLatencyPercentile(0.95);
+ * </pre>
+ */
+@Accessors(prefix="_")
+@NoArgsConstructor
+public class LoadBalancedHttpClientRetryPolicy {
+/////////////////////////////////////////////////////////////////////////////////////////
+//	FIELDS
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Getter private Set<Integer> _retryableStatusCodes = ImmutableSet.of();	// ie: 502, 503 & 504 (bad gateway, service unavailable & gateway timeout)
+
+	@Getter private long _backOffBase = 0;					// milis of the first retry max delay (0 = no backoff)
+	@Getter private long _backOffMax = 0;					// max milis a retry is delayed
+
+	@Getter private boolean _hedging = false;				// send hedged requests?
+	@Getter private double _hedgingLatencyPercentile = 0.95;	// a hedged request is sent if the response takes longer than this server latency percentile
+	@Getter private long _hedgingMinDelay = 10;				// min milis before sending a hedged request
+/////////////////////////////////////////////////////////////////////////////////////////
+//	BUILDER
+/////////////////////////////////////////////////////////////////////////////////////////
+	public static LoadBalancedHttpClientRetryPolicy create() {
+		return new LoadBalancedHttpClientRetryPolicy();
+	}
+	public LoadBalancedHttpClientRetryPolicy retryOnStatusCodes(final int... statusCodes) {
+		_retryableStatusCodes = statusCodes != null ? ImmutableSet.copyOf(Ints.asList(statusCodes))
+													: ImmutableSet.<Integer>of();
+		return this;
+	}
+	public LoadBalancedHttpClientRetryPolicy noRetryOnStatusCodes() {
+		_retryableStatusCodes = ImmutableSet.of();
+		return this;
+	}
+	public LoadBalancedHttpClientRetryPolicy backOff(final long baseMilis,final long maxMilis) {
+		if (baseMilis < 0 || maxMilis < baseMilis) throw new IllegalArgumentException("The backoff base must be positive and lower than the max backoff!");
+		_backOffBase = baseMilis;
+		_backOffMax = maxMilis;
+		return this;
+	}
+	public LoadBalancedHttpClientRetryPolicy noBackOff() {
+		_backOffBase = 0;
+		_backOffMax = 0;
+		return this;
+	}
+	public LoadBalancedHttpClientRetryPolicy hedgeIdempotentRequests() {
+		_hedging = true;
+		return this;
+	}
+	public LoadBalancedHttpClientRetryPolicy hedgeIdempotentRequestsAfterLatencyPercentile(final double quantile) {
+		if (quantile <= 0 || quantile >= 1) throw new IllegalArgumentException("The hedging latency percentile must be between 0 and 1!");
+		_hedging = true;
+		_hedgingLatencyPercentile = quantile;
+		return this;
+	}
+	public LoadBalancedHttpClientRetryPolicy hedgingMinDelay(final long milis) {
+		_hedgingMinDelay = milis;
+		return this;
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	METHODS
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * @param statusCode
+	 * @return true if a response with the given status code is a failed request that must be retried at another server
+	 */
+	public boolean isRetryableStatusCode(final int statusCode) {
+		return _retryableStatusCodes.contains(statusCode);
+	}
+	/**
+	 * Returns the delay before a retry: a random time between zero and an exponentially growing cap (full jitter)
+	 * @param retry the retry number (1 = first retry)
+	 * @return the delay in millis
+	 */
+	public long backOffFor(final int retry) {
+		if (_backOffBase <= 0 || retry <= 0) return 0;
+		long cap = Math.min(_backOffMax,
+							_backOffBase * (1L << Math.min(retry - 1,20)));	// avoid overflows
+		return ThreadLocalRandom.current().nextLong(cap + 1);
+	}
+	@Override
+	public String toString() {
+		return "retry on " + _retryableStatusCodes
+			 + ", backoff=" + _backOffBase + "-" + _backOffMax + "ms"
+			 + (_hedging ? ", hedging after p" + (int)(_hedgingLatencyPercentile * 100) + " latency (min " + _hedgingMinDelay + "ms)"
+					 	 : ", NO hedging");
+	}
+}
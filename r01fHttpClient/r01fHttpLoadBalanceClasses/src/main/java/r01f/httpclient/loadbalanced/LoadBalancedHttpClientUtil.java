@@ -1,5 +1,8 @@
 package r01f.httpclient.loadbalanced;
 
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeoutException;
 
 import org.apache.http.HttpResponse;
@@ -20,6 +23,9 @@ public abstract class LoadBalancedHttpClientUtil {
 	public interface LoadBalancerHttpRequestExecutor {
 		public HttpResponse execute(final LoadBalancedBackEndServer choosenServer); 
 	}
+	public interface LoadBalancerHttpRequestAsyncExecutor {
+		public CompletableFuture<HttpResponse> execute(final LoadBalancedBackEndServer choosenServer);
+	}
 /////////////////////////////////////////////////////////////////////////////////////////
 //	EXECUTOR
 /////////////////////////////////////////////////////////////////////////////////////////	
@@ -46,6 +52,11 @@ public abstract class LoadBalancedHttpClientUtil {
 			} else if (httpResponse.getStatusLine().getStatusCode() >= 500) {
 				throw new HttpResponseException(httpResponse.getStatusLine().getStatusCode(),"Unexpected response");
 			}
+			choosenServerStats.recordSuccess();
+		} catch (CancellationException cancelEx) {
+			// cancelled (ie: a hedged request to another server won): it's NOT a server error
+			log.debug("[load balancer] > request to {} cancelled",
+					  choosenServerStats.getServerInstance().getId());
 		} catch (Exception e) {
 			// unexpected exception
 			log.error("[load balancer] > unexpected exception: {}, retrying another server",
@@ -59,4 +70,56 @@ public abstract class LoadBalancedHttpClientUtil {
 		}
 		return httpResponse;	// may be null
 	}
+	/**
+	 * Same as {@link #executeWithLoadBalancer(LoadBalancedBackendServerStats, LoadBalancerHttpRequestExecutor)} BUT
+	 * WITHOUT blocking the calling thread: the returned future is completed with null if the request fails
+	 * (the server stats are updated when the response is received)
+	 * @param choosenServerStats
+	 * @param executor
+	 * @return
+	 */
+	public static CompletableFuture<HttpResponse> executeWithLoadBalancerAsync(final LoadBalancedBackendServerStats choosenServerStats,
+													   						   final LoadBalancerHttpRequestAsyncExecutor executor) {
+		// update the server stats
+		choosenServerStats.incrementSentMessages();
+		choosenServerStats.incrementOpenRequests();
+
+		// make the request accounting time
+		final long startTime = System.currentTimeMillis();
+		CompletableFuture<HttpResponse> responseFuture = null;
+		try {
+			responseFuture = executor.execute(choosenServerStats.getServerInstance());
+		} catch (Throwable th) {
+			responseFuture = new CompletableFuture<HttpResponse>();
+			responseFuture.completeExceptionally(th);
+		}
+		return responseFuture.handle((httpResponse,th) -> {
+										long latency = System.currentTimeMillis() - startTime;
+										// update the server stats
+										choosenServerStats.decrementOpenRequests();
+										// cancelled (ie: a hedged request to another server won): it's NOT a server error
+										if (th instanceof CancellationException
+										 || (th instanceof CompletionException && th.getCause() instanceof CancellationException)) {
+											log.debug("[load balancer] > request to {} cancelled",
+													  choosenServerStats.getServerInstance().getId());
+											return null;
+										}
+										if (latency > 0) choosenServerStats.recordLatency(latency);
+										// error?
+										if (th != null) {
+											log.error("[load balancer] > unexpected exception: {}, retrying another server",
+													  th.getMessage(),th);
+											choosenServerStats.incrementErrors();
+											return null;
+										}
+										if (httpResponse == null || httpResponse.getStatusLine().getStatusCode() >= 500) {
+											log.error("[load balancer] > unexpected response: {}",
+													  httpResponse != null ? httpResponse.getStatusLine() : "timed out while waiting for a response");
+											choosenServerStats.incrementErrors();
+										} else {
+											choosenServerStats.recordSuccess();
+										}
+										return httpResponse;	// may be null
+									 });
+	}
 }
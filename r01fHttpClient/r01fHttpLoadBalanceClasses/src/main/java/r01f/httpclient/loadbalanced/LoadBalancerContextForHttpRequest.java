@@ -1,24 +1,87 @@
 package r01f.httpclient.loadbalanced;
 
+import org.apache.http.Header;
 import org.apache.http.HttpRequest;
 
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.Accessors;
+import r01f.facets.HasTenantID;
+import r01f.guids.CommonOIDs.TenantID;
+import r01f.http.loadbalance.balancer.LoadBalancerConsistentHashImpl;
 import r01f.http.loadbalance.balancer.LoadBalancerContext;
+import r01f.http.loadbalance.balancer.LoadBalancerZoneAwareImpl;
 
 /**
  * Context used to help choosing a load balanced server
+ * <ul>
+ * 		<li>affinity: the requests with the same key (ie: session or tenant) are routed to the same server
+ * 			(see {@link LoadBalancerConsistentHashImpl})</li>
+ * 		<li>zone: the requests are routed to the servers at the same zone (see {@link LoadBalancerZoneAwareImpl})</li>
+ * </ul>
+ * <pre class='brush:java'>
+ * 		HttpResponse resp = loadBalancedHttpClient.executeWithLoadBalancer(new LoadBalancerContextForHttpRequest(httpGet)
+ * 																				.withAffinityTo(tenantId));
+ * </pre>
  */
 @Accessors(prefix="_")
 @RequiredArgsConstructor
 public class LoadBalancerContextForHttpRequest
   implements LoadBalancerContext {
 /////////////////////////////////////////////////////////////////////////////////////////
+//	CONSTANTS
+/////////////////////////////////////////////////////////////////////////////////////////
+	public static final String SESSION_COOKIE_NAME = "JSESSIONID";
+/////////////////////////////////////////////////////////////////////////////////////////
 //	FIELDS
 /////////////////////////////////////////////////////////////////////////////////////////
 	@Getter private final HttpRequest _httpRequest;
-	
+	@Getter private String _affinityKey;		// null if there's NO affinity
+	@Getter private String _zone;				// null if the load balancer local zone is used
+/////////////////////////////////////////////////////////////////////////////////////////
+//	AFFINITY
+/////////////////////////////////////////////////////////////////////////////////////////
+	public LoadBalancerContextForHttpRequest withAffinityKey(final String affinityKey) {
+		_affinityKey = affinityKey;
+		return this;
+	}
+	public LoadBalancerContextForHttpRequest withAffinityTo(final TenantID tenantId) {
+		return this.withAffinityKey(tenantId != null ? "tenant:" + tenantId.asString() : null);
+	}
+	public LoadBalancerContextForHttpRequest withAffinityTo(final HasTenantID hasTenantId) {
+		return this.withAffinityTo(hasTenantId != null ? hasTenantId.getTenantId() : null);
+	}
+	/**
+	 * The affinity key is the value of a request header (no affinity if the request does NOT have the header)
+	 * @param headerName
+	 * @return
+	 */
+	public LoadBalancerContextForHttpRequest withAffinityFromHeader(final String headerName) {
+		Header header = _httpRequest.getFirstHeader(headerName);
+		return this.withAffinityKey(header != null ? header.getValue() : null);
+	}
+	/**
+	 * The affinity key is the value of a request cookie (no affinity if the request does NOT have the cookie)
+	 * @param cookieName
+	 * @return
+	 */
+	public LoadBalancerContextForHttpRequest withAffinityFromCookie(final String cookieName) {
+		return this.withAffinityKey(_cookieValue(_httpRequest,cookieName));
+	}
+	/**
+	 * The requests of the same session are routed to the same server
+	 * @return
+	 */
+	public LoadBalancerContextForHttpRequest withSessionAffinity() {
+		return this.withAffinityFromCookie(SESSION_COOKIE_NAME);
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	ZONE
+/////////////////////////////////////////////////////////////////////////////////////////
+	public LoadBalancerContextForHttpRequest inZone(final String zone) {
+		_zone = zone;
+		return this;
+	}
 /////////////////////////////////////////////////////////////////////////////////////////
 //	
 /////////////////////////////////////////////////////////////////////////////////////////	
@@ -26,4 +89,15 @@ public class LoadBalancerContextForHttpRequest
 	public <C extends LoadBalancerContext> C as(final Class<C> type) {
 		return (C)this;
 	}
+	private static String _cookieValue(final HttpRequest req,
+									   final String cookieName) {
+		for (Header header : req.getHeaders("Cookie")) {
+			for (String cookie : header.getValue().split(";")) {
+				int eqPos = cookie.indexOf('=');
+				if (eqPos > 0
+				 && cookie.substring(0,eqPos).trim().equals(cookieName)) return cookie.substring(eqPos + 1).trim();
+			}
+		}
+		return null;
+	}
 }
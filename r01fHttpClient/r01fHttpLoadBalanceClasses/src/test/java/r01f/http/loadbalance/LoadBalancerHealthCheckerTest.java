@@ -0,0 +1,183 @@
+package r01f.http.loadbalance;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.codahale.metrics.MetricRegistry;
+
+import r01f.http.loadbalance.LoadBalancerIDs.LoadBalancedServiceID;
+import r01f.http.loadbalance.balancer.LoadBalancerRandomImpl;
+import r01f.http.loadbalance.serverlist.LoadBalancedServerListFromConfig;
+import r01f.types.url.Url;
+
+public class LoadBalancerHealthCheckerTest {
+/////////////////////////////////////////////////////////////////////////////////////////
+//
+/////////////////////////////////////////////////////////////////////////////////////////
+	private static final LoadBalancedServiceID SERVICE = LoadBalancedServiceID.forId("service");
+/////////////////////////////////////////////////////////////////////////////////////////
+//
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Test
+	public void testUnhealthyAfterConsecutiveFailedProbes() throws Exception {
+		LoadBalancerManager manager = _probedManager();
+		LoadBalancerHealthChecker checker = new LoadBalancerHealthChecker(manager,
+																		  _config().unhealthyAfter(2));
+		try {
+			checker.checkNow();
+			Assert.assertEquals(2,manager.getAvailableServerStatsOf(SERVICE).size());
+
+			checker.checkNow();
+			for (LoadBalancedBackendServerStats serverStats : manager.getServerStatsOf(SERVICE)) {
+				Assert.assertFalse(serverStats.getServerInstance().isHealthy());
+			}
+			Assert.assertTrue(manager.getAvailableServerStatsOf(SERVICE).isEmpty());
+		} finally {
+			checker.close();
+			manager.close();
+		}
+	}
+	@Test
+	public void testEjectionAfterConsecutiveErrors() throws Exception {
+		LoadBalancerManager manager = _probedManager();
+		LoadBalancerHealthChecker checker = new LoadBalancerHealthChecker(manager,
+																		  _config().unhealthyAfter(100)
+																		  		   .ejectAfterConsecutiveErrors(2));
+		try {
+			Collection<LoadBalancedBackendServerStats> serversStats = manager.getServerStatsOf(SERVICE);
+			LoadBalancedBackendServerStats failing = serversStats.iterator().next();
+			failing.incrementErrors();
+			failing.incrementErrors();
+
+			checker.checkNow();
+			Assert.assertTrue(failing.getServerInstance().isEjected());
+			Assert.assertEquals(1,manager.getAvailableServerStatsOf(SERVICE).size());
+			Assert.assertFalse(manager.getAvailableServerStatsOf(SERVICE).contains(failing));
+		} finally {
+			checker.close();
+			manager.close();
+		}
+	}
+	@Test
+	public void testConsecutiveErrorsEjection() throws Exception {
+		LoadBalancerManager manager = _manager(3);
+		LoadBalancerHealthChecker checker = new LoadBalancerHealthChecker(manager,
+																		  _config().ejectAfterConsecutiveErrors(2));
+		try {
+			Collection<LoadBalancedBackendServerStats> serversStats = manager.getServerStatsOf(SERVICE);
+			LoadBalancedBackendServerStats failing = serversStats.iterator().next();
+			failing.incrementErrors();
+			Assert.assertFalse(checker.ejectOutliers(SERVICE,serversStats));
+
+			failing.incrementErrors();
+			Assert.assertTrue(checker.ejectOutliers(SERVICE,serversStats));
+			Assert.assertTrue(failing.getServerInstance().isEjected());
+			Assert.assertFalse(failing.getServerInstance().isAvailable());
+			Assert.assertEquals(0,failing.getConsecutiveErrors());
+		} finally {
+			checker.close();
+			manager.close();
+		}
+	}
+	@Test
+	public void testEjectionExpiresAndRequiresFreshLatencySamples() throws Exception {
+		LoadBalancerManager manager = _manager(3);
+		LoadBalancerHealthChecker checker = new LoadBalancerHealthChecker(manager,
+																		  _config().ejectIfLatencyExceedsMedianBy(3.0)
+																		  		   .ejectFor(50));
+		try {
+			List<LoadBalancedBackendServerStats> serversStats = new ArrayList<>(manager.getServerStatsOf(SERVICE));
+			serversStats.get(0).recordLatency(10);
+			serversStats.get(1).recordLatency(10);
+			LoadBalancedBackendServerStats slow = serversStats.get(2);
+			slow.recordLatency(100);
+
+			Assert.assertTrue(checker.ejectOutliers(SERVICE,serversStats));
+			Assert.assertTrue(slow.getServerInstance().isEjected());
+
+			// the ejection expires...
+			Thread.sleep(100);
+			Assert.assertFalse(slow.getServerInstance().isEjected());
+
+			// ... and the server is NOT ejected again because of the samples that caused the ejection
+			Assert.assertFalse(checker.ejectOutliers(SERVICE,serversStats));
+			Assert.assertFalse(slow.getServerInstance().isEjected());
+
+			// ... only if it's slow again
+			slow.recordLatency(100);
+			Assert.assertTrue(checker.ejectOutliers(SERVICE,serversStats));
+			Assert.assertTrue(slow.getServerInstance().isEjected());
+		} finally {
+			checker.close();
+			manager.close();
+		}
+	}
+	@Test
+	public void testMaxEjectionPercent() throws Exception {
+		LoadBalancerManager manager = _manager(4);
+		LoadBalancerHealthChecker checker = new LoadBalancerHealthChecker(manager,
+																		  _config().ejectAfterConsecutiveErrors(1)
+																		  		   .maxEjectionPercent(50));
+		try {
+			Collection<LoadBalancedBackendServerStats> serversStats = manager.getServerStatsOf(SERVICE);
+			for (LoadBalancedBackendServerStats serverStats : serversStats) serverStats.incrementErrors();
+
+			Assert.assertTrue(checker.ejectOutliers(SERVICE,serversStats));
+			Assert.assertEquals(2,_ejectedCount(serversStats));
+
+			// the cap is reached: no more servers are ejected
+			for (LoadBalancedBackendServerStats serverStats : serversStats) serverStats.incrementErrors();
+			Assert.assertFalse(checker.ejectOutliers(SERVICE,serversStats));
+			Assert.assertEquals(2,_ejectedCount(serversStats));
+		} finally {
+			checker.close();
+			manager.close();
+		}
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//
+/////////////////////////////////////////////////////////////////////////////////////////
+	private static LoadBalancerManager _manager(final int serverCount) {
+		List<LoadBalancedBackEndServer> servers = new ArrayList<>(serverCount);
+		for (int i = 0; i < serverCount; i++) {
+			servers.add(new LoadBalancedBackEndServer(Url.from("http://server" + i)));
+		}
+		return new LoadBalancerManager(new LoadBalancerRandomImpl(),
+									   new MetricRegistry(),
+									   0,		// no server list refresh
+									   Collections.singleton(new LoadBalancedServerListFromConfig(SERVICE,servers)),
+									   null,	// the health checker is created by the test
+									   LoadBalancerRetryBudget.DEFAULT_RETRY_RATIO,LoadBalancerRetryBudget.DEFAULT_MAX_RETRY_TOKENS);
+	}
+	/**
+	 * @return a manager whose servers refuse the health check probes
+	 */
+	private static LoadBalancerManager _probedManager() {
+		return LoadBalancerManager.builder()
+								  .usingNewMetricRegistry()
+								  .withRefreshIntervalInMillis(0)		// no server list refresh
+								  .withRandomLoadBalancing()
+								  .withServers(SERVICE,
+										  	   Url.from("http://127.0.0.1:1"),Url.from("http://127.0.0.1:2"))
+								  .build();
+	}
+	private static LoadBalancerHealthCheckConfig _config() {
+		return LoadBalancerHealthCheckConfig.create()
+											.probeEvery(3600000)			// the test checks the servers
+											.probeTimeOut(1000)
+											.ejectAfterConsecutiveErrors(0)
+											.ejectIfLatencyExceedsMedianBy(0);
+	}
+	private static int _ejectedCount(final Collection<LoadBalancedBackendServerStats> serversStats) {
+		int outCount = 0;
+		for (LoadBalancedBackendServerStats serverStats : serversStats) {
+			if (serverStats.getServerInstance().isEjected()) outCount++;
+		}
+		return outCount;
+	}
+}
@@ -0,0 +1,79 @@
+package r01f.http.loadbalance;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import r01f.http.loadbalance.LoadBalancerIDs.LoadBalancedServiceID;
+import r01f.http.loadbalance.balancer.LoadBalancerContextVoidImpl;
+import r01f.types.url.Url;
+
+public class LoadBalancerManagerTest {
+/////////////////////////////////////////////////////////////////////////////////////////
+//
+/////////////////////////////////////////////////////////////////////////////////////////
+	private static final LoadBalancedServiceID SERVICE = LoadBalancedServiceID.forId("service");
+	private static final LoadBalancedServiceID OTHER_SERVICE = LoadBalancedServiceID.forId("otherService");
+/////////////////////////////////////////////////////////////////////////////////////////
+//
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Test
+	public void testAvailableServersSnapshotIsReused() {
+		LoadBalancerManager manager = _manager();
+		List<LoadBalancedBackendServerStats> available = manager.getAvailableServerStatsOf(SERVICE);
+		Assert.assertEquals(3,available.size());
+
+		// the snapshot is NOT re-built while the availability does NOT change
+		Assert.assertSame(available,manager.getAvailableServerStatsOf(SERVICE));
+		Assert.assertNotNull(manager.chooseServerFor(SERVICE,new LoadBalancerContextVoidImpl()));
+		Assert.assertSame(available,manager.getAvailableServerStatsOf(SERVICE));
+	}
+	@Test
+	public void testShortCircuitedServerIsNotChosen() {
+		LoadBalancerManager manager = _manager();
+		List<LoadBalancedBackendServerStats> available = manager.getAvailableServerStatsOf(SERVICE);
+		LoadBalancedBackendServerStats first = manager.chooseServerFor(SERVICE,new LoadBalancerContextVoidImpl());
+		Assert.assertTrue(_urlOf(first).contains("server1"));
+
+		// the server is short-circuited after the snapshot was built: the snapshot is re-built and another server is chosen
+		first.getServerInstance().triggerCircuitBreaker();
+		LoadBalancedBackendServerStats chosen = manager.chooseServerFor(SERVICE,new LoadBalancerContextVoidImpl());
+		Assert.assertTrue(_urlOf(chosen).contains("server2"));
+
+		List<LoadBalancedBackendServerStats> availableAfter = manager.getAvailableServerStatsOf(SERVICE);
+		Assert.assertNotSame(available,availableAfter);
+		Assert.assertEquals(2,availableAfter.size());
+		Assert.assertFalse(availableAfter.contains(first));
+	}
+	@Test
+	public void testUnknownService() {
+		LoadBalancerManager manager = _manager();
+		Assert.assertNull(manager.chooseServerFor(OTHER_SERVICE,new LoadBalancerContextVoidImpl()));
+		Assert.assertTrue(manager.getAvailableServerStatsOf(OTHER_SERVICE).isEmpty());
+		Assert.assertTrue(manager.getServerStatsOf(OTHER_SERVICE).isEmpty());
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//
+/////////////////////////////////////////////////////////////////////////////////////////
+	private static LoadBalancerManager _manager() {
+		return LoadBalancerManager.builder()
+								  .usingNewMetricRegistry()
+								  .withRefreshIntervalInMillis(0)		// no server list refresh
+								  .withLoadBalancer((servers,context) -> {
+									  					// the available server with the lowest url is always chosen
+									  					LoadBalancedBackendServerStats outChosen = null;
+									  					for (LoadBalancedBackendServerStats serverStats : servers) {
+									  						if (outChosen == null
+									  						 || _urlOf(serverStats).compareTo(_urlOf(outChosen)) < 0) outChosen = serverStats;
+									  					}
+									  					return outChosen;
+								  					})
+								  .withServers(SERVICE,
+										  	   Url.from("http://server1"),Url.from("http://server2"),Url.from("http://server3"))
+								  .build();
+	}
+	private static String _urlOf(final LoadBalancedBackendServerStats serverStats) {
+		return serverStats.getServerInstance().getUrl().asString();
+	}
+}
@@ -0,0 +1,83 @@
+package r01f.http.loadbalance.balancer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import r01f.http.loadbalance.LoadBalancedBackendServerStats;
+import r01f.http.loadbalance.LoadBalancerIDs.LoadBalancedServiceID;
+
+public class LoadBalancerConsistentHashImplTest {
+/////////////////////////////////////////////////////////////////////////////////////////
+//	
+/////////////////////////////////////////////////////////////////////////////////////////
+	private static final LoadBalancedServiceID SERVICE = LoadBalancedServiceID.forId("service");
+/////////////////////////////////////////////////////////////////////////////////////////
+//	
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Test
+	public void testSameKeySameServer() {
+		List<LoadBalancedBackendServerStats> servers = _servers(5);
+		LoadBalancer balancer = new LoadBalancerConsistentHashImpl(new LoadBalancerRandomImpl(),
+																   0);		// load NOT bounded
+		for (int k = 0; k < 100; k++) {
+			LoadBalancerContext context = _affinityTo("tenant-" + k);
+			LoadBalancedBackendServerStats chosen = balancer.chooseWithin(servers,context);
+			for (int i = 0; i < 5; i++) {
+				Assert.assertSame(chosen,balancer.chooseWithin(servers,context));
+			}
+			// the same server is chosen whether the server hashes are cached (snapshot) or NOT
+			Assert.assertSame(chosen,balancer.chooseWithin(new ArrayList<>(servers),context));
+		}
+	}
+	@Test
+	public void testOnlyTheKeysOfARemovedServerMove() {
+		List<LoadBalancedBackendServerStats> servers = _servers(5);
+		LoadBalancedBackendServerStats removed = servers.get(2);
+		List<LoadBalancedBackendServerStats> remaining = ImmutableList.copyOf(servers.stream()
+																					 .filter(stats -> stats != removed)
+																					 .iterator());
+		LoadBalancer balancer = new LoadBalancerConsistentHashImpl(new LoadBalancerRandomImpl(),
+																   0);		// load NOT bounded
+		for (int k = 0; k < 200; k++) {
+			LoadBalancerContext context = _affinityTo("tenant-" + k);
+			LoadBalancedBackendServerStats before = balancer.chooseWithin(servers,context);
+			LoadBalancedBackendServerStats after = balancer.chooseWithin(remaining,context);
+			if (before != removed) Assert.assertSame(before,after);
+		}
+	}
+	@Test
+	public void testBoundedLoad() {
+		List<LoadBalancedBackendServerStats> servers = _servers(3);
+		LoadBalancer balancer = new LoadBalancerConsistentHashImpl(new LoadBalancerRandomImpl(),
+																   1.25);
+		LoadBalancerContext context = _affinityTo("hot-tenant");
+		LoadBalancedBackendServerStats best = balancer.chooseWithin(servers,context);
+		for (int i = 0; i < 10; i++) best.incrementOpenRequests();
+
+		// the best server is overloaded: the next best one is chosen
+		Assert.assertNotSame(best,balancer.chooseWithin(servers,context));
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	
+/////////////////////////////////////////////////////////////////////////////////////////
+	private static List<LoadBalancedBackendServerStats> _servers(final int count) {
+		ImmutableList.Builder<LoadBalancedBackendServerStats> outServers = ImmutableList.builder();
+		for (int i = 0; i < count; i++) {
+			outServers.add(LoadBalancerWeightedRoundRobinImplTest._stats(SERVICE,"http://server" + i,1));
+		}
+		return outServers.build();
+	}
+	private static LoadBalancerContext _affinityTo(final String key) {
+		return new LoadBalancerContextVoidImpl() {
+						@Override
+						public String getAffinityKey() {
+							return key;
+						}
+			   };
+	}
+}
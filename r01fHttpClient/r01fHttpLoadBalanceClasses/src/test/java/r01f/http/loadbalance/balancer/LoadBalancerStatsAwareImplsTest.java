@@ -0,0 +1,71 @@
+package r01f.http.loadbalance.balancer;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import r01f.http.loadbalance.LoadBalancedBackendServerStats;
+import r01f.http.loadbalance.LoadBalancerIDs.LoadBalancedServiceID;
+
+public class LoadBalancerStatsAwareImplsTest {
+/////////////////////////////////////////////////////////////////////////////////////////
+//	
+/////////////////////////////////////////////////////////////////////////////////////////
+	private static final LoadBalancedServiceID SERVICE = LoadBalancedServiceID.forId("service");
+/////////////////////////////////////////////////////////////////////////////////////////
+//	
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Test
+	public void testNoServers() {
+		Collection<LoadBalancedBackendServerStats> none = Collections.emptyList();
+		for (LoadBalancer balancer : Arrays.asList(new LoadBalancerRandomImpl(),
+												   new LoadBalancerLeastOutstandingRequestsImpl(),
+												   new LoadBalancerPowerOfTwoChoicesImpl(),
+												   new LoadBalancerLatencyWeightedImpl(),
+												   new LoadBalancerWeightedRoundRobinImpl())) {
+			Assert.assertNull(balancer.getClass().getSimpleName(),
+							  balancer.chooseWithin(none,new LoadBalancerContextVoidImpl()));
+		}
+	}
+	@Test
+	public void testSingleServer() {
+		LoadBalancedBackendServerStats a = LoadBalancerWeightedRoundRobinImplTest._stats(SERVICE,"http://a",1);
+		for (LoadBalancer balancer : Arrays.asList(new LoadBalancerRandomImpl(),
+												   new LoadBalancerLeastOutstandingRequestsImpl(),
+												   new LoadBalancerPowerOfTwoChoicesImpl(),
+												   new LoadBalancerLatencyWeightedImpl(),
+												   new LoadBalancerWeightedRoundRobinImpl())) {
+			Assert.assertSame(balancer.getClass().getSimpleName(),
+							  a,balancer.chooseWithin(Arrays.asList(a),new LoadBalancerContextVoidImpl()));
+		}
+	}
+	@Test
+	public void testLeastOutstandingRequests() {
+		LoadBalancedBackendServerStats a = LoadBalancerWeightedRoundRobinImplTest._stats(SERVICE,"http://a",1);
+		LoadBalancedBackendServerStats b = LoadBalancerWeightedRoundRobinImplTest._stats(SERVICE,"http://b",1);
+		LoadBalancedBackendServerStats c = LoadBalancerWeightedRoundRobinImplTest._stats(SERVICE,"http://c",1);
+		a.incrementOpenRequests();
+		a.incrementOpenRequests();
+		c.incrementOpenRequests();
+
+		LoadBalancer balancer = new LoadBalancerLeastOutstandingRequestsImpl();
+		for (int i = 0; i < 20; i++) {
+			Assert.assertSame(b,balancer.chooseWithin(Arrays.asList(a,b,c),new LoadBalancerContextVoidImpl()));
+		}
+	}
+	@Test
+	public void testPowerOfTwoChoicesWithTwoServers() {
+		LoadBalancedBackendServerStats a = LoadBalancerWeightedRoundRobinImplTest._stats(SERVICE,"http://a",1);
+		LoadBalancedBackendServerStats b = LoadBalancerWeightedRoundRobinImplTest._stats(SERVICE,"http://b",1);
+		a.incrementOpenRequests();
+
+		// with two servers both are always compared: the less loaded one is always chosen
+		LoadBalancer balancer = new LoadBalancerPowerOfTwoChoicesImpl();
+		for (int i = 0; i < 20; i++) {
+			Assert.assertSame(b,balancer.chooseWithin(Arrays.asList(a,b),new LoadBalancerContextVoidImpl()));
+		}
+	}
+}
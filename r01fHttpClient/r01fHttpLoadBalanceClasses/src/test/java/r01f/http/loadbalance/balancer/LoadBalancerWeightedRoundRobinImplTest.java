@@ -0,0 +1,108 @@
+package r01f.http.loadbalance.balancer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.codahale.metrics.MetricRegistry;
+
+import r01f.http.loadbalance.LoadBalancedBackEndServer;
+import r01f.http.loadbalance.LoadBalancedBackendServerStats;
+import r01f.http.loadbalance.LoadBalancerIDs.LoadBalancedServiceID;
+import r01f.types.url.Url;
+
+public class LoadBalancerWeightedRoundRobinImplTest {
+/////////////////////////////////////////////////////////////////////////////////////////
+//	
+/////////////////////////////////////////////////////////////////////////////////////////
+	private static final LoadBalancedServiceID SERVICE = LoadBalancedServiceID.forId("service");
+	private static final LoadBalancedServiceID OTHER_SERVICE = LoadBalancedServiceID.forId("otherService");
+/////////////////////////////////////////////////////////////////////////////////////////
+//	
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Test
+	public void testSmoothWeightedSequence() {
+		LoadBalancedBackendServerStats a = _stats(SERVICE,"http://a",5);
+		LoadBalancedBackendServerStats b = _stats(SERVICE,"http://b",1);
+		LoadBalancedBackendServerStats c = _stats(SERVICE,"http://c",1);
+		List<LoadBalancedBackendServerStats> servers = Arrays.asList(a,b,c);
+
+		LoadBalancerWeightedRoundRobinImpl balancer = new LoadBalancerWeightedRoundRobinImpl();
+		List<LoadBalancedBackendServerStats> expected = Arrays.asList(a,a,b,a,c,a,a);
+		for (int round = 0; round < 3; round++) {
+			for (LoadBalancedBackendServerStats exp : expected) {
+				Assert.assertSame(exp,balancer.chooseWithin(servers,new LoadBalancerContextVoidImpl()));
+			}
+		}
+	}
+	@Test
+	public void testServicesDoNotShareWeights() {
+		LoadBalancedBackendServerStats a = _stats(SERVICE,"http://a",2);
+		LoadBalancedBackendServerStats b = _stats(SERVICE,"http://b",1);
+		LoadBalancedBackendServerStats x = _stats(OTHER_SERVICE,"http://x",1);
+		LoadBalancedBackendServerStats y = _stats(OTHER_SERVICE,"http://y",2);
+
+		LoadBalancerWeightedRoundRobinImpl balancer = new LoadBalancerWeightedRoundRobinImpl();
+		// interleaving the choices of another service does NOT change the sequence of the first one
+		Assert.assertSame(a,balancer.chooseWithin(Arrays.asList(a,b),new LoadBalancerContextVoidImpl()));
+		Assert.assertSame(y,balancer.chooseWithin(Arrays.asList(x,y),new LoadBalancerContextVoidImpl()));
+		Assert.assertSame(b,balancer.chooseWithin(Arrays.asList(a,b),new LoadBalancerContextVoidImpl()));
+		Assert.assertSame(x,balancer.chooseWithin(Arrays.asList(x,y),new LoadBalancerContextVoidImpl()));
+		Assert.assertSame(a,balancer.chooseWithin(Arrays.asList(a,b),new LoadBalancerContextVoidImpl()));
+	}
+	@Test
+	public void testRetriesKeepTheCurrentWeights() {
+		LoadBalancedBackendServerStats a = _stats(SERVICE,"http://a",5);
+		LoadBalancedBackendServerStats b = _stats(SERVICE,"http://b",1);
+		LoadBalancedBackendServerStats c = _stats(SERVICE,"http://c",1);
+		List<LoadBalancedBackendServerStats> servers = Arrays.asList(a,b,c);
+
+		LoadBalancerWeightedRoundRobinImpl balancer = new LoadBalancerWeightedRoundRobinImpl();
+		for (int i = 0; i < 7; i++) {
+			LoadBalancedBackendServerStats chosen = balancer.chooseWithin(servers,new LoadBalancerContextVoidImpl());
+			// a retry excluding the chosen server does NOT discard the current weight of the excluded one
+			List<LoadBalancedBackendServerStats> others = new ArrayList<>(servers);
+			others.remove(chosen);
+			Assert.assertNotSame(chosen,balancer.chooseWithin(others,new LoadBalancerContextVoidImpl()));
+			Assert.assertEquals(3,balancer.trackedServerCount(SERVICE));
+		}
+	}
+	@Test
+	public void testRemovedServersArePruned() {
+		LoadBalancedBackendServerStats a = _stats(SERVICE,"http://a",1);
+		LoadBalancedBackendServerStats b = _stats(SERVICE,"http://b",1);
+		LoadBalancedBackendServerStats c = _stats(SERVICE,"http://c",1);
+
+		LoadBalancerWeightedRoundRobinImpl balancer = new LoadBalancerWeightedRoundRobinImpl();
+		balancer.chooseWithin(Arrays.asList(a,b,c),new LoadBalancerContextVoidImpl());
+		Assert.assertEquals(3,balancer.trackedServerCount(SERVICE));
+
+		// choosing within a subset does NOT prune...
+		balancer.chooseWithin(Arrays.asList(a,b),new LoadBalancerContextVoidImpl());
+		Assert.assertEquals(3,balancer.trackedServerCount(SERVICE));
+
+		// ... removing the server from the server list does
+		balancer.onServersRemoved(Collections.singleton(c.getKey()));
+		Assert.assertEquals(2,balancer.trackedServerCount(SERVICE));
+	}
+	@Test
+	public void testNoServers() {
+		Assert.assertNull(new LoadBalancerWeightedRoundRobinImpl().chooseWithin(Collections.<LoadBalancedBackendServerStats>emptyList(),
+																				new LoadBalancerContextVoidImpl()));
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	
+/////////////////////////////////////////////////////////////////////////////////////////
+	static LoadBalancedBackendServerStats _stats(final LoadBalancedServiceID serviceId,
+												 final String url,final int weight) {
+		LoadBalancedBackEndServer server = new LoadBalancedBackEndServer(Url.from(url));
+		server.setWeight(weight);
+		return new LoadBalancedBackendServerStats(serviceId,
+												  server,
+												  new MetricRegistry());
+	}
+}
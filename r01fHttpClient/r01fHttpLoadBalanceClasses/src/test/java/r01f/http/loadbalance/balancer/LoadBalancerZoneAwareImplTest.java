@@ -0,0 +1,94 @@
+package r01f.http.loadbalance.balancer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import r01f.http.loadbalance.LoadBalancedBackendServerStats;
+import r01f.http.loadbalance.LoadBalancerIDs.LoadBalancedServiceID;
+
+public class LoadBalancerZoneAwareImplTest {
+/////////////////////////////////////////////////////////////////////////////////////////
+//	
+/////////////////////////////////////////////////////////////////////////////////////////
+	private static final LoadBalancedServiceID SERVICE = LoadBalancedServiceID.forId("service");
+	private static final LoadBalancedServiceID OTHER_SERVICE = LoadBalancedServiceID.forId("otherService");
+/////////////////////////////////////////////////////////////////////////////////////////
+//	
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Test
+	public void testSameZoneServersAreChosen() {
+		LoadBalancedBackendServerStats a1 = _stats(SERVICE,"http://a1","zoneA");
+		LoadBalancedBackendServerStats a2 = _stats(SERVICE,"http://a2","zoneA");
+		LoadBalancedBackendServerStats b1 = _stats(SERVICE,"http://b1","zoneB");
+		List<LoadBalancedBackendServerStats> servers = ImmutableList.of(a1,b1,a2);
+
+		LoadBalancer balancer = new LoadBalancerZoneAwareImpl("zoneA");
+		for (int i = 0; i < 50; i++) {
+			LoadBalancedBackendServerStats chosen = balancer.chooseWithin(servers,new LoadBalancerContextVoidImpl());
+			Assert.assertEquals("zoneA",chosen.getServerInstance().getZone());
+		}
+	}
+	@Test
+	public void testSnapshotsOfDifferentServicesDoNotMix() {
+		LoadBalancedBackendServerStats a1 = _stats(SERVICE,"http://a1","zoneA");
+		LoadBalancedBackendServerStats b1 = _stats(SERVICE,"http://b1","zoneB");
+		LoadBalancedBackendServerStats x1 = _stats(OTHER_SERVICE,"http://x1","zoneA");
+		LoadBalancedBackendServerStats y1 = _stats(OTHER_SERVICE,"http://y1","zoneB");
+		List<LoadBalancedBackendServerStats> serviceServers = ImmutableList.of(a1,b1);
+		List<LoadBalancedBackendServerStats> otherServiceServers = ImmutableList.of(x1,y1);
+
+		// the zone partition of every snapshot is kept: alternating the services always returns the right servers
+		LoadBalancer balancer = new LoadBalancerZoneAwareImpl("zoneA");
+		for (int i = 0; i < 10; i++) {
+			Assert.assertSame(a1,balancer.chooseWithin(serviceServers,new LoadBalancerContextVoidImpl()));
+			Assert.assertSame(x1,balancer.chooseWithin(otherServiceServers,new LoadBalancerContextVoidImpl()));
+		}
+	}
+	@Test
+	public void testNotSnapshotList() {
+		LoadBalancedBackendServerStats a1 = _stats(SERVICE,"http://a1","zoneA");
+		LoadBalancedBackendServerStats b1 = _stats(SERVICE,"http://b1","zoneB");
+		List<LoadBalancedBackendServerStats> servers = new ArrayList<>(ImmutableList.of(a1,b1));
+
+		LoadBalancer balancer = new LoadBalancerZoneAwareImpl("zoneA");
+		Assert.assertSame(a1,balancer.chooseWithin(servers,new LoadBalancerContextVoidImpl()));
+		// the list changes (ie: a retry excluding the already tried servers)
+		servers.remove(a1);
+		Assert.assertSame(b1,balancer.chooseWithin(servers,new LoadBalancerContextVoidImpl()));
+	}
+	@Test
+	public void testSpillOverWhenNoServerInZone() {
+		LoadBalancedBackendServerStats b1 = _stats(SERVICE,"http://b1","zoneB");
+		LoadBalancedBackendServerStats c1 = _stats(SERVICE,"http://c1",null);
+
+		LoadBalancer balancer = new LoadBalancerZoneAwareImpl("zoneA");
+		LoadBalancedBackendServerStats chosen = balancer.chooseWithin(ImmutableList.of(b1,c1),new LoadBalancerContextVoidImpl());
+		Assert.assertTrue(chosen == b1 || chosen == c1);
+	}
+	@Test
+	public void testSpillOverWhenZoneIsUnderLoad() {
+		LoadBalancedBackendServerStats a1 = _stats(SERVICE,"http://a1","zoneA");
+		LoadBalancedBackendServerStats b1 = _stats(SERVICE,"http://b1","zoneB");
+		for (int i = 0; i < 10; i++) a1.incrementOpenRequests();
+
+		// the zone server has 10 open requests: the avg of all the servers is (10 + 1) / 2 = 5.5 and 10 > 5.5 * 1.5
+		LoadBalancer balancer = new LoadBalancerZoneAwareImpl("zoneA",
+															  new LoadBalancerLeastOutstandingRequestsImpl(),
+															  1.5);
+		Assert.assertSame(b1,balancer.chooseWithin(ImmutableList.of(a1,b1),new LoadBalancerContextVoidImpl()));
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	
+/////////////////////////////////////////////////////////////////////////////////////////
+	private static LoadBalancedBackendServerStats _stats(final LoadBalancedServiceID serviceId,
+														 final String url,final String zone) {
+		LoadBalancedBackendServerStats outStats = LoadBalancerWeightedRoundRobinImplTest._stats(serviceId,url,1);
+		outStats.getServerInstance().setZone(zone);
+		return outStats;
+	}
+}
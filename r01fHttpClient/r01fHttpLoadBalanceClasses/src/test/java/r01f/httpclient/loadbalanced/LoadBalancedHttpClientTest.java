@@ -0,0 +1,186 @@
+package r01f.httpclient.loadbalanced;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.AbstractExecutionAwareRequest;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.HttpContext;
+import org.junit.Assert;
+import org.junit.Test;
+
+import r01f.http.loadbalance.LoadBalancedBackendServerStats;
+import r01f.http.loadbalance.LoadBalancerIDs.LoadBalancedServiceID;
+import r01f.http.loadbalance.LoadBalancerManager;
+import r01f.http.loadbalance.exception.LoadBalancerRetriesExceededException;
+import r01f.types.url.Url;
+
+public class LoadBalancedHttpClientTest {
+/////////////////////////////////////////////////////////////////////////////////////////
+//
+/////////////////////////////////////////////////////////////////////////////////////////
+	private static final LoadBalancedServiceID SERVICE = LoadBalancedServiceID.forId("service");
+/////////////////////////////////////////////////////////////////////////////////////////
+//
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Test
+	public void testRetryBudgetStopsRetries() throws Exception {
+		LoadBalancerManager manager = LoadBalancerManager.builder()
+														 .usingNewMetricRegistry()
+														 .withRefreshIntervalInMillis(0)
+														 .withRandomLoadBalancing()
+														 .withServers(SERVICE,
+																	  Url.from("http://server1"),Url.from("http://server2"),Url.from("http://server3"),
+																	  Url.from("http://server4"),Url.from("http://server5"),Url.from("http://server6"))
+														 .withRetryBudget(0,2)		// two retries and NO deposit
+														 .build();
+		StubHttpClient httpClient = new StubHttpClient(null);	// every request fails
+		LoadBalancedHttpClient client = new LoadBalancedHttpClient(manager,
+																   SERVICE,
+																   httpClient,
+																   4);
+		try {
+			// the first request is retried until the budget is exhausted (NOT the four retries)
+			try {
+				client.executeWithLoadBalancer(new HttpGet("/resource"));
+				Assert.fail();
+			} catch (LoadBalancerRetriesExceededException retriesEx) {
+				// expected
+			}
+			Assert.assertEquals(3,httpClient.getRequestedHosts().size());
+
+			// ... and the next one is NOT retried
+			try {
+				client.executeWithLoadBalancer(new HttpGet("/resource"));
+				Assert.fail();
+			} catch (LoadBalancerRetriesExceededException retriesEx) {
+				// expected
+			}
+			Assert.assertEquals(4,httpClient.getRequestedHosts().size());
+		} finally {
+			manager.close();
+		}
+	}
+	@Test
+	public void testHedgedRequestWinsOverSlowServer() throws Exception {
+		LoadBalancerManager manager = LoadBalancerManager.builder()
+														 .usingNewMetricRegistry()
+														 .withRefreshIntervalInMillis(0)
+														 .withLoadBalancer((servers,context) -> {
+															 					// the slow server is always chosen first
+															 					for (LoadBalancedBackendServerStats serverStats : servers) {
+															 						if (_isSlow(serverStats.getServerInstance().getUrl().asString())) return serverStats;
+															 					}
+															 					return servers.iterator().next();
+														 				   })
+														 .withServers(SERVICE,
+																	  Url.from("http://slow"),Url.from("http://fast"))
+														 .build();
+		// the hedging delay is the server latency percentile
+		for (LoadBalancedBackendServerStats serverStats : manager.getServerStatsOf(SERVICE)) serverStats.recordLatency(20);
+
+		StubHttpClient httpClient = new StubHttpClient("slow");
+		LoadBalancedHttpClient client = new LoadBalancedHttpClient(manager,
+																   SERVICE,
+																   httpClient,
+																   0,		// no retries: only the hedged request
+																   LoadBalancedHttpClientRetryPolicy.create()
+																   									.hedgeIdempotentRequests());
+		try {
+			long startTime = System.currentTimeMillis();
+			HttpResponse response = client.executeWithLoadBalancer(new HttpGet("/resource"));
+			long elapsed = System.currentTimeMillis() - startTime;
+
+			Assert.assertEquals(200,response.getStatusLine().getStatusCode());
+			Assert.assertTrue("the hedged request did NOT win: " + elapsed + "ms",
+							  elapsed < StubHttpClient.SLOW_RESPONSE_MILLIS);
+			Assert.assertTrue(httpClient.getRequestedHosts().contains("fast"));
+			Assert.assertFalse(Thread.currentThread().isInterrupted());
+		} finally {
+			manager.close();
+		}
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//
+/////////////////////////////////////////////////////////////////////////////////////////
+	private static boolean _isSlow(final String host) {
+		return host.contains("slow");
+	}
+	/**
+	 * An http client that does NOT use the network:
+	 * <ul>
+	 * 		<li>if there's NO slow host every request fails</li>
+	 * 		<li>otherwise the requests to the slow host wait until they're aborted and the others succeed</li>
+	 * </ul>
+	 */
+	private static class StubHttpClient
+	             extends CloseableHttpClient {
+		static final long SLOW_RESPONSE_MILLIS = 5000;
+
+		private final String _slowHost;
+		private final Queue<String> _requestedHosts = new ConcurrentLinkedQueue<>();
+
+		StubHttpClient(final String slowHost) {
+			_slowHost = slowHost;
+		}
+		Queue<String> getRequestedHosts() {
+			return _requestedHosts;
+		}
+		@Override
+		protected CloseableHttpResponse doExecute(final HttpHost target,final HttpRequest request,
+												  final HttpContext context) throws IOException {
+			_requestedHosts.add(target.getHostName());
+			if (_slowHost == null) throw new IOException("server " + target + " is down");
+			if (_slowHost.equals(target.getHostName())) {
+				// wait until the request is aborted (a hedged request won)
+				AbstractExecutionAwareRequest abortable = (AbstractExecutionAwareRequest)request;
+				final Thread requestThread = Thread.currentThread();
+				abortable.setCancellable(() -> {
+												requestThread.interrupt();
+												return true;
+										 });
+				if (abortable.isAborted()) throw new InterruptedIOException("aborted");
+				try {
+					Thread.sleep(SLOW_RESPONSE_MILLIS);
+				} catch (InterruptedException intEx) {
+					throw new InterruptedIOException("aborted");
+				}
+			}
+			return new StubHttpResponse(200);
+		}
+		@Override
+		public void close() {
+			// nothing to close
+		}
+		@Override @Deprecated
+		public HttpParams getParams() {
+			throw new UnsupportedOperationException();
+		}
+		@Override @Deprecated
+		public ClientConnectionManager getConnectionManager() {
+			throw new UnsupportedOperationException();
+		}
+	}
+	private static class StubHttpResponse
+	             extends BasicHttpResponse
+	          implements CloseableHttpResponse {
+		StubHttpResponse(final int statusCode) {
+			super(HttpVersion.HTTP_1_1,statusCode,"stub");
+		}
+		@Override
+		public void close() {
+			// nothing to close
+		}
+	}
+}
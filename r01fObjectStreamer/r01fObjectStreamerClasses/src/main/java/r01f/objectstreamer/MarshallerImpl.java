@@ -1,13 +1,16 @@
 package r01f.objectstreamer;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.io.Writer;
 import java.nio.charset.Charset;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.Set;
+import java.util.stream.Stream;
 
 import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.module.SimpleModule;
@@ -109,8 +112,15 @@ public class MarshallerImpl
 						@Override
 						public <T> T from(final String xml,final Charset charset,final MarshallFormat format,
 										  final Class<T> type) {
-							return this.from(new ByteArrayInputStream(xml.getBytes(charset)),format,
-										 	 type);
+							if (format == MarshallFormat.XML) {
+								return this.fromXml(xml,charset,
+													type);
+							} else if (format == MarshallFormat.JSON) {
+								return this.fromJson(xml,charset,
+													 type);
+							} else {
+								throw new IllegalArgumentException(format + " is NOT a supported marshall format!");
+							}
 						}
 						@Override
 						public <T> T from(final String xml,final MarshallFormat format,
@@ -121,8 +131,15 @@ public class MarshallerImpl
 						@Override
 						public <T> T from(final String xml,final Charset charset,final MarshallFormat format,
 										  final TypeToken<T> typeToken) {
-							return this.from(new ByteArrayInputStream(xml.getBytes(charset)),format,
-										 	 typeToken);
+							if (format == MarshallFormat.XML) {
+								return this.fromXml(xml,charset,
+													typeToken);
+							} else if (format == MarshallFormat.JSON) {
+								return this.fromJson(xml,charset,
+													 typeToken);
+							} else {
+								throw new IllegalArgumentException(format + " is NOT a supported marshall format!");
+							}
 						}
 						@Override
 						public <T> T from(final String xml,final MarshallFormat format,
@@ -151,8 +168,11 @@ public class MarshallerImpl
 						@Override
 						public <T> T fromXml(final String xml,final Charset charset,
 											 final Class<T> type) {
-							return this.fromXml(new ByteArrayInputStream(xml.getBytes(charset)),
-										 		type);
+							// the string is already decoded: the chars are read (NOT encoded to bytes again)
+							MarshallerMapperForXml xmlMapper = _marshallerXmlMapper.get();
+							return this.<T>_readFromXml(xmlMapper,
+														new StringReader(xml),
+														xmlMapper.constructType(type));
 						}
 						@Override
 						public <T> T fromXml(final String xml,
@@ -163,8 +183,10 @@ public class MarshallerImpl
 						@Override
 						public <T> T fromXml(final String xml,final Charset charset,
 											 final TypeToken<T> typeToken) {
-							return this.fromXml(new ByteArrayInputStream(xml.getBytes(charset)),
-										 		typeToken);
+							MarshallerMapperForXml xmlMapper = _marshallerXmlMapper.get();
+							return this.<T>_readFromXml(xmlMapper,
+														new StringReader(xml),
+														xmlMapper.constructType(typeToken.getType()));
 						}
 						@Override
 						public <T> T fromXml(final String xml,
@@ -193,8 +215,11 @@ public class MarshallerImpl
 						@Override
 						public <T> T fromJson(final String json,final Charset charset,
 											  final Class<T> type) {
-							return this.fromJson(new ByteArrayInputStream(json.getBytes()),
-												 type);
+							// the string is already decoded: the chars are read (NOT encoded to bytes again)
+							MarshallerMapperForJson jsonMapper = _marshallerJsonMapper.get();
+							return this.<T>_readFromJson(jsonMapper,
+														 new StringReader(json),
+														 jsonMapper.constructType(type));
 						}
 						@Override
 						public <T> T fromJson(final String json,
@@ -205,8 +230,41 @@ public class MarshallerImpl
 						@Override
 						public <T> T fromJson(final String json,final Charset charset,
 											  final TypeToken<T> typeToken) {
-							return this.fromJson(new ByteArrayInputStream(json.getBytes(charset)),
-												 typeToken);
+							MarshallerMapperForJson jsonMapper = _marshallerJsonMapper.get();
+							return this.<T>_readFromJson(jsonMapper,
+														 new StringReader(json),
+														 jsonMapper.constructType(typeToken.getType()));
+						}
+
+						// ================================================================================
+						@Override
+						public <T> MarshalledObjectsIterator<T> sequenceFrom(final InputStream is,final MarshallFormat format,
+																			 final Class<T> type) {
+							if (format == MarshallFormat.XML) {
+								return this.sequenceFromXml(is,
+															type);
+							} else if (format == MarshallFormat.JSON) {
+								return this.sequenceFromJson(is,
+															 type);
+							} else {
+								throw new IllegalArgumentException(format + " is NOT a supported marshall format!");
+							}
+						}
+						@Override
+						public <T> MarshalledObjectsIterator<T> sequenceFromJson(final InputStream is,
+																				 final Class<T> type) {
+							MarshallerMapperForJson jsonMapper = _marshallerJsonMapper.get();
+							return MarshallerSequences.readJsonArray(jsonMapper,
+																	 is,
+																	 jsonMapper.constructType(type));
+						}
+						@Override
+						public <T> MarshalledObjectsIterator<T> sequenceFromXml(final InputStream is,
+																				final Class<T> type) {
+							MarshallerMapperForXml xmlMapper = _marshallerXmlMapper.get();
+							return MarshallerSequences.readXmlSequence(xmlMapper,
+																	   is,
+																	   xmlMapper.constructType(type));
 						}
 						@Override
 						public <T> T fromJson(final String json,
@@ -226,6 +284,28 @@ public class MarshallerImpl
 								throw new MarshallerException(th);
 							}
 						}
+						private <T> T _readFromXml(final MarshallerMapperForXml xmlMapper,
+												   final Reader r,
+												   final JavaType type) {
+							try {
+								T outObj = xmlMapper.<T>readValue(r,
+															   	  type);
+								return outObj;
+							} catch (Throwable th) {
+								throw new MarshallerException(th);
+							}
+						}
+						private <T> T _readFromJson(final MarshallerMapperForJson jsonMapper,
+													final Reader r,
+												  	final JavaType type) {
+							try {
+								T outObj = jsonMapper.<T>readValue(r,
+																   type);
+								return outObj;
+							} catch (Throwable th) {
+								throw new MarshallerException(th);
+							}
+						}
 						private <T> T _readFromJson(final MarshallerMapperForJson jsonMapper,
 													final InputStream is,
 												  	final JavaType type) {
@@ -264,10 +344,13 @@ public class MarshallerImpl
 						@Override
 						public <T> String to(final MarshallFormat format,
 											 final T obj,final Charset charset) {
-							ByteArrayOutputStream os = new ByteArrayOutputStream();
-							this.to(format,
-									obj,os);
-							return new String(os.toByteArray(),charset);
+							if (format == MarshallFormat.XML) {
+								return this.toXml(obj,charset);
+							} else if (format == MarshallFormat.JSON) {
+								return this.toJson(obj,charset);
+							} else {
+								throw new IllegalArgumentException(format + " is NOT a supported marshall format!");
+							}
 						}
 						@Override
 						public <T> String to(final MarshallFormat format,
@@ -307,9 +390,10 @@ public class MarshallerImpl
 						}
 						@Override
 						public <T> String toXml(final T obj,final Charset charset) {
-							ByteArrayOutputStream os = new ByteArrayOutputStream();
-							this.toXml(obj,os);
-							return new String(os.toByteArray(),charset);
+							// chars are directly written (NOT encoded to bytes and decoded back to a string)
+							StringWriter w = new StringWriter();
+							this.toXml(obj,w);
+							return w.toString();
 						}
 						@Override
 						public <T> String toXml(final T obj) {
@@ -345,14 +429,57 @@ public class MarshallerImpl
 						}
 						@Override
 						public <T> String toJson(final T obj,final Charset charset) {
-							ByteArrayOutputStream os = new ByteArrayOutputStream();
-							this.toJson(obj,os);
-							return new String(os.toByteArray(),charset);
+							// chars are directly written (NOT encoded to bytes and decoded back to a string)
+							StringWriter w = new StringWriter();
+							this.toJson(obj,w);
+							return w.toString();
 						}
 						@Override
 						public <T> String toJson(final T obj) {
 							return this.toJson(obj,_defaultCharset);
 						}
+
+						// ================================================================================
+						@Override
+						public <T> void sequenceTo(final MarshallFormat format,
+												   final Iterator<? extends T> objs,final String rootElementName,
+												   final OutputStream os) {
+							if (format == MarshallFormat.XML) {
+								this.sequenceToXml(objs,rootElementName,
+												   os);
+							} else if (format == MarshallFormat.JSON) {
+								this.sequenceToJson(objs,
+													os);
+							} else {
+								throw new IllegalArgumentException(format + " is NOT a supported marshall format!");
+							}
+						}
+						@Override
+						public <T> void sequenceToJson(final Iterator<? extends T> objs,
+													   final OutputStream os) {
+							MarshallerSequences.writeJsonArray(_marshallerJsonMapper.get(),
+															   objs,
+															   os);
+						}
+						@Override
+						public <T> void sequenceToJson(final Stream<? extends T> objs,
+													   final OutputStream os) {
+							this.sequenceToJson(objs.iterator(),
+												os);
+						}
+						@Override
+						public <T> void sequenceToXml(final Iterator<? extends T> objs,final String rootElementName,
+													  final OutputStream os) {
+							MarshallerSequences.writeXmlSequence(_marshallerXmlMapper.get(),
+																 objs,rootElementName,
+																 os);
+						}
+						@Override
+						public <T> void sequenceToXml(final Stream<? extends T> objs,final String rootElementName,
+													  final OutputStream os) {
+							this.sequenceToXml(objs.iterator(),rootElementName,
+											   os);
+						}
 			   };
 	}
 
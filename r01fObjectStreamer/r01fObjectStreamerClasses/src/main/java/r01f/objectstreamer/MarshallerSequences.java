@@ -0,0 +1,220 @@
+package r01f.objectstreamer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.SequenceWriter;
+
+import r01f.objectstreamer.Marshaller.MarshalledObjectsIterator;
+
+/**
+ * Token-level (streaming) read / write of object sequences:
+ * <ul>
+ * 		<li>json: a json array: [{..},{..},...]</li>
+ * 		<li>xml: the objects elements inside a root element: &lt;root&gt;&lt;obj&gt;..&lt;/obj&gt;&lt;obj&gt;..&lt;/obj&gt;...&lt;/root&gt;</li>
+ * </ul>
+ * Objects are written / read one at a time so the whole sequence is NEVER in memory
+ * BEWARE! the streams are NOT closed (the caller owns them)
+ */
+abstract class MarshallerSequences {
+/////////////////////////////////////////////////////////////////////////////////////////
+//	JSON
+/////////////////////////////////////////////////////////////////////////////////////////
+	static <T> void writeJsonArray(final MarshallerMapperForJson jsonMapper,
+								   final Iterator<? extends T> objs,
+								   final OutputStream os) {
+		try {
+			JsonGenerator gen = jsonMapper.getFactory()
+										  .createGenerator(os);
+			gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);		// the caller owns the stream
+			// the sequence writer caches the serializer of every type
+			SequenceWriter seqWriter = jsonMapper.writer()
+												 .writeValuesAsArray(gen);
+			while (objs.hasNext()) {
+				seqWriter.write(objs.next());
+			}
+			seqWriter.close();		// writes the array end
+			gen.close();			// flushes BUT does NOT close the stream
+		} catch (Throwable th) {
+			throw new MarshallerException(th);
+		}
+	}
+	static <T> MarshalledObjectsIterator<T> readJsonArray(final MarshallerMapperForJson jsonMapper,
+														  final InputStream is,
+														  final JavaType type) {
+		// BEWARE: JSON specification states, that only valid encodings are UTF-8, UTF-16 and UTF-32.
+		//		   ... jackson detects the encoding using the first bytes of the stream
+		try {
+			JsonParser parser = jsonMapper.getFactory()
+										  .createParser(is);
+			parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);		// the caller owns the stream
+			JsonToken firstToken = parser.nextToken();
+			if (firstToken == null) return new JsonArrayIterator<T>(parser,null);		// empty stream
+			if (firstToken != JsonToken.START_ARRAY) throw new MarshallerException("The json is NOT an array: it starts with " + firstToken);
+			return new JsonArrayIterator<T>(parser,
+											jsonMapper.readerFor(type));
+		} catch (MarshallerException mEx) {
+			throw mEx;
+		} catch (Throwable th) {
+			throw new MarshallerException(th);
+		}
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	XML
+/////////////////////////////////////////////////////////////////////////////////////////
+	static <T> void writeXmlSequence(final MarshallerMapperForXml xmlMapper,
+									 final Iterator<? extends T> objs,final String rootElementName,
+									 final OutputStream os) {
+		try {
+			XMLStreamWriter xmlWriter = xmlMapper.getFactory()
+												 .getXMLOutputFactory()
+												 .createXMLStreamWriter(os,"UTF-8");
+			xmlWriter.writeStartDocument("UTF-8","1.0");
+			xmlWriter.writeStartElement(rootElementName);
+			while (objs.hasNext()) {
+				// the element name is the object's root element name
+				xmlMapper.writeValue(xmlWriter,
+									 objs.next());
+			}
+			xmlWriter.writeEndElement();
+			xmlWriter.writeEndDocument();
+			xmlWriter.flush();
+			xmlWriter.close();		// does NOT close the stream
+		} catch (Throwable th) {
+			throw new MarshallerException(th);
+		}
+	}
+	static <T> MarshalledObjectsIterator<T> readXmlSequence(final MarshallerMapperForXml xmlMapper,
+															final InputStream is,
+															final JavaType type) {
+		try {
+			XMLStreamReader xmlReader = xmlMapper.getFactory()
+												 .getXMLInputFactory()
+												 .createXMLStreamReader(is);
+			xmlReader.nextTag();		// the root element
+			return new XmlSequenceIterator<T>(xmlMapper,xmlReader,
+											  type);
+		} catch (Throwable th) {
+			throw new MarshallerException(th);
+		}
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	ITERATORS
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Base iterator: the next object is read-ahead when hasNext() is called
+	 * (a sequence element might be null -ie a json null- so null is NOT used as the end of the sequence)
+	 */
+	private static abstract class ReadAheadIterator<T>
+	 			       implements MarshalledObjectsIterator<T> {
+		private T _next;
+		private boolean _hasNext;		// true if _next is the read-ahead object (that might be null)
+		private boolean _finished;
+
+		protected abstract boolean _moveToNext() throws IOException,XMLStreamException;	// false at the end of the sequence
+		protected abstract T _readCurrent() throws IOException,XMLStreamException;
+		protected abstract void _doClose() throws IOException,XMLStreamException;
+
+		@Override
+		public boolean hasNext() {
+			if (_hasNext) return true;
+			if (_finished) return false;
+			try {
+				if (_moveToNext()) {
+					_next = _readCurrent();
+					_hasNext = true;
+				} else {
+					_finished = true;
+				}
+			} catch (Throwable th) {
+				_finished = true;
+				throw new MarshallerException(th);
+			}
+			return _hasNext;
+		}
+		@Override
+		public T next() {
+			if (!this.hasNext()) throw new NoSuchElementException();
+			T outNext = _next;
+			_next = null;
+			_hasNext = false;
+			return outNext;
+		}
+		@Override
+		public void close() throws IOException {
+			_finished = true;
+			_hasNext = false;
+			_next = null;
+			try {
+				_doClose();
+			} catch (XMLStreamException xmlEx) {
+				throw new IOException(xmlEx);
+			}
+		}
+	}
+	private static final class JsonArrayIterator<T>
+					   extends ReadAheadIterator<T> {
+		private final JsonParser _parser;
+		private final ObjectReader _reader;		// null if the stream is empty
+
+		JsonArrayIterator(final JsonParser parser,
+						  final ObjectReader reader) {
+			_parser = parser;
+			_reader = reader;
+		}
+		@Override
+		protected boolean _moveToNext() throws IOException {
+			if (_reader == null) return false;
+			JsonToken token = _parser.nextToken();
+			return token != null && token != JsonToken.END_ARRAY;
+		}
+		@Override
+		protected T _readCurrent() throws IOException {
+			return _reader.readValue(_parser);		// null for a json null; the parser is left at the object's last token
+		}
+		@Override
+		protected void _doClose() throws IOException {
+			_parser.close();
+		}
+	}
+	private static final class XmlSequenceIterator<T>
+					   extends ReadAheadIterator<T> {
+		private final MarshallerMapperForXml _xmlMapper;
+		private final XMLStreamReader _xmlReader;
+		private final JavaType _type;
+
+		XmlSequenceIterator(final MarshallerMapperForXml xmlMapper,final XMLStreamReader xmlReader,
+							final JavaType type) {
+			_xmlMapper = xmlMapper;
+			_xmlReader = xmlReader;
+			_type = type;
+		}
+		@Override
+		protected boolean _moveToNext() throws XMLStreamException {
+			// skip whitespaces & comments up to the next object element or the root element end
+			return _xmlReader.nextTag() == XMLStreamConstants.START_ELEMENT;
+		}
+		@Override
+		protected T _readCurrent() throws IOException {
+			return _xmlMapper.readValue(_xmlReader,
+										_type);		// the reader is left at the object's end element
+		}
+		@Override
+		protected void _doClose() throws XMLStreamException {
+			_xmlReader.close();		// does NOT close the stream
+		}
+	}
+}
@@ -411,18 +411,51 @@ public class MarshallerAnnotationIntrospector
 	}
 	// A cache of sub-types by abstract type
 	private final ConcurrentHashMap<Class<?>,List<NamedType>> _subTypesByAbstractType = new ConcurrentHashMap<>();
+	// true when the sub-types of every @MarshallPolymorphicTypeInfo annotated type have been found
+	private volatile boolean _annotatedPolymorphicTypesSubTypesFound = false;
 	
 	private List<NamedType> _findSubtypesOfMarshallPolymorphicTypeAnnotated(final Class<?> marshallPolymorphicTypeAnnotated) {
 		// [1] - try the cache
 		List<NamedType> outTypes = _subTypesByAbstractType.get(marshallPolymorphicTypeAnnotated);	// check the cache
 		if (outTypes != null) return outTypes;
 		
-		// [2] - Find subtypes
+		// [2] - Find the subtypes of every @MarshallPolymorphicTypeInfo annotated type in a single pass
+		_findSubtypesOfEveryMarshallPolymorphicTypeAnnotated();
+		outTypes = _subTypesByAbstractType.get(marshallPolymorphicTypeAnnotated);
+		if (outTypes != null) return outTypes;
+		
+		// [3] - Find subtypes (the type is NOT annotated: ie it's an abstract type)
 		Set<?> subTypes = TypeScan.findSubTypesOfInJavaPackages(marshallPolymorphicTypeAnnotated,
 												  				_javaPackagess);
+		outTypes = _namedTypesOf(marshallPolymorphicTypeAnnotated,
+								 subTypes);
+
+		// cache
+		_subTypesByAbstractType.put(marshallPolymorphicTypeAnnotated,outTypes);
+		return outTypes;
+	}
+	private void _findSubtypesOfEveryMarshallPolymorphicTypeAnnotated() {
+		if (_annotatedPolymorphicTypesSubTypesFound) return;
+		synchronized(_subTypesByAbstractType) {
+			if (_annotatedPolymorphicTypesSubTypesFound) return;
+			Set<Class<?>> annotatedTypes = TypeScan.findTypesAnnotatedWithInJavaPackages(MarshallPolymorphicTypeInfo.class,
+																						 _javaPackagess);
+			if (CollectionUtils.hasData(annotatedTypes)) {
+				Map<Class<?>,Set<Class<?>>> subTypesByType = TypeScan.findSubTypesOfInJavaPackages(annotatedTypes,
+																								   _javaPackagess);
+				for (Map.Entry<Class<?>,Set<Class<?>>> me : subTypesByType.entrySet()) {
+					_subTypesByAbstractType.putIfAbsent(me.getKey(),
+														_namedTypesOf(me.getKey(),me.getValue()));
+				}
+			}
+			_annotatedPolymorphicTypesSubTypesFound = true;
+		}
+	}
+	private static List<NamedType> _namedTypesOf(final Class<?> marshallPolymorphicTypeAnnotated,
+												 final Set<?> subTypes) {
 		if (log.isTraceEnabled()) log.trace("{} has {} subtypes",
 				  							marshallPolymorphicTypeAnnotated,(subTypes != null ? subTypes.size() : 0));
-
+		List<NamedType> outTypes = null;
 		if (CollectionUtils.hasData(subTypes)) {
 			outTypes = Lists.newArrayListWithExpectedSize(subTypes.size());
 		} else {
@@ -443,9 +476,6 @@ public class MarshallerAnnotationIntrospector
 			}
 		}
 
-		// cache
-		_subTypesByAbstractType.put(marshallPolymorphicTypeAnnotated,outTypes);
-
 		// debug
 		if (log.isTraceEnabled()) log.trace("SubType Info for {}: {}",
 				  							marshallPolymorphicTypeAnnotated,outTypes);
@@ -2,10 +2,10 @@ package r01f.objectstreamer.util;
 
 import java.lang.annotation.Annotation;
 import java.util.Collection;
+import java.util.Map;
 import java.util.Set;
 
 import com.fasterxml.jackson.databind.JavaType;
-import com.google.common.base.Predicate;
 import com.google.common.collect.FluentIterable;
 
 import lombok.AccessLevel;
@@ -14,10 +14,10 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.experimental.Accessors;
 import r01f.guids.CommonOIDs.AppCode;
-import r01f.reflection.ReflectionUtils;
 import r01f.reflection.outline.TypeOutline;
 import r01f.reflection.outline.TypeOutline.OutlineTreeNode;
-import r01f.reflection.scanner.SubTypeOfScanner;
+import r01f.reflection.scanner.AnnotatedWithScanner;
+import r01f.reflection.scanner.TypeHierarchyScanner;
 import r01f.types.JavaPackage;
 
 @NoArgsConstructor(access=AccessLevel.PRIVATE)
@@ -114,25 +114,42 @@ public abstract class TypeScan {
 														 .toSet());
 	}
 	/**
-	 * Finds subtypes of a certain base (abstract / interface class)
-	 * BEWARE! this type is synchronized because SubTypeOfScanner.findSubTypesAt(...) is NOT thread safe
-	 * 		   (this method is just called ONCE from MarshallerAnnotationIntrospector when the Marshalling is bootstrapped)
+	 * Finds the instanciable subtypes of a certain base (abstract / interface class)
+	 * The packages are scanned just once (see {@link TypeHierarchyScanner}) so this method is cheap after the first call
+	 * and it can be called concurrently
 	 * @param baseClass
 	 * @return
 	 */
 	public static <T> Set<Class<? extends T>> findSubTypesOfInJavaPackages(final Class<T> baseClass,
 															 			   final Collection<JavaPackage> javaPackages) {
-		// find the sub-types
-		Set<Class<? extends T>> outSubTypes = SubTypeOfScanner.findSubTypesAt(baseClass,
-																			  javaPackages);
-		// filter instanciable types
-		return FluentIterable.from(outSubTypes)
-							 .filter(new Predicate<Object>() {
-										@Override
-										public boolean apply(final Object obj) {
-											return ReflectionUtils.isInstanciable((Class<?>)obj);
-										}
-								  })
-							 .toSet();
+		return TypeHierarchyScanner.findSubTypesAt(baseClass,
+												   javaPackages,
+												   true,		// instanciable types only
+												   TypeScan.class.getClassLoader());
+	}
+	/**
+	 * Finds the types annotated with the given annotation (see {@link AnnotatedWithScanner})
+	 * @param annType
+	 * @param javaPackages
+	 * @return
+	 */
+	public static Set<Class<?>> findTypesAnnotatedWithInJavaPackages(final Class<? extends Annotation> annType,
+																	 final Collection<JavaPackage> javaPackages) {
+		return AnnotatedWithScanner.findTypesAnnotatedWitAt(annType,
+															javaPackages,
+															TypeScan.class.getClassLoader());
+	}
+	/**
+	 * Finds the instanciable subtypes of many base (abstract / interface class) types in a single pass
+	 * @param baseClasses
+	 * @param javaPackages
+	 * @return the subtypes by base type
+	 */
+	public static Map<Class<?>,Set<Class<?>>> findSubTypesOfInJavaPackages(final Collection<Class<?>> baseClasses,
+															 			   final Collection<JavaPackage> javaPackages) {
+		return TypeHierarchyScanner.findSubTypesAt(baseClasses,
+												   javaPackages,
+												   true,		// instanciable types only
+												   TypeScan.class.getClassLoader());
 	}
 }
@@ -1,9 +1,12 @@
 package r01f.objectstreamer;
 
+import java.io.Closeable;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Writer;
 import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.stream.Stream;
 
 import com.google.common.reflect.TypeToken;
 
@@ -75,6 +78,44 @@ public interface Marshaller {
 		
 		public <T> T fromJson(final String json,
 							  final TypeToken<T> typeToken);
+		
+		// ================================================================================
+		/**
+		 * Lazily reads a sequence of objects (a json array or a xml root element containing the objects)
+		 * Objects are read one by one as the iterator is consumed so the whole sequence is NEVER in memory
+		 * BEWARE! the iterator MUST be closed (the stream is NOT closed)
+		 * @param is
+		 * @param format
+		 * @param type
+		 * @return
+		 */
+		public <T> MarshalledObjectsIterator<T> sequenceFrom(final InputStream is,final MarshallFormat format,
+															 final Class<T> type);
+		/**
+		 * Lazily reads the objects of a json array (see {@link #sequenceFrom(InputStream, MarshallFormat, Class)})
+		 * @param is
+		 * @param type
+		 * @return
+		 */
+		public <T> MarshalledObjectsIterator<T> sequenceFromJson(final InputStream is,
+																 final Class<T> type);
+		/**
+		 * Lazily reads the objects contained in the xml root element (see {@link #sequenceFrom(InputStream, MarshallFormat, Class)})
+		 * @param is
+		 * @param type
+		 * @return
+		 */
+		public <T> MarshalledObjectsIterator<T> sequenceFromXml(final InputStream is,
+																final Class<T> type);
+	}
+	/**
+	 * An {@link Iterator} of objects lazily read from a stream
+	 * BEWARE! it MUST be closed
+	 */
+	public interface MarshalledObjectsIterator<T>
+			 extends Iterator<T>,
+			 		 Closeable {
+		// just a mix
 	}
 /////////////////////////////////////////////////////////////////////////////////////////
 //	WRITE	
@@ -107,5 +148,49 @@ public interface Marshaller {
 		public <T> String toJson(final T obj,final Charset charset);
 		
 		public <T> String toJson(final T obj);
+		
+		// ================================================================================
+		/**
+		 * Writes a sequence of objects as a json array or as xml elements inside a root element
+		 * Objects are written one by one as the iterator is consumed so the whole sequence is NEVER in memory
+		 * (the stream is flushed BUT NOT closed)
+		 * @param format
+		 * @param objs
+		 * @param rootElementName the xml root element name (ignored if the format is json)
+		 * @param os
+		 */
+		public <T> void sequenceTo(final MarshallFormat format,
+								   final Iterator<? extends T> objs,final String rootElementName,
+								   final OutputStream os);
+		/**
+		 * Writes the objects as a json array (see {@link #sequenceTo(MarshallFormat, Iterator, String, OutputStream)})
+		 * @param objs
+		 * @param os
+		 */
+		public <T> void sequenceToJson(final Iterator<? extends T> objs,
+									   final OutputStream os);
+		/**
+		 * Writes the objects as a json array (see {@link #sequenceTo(MarshallFormat, Iterator, String, OutputStream)})
+		 * @param objs
+		 * @param os
+		 */
+		public <T> void sequenceToJson(final Stream<? extends T> objs,
+									   final OutputStream os);
+		/**
+		 * Writes the objects as xml elements inside a root element (see {@link #sequenceTo(MarshallFormat, Iterator, String, OutputStream)})
+		 * @param objs
+		 * @param rootElementName
+		 * @param os
+		 */
+		public <T> void sequenceToXml(final Iterator<? extends T> objs,final String rootElementName,
+									  final OutputStream os);
+		/**
+		 * Writes the objects as xml elements inside a root element (see {@link #sequenceTo(MarshallFormat, Iterator, String, OutputStream)})
+		 * @param objs
+		 * @param rootElementName
+		 * @param os
+		 */
+		public <T> void sequenceToXml(final Stream<? extends T> objs,final String rootElementName,
+									  final OutputStream os);
 	}
 }
@@ -53,7 +53,14 @@ import r01f.types.Path;
  * </pre>
  * </li>
  * </ul>
- *
+ * If <code>typedSnapshot='true'</code> is set at the component definition, when the properties are loaded (or reloaded) an immutable
+ * flat snapshot of the properties with their values pre-parsed is built so typed properties (int, long, boolean...)
+ * can be accessed without evaluating the xpath against the xml document (see {@link XMLPropertiesComponentSnapshot})
+ * <pre class="brush:xml">
+ * 	<componentDef typedSnapshot='true'>
+ * 		...
+ * 	</componentDef>
+ * </pre>
  */
 @MarshallType(as="componentDef")
 @Accessors(prefix="_")
@@ -78,6 +85,10 @@ public class XMLPropertiesComponentDef
 	
 	@MarshallField(as="numberOfPropertiesEstimation")
 	@Getter @Setter private int _numberOfPropertiesEstimation = XMLPropertiesForAppCache.DEFAULT_PROPERTIES_PER_COMPONENT;
+	
+	@MarshallField(as="typedSnapshot",
+				   whenXml=@MarshallFieldAsXml(attr=true))
+	@Getter @Setter private boolean _typedSnapshot;
 ///////////////////////////////////////////////////////////////////////////////
 // 	METHODS
 ///////////////////////////////////////////////////////////////////////////////
@@ -88,6 +99,7 @@ public class XMLPropertiesComponentDef
 		outSb.append(String.format("\r\n           Name: %s",_name.asString()))
 			 .append(String.format("\r\npropsEstimation: %s",Integer.toString(_numberOfPropertiesEstimation)))
 			 .append(String.format("\r\n        fileUri: %s",_propertiesFileURI.asString()))
+			 .append(String.format("\r\n  typedSnapshot: %s",Boolean.toString(_typedSnapshot)))
 			 .append(String.format("\r\n         loader: %s",_loaderDef != null ? _loaderDef.debugInfo() : ""));
 		return outSb.toString();
 	}
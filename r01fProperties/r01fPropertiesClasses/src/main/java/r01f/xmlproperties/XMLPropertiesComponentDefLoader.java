@@ -215,7 +215,7 @@ class XMLPropertiesComponentDefLoader {
 	/**
 	 * Loads the xml properties component definition
 	 * <pre class="brush:java">
-	 *		String defXml = "<componentDef name='myName'>" +
+	 *		String defXml = "<componentDef name='myName' typedSnapshot='true'>" +
 	 *								"<propertiesFileURI>/config/r01fb.properties.xml</propertiesFileURI>" +
 	 *								"<numberOfPropertiesEstimation>10</numberOfPropertiesEstimation>" +
 	 *								"<resourcesLoader id='myResLoader' type='CLASSPATH'>" +
@@ -253,11 +253,13 @@ class XMLPropertiesComponentDefLoader {
 				String name = XMLUtils.stringByXPath(xmlDoc,"/componentDef/@name");
 				String propsFileURI = XMLUtils.stringByXPath(xmlDoc,"/componentDef/propertiesFileURI");
 				Number numberOfPropsEstimation = XMLUtils.numberByXPath(xmlDoc,"/componentDef/numberOfPropertiesEstimation");
+				String typedSnapshot = XMLUtils.stringByXPath(xmlDoc,"/componentDef/@typedSnapshot");
 
 				outDef = new XMLPropertiesComponentDef();
 				if (Strings.isNOTNullOrEmpty(name)) 		outDef.setName(AppComponent.forId(name));
 				if (Strings.isNOTNullOrEmpty(propsFileURI))	outDef.setPropertiesFileURI(Path.from(propsFileURI));
 				if (numberOfPropsEstimation != null)		outDef.setNumberOfPropertiesEstimation(numberOfPropsEstimation.intValue());
+				if (Strings.isNOTNullOrEmpty(typedSnapshot))	outDef.setTypedSnapshot(Boolean.parseBoolean(typedSnapshot));
 
 				// ---> resources loader def
 				ResourcesLoaderDef resLoaderDef = new ResourcesLoaderDef();
@@ -1,5 +1,7 @@
 package r01f.xmlproperties;
 
+import r01f.guids.CommonOIDs.AppComponent;
+
 /**
  * {@link XMLPropertiesForAppComponent} load listener
  */
@@ -9,4 +11,9 @@ interface XMLPropertiesComponentLoadedListener {
 	 * @param def component definition
 	 */
 	public void newComponentLoaded(XMLPropertiesComponentDef def);
+	/**
+	 * a component has been reloaded (the previous component's xml has been replaced)
+	 * @param component
+	 */
+	public void componentReloaded(AppComponent component);
 }
@@ -0,0 +1,250 @@
+package r01f.xmlproperties;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang3.BooleanUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import com.google.common.collect.ImmutableList;
+
+import lombok.extern.slf4j.Slf4j;
+import r01f.guids.CommonOIDs.AppComponent;
+import r01f.types.Path;
+import r01f.xml.XMLUtils;
+
+/**
+ * An immutable flat snapshot of a component's properties built walking the component's xml document ONCE
+ * when it's loaded (or reloaded)
+ * <p>
+ * Every leaf element containing text is stored by it's path (the element names from the root element) with
+ * it's value pre-parsed as {@link String}, number (int / long) and boolean so the typed accessors
+ * do NOT have to touch the DOM, evaluate an xpath or box the values.
+ * The child elements of every element are also stored as a map (child element name -> values) built exactly
+ * as when the xpath is evaluated (see {@link XMLPropertiesForAppComponentsContainer#mapOfStringsFrom(NodeList)})
+ * </p>
+ * <p>
+ * The values are the same as the ones returned evaluating the xpath: the FIRST element in document order is the one
+ * used so if it's NOT a leaf element containing text (ie: an element with mixed content), the path is NOT stored
+ * (even if there're other elements with the same path that are leaf ones)
+ * </p>
+ * <p>
+ * Only SIMPLE xpaths made of element names (ie: /myAppCode/myProp/mySubProp) can be resolved from the snapshot;
+ * when the xpath uses any other xpath construct (predicates, attributes, axis, functions...) it will NOT be found
+ * at the snapshot and the property MUST be resolved evaluating the xpath against the xml document.
+ * </p>
+ * The snapshot is enabled at the component definition:
+ * <pre class='brush:xml'>
+ * 	<componentDef typedSnapshot='true'>
+ * 		<propertiesFileURI>/config/r01fb.properties.xml</propertiesFileURI>
+ * 		...
+ * 	</componentDef>
+ * </pre>
+ */
+@Slf4j
+final class XMLPropertiesComponentSnapshot {
+/////////////////////////////////////////////////////////////////////////////////////////
+//  CONSTANTS
+/////////////////////////////////////////////////////////////////////////////////////////
+	private static final byte NUMBER = 1;
+	private static final byte BOOLEAN = 2;
+	private static final byte TRUE = 4;
+/////////////////////////////////////////////////////////////////////////////////////////
+//  FIELDS
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * The slot of every property indexed by the path elements (see {@link Path#getPathElements()})
+	 * BEWARE! the path elements list is used as key since it's hashCode / equals do NOT allocate
+	 */
+	private final Map<List<String>,Integer> _slotByPath;
+	private final String[] _strings;
+	private final int[] _ints;
+	private final long[] _longs;
+	private final byte[] _flags;
+
+	/** The child elements of every element as a map (see {@link XMLPropertiesForAppComponentsContainer#mapOfStringsFrom(NodeList)}) */
+	private final Map<List<String>,Map<String,List<String>>> _mapByPath;
+/////////////////////////////////////////////////////////////////////////////////////////
+//  CONSTRUCTOR
+/////////////////////////////////////////////////////////////////////////////////////////
+	private XMLPropertiesComponentSnapshot(final Map<List<String>,Integer> slotByPath,
+										   final List<String> strings,
+										   final Map<List<String>,Map<String,List<String>>> mapByPath) {
+		_slotByPath = slotByPath;
+		_mapByPath = mapByPath;
+		int size = strings.size();
+		_strings = strings.toArray(new String[size]);
+		_ints = new int[size];
+		_longs = new long[size];
+		_flags = new byte[size];
+		for (int i=0; i < size; i++) {
+			_parse(i);
+		}
+	}
+	/**
+	 * Builds the snapshot walking the component's xml document
+	 * @param component
+	 * @param xml
+	 * @return
+	 */
+	static XMLPropertiesComponentSnapshot from(final AppComponent component,
+											   final Document xml) {
+		Map<List<String>,Integer> slotByPath = new HashMap<List<String>,Integer>();
+		List<String> strings = new ArrayList<String>();
+		Map<List<String>,List<Node>> childrenByPath = new LinkedHashMap<List<String>,List<Node>>();
+		if (xml != null && xml.getDocumentElement() != null) {
+			_walk(xml.getDocumentElement(),
+				  ImmutableList.<String>of(),
+				  new HashSet<List<String>>(),slotByPath,strings,
+				  childrenByPath);
+		}
+		// the maps are built from the child elements of ALL the elements with the same path (as the xpath does)
+		Map<List<String>,Map<String,List<String>>> mapByPath = new HashMap<List<String>,Map<String,List<String>>>(childrenByPath.size());
+		for (Map.Entry<List<String>,List<Node>> me : childrenByPath.entrySet()) {
+			Map<String,List<String>> map = XMLPropertiesForAppComponentsContainer.mapOfStringsFrom(_nodeListOf(me.getValue()));
+			if (map == null) continue;
+			for (Map.Entry<String,List<String>> item : map.entrySet()) {
+				item.setValue(Collections.unmodifiableList(item.getValue()));
+			}
+			mapByPath.put(me.getKey(),Collections.unmodifiableMap(map));
+		}
+		log.debug("Built a typed snapshot of {} properties and {} maps for component {}",
+				  strings.size(),mapByPath.size(),component);
+		return new XMLPropertiesComponentSnapshot(slotByPath,strings,
+												  mapByPath);
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//  METHODS
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Returns the slot of a property or -1 if the property is NOT at the snapshot
+	 * @param propXPath
+	 * @return
+	 */
+	int slotOf(final Path propXPath) {
+		if (propXPath == null || !propXPath.hasPathElements()) return -1;
+		Integer slot = _slotByPath.get(propXPath.getPathElements());
+		return slot != null ? slot : -1;
+	}
+	String stringAt(final int slot) {
+		return _strings[slot];
+	}
+	boolean isNumberAt(final int slot) {
+		return (_flags[slot] & NUMBER) != 0;
+	}
+	int intAt(final int slot) {
+		return _ints[slot];
+	}
+	long longAt(final int slot) {
+		return _longs[slot];
+	}
+	boolean isBooleanAt(final int slot) {
+		return (_flags[slot] & BOOLEAN) != 0;
+	}
+	boolean booleanAt(final int slot) {
+		return (_flags[slot] & TRUE) != 0;
+	}
+	/**
+	 * Returns the child elements of the element at the given path as a map (child element name -> values)
+	 * @param propXPath
+	 * @return the map or null if the property is NOT at the snapshot (or the element does NOT have child elements)
+	 */
+	Map<String,List<String>> mapOf(final Path propXPath) {
+		if (propXPath == null || !propXPath.hasPathElements()) return null;
+		return _mapByPath.get(propXPath.getPathElements());
+	}
+	int size() {
+		return _strings.length;
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//  PRIVATE METHODS
+/////////////////////////////////////////////////////////////////////////////////////////
+	private static void _walk(final Element el,
+							  final ImmutableList<String> parentPath,
+							  final Set<List<String>> visitedPaths,final Map<List<String>,Integer> slotByPath,final List<String> strings,
+							  final Map<List<String>,List<Node>> childrenByPath) {
+		// namespaced elements cannot be reached using a simple xpath
+		if (el.getNamespaceURI() != null || el.getNodeName().indexOf(':') >= 0) return;
+
+		ImmutableList<String> path = ImmutableList.<String>builder()
+												  .addAll(parentPath)
+												  .add(el.getNodeName())
+												  .build();
+		// the first element in document order is the one used when evaluating the xpath
+		boolean first = visitedPaths.add(path);
+
+		boolean hasChildElements = false;
+		for (Node child = el.getFirstChild(); child != null; child = child.getNextSibling()) {
+			if (child.getNodeType() != Node.ELEMENT_NODE) continue;
+			if (!hasChildElements) {
+				hasChildElements = true;
+				List<Node> children = childrenByPath.get(path);
+				if (children == null) {
+					children = new ArrayList<Node>();
+					childrenByPath.put(path,children);
+				}
+				for (Node item = child; item != null; item = item.getNextSibling()) {
+					if (item.getNodeType() == Node.ELEMENT_NODE) children.add(item);
+				}
+			}
+			_walk((Element)child,
+				  path,
+				  visitedPaths,slotByPath,strings,
+				  childrenByPath);
+		}
+		// only leaf elements containing text are stored
+		// ... if the first element is NOT a leaf (ie: mixed content) the path is NOT stored (the xpath is evaluated)
+		if (first
+		 && !hasChildElements
+		 && XMLUtils.isTextNode(el.getFirstChild())) {
+			slotByPath.put(path,strings.size());
+			strings.add(el.getTextContent());
+		}
+	}
+	private static NodeList _nodeListOf(final List<Node> nodes) {
+		return new NodeList() {
+						@Override
+						public Node item(final int index) {
+							return index >= 0 && index < nodes.size() ? nodes.get(index) : null;
+						}
+						@Override
+						public int getLength() {
+							return nodes.size();
+						}
+			   };
+	}
+	/**
+	 * Pre-parses the value exactly as {@link XMLPropertiesForAppCache} does when the property is accessed
+	 * @param slot
+	 */
+	private void _parse(final int slot) {
+		String str = _strings[slot];
+		byte flags = 0;
+		try {
+			Number num = NumberUtils.createNumber(str);
+			if (num != null) {
+				_ints[slot] = num.intValue();
+				_longs[slot] = num.longValue();
+				flags |= NUMBER;
+			}
+		} catch (NumberFormatException nfEx) {
+			// not a number
+		}
+		Boolean bool = BooleanUtils.toBooleanObject(str);
+		if (bool != null) {
+			flags |= BOOLEAN;
+			if (bool) flags |= TRUE;
+		}
+		_flags[slot] = flags;
+	}
+}
@@ -1,9 +1,10 @@
 package r01f.xmlproperties;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.math.NumberUtils;
@@ -14,12 +15,9 @@ import org.w3c.dom.NodeList;
 import com.google.common.base.Function;
 import com.google.common.reflect.TypeToken;
 
-import lombok.AllArgsConstructor;
-import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
-import lombok.ToString;
 import lombok.experimental.Accessors;
 import lombok.extern.slf4j.Slf4j;
 import r01f.debug.Debuggable;
@@ -41,6 +39,9 @@ import r01f.util.types.collections.CollectionUtils;
  * 							  (filesystem, db, ect) and the xml is cached to avoid loading it again and again
  * 							  This cache is managed at {@link XMLPropertiesForAppComponentsContainer}</li>
  * </ul>
+ * The properties cache is SEGMENTED by component: every component's properties are stored at it's own concurrent map
+ * so properties can be concurrently read while a component is being reloaded and clearing a component's cached properties
+ * just drops it's segment
  */
 @Slf4j
 @Accessors(prefix="_")
@@ -86,7 +87,10 @@ public class XMLPropertiesForAppCache
 	private final XMLPropertiesForAppComponentsContainer _componentXMLManager;
 	
 	private final boolean _useCache;
-	private Map<CacheKey,CacheValue> _cache;
+	/**
+	 * Cached property values by component (segment) and xpath
+	 */
+	private final ConcurrentMap<AppComponent,ConcurrentMap<Path,CacheValue>> _cache;
 /////////////////////////////////////////////////////////////////////////////////////////
 //  CONSTRUCTOR
 /////////////////////////////////////////////////////////////////////////////////////////
@@ -97,6 +101,8 @@ public class XMLPropertiesForAppCache
 		_appCode = appCode;
 		_systemSetEnvironment = env;
 		_useCache = useCache;	
+		_cache = new ConcurrentHashMap<AppComponent,ConcurrentMap<Path,CacheValue>>(componentsNumberEstimation > 0 ? componentsNumberEstimation
+																												  : DEFAULT_COMPONENTS_NUMBER);
 		_componentXMLManager = new XMLPropertiesForAppComponentsContainer(this,									// component loading listener
 																		  env,									// environment
 																		  _appCode,componentsNumberEstimation);	// appCode / props estimation
@@ -106,53 +112,39 @@ public class XMLPropertiesForAppCache
 /////////////////////////////////////////////////////////////////////////////////////////
 	@Override
 	public void newComponentLoaded(final XMLPropertiesComponentDef def) {
-		// Ensure there's enough space at the props cache
-		_ensureCapacity(def.getNumberOfPropertiesEstimation());
+		// Ensure there's a segment at the props cache for the component
+		_segmentFor(def.getName(),
+					def.getNumberOfPropertiesEstimation());
+	}
+	@Override
+	public void componentReloaded(final AppComponent component) {
+		// the component's xml has been reloaded in background: the cached values are no longer valid
+		this.clear(component);
 	}
 	/**
-	 * Ensures a certain cache capacity<br>
+	 * Returns the cache segment of a component creating it if it does NOT exists<br>
 	 * This function is called from {@link XMLPropertiesForAppComponentsContainer} when a new XML properties file is loaded
 	 * <ul>
 	 *	  <li>The component definition sets the estimated props number</li>
 	 * 		<li>When the component definition is loaded, this method is called to make space for the properties at the cache.</li>
 	 * </ul>
+	 * Since every component has it's own segment, the cache is NEVER re-built when a new component is loaded
+	 * @param component
 	 * @param propertiesPerComponentEstimation estimated number of properties
+	 * @return
 	 */
-	private void _ensureCapacity(final int propertiesPerComponentEstimation) {
-		final float cacheMapLoadFactor = 0.5F;	// A Map's loadFactor is an indication of how full the underlying table can be BEFORE it's capacity is increased
-												//		when numEntries > loadFactor * actualCapacity the underlying table is rebuilt and the bucket number (capacity) is doubled
-												// NOTE that:
-												//		- A HashMap stores it's entries indexed by a hash of their keys in the underlying table's positions (buckets)
-												//		  It's possible that at a certain position (bucket) there's MORE THAN A SINGLE entry by two means:
-												//			1.- When an new entry is inserted, it has the SAME hashCode than an existent one
-												//					In this case, the entry's key's equals() method is calle to know if it's the SAME entry -in which case the 
-												//					existing entry is REPLACED by the new one-, or it's a DIFFERENT entry -in which case, the bucket will store two
-												//					entries-.
-												// 			2.- The table's capacity has been exceed and obviously at every table's position (bucket) more than a single entry
-												//				MUST be stored; in this situation, when a new entry is inserted, it's hashCode MUST be checked against the bucket 
-												//				existing ones:
-												//					- if new entry's key's hashCode == any bucket entry's key's hash code the equals() method must be called
-												//					  and replace the entry if both key's hashcodes are equal
-												//					- if new entry's key's hashCode != any bucket entry's key's hash code a new entry is added to the bucket
-												// The SECOND collision type is affected by the table's capacity (bucket number) that ultimatelly is affected by the loadFactor
-												// (a value between 0 and 1)
-												//		The lower the loadFactor is, the LESS collision probability (the number of buckets in the table will sooner be doubled and 
-												//	 	the probability of table's space starvation is LESS probable)
-		if (_cache == null) {
-			// a new cache is created
-			int cacheSize = propertiesPerComponentEstimation + 100;
-			log.trace("Creating a {} positions cache for every component of {}",Integer.toString(cacheSize),_appCode);
-			_cache = new HashMap<CacheKey,CacheValue>(cacheSize,cacheMapLoadFactor);	// the second parameter is the load factor
-																						// ... the lower it's... the less collision probability
-		} else {
-			// the cache is re-built
-			int cacheSize = _cache.size() + propertiesPerComponentEstimation + 100;
-			log.trace("Resizing cache to add {} positions; final size: {}",Integer.toString(propertiesPerComponentEstimation),Integer.toString(cacheSize));
-			Map<CacheKey,CacheValue> tempCache = new HashMap<CacheKey,CacheValue>(cacheSize,cacheMapLoadFactor);		// the second parameter is the load factor
-																														// ... the lower it's... the less collision probability
-			tempCache.putAll(_cache);
-			_cache = tempCache;
+	private ConcurrentMap<Path,CacheValue> _segmentFor(final AppComponent component,
+													   final int propertiesPerComponentEstimation) {
+		ConcurrentMap<Path,CacheValue> outSegment = _cache.get(component);
+		if (outSegment == null) {
+			int segmentSize = propertiesPerComponentEstimation > 0 ? propertiesPerComponentEstimation
+																   : DEFAULT_PROPERTIES_PER_COMPONENT;
+			log.trace("Creating a {} positions cache segment for component {} of {}",Integer.toString(segmentSize),component,_appCode);
+			ConcurrentMap<Path,CacheValue> newSegment = new ConcurrentHashMap<Path,CacheValue>(segmentSize);
+			outSegment = _cache.putIfAbsent(component,newSegment);
+			if (outSegment == null) outSegment = newSegment;
 		}
+		return outSegment;
 	}
 /////////////////////////////////////////////////////////////////////////////////////////
 //  
@@ -175,46 +167,46 @@ public class XMLPropertiesForAppCache
 	 */
 	public int clear(final AppComponent component) {
 		log.trace("clearing cached properties for component {} of {}",component,_appCode);
-		if (_cache == null) return 0;
 		int numMatches = 0;
 		if (component == null) {
 			// all cache is reset
-			numMatches = _cache.size();
+			for (Map<Path,CacheValue> segment : _cache.values()) {
+				numMatches += segment.size();
+			}
 			_cache.clear();
 		} else {
-			// only a given app cache is reset
-			List<CacheKey> keysToRemove = new ArrayList<CacheKey>();
-			for (CacheKey key : _cache.keySet()) {
-				if (key.isSameAs(component)) {
-					keysToRemove.add(key);	// add the key to the collection of keys to be removed
-					numMatches++;
-				}
-			}
-			if (!keysToRemove.isEmpty()) {
-				for (CacheKey key : keysToRemove) {
-					Object removedProperty = _cache.remove(key);	// Remove the key
-					if (removedProperty != null) numMatches++;
-				}
-			}
+			// only the given component's segment is dropped
+			Map<Path,CacheValue> removedSegment = _cache.remove(component);
+			if (removedSegment != null) numMatches = removedSegment.size();
 		}
 		return numMatches;
 	}
+	/**
+	 * Closes the cache: the background reload checking of the components is cancelled
+	 * (the app's properties can still be accessed BUT they're NOT reloaded anymore)
+	 */
+	public void close() {
+		_componentXMLManager.close();
+	}
 	/**
 	 * Gets the usage statistics
 	 * @return 
 	 */
 	public CacheStatistics usageStats() {
 		CacheStatistics outStats = new CacheStatistics();
-		for (CacheValue val : _cache.values()) {
-			if (val.getPropValue() != null) {
-				if (val.isDefaultValue()) {
-					outStats.setDefaultCount( outStats.getDefaultCount() + val.getAccessCount() );
+		for (Map<Path,CacheValue> segment : _cache.values()) {
+			for (CacheValue val : segment.values()) {
+				long accessCount = val.getAccessCount();
+				if (val.getPropValue() != null) {
+					if (val.isDefaultValue()) {
+						outStats.setDefaultCount( outStats.getDefaultCount() + accessCount );
+					} else {
+						outStats.setHitCount( outStats.getHitCount() + accessCount - 1);	// el primer acceso NO es por la cache
+						outStats.setNonHitCount( outStats.getNonHitCount() + 1 );
+					}
 				} else {
-					outStats.setHitCount( outStats.getHitCount() + val.getAccessCount() - 1);	// el primer acceso NO es por la cache
-					outStats.setNonHitCount( outStats.getNonHitCount() + 1 );
+					outStats.setInvalidCount( outStats.getInvalidCount() + accessCount);
 				}
-			} else {
-				outStats.setInvalidCount( outStats.getInvalidCount() + val.getAccessCount());
 			}
 		}
 		return outStats;
@@ -245,7 +237,7 @@ public class XMLPropertiesForAppCache
 	 * @return 
 	 */
 	public boolean existProperty(final AppComponent component,final Path propXPath) {
-		Object propValue = _retrieveLevel1Cached(component,propXPath);
+		Object propValue = _retrieveLevel1Cached(_cache.get(component),propXPath);
 		
 		if (propValue != null) return true;
 		
@@ -366,6 +358,16 @@ public class XMLPropertiesForAppCache
 		}
 		return outObj;
 	}
+	/**
+	 * Returns the typed properties snapshot of a component (see {@link XMLPropertiesComponentSnapshot})
+	 * BEWARE! the snapshot is only available if it's enabled at the component definition
+	 * @param component
+	 * @return the snapshot or null if it's NOT available
+	 */
+	XMLPropertiesComponentSnapshot getSnapshotOrNull(final AppComponent component) {
+		// the snapshot is re-built (and swapped) in background when the component is reloaded
+		return _componentXMLManager.getSnapshotFor(component);
+	}
 	/**
 	 * Returns the node containing the property
 	 * @param component
@@ -388,7 +390,7 @@ public class XMLPropertiesForAppCache
 	}
 /////////////////////////////////////////////////////////////////////////////////////////
 //  METHODS TO STORE AND RETRIVE FROM THE CACHE
-// 	Objects at cache are indexed by a key composed by appCode, component and the XPath expression
+// 	Objects at cache are stored at a segment by component and indexed by the XPath expression
 // 		appCode1 / component1A --> xPath_prop1 - obj1
 // 								   xPath_prop2 - obj2
 // 								   ...
@@ -406,9 +408,7 @@ public class XMLPropertiesForAppCache
 		T outValue = null;
 		
 		// Try to retrieve the cached value
-		CacheKey key = new CacheKey(component,propXPath);
-		CacheValue value = null;
-		value = _cache.get(key);
+		CacheValue value = _cachedValueOrNull(component,propXPath);
 		if (value != null) {
 			value.anotherHit();
 			outValue = (T)value.getPropValue();
@@ -420,27 +420,33 @@ public class XMLPropertiesForAppCache
 	 * TWO caches are in use:
 	 * - LEVEL1: a cache of values indexed by their XPath expression
 	 * - LEVEL2: a cache of components' XML documents
-	 * <b>BEWARE:</b><p>If type==null, just check the cache (do NOT try to load the property value from the xml).
-	 * @param component
+	 * <b>BEWARE:</b><p>The reload checking is NOT done here: components are reloaded in background 
+	 * 					 (see {@link XMLPropertiesForAppComponentsContainer}) and the segment is cleared when that happens
+	 * @param segment the component's cache segment (might be null)
 	 * @param xPath 
-	 * @param type 
 	 * @return
 	 */
-	private CacheValue _retrieveLevel1Cached(final AppComponent component,final Path xPath) {
-		// [0] Check if a property reloading is needed
-		boolean hasToClear = _componentXMLManager.reloadIfNecessary(component);
-		if (hasToClear) this.clear(component);		// Remove all cache entries
-
-		// [1] LEVEL 1 cache: Load the property from the values cache
-		CacheKey key = new CacheKey(component,xPath);
+	private CacheValue _retrieveLevel1Cached(final Map<Path,CacheValue> segment,final Path xPath) {
+		// LEVEL 1 cache: Load the property from the values cache
 		CacheValue outValue = null;
-		if (_useCache) {
+		if (_useCache && segment != null) {
 			// Try to retrieve the cached value
-			outValue = _cache.get(key);
+			outValue = segment.get(xPath);
 			if (outValue != null) outValue.anotherHit();
 		}
 		return outValue;
 	}
+	/**
+	 * Returns the value stored at the component's cache segment or null if it's NOT cached
+	 * @param component
+	 * @param xPath
+	 * @return
+	 */
+	private CacheValue _cachedValueOrNull(final AppComponent component,final Path xPath) {
+		Map<Path,CacheValue> segment = _cache.get(component);
+		return segment != null ? segment.get(xPath)
+							   : null;
+	}
 	/**
 	 * Retrieves a property value given it's XPath
 	 * TWO caches are in use:
@@ -455,8 +461,12 @@ public class XMLPropertiesForAppCache
 	@SuppressWarnings("unchecked")
 	private <T> CacheValue _retrieve(final AppComponent component,final Path xPath,
 									 final Class<T> type) {
+		// [0] - Get the component's cache segment BEFORE going to the xml: if the component is reloaded meanwhile
+		//		 the segment is dropped and the (stale) value stored below is discarded with it
+		ConcurrentMap<Path,CacheValue> segment = _segmentFor(component,DEFAULT_PROPERTIES_PER_COMPONENT);
+		
 		// [1] - Get the level 1 cached value
-		CacheValue outValue = _retrieveLevel1Cached(component,xPath);
+		CacheValue outValue = _retrieveLevel1Cached(segment,xPath);
 		
 		// If type==null, just check the cache (do NOT try to load the property value from the xml)
 		if (type == null) return outValue;
@@ -500,7 +510,7 @@ public class XMLPropertiesForAppCache
 						 type.getName(),xPath,_appCode.asString(),component);
 			}
 			// Store the created object at the cache
-			outValue = _store(component,xPath,
+			outValue = _store(segment,xPath,
 							  obj,			// BEWARE!! obj can be NULL if the property DOES NOT EXISTS!!!!
 							  false);		// not the default value
 		}
@@ -520,8 +530,12 @@ public class XMLPropertiesForAppCache
 	 */
 	private <T> CacheValue _retrieve(final AppComponent component,final Path xPath,
 									 final Function<Node,T> transformFuncion) {
+		// [0] - Get the component's cache segment BEFORE going to the xml: if the component is reloaded meanwhile
+		//		 the segment is dropped and the (stale) value stored below is discarded with it
+		ConcurrentMap<Path,CacheValue> segment = _segmentFor(component,DEFAULT_PROPERTIES_PER_COMPONENT);
+		
 		// [1] - Get the level 1 cached value
-		CacheValue outValue = _retrieveLevel1Cached(component,xPath);
+		CacheValue outValue = _retrieveLevel1Cached(segment,xPath);
 		
 		// If transformFuncion==null, just check the cache (do NOT try to load the property value from the xml)
 		if (transformFuncion == null) return outValue;
@@ -533,7 +547,7 @@ public class XMLPropertiesForAppCache
 			T obj =  _componentXMLManager.getBeanPropertyUsingTransformFunction(component,xPath,
 															  				 	transformFuncion);
 			// Store the created object at the cache
-			outValue = _store(component,xPath,
+			outValue = _store(segment,xPath,
 							  obj,			// BEWARE!! obj can be NULL if the property DOES NOT EXISTS!!!!
 							  false);		// not the default value
 		}
@@ -542,61 +556,47 @@ public class XMLPropertiesForAppCache
 	}
 	/**
 	 * Caches a property value
-	 * @param component 
+	 * @param segment the component's cache segment
 	 * @param xPath
 	 * @param obj 
 	 * @param isDefaultVal 
 	 * @return the previously stored value
 	 */
-	private CacheValue _store(final AppComponent component,final Path xPath,
+	private CacheValue _store(final Map<Path,CacheValue> segment,final Path xPath,
 							  final Object obj,final boolean isDefaultVal) {
-		CacheKey key = new CacheKey(component,xPath);
-		CacheValue value = new CacheValue(1,System.currentTimeMillis(),obj,isDefaultVal);
-		_cache.put(key,value);
+		CacheValue value = new CacheValue(obj,isDefaultVal);
+		segment.put(xPath,value);
 		return value;
 	}
 /////////////////////////////////////////////////////////////////////////////////////////
-//  CACHE KEY
+//  CACHE VALUE
 /////////////////////////////////////////////////////////////////////////////////////////
-  	@Accessors(prefix="_")
-  	@EqualsAndHashCode @ToString
-  	@AllArgsConstructor
-  	private class CacheKey {
-  		@Getter private AppComponent _component;
-  		@Getter private Path _propXPath;
-
-		boolean isSameAs(final AppComponent... keyComponent) {
-			boolean isSame = false;
-			if (keyComponent.length == 2) {	// component / xPath
-				isSame = this.composeKey(_component).equals(this.composeKey(keyComponent[0],keyComponent[1]));
-			} else if (keyComponent.length == 1) {	// appCode
-				isSame = this.composeKey(_component).equals(this.composeKey(keyComponent[0]));
-			}
-			return isSame;
-		}
-		AppComponent composeKey(final AppComponent... keyComponent) {
-			AppComponent outKey = null;
-			if (keyComponent.length == 2) {	// component / xPath
-				outKey = AppComponent.forId(keyComponent[0].asString() + "." + keyComponent[1].asString());
-			} else if (keyComponent.length == 1) {	// component
-				outKey = keyComponent[0];
-			}
-			return outKey;
-		}
-  	}
 	/**
 	 * Value stoed at the cache
+	 * Values are concurrently accessed so the access count and time stamp are kept at striped
+	 * counters ({@link LongAdder} / {@link LongAccumulator}) instead of shared fields to avoid contention
 	 */
   	@Accessors(prefix="_")
-	@NoArgsConstructor @AllArgsConstructor
 	private class CacheValue {
-		@Getter private long _accessCount;
-		@Getter private long _lastAcessTimeStamp;
-		@Getter private Object _propValue;
-		@Getter private boolean _defaultValue;
+		private final LongAdder _accessCount = new LongAdder();
+		private final LongAccumulator _lastAccessTimeStamp = new LongAccumulator(Math::max,0);
+		@Getter private volatile Object _propValue;
+		@Getter private volatile boolean _defaultValue;
+
+		public CacheValue(final Object propValue,final boolean defaultValue) {
+			_propValue = propValue;
+			_defaultValue = defaultValue;
+			this.anotherHit();
+		}
+		public long getAccessCount() {
+			return _accessCount.sum();
+		}
+		public long getLastAcessTimeStamp() {
+			return _lastAccessTimeStamp.get();
+		}
 		public void anotherHit() {
-			_accessCount++;
-			_lastAcessTimeStamp = System.currentTimeMillis();
+			_accessCount.increment();
+			_lastAccessTimeStamp.accumulate(System.currentTimeMillis());
 		}
 		public void setValue(final Object val,final boolean defaultVal) {
 			_propValue = val;
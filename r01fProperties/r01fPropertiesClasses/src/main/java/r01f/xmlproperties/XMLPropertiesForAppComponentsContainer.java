@@ -9,6 +9,9 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
 
 import javax.xml.namespace.QName;
 import javax.xml.parsers.ParserConfigurationException;
@@ -16,7 +19,6 @@ import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
@@ -27,9 +29,7 @@ import com.google.common.base.Function;
 import com.google.common.base.Throwables;
 
 import lombok.AllArgsConstructor;
-import lombok.EqualsAndHashCode;
 import lombok.Getter;
-import lombok.ToString;
 import lombok.experimental.Accessors;
 import lombok.extern.slf4j.Slf4j;
 import r01f.guids.CommonOIDs.AppCode;
@@ -40,6 +40,7 @@ import r01f.resources.ResourcesLoaderBuilder;
 import r01f.resources.ResourcesReloadControl;
 import r01f.resources.ResourcesReloadControlBuilder;
 import r01f.resources.ResourcesReloadControlDef;
+import r01f.resources.ResourcesReloadControlScheduler;
 import r01f.types.Path;
 import r01f.xml.XMLDocumentBuilder;
 import r01f.xml.XMLStringSerializer;
@@ -68,6 +69,11 @@ import r01f.xml.merge.XMLMerger;
  * 		<li> etc.</li>
  * </ul>
  * see {@link r01f.resources.ResourcesReloadControlDef}.
+ * <p>
+ * The reload checking is done in BACKGROUND (see {@link ResourcesReloadControlScheduler}): when a reload is needed the
+ * component's xml is re-loaded in the background thread and the new xml (and typed snapshot) is atomically swapped
+ * so property reads NEVER block on reload checks.
+ * </p>
  */
 @Slf4j
 class XMLPropertiesForAppComponentsContainer {
@@ -92,29 +98,22 @@ class XMLPropertiesForAppComponentsContainer {
     /**
      * Cache that stores the component's XML DOM that stores the properties
      */
-    private final Map<ComponentCacheKey,ComponentCacheXML> _componentsXMLCache;
-
-    @Accessors(prefix="_")
-  	@EqualsAndHashCode @ToString
-  	@AllArgsConstructor
-  	private class ComponentCacheKey {
-  		@Getter private final AppComponent _component;
+    private final ConcurrentMap<AppComponent,ComponentCacheXML> _componentsXMLCache;
+    /**
+     * Background reload checking tasks by component
+     */
+    private final ConcurrentMap<AppComponent,ScheduledFuture<?>> _reloadTasks;
+    /**
+     * Set when the container is closed: no more reload checking tasks are scheduled
+     * (see {@link #close()})
+     */
+    private volatile boolean _closed;
+    /**
+     * Set when a component with the typed snapshot enabled is loaded: until then the snapshot is NOT looked up
+     * (see {@link #getSnapshotFor(AppComponent)})
+     */
+    private volatile boolean _typedSnapshotEnabled;
 
-		boolean isSameAs(final AppComponent... keyComponent) {
-			boolean isSame = false;
-			if (keyComponent.length == 1) {
-				isSame = this.composeKey(_component).equals(this.composeKey(keyComponent[0]));
-			}
-			return isSame;
-		}
-		AppComponent composeKey(final AppComponent... keyComponent) {
-			AppComponent outKey = null;
-			if (keyComponent.length == 1) {
-				outKey = keyComponent[0];
-			}
-			return outKey;
-		}
-  	}
   	@Accessors(prefix="_")
   	@AllArgsConstructor
   	private class ComponentCacheXML {
@@ -122,8 +121,18 @@ class XMLPropertiesForAppComponentsContainer {
   		@Getter private long _loadTimeStamp;						// load timeStamp
   		@Getter private ResourcesReloadControl _reloadControlImpl;	// property reload control
   		@Getter private Document _xml;								// xml document
+  		@Getter private XMLPropertiesComponentSnapshot _snapshot;	// typed properties snapshot (null if NOT enabled at the component definition)
   	}
 /////////////////////////////////////////////////////////////////////////////////////////
+//  COMPILED XPATH EXPRESSIONS CACHE
+/////////////////////////////////////////////////////////////////////////////////////////
+  	/**
+  	 * Compiled xpath expressions by component
+  	 * BEWARE! this cache is NOT cleared when a component is reloaded since the compiled
+  	 * 		   expressions does NOT depend on the component's xml document
+  	 */
+  	private final ConcurrentMap<AppComponent,XMLPropertiesXPathExpressionCache> _xPathExprCaches;
+/////////////////////////////////////////////////////////////////////////////////////////
 //  CONSTRUCTOR
 /////////////////////////////////////////////////////////////////////////////////////////
     /**
@@ -140,7 +149,9 @@ class XMLPropertiesForAppComponentsContainer {
     	_systemSetEnvironment = systemSetEnvironment;
     	_appCode = appCode;
     	_componentLoadedListener = componentLoadedListener;
-    	_componentsXMLCache = new HashMap<ComponentCacheKey,ComponentCacheXML>(componentsNumberEstimation,0.5F);
+    	_componentsXMLCache = new ConcurrentHashMap<AppComponent,ComponentCacheXML>(componentsNumberEstimation);
+    	_reloadTasks = new ConcurrentHashMap<AppComponent,ScheduledFuture<?>>(componentsNumberEstimation);
+    	_xPathExprCaches = new ConcurrentHashMap<AppComponent,XMLPropertiesXPathExpressionCache>(componentsNumberEstimation);
     }
     /**
      * Removes the the cached properties forcing it's reloading
@@ -158,62 +169,26 @@ class XMLPropertiesForAppComponentsContainer {
         if (component == null) {
         	numMatches = _componentsXMLCache.size();
         	_componentsXMLCache.clear();
+        	_cancelReloadChecking(null);
         } else {
-        	List<ComponentCacheKey> keysToRemove = new ArrayList<ComponentCacheKey>();
-        	for (ComponentCacheKey key : _componentsXMLCache.keySet()) {
-        		if (key.isSameAs(component)) {
-        			keysToRemove.add(key);
-        			numMatches++;
-        		}
-        	}
-        	if (!keysToRemove.isEmpty()) {
-        		for (ComponentCacheKey key : keysToRemove) {
-        			ComponentCacheXML removedComp = _componentsXMLCache.remove(key);	// Eliminar la clave del cache de DOMs por componente
-        			if (removedComp != null) numMatches++;
-        		}
-        	}
+        	ComponentCacheXML removedComp = _componentsXMLCache.remove(component);	// Eliminar la clave del cache de DOMs por componente
+        	if (removedComp != null) numMatches++;
+        	_cancelReloadChecking(component);	// it's scheduled again when the component is loaded again
         }
         return numMatches;
     }
     /**
-     * Reloads the config if necessary; to do so it checks the last reload time-stamp with the properties source modification time-stamp
-     * (this properties source modification time-stamp is handed by the type set at the component definition)
-     * ie:
-     * <pre class='xml'>
-	 *		<?xml version="1.0" encoding="UTF-8"?>
-	 *		<componentDef>
-	 *			<numberOfPropertiesEstimation>10</numberOfPropertiesEstimation>
-	 *			<resourcesLoader type='CLASSPATH'/>
-	 *			<propertiesFileURI>...</propertiesFileURI>	<!-- BEWARE with ClassPathLoader: USE relative paths -->
-	 *		</componentDef>
-     * </pre>
-     * @param component .
-     * @return <code>true</code> if the component properties must be reloaded
+     * Closes the container cancelling the background reload checking tasks of every component
+     * BEWARE! the reload checking tasks are run at a JVM-wide scheduler (see {@link ResourcesReloadControlScheduler#SHARED})
+     * 		   that holds a reference to this container until the tasks are cancelled: if the container is NOT closed
+     * 		   it's NEVER garbage collected
+     * Once closed the components can still be accessed BUT they're NOT reloaded in background anymore
      */
-    boolean reloadIfNecessary(final AppComponent component) {
-    	boolean outReload = false;
-
-    	ComponentCacheXML comp = _retrieveComponent(component);
-    	if (comp == null) return false;
-
-    	ResourcesReloadControl reloadControlImpl = comp.getReloadControlImpl();
-    	if (reloadControlImpl == null) return false;
-
-    	// time between component reload checking
-    	long checkInterval = comp.getCompDef().getLoaderDef().getReloadControlDef()
-    										  				 .getCheckIntervalMilis();
-    	if (checkInterval > 0) {
-	    	long timeElapsed = System.currentTimeMillis() - comp.getLoadTimeStamp();
-	    	if (timeElapsed > checkInterval) {
-		    	outReload = reloadControlImpl.needsReload(component.asString());
-		    	if (outReload) {
-		    		log.warn("***** RELOAD component {}/{} ******",
-		    				 _appCode,component);
-		    		this.clear(component);		// If a reload is needed, delete the component's definition
-		    	}
-	    	}
-    	}
-    	return outReload;
+    void close() {
+    	log.info("Closing the XML properties components container of {}: cancelling {} reload checking tasks",
+    			 _appCode,_reloadTasks.size());
+    	_closed = true;
+    	_cancelReloadChecking(null);
     }
     /**
      * Checks if a component's properties file exists
@@ -240,6 +215,19 @@ class XMLPropertiesForAppComponentsContainer {
 		// [2] - Return the xml
 		return comp.getXml();
     }
+    /**
+     * Returns the typed properties snapshot of a component
+     * (see {@link XMLPropertiesComponentSnapshot})
+     * @param component
+     * BEWARE! the component is NOT loaded if it's NOT already loaded (the xpath is evaluated instead and the component is loaded then)
+     * @return the snapshot or null if the component is NOT loaded or the snapshot is NOT enabled at the component definition
+     */
+    XMLPropertiesComponentSnapshot getSnapshotFor(final AppComponent component) {
+    	if (!_typedSnapshotEnabled) return null;		// no component has the snapshot enabled
+        ComponentCacheXML comp = _componentsXMLCache.get(component);
+		return comp != null ? comp.getSnapshot()
+							: null;
+    }
     /**
      * Returns the XML's DOM's {@link Node} obtained applying the given xpath expression to the app/component properties XML.
      * @param component
@@ -268,16 +256,13 @@ class XMLPropertiesForAppComponentsContainer {
         ComponentCacheXML comp = _retrieveComponent(component);
 		if (comp == null) return null;		// the component could NOT be loaded... return null
 
-        // [2]- Exec the XPath expression
-		String thePropXPath = null;
+        // [2]- Exec the XPath expression using a cached compiled expression
+		String thePropXPath = XMLPropertiesXPathExpressionCache.normalize(propXPath);
+		XMLPropertiesXPathExpressionCache xPathExprCache = _xPathExpressionCacheFor(component,comp);
+		XPathExpression xPathExpr = null;
         try {
             Object outObj = null;
-            thePropXPath = propXPath.asString().trim();
-            if (thePropXPath.startsWith("/")) thePropXPath = thePropXPath.substring(1);
-
-            XPathFactory xPathFactory = XPathFactory.newInstance();
-            XPath xPath = xPathFactory.newXPath();
-            XPathExpression xPathExpr = xPath.compile(thePropXPath);
+            xPathExpr = xPathExprCache.borrow(thePropXPath);
             if (returnType == XPathConstants.BOOLEAN) {
             	outObj = xPathExpr.evaluate(comp.getXml(),XPathConstants.BOOLEAN);
             } else if (returnType == XPathConstants.NUMBER) {
@@ -294,6 +279,8 @@ class XMLPropertiesForAppComponentsContainer {
         	log.warn("Error retrieving property at {} for {}/{}",
         			 thePropXPath,_appCode.asString(),component);
         	xPathEx.printStackTrace(System.out);
+        } finally {
+        	xPathExprCache.release(thePropXPath,xPathExpr);	// return the compiled expression to the pool
         }
         return null;    // the property could NOT be loaded
     }
@@ -306,8 +293,17 @@ class XMLPropertiesForAppComponentsContainer {
     						: null;
 	}
   	public Map<String,List<String>> getMapOfStringsProperty(final AppComponent component,final Path propXPath) {
-    	Map<String,List<String>> outMap = null;
 		NodeList nodeList = this.getPropertyNodeList(component,propXPath);
+		return XMLPropertiesForAppComponentsContainer.mapOfStringsFrom(nodeList);
+  	}
+  	/**
+  	 * Builds a map (element name -> values) from the given elements
+  	 * (it's also used to build the maps of the typed snapshot, see {@link XMLPropertiesComponentSnapshot})
+  	 * @param nodeList
+  	 * @return the map or null if there're no elements
+  	 */
+  	static Map<String,List<String>> mapOfStringsFrom(final NodeList nodeList) {
+    	Map<String,List<String>> outMap = null;
 		if (nodeList != null && nodeList.getLength() > 0) {
 			outMap = new HashMap<String,List<String>>(nodeList.getLength());
 			for (int i=0; i < nodeList.getLength(); i++) {
@@ -377,33 +373,154 @@ class XMLPropertiesForAppComponentsContainer {
     private ComponentCacheXML _retrieveComponent(final AppComponent component) {
     	ComponentCacheXML outComp = null;
     	try {
-        	ComponentCacheKey key = new ComponentCacheKey(component);
-        	outComp = _componentsXMLCache.get(key);		// Get the component from the cache if present
+        	outComp = _componentsXMLCache.get(component);		// Get the component from the cache if present
         	if (outComp == null) {
-        		// Load the component definition
-        		XMLPropertiesComponentDef compDef = XMLPropertiesComponentDefLoader.loadOrDefault(_systemSetEnvironment,
-	        													   								  _appCode,component);
-
-    			// [0] -- Tell the cache that a new properties component has been loaded
-    			//		  (at this point the cache is re-built to accommodate the new estimated property number)
-    			_componentLoadedListener.newComponentLoaded(compDef);
-
-    			// [1] -- Load the XML file
-    			Document xmlDoc = _loadComponentXML(compDef);
-
-        		// [2] -- Load the reload control policy
-    			ResourcesReloadControl reloadControlImpl = _loadReloadControlImpl(compDef);
-
-        		// [3] -- Cache
-        		outComp = new ComponentCacheXML(compDef,System.currentTimeMillis(),reloadControlImpl,
-        									    xmlDoc);
-        		_componentsXMLCache.put(key,outComp);
+        		// Load the component
+        		ComponentCacheXML loadedComp = _loadComponent(component,
+        													  null);	// a new reload control is created
+        		outComp = _componentsXMLCache.putIfAbsent(component,loadedComp);
+        		if (outComp == null) {
+        			outComp = loadedComp;
+        			_scheduleReloadChecking(component,outComp);
+        		}
         	}
         } catch (XMLPropertiesException xmlPropsEx) {
         	xmlPropsEx.printStackTrace(System.out);
         }
     	return outComp;
     }
+    /**
+     * Loads a component: the component definition, the xml and the typed snapshot (if enabled)
+     * @param component
+     * @param reloadControlImpl the reload control to be used; if null a new one is created from the component definition
+     * @return
+     * @throws XMLPropertiesException
+     */
+    private ComponentCacheXML _loadComponent(final AppComponent component,
+    										 final ResourcesReloadControl reloadControlImpl) throws XMLPropertiesException {
+		// Load the component definition
+		XMLPropertiesComponentDef compDef = XMLPropertiesComponentDefLoader.loadOrDefault(_systemSetEnvironment,
+											   								  			  _appCode,component);
+
+		// [0] -- Tell the cache that a new properties component has been loaded
+		//		  (at this point the cache makes space for the new component's properties)
+		_componentLoadedListener.newComponentLoaded(compDef);
+
+		// [1] -- Load the XML file
+		Document xmlDoc = _loadComponentXML(compDef);
+
+		// [2] -- Load the reload control policy
+		ResourcesReloadControl theReloadControlImpl = reloadControlImpl != null ? reloadControlImpl
+																				: _loadReloadControlImpl(compDef);
+
+		// [3] -- Build the typed properties snapshot if enabled
+		XMLPropertiesComponentSnapshot snapshot = compDef.isTypedSnapshot() ? XMLPropertiesComponentSnapshot.from(component,xmlDoc)
+																			: null;
+		if (snapshot != null) _typedSnapshotEnabled = true;
+
+		// [4] -- the xml and the snapshot are published together
+		return new ComponentCacheXML(compDef,System.currentTimeMillis(),theReloadControlImpl,
+								     xmlDoc,
+								     snapshot);
+    }
+    /**
+     * Schedules the background reload checking of a component (if it has a reload control)
+     * The checking is done using the reload control set at the component definition 
+     * ie:
+     * <pre class='xml'>
+	 *		<?xml version="1.0" encoding="UTF-8"?>
+	 *		<componentDef>
+	 *			<numberOfPropertiesEstimation>10</numberOfPropertiesEstimation>
+	 *			<resourcesLoader type='CLASSPATH'>
+	 *				<reloadControl impl='PERIODIC' enabled='true' checkInterval='2s'/>
+	 *			</resourcesLoader>
+	 *			<propertiesFileURI>...</propertiesFileURI>	<!-- BEWARE with ClassPathLoader: USE relative paths -->
+	 *		</componentDef>
+     * </pre>
+     * @param component
+     * @param comp
+     */
+    private void _scheduleReloadChecking(final AppComponent component,
+    									 final ComponentCacheXML comp) {
+    	if (_closed) return;
+    	if (comp.getReloadControlImpl() == null) return;
+    	if (_reloadTasks.containsKey(component)) return;	// already scheduled
+    	
+    	// the reload control of the CURRENT cached component is used (the component might have been cleared and loaded again)
+    	ResourcesReloadControl currentCompReloadControl = new ResourcesReloadControl() {
+																	@Override
+																	public boolean needsReload(final String comp) {
+																		ComponentCacheXML currComp = _componentsXMLCache.get(component);
+																		return currComp != null 
+																			&& currComp.getReloadControlImpl() != null
+																			&& currComp.getReloadControlImpl().needsReload(comp);
+																	}
+    													  };
+    	ScheduledFuture<?> task = ResourcesReloadControlScheduler.SHARED.schedule(_appCode + "/" + component,
+    																			  currentCompReloadControl,comp.getCompDef().getLoaderDef().getReloadControlDef(),
+    																			  new Runnable() {
+    																					@Override
+    																					public void run() {
+    																						_reload(component);
+    																					}
+    																			  });
+    	if (task == null) return;
+    	if (_reloadTasks.putIfAbsent(component,task) != null) {
+    		task.cancel(false);					// another thread scheduled the task
+    	} else if (_closed) {
+    		_cancelReloadChecking(component);	// the container was closed while scheduling
+    	}
+    }
+    /**
+     * Cancels the background reload checking of a component
+     * @param component the component or null to cancel the reload checking of ALL the components
+     */
+    private void _cancelReloadChecking(final AppComponent component) {
+    	if (component == null) {
+    		for (AppComponent comp : _reloadTasks.keySet()) {
+    			_cancelReloadChecking(comp);
+    		}
+    	} else {
+    		ScheduledFuture<?> task = _reloadTasks.remove(component);
+    		if (task != null) task.cancel(false);
+    	}
+    }
+    /**
+     * Reloads a component (called from the background reload checking thread): 
+     * the new xml and snapshot are loaded and then atomically swapped with the current ones
+     * @param component
+     */
+    private void _reload(final AppComponent component) {
+    	ComponentCacheXML currComp = _componentsXMLCache.get(component);
+    	if (currComp == null) return;		// the component was cleared: it'll be loaded when accessed
+    	try {
+    		ComponentCacheXML reloadedComp = _loadComponent(component,
+    														currComp.getReloadControlImpl());	// the same reload control is used
+    		if (_componentsXMLCache.replace(component,currComp,reloadedComp)) {
+    			_componentLoadedListener.componentReloaded(component);			// the cached property values are no longer valid
+    		}
+    	} catch (XMLPropertiesException xmlPropsEx) {
+    		log.error("Error reloading {}/{}: the previously loaded properties are kept: {}",
+    				  _appCode,component,xmlPropsEx.getMessage(),xmlPropsEx);
+    	}
+    }
+    /**
+     * Returns the compiled xpath expressions cache for the given component, creating it if it does NOT exists
+     * @param component
+     * @param comp
+     * @return
+     */
+    private XMLPropertiesXPathExpressionCache _xPathExpressionCacheFor(final AppComponent component,
+    																  final ComponentCacheXML comp) {
+    	XMLPropertiesXPathExpressionCache outCache = _xPathExprCaches.get(component);
+    	if (outCache == null) {
+    		XMLPropertiesXPathExpressionCache newCache = new XMLPropertiesXPathExpressionCache(component,
+    																						   comp.getCompDef().getNumberOfPropertiesEstimation());
+    		outCache = _xPathExprCaches.putIfAbsent(component,newCache);
+    		if (outCache == null) outCache = newCache;
+    	}
+    	return outCache;
+    }
     /**
      * Loads a properties XML file for appCode/component as stated at the component definition
      * @param component
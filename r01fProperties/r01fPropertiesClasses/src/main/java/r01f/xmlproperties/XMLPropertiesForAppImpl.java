@@ -178,6 +178,12 @@ public final class XMLPropertiesForAppImpl
 	    }
     	@Override
 	    public String getString(final Path propXPath,final String defaultValue) {
+    		// [1] - Try the typed snapshot
+    		XMLPropertiesComponentSnapshot snapshot = _cache.getSnapshotOrNull(_component);
+    		int slot = snapshot != null ? snapshot.slotOf(propXPath) : -1;
+    		if (slot >= 0) return snapshot.stringAt(slot);
+    		
+    		// [2] - Evaluate the xpath
 	        return _cache.getProperty(_component,Path.from(propXPath),
 	        						  defaultValue,
 	        						  String.class);
@@ -206,11 +212,16 @@ public final class XMLPropertiesForAppImpl
     	}
     	@Override
 	    public int getInteger(final Path propXPath) {
-	    	Number num = this.getNumber(propXPath);
-	    	return num != null ? num.intValue() : Integer.MIN_VALUE;
+	    	return this.getInteger(propXPath,Integer.MIN_VALUE);
 	    }
     	@Override
 	    public int getInteger(final Path propXPath,final int defaultValue) {
+    		// [1] - Try the typed snapshot
+    		XMLPropertiesComponentSnapshot snapshot = _cache.getSnapshotOrNull(_component);
+    		int slot = snapshot != null ? snapshot.slotOf(propXPath) : -1;
+    		if (slot >= 0 && snapshot.isNumberAt(slot)) return snapshot.intAt(slot);
+    		
+    		// [2] - Evaluate the xpath
 	    	Number num = this.getNumber(propXPath);
 	    	return num != null ? num.intValue() : defaultValue;
 	    }
@@ -222,11 +233,16 @@ public final class XMLPropertiesForAppImpl
     	}
     	@Override
 	    public long getLong(final Path propXPath) {
-	    	Number num = this.getNumber(propXPath);
-	    	return num != null ? num.longValue() : Long.MIN_VALUE;
+	    	return this.getLong(propXPath,Long.MIN_VALUE);
 	    }
     	@Override
 	    public long getLong(final Path propXPath,final long defaultValue) {
+    		// [1] - Try the typed snapshot
+    		XMLPropertiesComponentSnapshot snapshot = _cache.getSnapshotOrNull(_component);
+    		int slot = snapshot != null ? snapshot.slotOf(propXPath) : -1;
+    		if (slot >= 0 && snapshot.isNumberAt(slot)) return snapshot.longAt(slot);
+    		
+    		// [2] - Evaluate the xpath
 	    	Number num = this.getNumber(propXPath);
 	    	return num != null ? num.longValue() : defaultValue;
 	    }
@@ -274,6 +290,12 @@ public final class XMLPropertiesForAppImpl
 	    }
     	@Override
 	    public boolean getBoolean(final Path propXPath,final boolean defaultValue) {
+    		// [1] - Try the typed snapshot
+    		XMLPropertiesComponentSnapshot snapshot = _cache.getSnapshotOrNull(_component);
+    		int slot = snapshot != null ? snapshot.slotOf(propXPath) : -1;
+    		if (slot >= 0 && snapshot.isBooleanAt(slot)) return snapshot.booleanAt(slot);
+    		
+    		// [2] - Evaluate the xpath
 	    	Boolean bool = _cache.getProperty(_component,Path.from(propXPath),
 	    									  defaultValue,
 	    									  Boolean.class);
@@ -286,11 +308,9 @@ public final class XMLPropertiesForAppImpl
 	    							  		   Boolean.class);
     		return bool != null ? bool : false;
     	}
-    	@Override @SuppressWarnings("unchecked")
+    	@Override
 	    public Properties getProperties(final Path propXPath) {
-	    	Map<String,List<String>> map = _cache.getProperty(_component,Path.from(propXPath),
-	    													  null,
-	    													  Map.class);
+	    	Map<String,List<String>> map = _getMapOfStrings(propXPath);
     		Properties outProps = null;
 	    	if (map != null) {
 	    		outProps = new Properties();
@@ -325,7 +345,7 @@ public final class XMLPropertiesForAppImpl
 	    	if (outProps == null) outProps = valByEnv.getFor(this.getEnvironment());
 	    	return outProps;
     	}
-	    @Override @SuppressWarnings("unchecked")
+	    @Override
 	    public List<String> getListOfStrings(final Path propXPath) {
 	    	String effXPath = (propXPath != null 
 	    					&& !propXPath.asString().endsWith("/child::*")) 
@@ -334,9 +354,8 @@ public final class XMLPropertiesForAppImpl
 	    	
 	    	List<String> outList = null;	    	
 	    	if (Strings.isNOTNullOrEmpty(effXPath)) {
-		    	Map<String,List<String>> map = _cache.getProperty(_component,Path.from(effXPath),
-		    													  null,
-		    													  Map.class);
+	    		// the snapshot maps are keyed by the element path (the xpath without /child::*)
+		    	Map<String,List<String>> map = _getMapOfStrings(propXPath);
 		    	
 		    	if (map != null) {
 		    		outList = new ArrayList<String>(map.size());
@@ -415,5 +434,23 @@ public final class XMLPropertiesForAppImpl
 	    						  });
 
 	    }
+	    /**
+	     * Returns the child elements of the element at the given xpath as a map (element name -> values)
+	     * from the typed snapshot (if enabled) or evaluating the xpath
+	     * @param propXPath
+	     * @return
+	     */
+	    @SuppressWarnings("unchecked")
+	    private Map<String,List<String>> _getMapOfStrings(final Path propXPath) {
+    		// [1] - Try the typed snapshot
+    		XMLPropertiesComponentSnapshot snapshot = _cache.getSnapshotOrNull(_component);
+    		Map<String,List<String>> outMap = snapshot != null ? snapshot.mapOf(propXPath) : null;
+    		if (outMap != null) return outMap;
+
+    		// [2] - Evaluate the xpath
+	    	return _cache.getProperty(_component,Path.from(propXPath),
+	    							  null,
+	    							  Map.class);
+	    }
     }
 }
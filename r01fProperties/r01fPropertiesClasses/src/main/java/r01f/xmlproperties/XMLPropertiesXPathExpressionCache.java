@@ -0,0 +1,131 @@
+package r01f.xmlproperties;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+
+import lombok.extern.slf4j.Slf4j;
+import r01f.guids.CommonOIDs.AppComponent;
+import r01f.types.Path;
+
+/**
+ * A cache of compiled {@link XPathExpression}s for a component's properties
+ * <p>
+ * Neither {@link XPathFactory}, {@link XPath} nor {@link XPathExpression} objects are thread-safe, so:
+ * <ul>
+ * 		<li>The {@link XPathFactory} is looked up ONCE (the lookup goes through service discovery and it's expensive)
+ * 			and the created {@link XPath} is only used (synchronized) to compile new expressions</li>
+ * 		<li>The compiled {@link XPathExpression}s are POOLED by the normalized xpath: an expression is borrowed from the pool,
+ * 			evaluated by a single thread and then returned to the pool</li>
+ * </ul>
+ * Compiled expressions do NOT depend on the component's xml document so the cache survives component reloads:
+ * after a reload, the property resolution just costs the xpath evaluation.
+ * </p>
+ * Usage:
+ * <pre class='brush:java'>
+ * 		String xPath = XMLPropertiesXPathExpressionCache.normalize(propXPath);
+ * 		XPathExpression xPathExpr = cache.borrow(xPath);
+ * 		try {
+ * 			... evaluate
+ * 		} finally {
+ * 			cache.release(xPath,xPathExpr);
+ * 		}
+ * </pre>
+ */
+@Slf4j
+class XMLPropertiesXPathExpressionCache {
+/////////////////////////////////////////////////////////////////////////////////////////
+//  CONSTANTS
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Max number of pooled expressions for every xpath (usually the number of concurrent
+	 * threads accessing the same property)
+	 */
+	private static final int MAX_POOLED_EXPRESSIONS_PER_XPATH = 16;
+/////////////////////////////////////////////////////////////////////////////////////////
+//  FIELDS
+/////////////////////////////////////////////////////////////////////////////////////////
+	private final AppComponent _component;
+	/**
+	 * The xpath used to compile the expressions (NOT thread safe: access MUST be synchronized)
+	 */
+	private final XPath _xPath;
+	/**
+	 * Compiled expressions pool by normalized xpath
+	 */
+	private final ConcurrentMap<String,Queue<XPathExpression>> _pool;
+/////////////////////////////////////////////////////////////////////////////////////////
+//  CONSTRUCTOR
+/////////////////////////////////////////////////////////////////////////////////////////
+	XMLPropertiesXPathExpressionCache(final AppComponent component,
+									  final int propertiesNumberEstimation) {
+		_component = component;
+		_xPath = XPathFactory.newInstance()
+							 .newXPath();
+		_pool = new ConcurrentHashMap<String,Queue<XPathExpression>>(propertiesNumberEstimation > 0 ? propertiesNumberEstimation
+																									  : XMLPropertiesForAppCache.DEFAULT_PROPERTIES_PER_COMPONENT);
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//  METHODS
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Normalizes a property xpath: removes leading and trailing spaces and the initial /
+	 * @param propXPath
+	 * @return
+	 */
+	static String normalize(final Path propXPath) {
+		String outXPath = propXPath.asString().trim();
+		if (outXPath.startsWith("/")) outXPath = outXPath.substring(1);
+		return outXPath;
+	}
+	/**
+	 * Borrows a compiled expression from the pool or compiles a new one if there's none available
+	 * BEWARE! the expression MUST be returned to the pool using {@link #release(String, XPathExpression)}
+	 * @param normalizedXPath the xpath as returned by {@link #normalize(Path)}
+	 * @return
+	 * @throws XPathExpressionException
+	 */
+	XPathExpression borrow(final String normalizedXPath) throws XPathExpressionException {
+		Queue<XPathExpression> exprs = _pool.get(normalizedXPath);
+		XPathExpression outExpr = exprs != null ? exprs.poll()
+												: null;
+		if (outExpr == null) outExpr = _compile(normalizedXPath);
+		return outExpr;
+	}
+	/**
+	 * Returns a previously borrowed expression to the pool
+	 * @param normalizedXPath
+	 * @param expr
+	 */
+	void release(final String normalizedXPath,final XPathExpression expr) {
+		if (expr == null) return;
+		Queue<XPathExpression> exprs = _pool.get(normalizedXPath);
+		if (exprs == null) {
+			Queue<XPathExpression> newExprs = new ConcurrentLinkedQueue<XPathExpression>();
+			exprs = _pool.putIfAbsent(normalizedXPath,newExprs);
+			if (exprs == null) exprs = newExprs;
+		}
+		if (exprs.size() < MAX_POOLED_EXPRESSIONS_PER_XPATH) exprs.offer(expr);	// if the pool is full the expression is discarded
+	}
+	/**
+	 * @return the number of distinct compiled xpaths
+	 */
+	int size() {
+		return _pool.size();
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//  PRIVATE METHODS
+/////////////////////////////////////////////////////////////////////////////////////////
+	private XPathExpression _compile(final String normalizedXPath) throws XPathExpressionException {
+		log.trace("Compiling xpath {} for component {}",normalizedXPath,_component);
+		synchronized(_xPath) {
+			return _xPath.compile(normalizedXPath);
+		}
+	}
+}
@@ -0,0 +1,152 @@
+package r01f.xmlproperties;
+
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathFactory;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+
+import r01f.guids.CommonOIDs.AppComponent;
+import r01f.types.Path;
+import r01f.xml.XMLUtils;
+
+public class XMLPropertiesComponentSnapshotTest {
+/////////////////////////////////////////////////////////////////////////////////////////
+//	
+/////////////////////////////////////////////////////////////////////////////////////////
+	private static final String XML = "<myApp>" +
+									  	"<str>a string</str>" +
+									  	"<int>123</int>" +
+									  	"<long>12345678901</long>" +
+									  	"<bool>true</bool>" +
+									  	"<cdata><![CDATA[<b>bold</b>]]></cdata>" +
+									  	"<dup>first</dup>" +
+									  	"<dup>second</dup>" +
+									  	"<group><item>non-leaf first</item></group>" +
+									  	"<group>leaf after a non-leaf</group>" +
+									  	"<mixed>text<sub>sub text</sub></mixed>" +
+									  	"<commented><!-- comment -->text after a comment</commented>" +
+									  	"<empty/>" +
+									  	"<map>" +
+									  		"<key1>value1</key1>" +
+									  		"<key2>value2</key2>" +
+									  		"<key1>value1b</key1>" +
+									  		"<nested><deep>deep value</deep></nested>" +
+									  	"</map>" +
+									  	"<map>" +
+									  		"<key3>value3</key3>" +
+									  	"</map>" +
+									  	"<list>" +
+									  		"<item>1</item>" +
+									  		"<item>2</item>" +
+									  		"<item>3</item>" +
+									  	"</list>" +
+									  "</myApp>";
+	private static final List<String> PROPERTIES = Arrays.asList("/myApp/str","/myApp/int","/myApp/long","/myApp/bool",
+																 "/myApp/cdata",
+																 "/myApp/dup",
+																 "/myApp/group","/myApp/group/item",
+																 "/myApp/mixed","/myApp/mixed/sub",
+																 "/myApp/commented",
+																 "/myApp/empty",
+																 "/myApp/map","/myApp/map/key1","/myApp/map/nested","/myApp/map/nested/deep",
+																 "/myApp/list","/myApp/list/item",
+																 "/myApp/notExists","/myApp");
+/////////////////////////////////////////////////////////////////////////////////////////
+//	
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Test
+	public void testSnapshotValuesAreTheXPathValues() throws Exception {
+		Document xml = _parse(XML);
+		XMLPropertiesComponentSnapshot snapshot = XMLPropertiesComponentSnapshot.from(AppComponent.forId("test"),xml);
+		for (String prop : PROPERTIES) {
+			int slot = snapshot.slotOf(Path.from(prop));
+			if (slot < 0) continue;		// the xpath is evaluated
+			Assert.assertEquals(prop,
+								_xPathString(xml,prop),snapshot.stringAt(slot));
+		}
+	}
+	@Test
+	public void testSnapshotMapsAreTheXPathMaps() throws Exception {
+		Document xml = _parse(XML);
+		XMLPropertiesComponentSnapshot snapshot = XMLPropertiesComponentSnapshot.from(AppComponent.forId("test"),xml);
+		for (String prop : PROPERTIES) {
+			Map<String,List<String>> map = snapshot.mapOf(Path.from(prop));
+			if (map == null) continue;		// the xpath is evaluated
+			Map<String,List<String>> xPathMap = _xPathMap(xml,prop);
+			Assert.assertEquals(prop,
+								xPathMap,map);
+			// the same iteration order (ie: the list of strings property)
+			Assert.assertEquals(prop,
+								xPathMap.keySet().toString(),map.keySet().toString());
+		}
+	}
+	@Test
+	public void testSnapshotContents() throws Exception {
+		XMLPropertiesComponentSnapshot snapshot = XMLPropertiesComponentSnapshot.from(AppComponent.forId("test"),
+																					  _parse(XML));
+		// typed values
+		int intSlot = snapshot.slotOf(Path.from("/myApp/int"));
+		Assert.assertTrue(snapshot.isNumberAt(intSlot));
+		Assert.assertEquals(123,snapshot.intAt(intSlot));
+		int longSlot = snapshot.slotOf(Path.from("/myApp/long"));
+		Assert.assertEquals(12345678901L,snapshot.longAt(longSlot));
+		int boolSlot = snapshot.slotOf(Path.from("/myApp/bool"));
+		Assert.assertTrue(snapshot.isBooleanAt(boolSlot));
+		Assert.assertTrue(snapshot.booleanAt(boolSlot));
+		Assert.assertFalse(snapshot.isNumberAt(snapshot.slotOf(Path.from("/myApp/str"))));
+
+		// the first element in document order is used
+		Assert.assertEquals("first",snapshot.stringAt(snapshot.slotOf(Path.from("/myApp/dup"))));
+
+		// the first element is NOT a leaf containing text: NOT at the snapshot (the xpath is evaluated)
+		Assert.assertEquals(-1,snapshot.slotOf(Path.from("/myApp/group")));
+		Assert.assertEquals(-1,snapshot.slotOf(Path.from("/myApp/mixed")));
+		Assert.assertEquals(-1,snapshot.slotOf(Path.from("/myApp/commented")));
+		Assert.assertEquals(-1,snapshot.slotOf(Path.from("/myApp/map")));
+		Assert.assertEquals(-1,snapshot.slotOf(Path.from("/myApp/empty")));
+		Assert.assertEquals(-1,snapshot.slotOf(Path.from("/myApp/notExists")));
+		Assert.assertEquals(-1,snapshot.slotOf(Path.from("/myApp")));
+		// ... BUT the leaf elements containing text inside them are
+		Assert.assertEquals("deep value",snapshot.stringAt(snapshot.slotOf(Path.from("/myApp/map/nested/deep"))));
+
+		// maps: the child elements of ALL the elements with the same path
+		Map<String,List<String>> map = snapshot.mapOf(Path.from("/myApp/map"));
+		Assert.assertEquals(Arrays.asList("value1","value1b"),map.get("key1"));
+		Assert.assertEquals(Arrays.asList("value3"),map.get("key3"));
+		Assert.assertEquals(Arrays.asList("1","2","3"),snapshot.mapOf(Path.from("/myApp/list")).get("item"));
+		Assert.assertNull(snapshot.mapOf(Path.from("/myApp/str")));
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	the property values as they're returned evaluating the xpath
+//	(see XMLPropertiesForAppComponentsContainer)
+/////////////////////////////////////////////////////////////////////////////////////////
+	private static String _xPathString(final Document xml,final String xPath) throws Exception {
+		Node node = (Node)XPathFactory.newInstance()
+									  .newXPath()
+									  .evaluate(xPath,xml,XPathConstants.NODE);
+		return node != null ? XMLUtils.nodeTextContent(node)
+							: null;
+	}
+	private static Map<String,List<String>> _xPathMap(final Document xml,final String xPath) throws Exception {
+		NodeList nodeList = (NodeList)XPathFactory.newInstance()
+												  .newXPath()
+												  .evaluate(xPath + "/child::*",xml,XPathConstants.NODESET);
+		return XMLPropertiesForAppComponentsContainer.mapOfStringsFrom(nodeList);
+	}
+	private static Document _parse(final String xml) throws Exception {
+		return DocumentBuilderFactory.newInstance()
+									 .newDocumentBuilder()
+									 .parse(new InputSource(new StringReader(xml)));
+	}
+}
@@ -0,0 +1,162 @@
+package r01f.resources;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Watches file system changes using a SINGLE {@link WatchService} and a SINGLE (daemon) thread for the whole JVM
+ * <p>
+ * The watched files' directories are registered at the {@link WatchService} and when a change event arrives
+ * for a watched file, every {@link ResourcesReloadControlFileSystemWatchBased} interested in the file is
+ * marked as dirty so the file is NOT re-stat'ed every time a reload check is done.
+ * </p>
+ * BEWARE! the reload controls are weakly referenced so they're discarded when they're no longer in use
+ */
+@Slf4j
+final class ResourcesFileSystemWatcher {
+/////////////////////////////////////////////////////////////////////////////////////////
+//  SINGLETON
+/////////////////////////////////////////////////////////////////////////////////////////
+	private static final ResourcesFileSystemWatcher INSTANCE = new ResourcesFileSystemWatcher();
+
+	static ResourcesFileSystemWatcher instance() {
+		return INSTANCE;
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//  FIELDS
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * The watch service (lazily created when the first file is watched)
+	 */
+	private volatile WatchService _watchService;
+	/**
+	 * The registered directories
+	 */
+	private final ConcurrentMap<Path,WatchKey> _watchedDirs = new ConcurrentHashMap<Path,WatchKey>();
+	/**
+	 * The reload controls interested in every watched file
+	 */
+	private final ConcurrentMap<Path,Set<ResourcesReloadControlFileSystemWatchBased>> _watchersByFile = new ConcurrentHashMap<Path,Set<ResourcesReloadControlFileSystemWatchBased>>();
+/////////////////////////////////////////////////////////////////////////////////////////
+//  CONSTRUCTOR
+/////////////////////////////////////////////////////////////////////////////////////////
+	private ResourcesFileSystemWatcher() {
+		// singleton
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//  METHODS
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Watches a file: the reload control is marked as dirty every time the file changes
+	 * @param file
+	 * @param reloadControl
+	 * @throws IOException
+	 */
+	void watch(final Path file,
+			   final ResourcesReloadControlFileSystemWatchBased reloadControl) throws IOException {
+		Path absFile = file.toAbsolutePath()
+						   .normalize();
+		Path dir = absFile.getParent();
+		if (dir == null) throw new IOException("Cannot watch " + absFile + ": it does NOT have a parent directory");
+
+		// [1] - Register the control
+		Set<ResourcesReloadControlFileSystemWatchBased> watchers = _watchersByFile.get(absFile);
+		if (watchers == null) {
+			Set<ResourcesReloadControlFileSystemWatchBased> newWatchers = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<ResourcesReloadControlFileSystemWatchBased,Boolean>()));
+			watchers = _watchersByFile.putIfAbsent(absFile,newWatchers);
+			if (watchers == null) watchers = newWatchers;
+		}
+		watchers.add(reloadControl);
+
+		// [2] - Register the directory (once)
+		if (!_watchedDirs.containsKey(dir)) {
+			synchronized(this) {
+				if (!_watchedDirs.containsKey(dir)) {
+					WatchKey key = dir.register(_watchService(),
+												StandardWatchEventKinds.ENTRY_CREATE,
+												StandardWatchEventKinds.ENTRY_MODIFY,
+												StandardWatchEventKinds.ENTRY_DELETE);
+					_watchedDirs.put(dir,key);
+					log.info("Watching directory {} for changes",dir);
+				}
+			}
+		}
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//  PRIVATE METHODS
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Creates the watch service and starts the watching thread (just once)
+	 * BEWARE! MUST be called from a synchronized block
+	 * @return
+	 * @throws IOException
+	 */
+	private WatchService _watchService() throws IOException {
+		if (_watchService == null) {
+			_watchService = FileSystems.getDefault()
+									   .newWatchService();
+			Thread watcherThread = new Thread(new Runnable() {
+														@Override
+														public void run() {
+															_processEvents();
+														}
+											  },
+											  "r01f-resources-fs-watcher");
+			watcherThread.setDaemon(true);
+			watcherThread.start();
+		}
+		return _watchService;
+	}
+	private void _processEvents() {
+		while (true) {
+			WatchKey key = null;
+			try {
+				key = _watchService.take();
+			} catch (InterruptedException intEx) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch (ClosedWatchServiceException closedEx) {
+				return;
+			}
+			Path dir = (Path)key.watchable();
+			for (WatchEvent<?> event : key.pollEvents()) {
+				if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+					// events might have been lost: every file at the dir is considered changed
+					for (Path file : _watchersByFile.keySet()) {
+						if (dir.equals(file.getParent())) _markDirty(file);
+					}
+					continue;
+				}
+				Path changedFile = dir.resolve((Path)event.context());
+				_markDirty(changedFile);
+			}
+			if (!key.reset()) {		// the dir is no longer accessible
+				log.warn("Directory {} is no longer watched",dir);
+				_watchedDirs.remove(dir);
+			}
+		}
+	}
+	private void _markDirty(final Path file) {
+		Set<ResourcesReloadControlFileSystemWatchBased> watchers = _watchersByFile.get(file);
+		if (watchers == null) return;
+		log.debug("{} changed",file);
+		synchronized(watchers) {
+			for (ResourcesReloadControlFileSystemWatchBased watcher : watchers) {
+				watcher.markDirty();
+			}
+		}
+	}
+}
@@ -33,7 +33,7 @@ import r01f.xmlproperties.XMLPropertyLocation;
  * <li>XML properties file at the classpath.
  * 		  <pre class="brush:xml">
  * 			<resourcesLoader name='myResourcesLoader' type='CLASSPATH'>
- * 				<!-- PERIODIC, BBDD, CONTENT_SERVER_FILE_LAST_MODIF_TIMESTAMP, FILE_LAST_MODIF_TIMESTAMP, VOID -->
+ * 				<!-- PERIODIC, BBDD, CONTENT_SERVER_FILE_LAST_MODIF_TIMESTAMP, FILE_LAST_MODIF_TIMESTAMP, FILE_SYSTEM_WATCH, VOID -->
  *				<reloadControl impl='PERIODIC' enabled='true' checkInterval='2s'/>
  * 			</resourcesLoader>
  *		  </pre>
@@ -27,6 +27,9 @@ public class ResourcesReloadControlBuilder
 		case FILE_LAST_MODIF_TIMESTAMP:
 			outCtrl = new ResourcesReloadControlFileLastModifTimeStampBased(def);
 			break;
+		case FILE_SYSTEM_WATCH:
+			outCtrl = new ResourcesReloadControlFileSystemWatchBased(def);
+			break;
 		case NO_RELOAD:
 			// nothing
 			break;
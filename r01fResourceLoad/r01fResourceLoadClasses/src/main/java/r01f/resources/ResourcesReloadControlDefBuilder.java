@@ -135,6 +135,42 @@ public abstract class ResourcesReloadControlDefBuilder
 	}
 /////////////////////////////////////////////////////////////////////////////////////////
 //  
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * <pre class='brush:java'>
+	 * 		ResourcesReloadControlDef def = ResourcesReloadControlDef.createForFileSystemWatch()
+	 * 																 .forFile(Path.of("/config/r01/r01.properties.xml")
+	 * 																 .loadedUsing(ResourcesLoaderType.CLASSPATH)
+	 * 																 .checkingIfReloadIsNeededEvery(1000)
+	 * 																 .enabled();	
+	 * </pre>
+	 * The file's directory is watched for changes (see {@link java.nio.file.WatchService}) so checking
+	 * if a reload is needed does NOT access the file system
+	 * @return a builder for a file system watch reloading
+	 */
+	public static ResourcesReloadControlBuilderFileSystemWatchStep createForFileSystemWatch() {
+		ResourcesReloadControlDef outDef = new ResourcesReloadControlDef(ResourcesReloadPolicy.FILE_SYSTEM_WATCH);
+		outDef.setControlProps(new HashMap<String,String>());
+		return new ResourcesReloadControlDefBuilder() { /* nothing */ }
+						.new ResourcesReloadControlBuilderFileSystemWatchStep(outDef);
+	}
+	@RequiredArgsConstructor(access=AccessLevel.PRIVATE)
+	public final class ResourcesReloadControlBuilderFileSystemWatchStep {
+		private final ResourcesReloadControlDef _reloadControlDef;
+		
+		public ResourcesReloadControlBuilderFileUpdateTimeStampLoaderStep forFile(final Path path) {
+			_reloadControlDef.getControlProps()
+							 .put(ResourcesReloadControlFileSystemWatchBased.FILETOWATCH_PROP_KEY,path.asString());
+			return new ResourcesReloadControlBuilderFileUpdateTimeStampLoaderStep(_reloadControlDef);
+		}
+		public ResourcesReloadControlBuilderCheckStep forFileLoadedAs(final String loaderAndPath) {
+			// same as the file update timestamp reloading
+			return new ResourcesReloadControlBuilderFileUpdateTimeStampStep(_reloadControlDef)
+							.forFileLoadedAs(loaderAndPath);
+		}
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//  
 /////////////////////////////////////////////////////////////////////////////////////////
 	/**
 	 * <pre class='brush:java'>
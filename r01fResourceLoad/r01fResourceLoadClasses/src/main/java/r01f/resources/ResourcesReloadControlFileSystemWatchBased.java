@@ -0,0 +1,123 @@
+package r01f.resources;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import lombok.extern.slf4j.Slf4j;
+import r01f.resources.ResourcesLoaderDef.ResourcesLoaderType;
+import r01f.util.types.collections.CollectionUtils;
+
+
+/**
+ * Reload policy implemented by a file system watch (see {@link java.nio.file.WatchService})
+ * (<i>usually the file is a properties file but it does NOT have to</i>).<br>
+ *
+ * Unlike {@link ResourcesReloadControlFileLastModifTimeStampBased} the file is NOT re-stat'ed on every check:
+ * the file's directory is registered at a watch service shared by the whole JVM (see {@link ResourcesFileSystemWatcher})
+ * and when a change event arrives the control is marked as dirty, so checking if a reload is needed
+ * is just a volatile flag read.
+ *
+* The params (the {@link Map} provided to the constructor) needs:<br>
+ * <ul>
+ * <li>The name of the file and the loader used to load it (classpath o file).<br>
+ * 	   ie:<br>
+ * 			classpath:/config/appCode/appCode.comp.xml</br>
+ * 			file:d:/appCode.comp.xml</li>
+ * </ul>
+ * BEWARE! a classpath file can only be watched if it's NOT inside a jar
+ */
+@Slf4j
+public class ResourcesReloadControlFileSystemWatchBased
+     extends ResourcesReloadControlBase<ResourcesReloadControlFileSystemWatchBased> {
+/////////////////////////////////////////////////////////////////////////////////////////
+//  CONSTANTS
+/////////////////////////////////////////////////////////////////////////////////////////
+	static final String FILETOWATCH_PROP_KEY = ResourcesReloadControlFileLastModifTimeStampBased.FILETOCHECK_PROP_KEY;			// file to be watched
+	static final String FILETOWATCHLOADERTYPE_PROP_KEY = ResourcesReloadControlFileLastModifTimeStampBased.FILETOCHECKLOADERTYPE_PROP_KEY;	// File loader (classpath/file)
+/////////////////////////////////////////////////////////////////////////////////////////
+//  FIELDS
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Set when a change event arrives for the watched file
+	 */
+	private final AtomicBoolean _dirty = new AtomicBoolean(false);
+/////////////////////////////////////////////////////////////////////////////////////////
+//  CONSTRUCTOR
+/////////////////////////////////////////////////////////////////////////////////////////
+	public ResourcesReloadControlFileSystemWatchBased() {
+		// nothing
+	}
+	public ResourcesReloadControlFileSystemWatchBased(final ResourcesReloadControlDef resCtrlDef) {
+		super(resCtrlDef);
+		if (resCtrlDef.isEnabled()) _watch(resCtrlDef.getControlProps());
+	}
+	@Override
+	boolean _checkProperties(final Map<String,String> props) {
+		boolean outOK = true;
+		if (CollectionUtils.isNullOrEmpty(props)) {
+			outOK = false;
+		} else {
+			outOK = CollectionUtils.of(props)
+								   .containsAllTheseKeys(FILETOWATCH_PROP_KEY);
+		}
+		return outOK;
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//  INTERFAZ ResourcesReloadControl
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Override
+	public boolean needsReload(final String component) {
+		// the flag is only reset (a cas operation) if it's set
+		return _dirty.get()
+			&& _dirty.getAndSet(false);
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//  METHODS
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Called from {@link ResourcesFileSystemWatcher} when the watched file changes
+	 */
+	void markDirty() {
+		_dirty.set(true);
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//  PRIVATE METHODS
+/////////////////////////////////////////////////////////////////////////////////////////
+	private void _watch(final Map<String,String> props) {
+		String filePath = props.get(FILETOWATCH_PROP_KEY);
+		String loaderType = props.get(FILETOWATCHLOADERTYPE_PROP_KEY);
+		try {
+			java.nio.file.Path file = _resolveFile(filePath,loaderType);
+			if (file == null) {
+				log.warn("Could NOT resolve {} ({}) to a file system file: it will NOT be watched for changes",
+						 filePath,loaderType);
+				return;
+			}
+			ResourcesFileSystemWatcher.instance()
+									  .watch(file,this);
+		} catch (IOException ioEx) {
+			log.error("Could NOT watch {} ({}) for changes: {}",
+					  filePath,loaderType,ioEx.getMessage(),ioEx);
+		}
+	}
+	private static java.nio.file.Path _resolveFile(final String filePath,final String loaderType) {
+		boolean isFileSystem = loaderType != null
+							&& (loaderType.equalsIgnoreCase("file") || loaderType.equalsIgnoreCase(ResourcesLoaderType.FILESYSTEM.name()));
+		if (isFileSystem) return Paths.get(filePath);
+
+		// classpath: it can only be watched if it's a file system resource (not inside a jar)
+		String resourcePath = filePath.startsWith("/") ? filePath.substring(1) : filePath;
+		URL url = Thread.currentThread().getContextClassLoader()
+										.getResource(resourcePath);
+		if (url == null || !"file".equals(url.getProtocol())) return null;
+		try {
+			return Paths.get(url.toURI());
+		} catch (URISyntaxException uriEx) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,145 @@
+package r01f.resources;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lombok.extern.slf4j.Slf4j;
+import r01f.concurrent.DaemonThreadFactory;
+
+/**
+ * Checks in BACKGROUND if resources must be reloaded using their {@link ResourcesReloadControl}
+ * <p>
+ * Instead of checking if a resource must be reloaded every time the resource is accessed (which usually involves I/O:
+ * a file timestamp check, a database query, etc), the resource is registered at this scheduler that periodically
+ * calls {@link ResourcesReloadControl#needsReload(String)} in a background (daemon) thread and, when a reload is needed,
+ * runs the given reload job (also in the background thread) so the resource consumers NEVER block on reload checks.
+ * </p>
+ * Usage:
+ * <pre class='brush:java'>
+ * 		ScheduledFuture<?> reloadTask = ResourcesReloadControlScheduler.SHARED.schedule("myComponent",
+ * 																					reloadControl,reloadControlDef,
+ * 																					new Runnable() {
+ * 																							@Override
+ * 																							public void run() {
+ * 																								... reload & swap the resource
+ * 																							}
+ * 																					});
+ * </pre>
+ * The returned task MUST be cancelled when the resource is no longer used: the scheduler holds a reference to the
+ * reload job (and so to the resource) until the task is cancelled.
+ * </p>
+ * The scheduler thread is lazily created when the first task is scheduled and it's created again if a task
+ * is scheduled after the scheduler has been stopped.
+ */
+@Slf4j
+public class ResourcesReloadControlScheduler {
+/////////////////////////////////////////////////////////////////////////////////////////
+//  SHARED INSTANCE
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * A single scheduler thread is shared by every resource in the JVM since the checks are usually
+	 * infrequent and fast
+	 * BEWARE! do NOT stop the shared scheduler: every resource's reload checking task would be lost;
+	 * 		   cancel the scheduled tasks instead
+	 */
+	public static final ResourcesReloadControlScheduler SHARED = new ResourcesReloadControlScheduler(1);
+/////////////////////////////////////////////////////////////////////////////////////////
+//  FIELDS
+/////////////////////////////////////////////////////////////////////////////////////////
+	private final int _numberOfThreads;
+	private final ThreadFactory _threadFactory;
+	/**
+	 * The scheduler: lazily created (see {@link #_scheduler()})
+	 */
+	private ScheduledThreadPoolExecutor _scheduler;
+/////////////////////////////////////////////////////////////////////////////////////////
+//  CONSTRUCTOR
+/////////////////////////////////////////////////////////////////////////////////////////
+	public ResourcesReloadControlScheduler(final int numberOfThreads) {
+		_numberOfThreads = numberOfThreads > 0 ? numberOfThreads : 1;
+		final AtomicInteger threadCount = new AtomicInteger(0);
+		_threadFactory = new DaemonThreadFactory(new ThreadFactory() {
+															@Override
+															public Thread newThread(final Runnable r) {
+																Thread outThread = Executors.defaultThreadFactory()
+																							.newThread(r);
+																outThread.setName("r01f-resources-reload-" + threadCount.incrementAndGet());
+																return outThread;
+															}
+												  });
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//  METHODS
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Schedules the reload checking of a resource
+	 * @param resourceId the resource id (usually the component) handed to {@link ResourcesReloadControl#needsReload(String)}
+	 * @param reloadControl the reload control
+	 * @param reloadControlDef the reload control definition (the check interval is taken from here)
+	 * @param reloadJob the job that reloads the resource
+	 * @return the scheduled task or null if the resource does NOT need to be checked (there's no reload control, it's disabled
+	 * 		   or there's no check interval)
+	 */
+	public ScheduledFuture<?> schedule(final String resourceId,
+									   final ResourcesReloadControl reloadControl,final ResourcesReloadControlDef reloadControlDef,
+									   final Runnable reloadJob) {
+		if (reloadControl == null || reloadControlDef == null
+		 || !reloadControlDef.isEnabled()) return null;
+		long checkInterval = reloadControlDef.getCheckIntervalMilis();
+		if (checkInterval <= 0) return null;
+
+		log.info("Scheduling reload checking of {} every {} milis using {}",
+				 resourceId,checkInterval,reloadControl.getClass().getSimpleName());
+		return _scheduler().scheduleWithFixedDelay(new Runnable() {
+														@Override
+														public void run() {
+															// BEWARE! any exception MUST be catched; otherwise the task is NOT executed again
+															try {
+																if (reloadControl.needsReload(resourceId)) {
+																	log.warn("***** RELOAD {} ******",resourceId);
+																	reloadJob.run();
+																}
+															} catch (Throwable th) {
+																log.error("Error while checking / reloading {}: {}",
+																		  resourceId,th.getMessage(),th);
+															}
+														}
+												 },
+												 checkInterval,checkInterval,TimeUnit.MILLISECONDS);
+	}
+	/**
+	 * Stops the scheduler cancelling ALL the scheduled tasks
+	 * (if a task is scheduled afterwards a new scheduler thread is created)
+	 */
+	public synchronized void stop() {
+		if (_scheduler == null) return;
+		_scheduler.shutdownNow();
+		_scheduler = null;
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//  PRIVATE METHODS
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Returns the scheduler creating it if it's NOT created or it was stopped
+	 * @return
+	 */
+	private synchronized ScheduledThreadPoolExecutor _scheduler() {
+		if (_scheduler == null || _scheduler.isShutdown()) {
+			_scheduler = new ScheduledThreadPoolExecutor(_numberOfThreads,
+														 _threadFactory);
+			_scheduler.setRemoveOnCancelPolicy(true);		// cancelled tasks (and the resources they reference) are NOT retained until their next execution time
+		}
+		return _scheduler;
+	}
+	/**
+	 * @return the number of scheduled (NOT cancelled) tasks
+	 */
+	synchronized int scheduledTaskCount() {
+		return _scheduler != null ? _scheduler.getQueue().size()
+								  : 0;
+	}
+}
@@ -0,0 +1,133 @@
+package r01f.resources;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import r01f.resources.ResourcesReloadControlDef.ResourcesReloadPolicy;
+import r01f.types.TimeLapse;
+
+public class ResourcesReloadControlSchedulerTest {
+/////////////////////////////////////////////////////////////////////////////////////////
+//	
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Test
+	public void testReloadJobIsRunInBackground() throws Exception {
+		ResourcesReloadControlScheduler scheduler = new ResourcesReloadControlScheduler(1);
+		try {
+			CountDownLatch reloaded = new CountDownLatch(2);
+			Assert.assertNotNull(_schedule(scheduler,reloaded));
+			Assert.assertTrue(reloaded.await(5,TimeUnit.SECONDS));		// the task is periodically run
+		} finally {
+			scheduler.stop();
+		}
+	}
+	@Test
+	public void testFailingCheckDoesNotStopTheTask() throws Exception {
+		ResourcesReloadControlScheduler scheduler = new ResourcesReloadControlScheduler(1);
+		try {
+			// the first check fails: the task is run again
+			CountDownLatch reloaded = new CountDownLatch(1);
+			Assert.assertNotNull(_schedule(scheduler,
+										   _reloadControl(new AtomicInteger(1)),reloaded));
+			Assert.assertTrue(reloaded.await(5,TimeUnit.SECONDS));
+		} finally {
+			scheduler.stop();
+		}
+	}
+	@Test
+	public void testDisabledReloadControlIsNotScheduled() {
+		ResourcesReloadControlScheduler scheduler = new ResourcesReloadControlScheduler(1);
+		Runnable nothing = new Runnable() {
+									@Override
+									public void run() {
+										// nothing
+									}
+						   };
+		Assert.assertNull(scheduler.schedule("test",
+											 _alwaysReload(),ResourcesReloadControlDef.NO_RELOAD,
+											 nothing));
+		Assert.assertNull(scheduler.schedule("test",
+											 null,_periodicDef(),
+											 nothing));
+		Assert.assertEquals(0,scheduler.scheduledTaskCount());
+	}
+	@Test
+	public void testCancelledTasksAreRemoved() throws Exception {
+		ResourcesReloadControlScheduler scheduler = new ResourcesReloadControlScheduler(1);
+		try {
+			CountDownLatch reloaded = new CountDownLatch(2);
+			ScheduledFuture<?> task = _schedule(scheduler,reloaded);
+			Assert.assertNotNull(task);
+			Assert.assertEquals(1,scheduler.scheduledTaskCount());
+			Assert.assertTrue(reloaded.await(5,TimeUnit.SECONDS));		// the task is periodically run
+
+			task.cancel(false);
+			// the cancelled task is NOT retained by the scheduler (neither the resource it references)
+			Assert.assertEquals(0,scheduler.scheduledTaskCount());
+		} finally {
+			scheduler.stop();
+		}
+	}
+	@Test
+	public void testSchedulerIsCreatedAgainAfterStop() throws Exception {
+		ResourcesReloadControlScheduler scheduler = new ResourcesReloadControlScheduler(1);
+		Assert.assertEquals(0,scheduler.scheduledTaskCount());		// lazily created
+
+		_schedule(scheduler,new CountDownLatch(1));
+		scheduler.stop();
+		Assert.assertEquals(0,scheduler.scheduledTaskCount());
+
+		// a task scheduled after stopping is run in a new scheduler
+		try {
+			CountDownLatch reloaded = new CountDownLatch(1);
+			Assert.assertNotNull(_schedule(scheduler,reloaded));
+			Assert.assertTrue(reloaded.await(5,TimeUnit.SECONDS));
+		} finally {
+			scheduler.stop();
+		}
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	
+/////////////////////////////////////////////////////////////////////////////////////////
+	private static ScheduledFuture<?> _schedule(final ResourcesReloadControlScheduler scheduler,
+												final CountDownLatch reloaded) {
+		return _schedule(scheduler,
+						 _alwaysReload(),reloaded);
+	}
+	private static ScheduledFuture<?> _schedule(final ResourcesReloadControlScheduler scheduler,
+												final ResourcesReloadControl reloadControl,final CountDownLatch reloaded) {
+		return scheduler.schedule("test",
+								  reloadControl,_periodicDef(),
+								  new Runnable() {
+										@Override
+										public void run() {
+											reloaded.countDown();
+										}
+								  });
+	}
+	private static ResourcesReloadControlDef _periodicDef() {
+		ResourcesReloadControlDef def = new ResourcesReloadControlDef(ResourcesReloadPolicy.PERIODIC);
+		def.setCheckInterval(TimeLapse.createFor(200));
+		return def;
+	}
+	private static ResourcesReloadControl _alwaysReload() {
+		return _reloadControl(new AtomicInteger(0));
+	}
+	/**
+	 * A reload control that always needs reload once the given number of checks have failed
+	 */
+	private static ResourcesReloadControl _reloadControl(final AtomicInteger failingChecks) {
+		return new ResourcesReloadControl() {
+						@Override
+						public boolean needsReload(final String component) {
+							if (failingChecks.getAndDecrement() > 0) throw new IllegalStateException("check failed");
+							return true;
+						}
+			   };
+	}
+}
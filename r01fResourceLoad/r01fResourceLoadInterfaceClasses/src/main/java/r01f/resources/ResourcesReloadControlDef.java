@@ -18,7 +18,7 @@ import r01f.types.TimeLapse;
  * Usually comes from a {@link XMLProperties} file:<br>
  * <pre class="brush:xml">
  *		<resourcesLoader type='CLASSPATH'>
- *			<!-- PERIODIC, BBDD, CONTENT_SERVER_FILE_LAST_MODIF_TIMESTAMP, FILE_LAST_MODIF_TIMESTAMP, VOID -->
+ *			<!-- PERIODIC, BBDD, CONTENT_SERVER_FILE_LAST_MODIF_TIMESTAMP, FILE_LAST_MODIF_TIMESTAMP, FILE_SYSTEM_WATCH, VOID -->
  *			<reloadControl impl='PERIODIC' enabled='true' checkInterval='2s'>
  *				<props>
  *					<period>2s</period>
@@ -58,7 +58,8 @@ public class ResourcesReloadControlDef
 		NO_RELOAD,
 		BBDD,
 		PERIODIC,
-		FILE_LAST_MODIF_TIMESTAMP;
+		FILE_LAST_MODIF_TIMESTAMP,
+		FILE_SYSTEM_WATCH;
 	}
 ///////////////////////////////////////////////////////////////////////////////
 // 	VALOR POR DEFECTO (sin recarga)
@@ -0,0 +1,37 @@
+package r01f.servlet.proxy;
+
+import lombok.Getter;
+import lombok.experimental.Accessors;
+import r01f.http.loadbalance.LoadBalancedBackendServerStats;
+import r01f.http.loadbalance.LoadBalancerManager;
+import r01f.types.url.Url;
+
+/**
+ * An [endpoint] chosen by a {@link LoadBalancerManager}: the proxied request latency and errors
+ * are recorded at the chosen server stats
+ */
+@Accessors(prefix="_")
+public class HttpProxyEndPointLoadBalancedImpl
+  implements HttpProxyEndPoint {
+
+	private static final long serialVersionUID = -2512633387236406914L;
+/////////////////////////////////////////////////////////////////////////////////////////
+//	FIELDS
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Getter private final Url _url;
+	@Getter private final transient LoadBalancedBackendServerStats _serverStats;
+/////////////////////////////////////////////////////////////////////////////////////////
+//	CONSTRUCTOR
+/////////////////////////////////////////////////////////////////////////////////////////
+	public HttpProxyEndPointLoadBalancedImpl(final LoadBalancedBackendServerStats serverStats) {
+		_url = serverStats.getServerInstance().getUrl();
+		_serverStats = serverStats;
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Override @SuppressWarnings("unchecked")
+	public <E extends HttpProxyEndPoint> E as(final Class<E> type) {
+		return (E)this;
+	}
+}
@@ -0,0 +1,90 @@
+package r01f.servlet.proxy;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.Accessors;
+import r01f.http.loadbalance.balancer.LoadBalancerConsistentHashImpl;
+import r01f.http.loadbalance.balancer.LoadBalancerContext;
+import r01f.http.loadbalance.balancer.LoadBalancerZoneAwareImpl;
+
+/**
+ * Context used by the proxy to help choosing a load balanced [endpoint]
+ * (see {@link HttpProxyServletDelegate#_loadBalancerContextFor(HttpServletRequest)})
+ * <ul>
+ * 		<li>affinity: the requests with the same key (ie: session) are routed to the same endpoint
+ * 			(see {@link LoadBalancerConsistentHashImpl})</li>
+ * 		<li>zone: the requests are routed to the endpoints at the same zone (see {@link LoadBalancerZoneAwareImpl})</li>
+ * </ul>
+ */
+@Accessors(prefix="_")
+@RequiredArgsConstructor
+public class HttpProxyLoadBalancerContext
+  implements LoadBalancerContext {
+/////////////////////////////////////////////////////////////////////////////////////////
+//	CONSTANTS
+/////////////////////////////////////////////////////////////////////////////////////////
+	public static final String SESSION_COOKIE_NAME = "JSESSIONID";
+/////////////////////////////////////////////////////////////////////////////////////////
+//	FIELDS
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Getter private final HttpServletRequest _originalRequest;
+	@Getter private String _affinityKey;		// null if there's NO affinity
+	@Getter private String _zone;				// null if the load balancer local zone is used
+/////////////////////////////////////////////////////////////////////////////////////////
+//	AFFINITY
+/////////////////////////////////////////////////////////////////////////////////////////
+	public HttpProxyLoadBalancerContext withAffinityKey(final String affinityKey) {
+		_affinityKey = affinityKey;
+		return this;
+	}
+	/**
+	 * The affinity key is the value of a request header (no affinity if the request does NOT have the header)
+	 * @param headerName
+	 * @return
+	 */
+	public HttpProxyLoadBalancerContext withAffinityFromHeader(final String headerName) {
+		return this.withAffinityKey(_originalRequest.getHeader(headerName));
+	}
+	/**
+	 * The affinity key is the value of a request cookie (no affinity if the request does NOT have the cookie)
+	 * @param cookieName
+	 * @return
+	 */
+	public HttpProxyLoadBalancerContext withAffinityFromCookie(final String cookieName) {
+		String cookieValue = null;
+		Cookie[] cookies = _originalRequest.getCookies();
+		if (cookies != null) {
+			for (Cookie cookie : cookies) {
+				if (cookie.getName().equals(cookieName)) {
+					cookieValue = cookie.getValue();
+					break;
+				}
+			}
+		}
+		return this.withAffinityKey(cookieValue);
+	}
+	/**
+	 * The requests of the same session are routed to the same endpoint
+	 * @return
+	 */
+	public HttpProxyLoadBalancerContext withSessionAffinity() {
+		return this.withAffinityFromCookie(SESSION_COOKIE_NAME);
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	ZONE
+/////////////////////////////////////////////////////////////////////////////////////////
+	public HttpProxyLoadBalancerContext inZone(final String zone) {
+		_zone = zone;
+		return this;
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Override @SuppressWarnings("unchecked")
+	public <C extends LoadBalancerContext> C as(final Class<C> type) {
+		return (C)this;
+	}
+}
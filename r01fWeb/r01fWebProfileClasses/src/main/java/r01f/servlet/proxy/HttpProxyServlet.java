@@ -11,6 +11,8 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import lombok.experimental.Accessors;
+import r01f.http.loadbalance.LoadBalancerIDs.LoadBalancedServiceID;
+import r01f.http.loadbalance.LoadBalancerManager;
 import r01f.patterns.Memoized;
 import r01f.types.url.Url;
 import r01f.types.url.UrlPath;
@@ -67,6 +69,35 @@ import r01f.types.url.UrlPath;
  *					<servlet-name>xxWarPROXY</servlet-name>
  *					<url-pattern>/xxWar/*</url-pattern>		<!-- every request to xxWar is proxied to tomcat -->
  *				</servlet-mapping>
+ *
+ * The requests can be proxied WITHOUT blocking the container threads (see {@link HttpProxyServletAsyncExchange})
+ * if the async init-param is set to true AND the servlet supports async processing:
+ *				<servlet>
+ *					...
+ *					<init-param>
+ *						<param-name>async</param-name>
+ *						<param-value>true</param-value>
+ *					</init-param>
+ *					<async-supported>true</async-supported>
+ *				</servlet>
+ *
+ * The cacheable GET responses can be served from an in-process cache (see {@link HttpProxyServletCache})
+ * if the cacheMaxMegaBytes init-param is set (the bodies bigger than 256KB are spilled to disk if the cacheSpillFolder init-param is set):
+ *				<servlet>
+ *					...
+ *					<init-param>
+ *						<param-name>cacheMaxMegaBytes</param-name>
+ *						<param-value>64</param-value>
+ *					</init-param>
+ *					<init-param>
+ *						<param-name>cacheEviction</param-name>		<!-- LRU or W_TINY_LFU (default) -->
+ *						<param-value>W_TINY_LFU</param-value>
+ *					</init-param>
+ *					<init-param>
+ *						<param-name>cacheSpillFolder</param-name>
+ *						<param-value>/tmp/proxyCache</param-value>
+ *					</init-param>
+ *				</servlet>
  */
 @Singleton
 @Accessors(prefix="_")
@@ -79,7 +110,8 @@ public class HttpProxyServlet
 /////////////////////////////////////////////////////////////////////////////////////////
 	private HttpProxyServletConfig _proxyServletConfig;
 	private HttpProxyServletUrlPathRewriter _urlPathRewriter;
-
+	private LoadBalancerManager _loadBalancer;						// null if the endpoints are NOT load balanced
+	private LoadBalancedServiceID _loadBalancedServiceId;
 /////////////////////////////////////////////////////////////////////////////////////////
 //	PROXY DELEGATE
 /////////////////////////////////////////////////////////////////////////////////////////
@@ -90,11 +122,11 @@ public class HttpProxyServlet
 	 * Override this method if a custom delegate has to be created
 	 * @return
 	 */
-	@SuppressWarnings("static-method")
 	protected HttpProxyServletDelegate _createHttpProxyServletDelegate(final HttpProxyServletConfig proxyServletConfig,
 																	   final HttpProxyServletUrlPathRewriter urlPathRewriter) {
 		return new HttpProxyServletDelegate(proxyServletConfig,
-											urlPathRewriter);
+											urlPathRewriter,
+											_loadBalancer,_loadBalancedServiceId);
 	}
 /////////////////////////////////////////////////////////////////////////////////////////
 //	CONSTRUCTOR
@@ -125,6 +157,24 @@ public class HttpProxyServlet
 														 maxFileUploadSize,
 														 followRedirects);
 	}
+	/**
+	 * The upstream connection pool, timeouts... are given by the config (see {@link HttpProxyServletUpstreamConfig})
+	 * (the params explicitly set at the config win over the web.xml init-params)
+	 * @param endPoints
+	 * @param pathTrim
+	 * @param pathPrepend
+	 * @param upstreamConfig
+	 */
+	public HttpProxyServlet(// proxy params
+							final Collection<Url> endPoints,
+							final UrlPath pathTrim,final UrlPath pathPrepend,
+							final HttpProxyServletUpstreamConfig upstreamConfig) {
+		_proxyServletConfig = new HttpProxyServletConfig(endPoints,
+														 pathTrim,pathPrepend,
+														 HttpProxyServletConfig.DEF_MAX_UPLOAD_FILE_SIZE,
+														 true,		// follow redirs
+														 upstreamConfig);
+	}
 	public HttpProxyServlet(// proxy params
 							final Collection<Url> endPoints,
 							final HttpProxyServletUrlPathRewriter urlPathRewriter) {
@@ -132,6 +182,37 @@ public class HttpProxyServlet
 														 null,null);	// no path-trim, no path-prepend
 		_urlPathRewriter = urlPathRewriter;
 	}
+	/**
+	 * The endpoints are chosen by the load balancer among the servers of the given service
+	 * (the load balancer server stats are updated with the proxied requests latency & errors)
+	 * @param loadBalancer
+	 * @param loadBalancedServiceId
+	 */
+	public HttpProxyServlet(// proxy params
+							final LoadBalancerManager loadBalancer,final LoadBalancedServiceID loadBalancedServiceId) {
+		this(loadBalancer,loadBalancedServiceId,
+			 null);		// no url path rewriter
+	}
+	public HttpProxyServlet(// proxy params
+							final LoadBalancerManager loadBalancer,final LoadBalancedServiceID loadBalancedServiceId,
+							final HttpProxyServletUrlPathRewriter urlPathRewriter) {
+		this(loadBalancer,loadBalancedServiceId,
+			 urlPathRewriter,
+			 null);		// default pool & timeouts
+	}
+	public HttpProxyServlet(// proxy params
+							final LoadBalancerManager loadBalancer,final LoadBalancedServiceID loadBalancedServiceId,
+							final HttpProxyServletUrlPathRewriter urlPathRewriter,
+							final HttpProxyServletUpstreamConfig upstreamConfig) {
+		_proxyServletConfig = new HttpProxyServletConfig(null,			// the endpoints are chosen by the load balancer
+														 null,null,		// no path-trim, no path-prepend
+														 HttpProxyServletConfig.DEF_MAX_UPLOAD_FILE_SIZE,
+														 true,			// follow redirs
+														 upstreamConfig);
+		_urlPathRewriter = urlPathRewriter;
+		_loadBalancer = loadBalancer;
+		_loadBalancedServiceId = loadBalancedServiceId;
+	}
 /////////////////////////////////////////////////////////////////////////////////////////
 //
 /////////////////////////////////////////////////////////////////////////////////////////
@@ -152,6 +233,17 @@ public class HttpProxyServlet
 		_proxyServletConfig = _proxyServletConfig != null ? _proxyServletConfig.mixedWith(cfgFromWebXml)
 														  : cfgFromWebXml;
 	}
+	/**
+	 * Releases the pooled connections to the endpoints
+	 */
+	@Override
+	public void destroy() {
+		if (_proxyServletConfig != null) {
+			_proxyServletConfig.closeResponseCache();
+			_proxyServletConfig.closeUpstreamHttpClient();
+		}
+		super.destroy();
+	}
 /////////////////////////////////////////////////////////////////////////////////////////
 //	GET
 /////////////////////////////////////////////////////////////////////////////////////////
@@ -167,9 +259,15 @@ public class HttpProxyServlet
 	public void doGet(final HttpServletRequest originalRequest,
 					  final HttpServletResponse responseToClient) throws IOException,
 					  													 ServletException {
-		_proxyServletDelegate.get()
-							 .proxyGET(originalRequest,
-							   		   responseToClient);
+		if (_isAsync(originalRequest)) {
+			_proxyServletDelegate.get()
+								 .proxyGETAsync(originalRequest,
+								   		   		responseToClient);
+		} else {
+			_proxyServletDelegate.get()
+								 .proxyGET(originalRequest,
+								   		   responseToClient);
+		}
 	}
 /////////////////////////////////////////////////////////////////////////////////////////
 //	POST
@@ -186,8 +284,52 @@ public class HttpProxyServlet
 	public void doPost(final HttpServletRequest originalReqest,
 					   final HttpServletResponse responseToClient) throws IOException,
 					   													  ServletException {
-		_proxyServletDelegate.get()
-							 .proxyPOST(originalReqest,
-										responseToClient);
+		if (_isAsync(originalReqest)) {
+			_proxyServletDelegate.get()
+								 .proxyPOSTAsync(originalReqest,
+												 responseToClient);
+		} else {
+			_proxyServletDelegate.get()
+								 .proxyPOST(originalReqest,
+											responseToClient);
+		}
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	PUT
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Performs an HTTP PUT request
+	 * @param originalReqest  The {@link HttpServletRequest} object passed
+	 *					 	  in by the servlet engine representing the
+	 *					 	  client request to be proxied
+	 * @param responseToClient The {@link HttpServletResponse} object by which
+	 *						 we can send a proxied response to the client
+	 */
+	@Override
+	public void doPut(final HttpServletRequest originalReqest,
+					  final HttpServletResponse responseToClient) throws IOException,
+					   													 ServletException {
+		if (_isAsync(originalReqest)) {
+			_proxyServletDelegate.get()
+								 .proxyPUTAsync(originalReqest,
+												responseToClient);
+		} else {
+			_proxyServletDelegate.get()
+								 .proxyPUT(originalReqest,
+										   responseToClient);
+		}
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	ASYNC
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * The request is proxied WITHOUT blocking the container thread if the async mode is enabled
+	 * (see {@link HttpProxyServletUpstreamConfig#async()}) and the servlet is configured with async-supported=true
+	 * @param originalRequest
+	 * @return
+	 */
+	private boolean _isAsync(final HttpServletRequest originalRequest) {
+		return _proxyServletConfig.getUpstreamConfig().isAsync()
+			&& originalRequest.isAsyncSupported();
 	}
  }
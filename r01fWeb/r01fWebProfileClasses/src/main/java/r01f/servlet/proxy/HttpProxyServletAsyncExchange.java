@@ -0,0 +1,525 @@
+package r01f.servlet.proxy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpException;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.ContentEncoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.client.HttpAsyncClient;
+import org.apache.http.nio.protocol.AbstractAsyncResponseConsumer;
+import org.apache.http.nio.protocol.BasicAsyncRequestProducer;
+import org.apache.http.nio.protocol.HttpAsyncRequestProducer;
+import org.apache.http.protocol.HttpContext;
+
+import lombok.extern.slf4j.Slf4j;
+import r01f.http.loadbalance.LoadBalancedBackendServerStats;
+
+/**
+ * A non-blocking proxied request: NO thread is blocked while the request body is sent to the endpoint
+ * or while the endpoint response is sent to the client
+ * <pre>
+ * 		[client] --ReadListener--> [request buffer] --HttpAsyncRequestProducer--> [endpoint]
+ * 		[client] <--WriteListener-- [response buffer] <--HttpAsyncResponseConsumer-- [endpoint]
+ * </pre>
+ * The container threads are only used when there's client data to be read or the client is ready to receive data
+ * and the endpoint side is handled by the non-blocking client io reactor threads
+ * (see {@link HttpProxyServletConfig#getUpstreamHttpAsyncClient()}), so a small container thread pool
+ * can proxy a lot of slow (long-poll, downloads...) connections
+ * <p>
+ * The back pressure is carried through both sides using a bounded buffer at every direction:
+ * <ul>
+ * 		<li>request: if the endpoint does NOT accept more data the buffer gets full and the client input is NOT read
+ * 			(the client is throttled by the TCP flow control); when the buffer is empty the endpoint output is suspended
+ * 			until the client sends more data</li>
+ * 		<li>response: if the client is NOT ready to receive more data the endpoint input is suspended until
+ * 			the client output is ready again (see {@link WriteListener#onWritePossible()})</li>
+ * </ul>
+ * </p>
+ * If the [endpoint] was chosen by a load balancer (see {@link HttpProxyEndPointLoadBalancedImpl}) the latency
+ * (time to the response head) and the errors are recorded at the server stats
+ * <p>
+ * If a GET gets NO response from the load balanced [endpoint] (ie: connection refused), it's failed over once to another
+ * server of the service (see {@link HttpProxyServletDelegate#_chooseFailOverEndPoint(HttpServletRequest, HttpProxyEndPoint)}):
+ * the requests with body are NOT failed over since the client body is streamed to the first endpoint and it cannot be replayed
+ * </p>
+ * <p>
+ * BEWARE! the bodies are NOT modified: gzipped responses are passed through
+ */
+@Slf4j
+final class HttpProxyServletAsyncExchange {
+/////////////////////////////////////////////////////////////////////////////////////////
+//	CONSTANTS
+/////////////////////////////////////////////////////////////////////////////////////////
+	private static final int BUFFER_SIZE = 8 * 1024;
+/////////////////////////////////////////////////////////////////////////////////////////
+//	FIELDS
+/////////////////////////////////////////////////////////////////////////////////////////
+	private final HttpProxyServletDelegate _delegate;
+	private final HttpServletRequest _originalRequest;
+	private final HttpServletResponse _responseToClient;
+	private volatile HttpProxyEndPoint _endPoint;
+	private final boolean _followRedirects;
+	private volatile HttpRequestBase _requestToBeProxied;
+
+	// fail over
+	private final Function<HttpProxyEndPoint,? extends HttpRequestBase> _failOverRequestFactory;	// null if the request cannot be failed over
+	private volatile boolean _failedOver;
+	private volatile boolean _responseReceived;
+
+	private final AsyncContext _asyncContext;
+	private HttpAsyncClient _asyncClient;
+	private final AtomicBoolean _completed = new AtomicBoolean(false);
+	private volatile Future<Void> _endPointFuture;
+
+	// load balanced endpoint stats
+	private volatile LoadBalancedBackendServerStats _serverStats;		// null if the endpoint is NOT load balanced
+	private volatile AtomicBoolean _serverStatsRecorded;
+	private volatile long _startTime;
+/////////////////////////////////////////////////////////////////////////////////////////
+//	CONSTRUCTOR
+/////////////////////////////////////////////////////////////////////////////////////////
+	private HttpProxyServletAsyncExchange(final HttpProxyServletDelegate delegate,
+										  final HttpServletRequest originalRequest,final HttpServletResponse responseToClient,
+										  final HttpProxyEndPoint endPoint,
+										  final boolean followRedirects,
+										  final HttpRequestBase requestToBeProxied,
+										  final Function<HttpProxyEndPoint,? extends HttpRequestBase> failOverRequestFactory) {
+		_delegate = delegate;
+		_originalRequest = originalRequest;
+		_responseToClient = responseToClient;
+		_endPoint = endPoint;
+		_followRedirects = followRedirects;
+		_requestToBeProxied = requestToBeProxied;
+		_failOverRequestFactory = failOverRequestFactory;
+
+		_asyncContext = originalRequest.startAsync(originalRequest,responseToClient);
+		_asyncContext.setTimeout(0);		// no timeout: the endpoint socket timeout applies
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	START
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Starts the async processing of the request and sends it to the endpoint
+	 * (the method returns immediately so the container thread is released)
+	 * @param delegate the proxy delegate
+	 * @param asyncClient the non-blocking http client
+	 * @param originalRequest the client request
+	 * @param responseToClient the response to the client
+	 * @param endPoint the target endpoint
+	 * @param followRedirects
+	 * @param requestToBeProxied the request to be sent to the endpoint (if it's an entity enclosing request the client body is streamed)
+	 * @throws IOException
+	 */
+	static void start(final HttpProxyServletDelegate delegate,
+					  final HttpAsyncClient asyncClient,
+					  final HttpServletRequest originalRequest,final HttpServletResponse responseToClient,
+					  final HttpProxyEndPoint endPoint,
+					  final boolean followRedirects,
+					  final HttpRequestBase requestToBeProxied) throws IOException {
+		HttpProxyServletAsyncExchange.start(delegate,
+											asyncClient,
+											originalRequest,responseToClient,
+											endPoint,
+											followRedirects,
+											requestToBeProxied,
+											null);		// NOT failed over
+	}
+	/**
+	 * Starts the async processing of a request WITHOUT body that is failed over once to another load balanced endpoint
+	 * if the given one does NOT respond
+	 * @param delegate the proxy delegate
+	 * @param asyncClient the non-blocking http client
+	 * @param originalRequest the client request
+	 * @param responseToClient the response to the client
+	 * @param endPoint the target endpoint
+	 * @param followRedirects
+	 * @param requestToBeProxied the request to be sent to the endpoint
+	 * @param failOverRequestFactory creates the request to be sent to the fail over endpoint (null if the request is NOT failed over)
+	 * @throws IOException
+	 */
+	static void start(final HttpProxyServletDelegate delegate,
+					  final HttpAsyncClient asyncClient,
+					  final HttpServletRequest originalRequest,final HttpServletResponse responseToClient,
+					  final HttpProxyEndPoint endPoint,
+					  final boolean followRedirects,
+					  final HttpRequestBase requestToBeProxied,
+					  final Function<HttpProxyEndPoint,? extends HttpRequestBase> failOverRequestFactory) throws IOException {
+		if (failOverRequestFactory != null
+		 && requestToBeProxied instanceof HttpEntityEnclosingRequest) throw new IllegalArgumentException("A request with body cannot be failed over!");
+		HttpProxyServletAsyncExchange exchange = new HttpProxyServletAsyncExchange(delegate,
+																				   originalRequest,responseToClient,
+																				   endPoint,
+																				   followRedirects,
+																				   requestToBeProxied,
+																				   failOverRequestFactory);
+		exchange._start(asyncClient);
+	}
+	private void _start(final HttpAsyncClient asyncClient) throws IOException {
+		_asyncClient = asyncClient;
+		_asyncContext.addListener(new AsyncListener() {
+											@Override
+											public void onStartAsync(final AsyncEvent event) {
+												// nothing
+											}
+											@Override
+											public void onComplete(final AsyncEvent event) {
+												// nothing
+											}
+											@Override
+											public void onTimeout(final AsyncEvent event) {
+												log.warn("[proxy servlet] > async request to {} timed out",_endPoint.getUrl());
+												_cancelEndPointRequest();
+												_complete();
+											}
+											@Override
+											public void onError(final AsyncEvent event) {
+												log.warn("[proxy servlet] > async request to {} error: {}",_endPoint.getUrl(),
+														 event.getThrowable() != null ? event.getThrowable().getMessage() : null);
+												_cancelEndPointRequest();
+											}
+								  });
+		_send();
+	}
+	/**
+	 * Sends the request to the current endpoint
+	 * @throws IOException
+	 */
+	private void _send() throws IOException {
+		_serverStats = _endPoint instanceof HttpProxyEndPointLoadBalancedImpl ? ((HttpProxyEndPointLoadBalancedImpl)_endPoint).getServerStats()
+																			  : null;
+		_serverStatsRecorded = new AtomicBoolean(false);
+		HttpHost target = HttpHost.create(_endPoint.getUrl().asString());
+		RequestBodyProducer bodyProducer = _requestToBeProxied instanceof HttpEntityEnclosingRequest
+												? new RequestBodyProducer(target)
+												: null;
+		HttpAsyncRequestProducer producer = bodyProducer != null ? bodyProducer
+																 : new BasicAsyncRequestProducer(target,_requestToBeProxied);
+		if (_serverStats != null) {
+			_serverStats.incrementSentMessages();
+			_serverStats.incrementOpenRequests();
+		}
+		_startTime = System.currentTimeMillis();
+		_endPointFuture = _asyncClient.execute(producer,
+											  new ResponseBodyConsumer(),
+											  new FutureCallback<Void>() {
+														@Override
+														public void completed(final Void result) {
+															// nothing: the exchange is completed when the whole body has been written to the client
+														}
+														@Override
+														public void failed(final Exception ex) {
+															_recordEndPointFailure(false);
+															if (!_failOver(ex)) _fail(ex);
+														}
+														@Override
+														public void cancelled() {
+															_recordEndPointFailure(true);
+															_complete();
+														}
+											  });
+		// start reading the client body (it's sent to the endpoint as it's received)
+		if (bodyProducer != null) bodyProducer.listen();
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	FAIL OVER
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Sends the request again to another load balanced endpoint if the current one did NOT respond
+	 * (only once, and only if the request has NO body and nothing was sent to the client)
+	 * @param ex the current endpoint error
+	 * @return true if the request was failed over
+	 */
+	private boolean _failOver(final Exception ex) {
+		if (_failOverRequestFactory == null
+		 || _failedOver
+		 || _responseReceived
+		 || _completed.get()) return false;
+		HttpProxyEndPoint failOverEndPoint = _delegate._chooseFailOverEndPoint(_originalRequest,
+																			   _endPoint);
+		if (failOverEndPoint == null) return false;
+
+		log.warn("[proxy servlet] > NO response from {} ({}): failing over to {}",
+				 _endPoint.getUrl(),ex.getMessage(),failOverEndPoint.getUrl());
+		_failedOver = true;
+		_endPoint = failOverEndPoint;
+		_requestToBeProxied = _failOverRequestFactory.apply(failOverEndPoint);
+		try {
+			_send();
+			return true;
+		} catch (IOException | RuntimeException sendEx) {
+			log.error("[proxy servlet] > could NOT fail over to {}: {}",failOverEndPoint.getUrl(),sendEx.getMessage());
+			_recordEndPointFailure(false);
+			return false;
+		}
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	COMPLETION
+/////////////////////////////////////////////////////////////////////////////////////////
+	private void _fail(final Throwable th) {
+		log.error("[proxy servlet] > error proxying {} to {}: {}",
+				  _requestToBeProxied.getRequestLine(),_endPoint.getUrl(),th.getMessage());
+		if (!_responseToClient.isCommitted()) {
+			_responseToClient.resetBuffer();
+			_responseToClient.setStatus(HttpServletResponse.SC_BAD_GATEWAY);
+		}
+		_complete();
+	}
+	private void _complete() {
+		if (!_completed.compareAndSet(false,true)) return;
+		try {
+			_asyncContext.complete();
+		} catch (IllegalStateException illStEx) {
+			log.debug("[proxy servlet] > async request already completed: {}",illStEx.getMessage());
+		}
+	}
+	private void _cancelEndPointRequest() {
+		Future<Void> endPointFuture = _endPointFuture;
+		if (endPointFuture != null) endPointFuture.cancel(true);
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	LOAD BALANCED ENDPOINT STATS
+/////////////////////////////////////////////////////////////////////////////////////////
+	private void _recordEndPointResponse(final int statusCode) {
+		if (_serverStats == null || !_serverStatsRecorded.compareAndSet(false,true)) return;
+		_serverStats.decrementOpenRequests();
+		long latency = System.currentTimeMillis() - _startTime;
+		if (latency > 0) _serverStats.recordLatency(latency);
+		if (statusCode >= 500) {
+			_serverStats.incrementErrors();
+		} else {
+			_serverStats.recordSuccess();
+		}
+	}
+	private void _recordEndPointFailure(final boolean cancelled) {
+		if (_serverStats == null || !_serverStatsRecorded.compareAndSet(false,true)) return;
+		_serverStats.decrementOpenRequests();
+		if (!cancelled) _serverStats.incrementErrors();		// cancelled (ie: the client went away): it's NOT a server error
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	REQUEST: client > endpoint
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Streams the client request body to the endpoint:
+	 * the buffer is filled by the container when there's client data available (see {@link #onDataAvailable()})
+	 * and it's drained by the io reactor when the endpoint accepts more data (see {@link #produceContent(ContentEncoder, IOControl)})
+	 */
+	private final class RequestBodyProducer
+			 implements HttpAsyncRequestProducer,
+			 			ReadListener {
+		private final HttpHost _target;
+		private final ByteBuffer _buffer = ByteBuffer.allocate(BUFFER_SIZE);	// written by the client reads / read by the endpoint writes
+		private ServletInputStream _in;		// null until the read listener is set
+		private IOControl _ioControl;		// null until the endpoint accepts data
+		private boolean _clientEof;
+
+		RequestBodyProducer(final HttpHost target) {
+			_target = target;
+		}
+		synchronized void listen() throws IOException {
+			_in = _originalRequest.getInputStream();
+			_in.setReadListener(this);
+		}
+		@Override
+		public HttpHost getTarget() {
+			return _target;
+		}
+		@Override
+		public HttpRequest generateRequest() {
+			// the entity content is NOT used: the body is streamed at produceContent
+			BasicHttpEntity entity = new BasicHttpEntity();
+			entity.setContentLength(_originalRequest.getContentLengthLong());	// -1 = chunked
+			if (_originalRequest.getContentType() != null) entity.setContentType(_originalRequest.getContentType());
+			((HttpEntityEnclosingRequest)_requestToBeProxied).setEntity(entity);
+			return _requestToBeProxied;
+		}
+		@Override
+		public synchronized void produceContent(final ContentEncoder encoder,
+												final IOControl ioControl) throws IOException {
+			_ioControl = ioControl;
+			_buffer.flip();
+			encoder.write(_buffer);
+			_buffer.compact();
+			if (_buffer.position() == 0) {
+				if (_clientEof) {
+					encoder.complete();
+					return;
+				}
+				ioControl.suspendOutput();		// wait for more client data (see _readClient)
+			}
+			_readClient();						// there's room at the buffer
+		}
+		@Override
+		public synchronized void onDataAvailable() throws IOException {
+			_readClient();
+		}
+		@Override
+		public synchronized void onAllDataRead() {
+			_clientEof = true;
+			if (_ioControl != null) _ioControl.requestOutput();
+		}
+		@Override
+		public void onError(final Throwable th) {
+			_cancelEndPointRequest();
+			_fail(th);
+		}
+		/**
+		 * Reads the available client data while there's room at the buffer
+		 * (if the buffer gets full the client is NOT read until the endpoint accepts more data)
+		 */
+		private void _readClient() throws IOException {
+			if (_in == null || _clientEof) return;
+			while (_buffer.hasRemaining() && _in.isReady()) {
+				int read = _in.read(_buffer.array(),_buffer.arrayOffset() + _buffer.position(),_buffer.remaining());
+				if (read < 0) {
+					_clientEof = true;
+					break;
+				}
+				_buffer.position(_buffer.position() + read);
+			}
+			if ((_buffer.position() > 0 || _clientEof)
+			 && _ioControl != null) _ioControl.requestOutput();
+		}
+		@Override
+		public void requestCompleted(final HttpContext context) {
+			// nothing
+		}
+		@Override
+		public void failed(final Exception ex) {
+			// nothing: the exchange fails at the future callback
+		}
+		@Override
+		public boolean isRepeatable() {
+			return false;
+		}
+		@Override
+		public void resetRequest() {
+			// nothing
+		}
+		@Override
+		public void close() {
+			// nothing
+		}
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	RESPONSE: endpoint > client
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Streams the endpoint response body to the client:
+	 * the buffer is filled by the io reactor when there's endpoint data available (see {@link #onContentReceived(ContentDecoder, IOControl)})
+	 * and it's drained by the container when the client is ready to receive more data (see {@link #onWritePossible()})
+	 */
+	private final class ResponseBodyConsumer
+				extends AbstractAsyncResponseConsumer<Void>
+			 implements WriteListener {
+		private final ByteBuffer _buffer = ByteBuffer.allocate(BUFFER_SIZE);	// written by the endpoint reads / read by the client writes
+		private ServletOutputStream _out;	// null if the body is NOT transferred to the client
+		private IOControl _ioControl;
+		private boolean _endPointEof;
+
+		@Override
+		protected void onResponseReceived(final HttpResponse endPointResponse) throws HttpException,
+																					  IOException {
+			_responseReceived = true;
+			_recordEndPointResponse(endPointResponse.getStatusLine().getStatusCode());
+
+			boolean hasToTransferBody;
+			try {
+				hasToTransferBody = _delegate._transferEndPointResponseHead(_originalRequest,_responseToClient,
+																			_endPoint,
+																			_followRedirects,
+																			_requestToBeProxied,
+																			endPointResponse,
+																			false);		// gzipped bodies are passed through
+			} catch (ServletException servletEx) {
+				throw new HttpException(servletEx.getMessage(),servletEx);
+			}
+			if (!hasToTransferBody) return;
+
+			_out = _responseToClient.getOutputStream();
+			_out.setWriteListener(this);
+		}
+		@Override
+		protected void onEntityEnclosed(final HttpEntity entity,
+										final ContentType contentType) {
+			// nothing: the content is streamed at onContentReceived
+		}
+		@Override
+		protected synchronized void onContentReceived(final ContentDecoder decoder,
+													  final IOControl ioControl) throws IOException {
+			_ioControl = ioControl;
+			if (_out == null) {
+				// the body is NOT transferred to the client: discard it
+				_buffer.clear();
+				while (decoder.read(_buffer) > 0) _buffer.clear();
+				_buffer.clear();
+				return;
+			}
+			decoder.read(_buffer);
+			_writeClient();
+			if (_buffer.position() > 0) ioControl.suspendInput();	// the client is NOT ready: wait (see onWritePossible)
+		}
+		@Override
+		public synchronized void onWritePossible() throws IOException {
+			_writeClient();
+			if (_buffer.position() > 0 || !_out.isReady()) return;	// the client is NOT ready: onWritePossible will be called again
+			if (_endPointEof) {
+				_complete();
+			} else if (_ioControl != null) {
+				_ioControl.requestInput();
+			}
+		}
+		@Override
+		public void onError(final Throwable th) {
+			log.warn("[proxy servlet] > error writing the {} response to the client: {}",
+					 _endPoint.getUrl(),th.getMessage());
+			this.cancel();
+			_cancelEndPointRequest();
+			_complete();
+		}
+		/**
+		 * Writes the buffered endpoint data if the client is ready
+		 */
+		private void _writeClient() throws IOException {
+			if (_buffer.position() == 0 || !_out.isReady()) return;
+			_out.write(_buffer.array(),_buffer.arrayOffset(),_buffer.position());
+			_buffer.clear();
+		}
+		@Override
+		protected synchronized Void buildResult(final HttpContext context) throws IOException {
+			_endPointEof = true;
+			// if there's pending data or the client is NOT ready, the exchange is completed at onWritePossible
+			if (_out == null
+			 || (_buffer.position() == 0 && _out.isReady())) _complete();
+			return null;
+		}
+		@Override
+		protected void releaseResources() {
+			// nothing
+		}
+	}
+}
@@ -0,0 +1,533 @@
+package r01f.servlet.proxy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.entity.HttpEntityWrapper;
+
+import com.google.common.io.ByteStreams;
+
+import lombok.Getter;
+import lombok.experimental.Accessors;
+import lombok.extern.slf4j.Slf4j;
+import r01f.concurrent.DaemonThreadFactory;
+import r01f.debug.Debuggable;
+import r01f.file.FileID;
+import r01f.types.Path;
+import r01f.util.types.Strings;
+
+/**
+ * An in-process cache of the endpoint responses to the GET requests proxied by the {@link HttpProxyServletDelegate}
+ * (see {@link HttpProxyServletCacheConfig} and {@link HttpProxyServletCachePolicy})
+ * <ul>
+ * 		<li>a fresh entry is served WITHOUT contacting the endpoint (a 304 is sent if the client already has it)</li>
+ * 		<li>a stale entry within the stale-while-revalidate window is served while it's revalidated in the background</li>
+ * 		<li>any other stale entry is revalidated with a conditional request (If-None-Match / If-Modified-Since):
+ * 			if the endpoint returns a 304 the entry is refreshed and served</li>
+ * 		<li>concurrent misses of the same key are collapsed: only one request is sent to the endpoint
+ * 			and the others wait a (capped) while for its response (see {@link InFlight})</li>
+ * 		<li>the body of a cacheable response is recorded while it's streamed to the client
+ * 			(see {@link #recording(InFlight, HttpResponse, boolean, long)}): it's kept in memory or spilled to disk</li>
+ * </ul>
+ * The key is the destination url plus the Accept-Encoding header since the endpoint may send a gzipped body or not
+ * (the cached gzipped bodies are always served as they were received)
+ * BEWARE! the cache must be closed when no longer used (see {@link #close()})
+ */
+@Slf4j
+@Accessors(prefix="_")
+public class HttpProxyServletCache
+  implements Closeable,
+  			 Debuggable {
+/////////////////////////////////////////////////////////////////////////////////////////
+//	CONSTANTS
+/////////////////////////////////////////////////////////////////////////////////////////
+	private static final int FOUR_KB = 4096;
+/////////////////////////////////////////////////////////////////////////////////////////
+//	FIELDS
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Getter private final HttpProxyServletCacheConfig _config;
+			private final HttpProxyServletCacheStore _store;
+			private final ConcurrentMap<String,InFlight> _inFlight = new ConcurrentHashMap<>();
+			private final ExecutorService _revalidationExecutor;
+			private final AtomicLong _spilledBytes = new AtomicLong(0);
+
+	// stats
+			private final LongAdder _hits = new LongAdder();
+			private final LongAdder _misses = new LongAdder();
+			private final LongAdder _collapsed = new LongAdder();
+			private final LongAdder _revalidations = new LongAdder();
+/////////////////////////////////////////////////////////////////////////////////////////
+//	CONSTRUCTOR
+/////////////////////////////////////////////////////////////////////////////////////////
+	public HttpProxyServletCache(final HttpProxyServletCacheConfig config) {
+		_config = config;
+		_store = new HttpProxyServletCacheStore(config.getEviction(),
+												config.getMaxBytes(),
+												this::_onRemoval);
+		_revalidationExecutor = Executors.newFixedThreadPool(config.getRevalidationThreads(),
+															 new DaemonThreadFactory());
+		log.info("[proxy cache] > {}",config.debugInfo());
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	KEY & CACHEABILITY
+/////////////////////////////////////////////////////////////////////////////////////////
+	public static boolean isCacheable(final HttpServletRequest originalRequest) {
+		return HttpProxyServletCachePolicy.isCacheableRequest(originalRequest);
+	}
+	public static boolean hasCredentials(final HttpServletRequest originalRequest) {
+		return HttpProxyServletCachePolicy.hasCredentials(originalRequest);
+	}
+	public boolean isCacheable(final HttpResponse endPointResponse,
+							   final boolean requestWithCredentials) {
+		return endPointResponse.getEntity() != null
+			&& HttpProxyServletCachePolicy.isCacheableResponse(endPointResponse,requestWithCredentials,
+															   _config);
+	}
+	public static String keyOf(final HttpServletRequest originalRequest,
+							   final String destinationUrl) {
+		String acceptEncoding = originalRequest.getHeader("Accept-Encoding");
+		return Strings.isNOTNullOrEmpty(acceptEncoding) ? destinationUrl + " " + acceptEncoding.replace(" ","").toLowerCase()
+														: destinationUrl;
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	GET / PUT
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * @param key
+	 * @return the cached entry (fresh or stale) or null if there's NO entry
+	 */
+	public HttpProxyServletCacheEntry get(final String key) {
+		HttpProxyServletCacheEntry outEntry = _store.get(key);
+		if (outEntry != null) {
+			_hits.increment();
+		} else {
+			_misses.increment();
+		}
+		return outEntry;
+	}
+	public void put(final HttpProxyServletCacheEntry entry) {
+		HttpProxyServletCacheEntry replaced = _store.put(entry);
+		// a revalidated entry shares the spilled body with the replaced one
+		if (replaced != null
+		 && replaced.getSpilledBodyFileId() != entry.getSpilledBodyFileId()) {
+			_onRemoval(replaced);
+		}
+	}
+	public void invalidate(final String key) {
+		_store.remove(key);
+	}
+	private void _onRemoval(final HttpProxyServletCacheEntry entry) {
+		if (entry.isBodySpilledToDisk()) _deleteSpilledBody(entry.getSpilledBodyFileId(),
+															entry.getBodyLength());
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	SERVE
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Sends a cached entry to the client (or a 304 if the client already has it)
+	 * @param entry
+	 * @param originalRequest
+	 * @param responseToClient
+	 * @return true if the entry was served, false if the spilled body could NOT be read
+	 * 		   (the entry is invalidated and nothing is sent to the client)
+	 * @throws IOException
+	 */
+	public boolean serve(final HttpProxyServletCacheEntry entry,
+						 final HttpServletRequest originalRequest,
+						 final HttpServletResponse responseToClient) throws IOException {
+		long now = System.currentTimeMillis();
+
+		// [1] - the client already has the entry
+		if (HttpProxyServletCachePolicy.isNotModifiedFor(originalRequest,entry)) {
+			responseToClient.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			for (Header header : entry.getHeaders()) {
+				if (_isNotModifiedHeader(header.getName())) responseToClient.addHeader(header.getName(),header.getValue());
+			}
+			responseToClient.setHeader("Age",String.valueOf(entry.getAge(now) / 1000));
+			return true;
+		}
+		// [2] - open the spilled body BEFORE anything is sent to the client
+		//		 (the file may have been evicted meanwhile)
+		InputStream spilledBodyIS = null;
+		if (entry.isBodySpilledToDisk()) {
+			try {
+				spilledBodyIS = _config.getSpillFileStoreApi().readFromFile(entry.getSpilledBodyFileId());
+			} catch (IOException ioEx) {
+				log.warn("[proxy cache] > could NOT read the spilled body of {}: {}",entry.getKey(),ioEx.getMessage());
+				this.invalidate(entry.getKey());
+				return false;
+			}
+		}
+		// [3] - status, headers & body
+		responseToClient.setStatus(entry.getStatusCode());
+		for (Header header : entry.getHeaders()) {
+			if (header.getName().equalsIgnoreCase("Content-Length")) continue;
+			responseToClient.addHeader(header.getName(),header.getValue());
+		}
+		responseToClient.setHeader("Age",String.valueOf(entry.getAge(now) / 1000));
+		responseToClient.setContentLengthLong(entry.getBodyLength());
+
+		OutputStream os = responseToClient.getOutputStream();
+		if (spilledBodyIS != null) {
+			try (InputStream is = spilledBodyIS) {
+				ByteStreams.copy(is,os);
+			}
+		} else {
+			os.write(entry.getBody());
+		}
+		os.flush();
+		return true;
+	}
+	private static boolean _isNotModifiedHeader(final String headerName) {
+		// the headers sent with a 304 (RFC 7232)
+		return headerName.equalsIgnoreCase("Cache-Control")
+			|| headerName.equalsIgnoreCase("Content-Location")
+			|| headerName.equalsIgnoreCase("Date")
+			|| headerName.equalsIgnoreCase("ETag")
+			|| headerName.equalsIgnoreCase("Expires")
+			|| headerName.equalsIgnoreCase("Vary");
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	COLLAPSED REQUESTS
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Joins the request of a key that's in flight (being fetched from the endpoint or revalidated)
+	 * If there's none the caller becomes the leader: it MUST complete the returned {@link InFlight}
+	 * with the stored entry (or null) when the endpoint response is received
+	 * @param key
+	 * @return
+	 */
+	public InFlight inFlight(final String key) {
+		InFlight leader = new InFlight(key,
+									   new CompletableFuture<>(),
+									   true);
+		InFlight existing = _inFlight.putIfAbsent(key,leader);
+		if (existing == null) return leader;
+
+		_collapsed.increment();
+		return new InFlight(key,
+							existing._future,
+							false);		// follower
+	}
+	/**
+	 * A request of a key in flight: the leader sends the request to the endpoint and the followers wait for its response
+	 */
+	@Accessors(prefix="_")
+	public final class InFlight {
+		@Getter private final String _key;
+				private final CompletableFuture<HttpProxyServletCacheEntry> _future;
+		@Getter private final boolean _leader;
+
+		private InFlight(final String key,
+						 final CompletableFuture<HttpProxyServletCacheEntry> future,
+						 final boolean leader) {
+			_key = key;
+			_future = future;
+			_leader = leader;
+		}
+		/**
+		 * Waits for the response of the leader
+		 * BEWARE! it blocks the calling (container) thread: the wait is capped by the collapsed request timeout
+		 * 		   (see {@link HttpProxyServletCacheConfig#collapsedRequestTimeOut(long)})
+		 * @return the stored entry or null if the response was NOT cacheable, the request failed or the wait timed out
+		 */
+		public HttpProxyServletCacheEntry await() {
+			if (_config.getCollapsedRequestTimeOut() <= 0) return null;		// NOT collapsed
+			try {
+				return _future.get(_config.getCollapsedRequestTimeOut(),TimeUnit.MILLISECONDS);
+			} catch (InterruptedException intEx) {
+				Thread.currentThread().interrupt();
+				return null;
+			} catch (ExecutionException | TimeoutException ex) {
+				log.debug("[proxy cache] > the response of {} in flight was NOT received: {}",_key,ex.toString());
+				return null;
+			}
+		}
+		/**
+		 * Completes the request in flight waking up the followers (it's a no-op if it's NOT the leader or if it's already completed)
+		 * @param entry the stored entry or null if the response was NOT cacheable
+		 */
+		public void complete(final HttpProxyServletCacheEntry entry) {
+			if (!_leader) return;
+			_inFlight.remove(_key,this);
+			_future.complete(entry);
+		}
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	BACKGROUND REVALIDATION
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Revalidates a stale entry in the background
+	 * @param inFlight the leader of the key in flight: it's completed when the revalidation finishes
+	 * @param revalidation sends the conditional request to the endpoint and returns the revalidated entry (or null)
+	 */
+	public void revalidateInBackground(final InFlight inFlight,
+									   final Callable<HttpProxyServletCacheEntry> revalidation) {
+		_revalidations.increment();
+		try {
+			_revalidationExecutor.execute(() -> {
+												HttpProxyServletCacheEntry revalidated = null;
+												try {
+													revalidated = revalidation.call();
+												} catch (Throwable th) {
+													log.warn("[proxy cache] > error revalidating {}: {}",
+															 inFlight.getKey(),th.getMessage());
+												} finally {
+													inFlight.complete(revalidated);
+												}
+										  });
+		} catch (RejectedExecutionException rejEx) {
+			inFlight.complete(null);		// the cache was closed
+		}
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	RECORDING
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Wraps the endpoint response entity so its body is recorded while it's streamed to the client
+	 * When the body is fully read the entry is stored and the request in flight is completed;
+	 * if the body is too big (or the spill to disk failed) it's NOT stored but it's still streamed
+	 * BEWARE! the remaining body is read when the entity stream is closed before the end (ie: the gzip stream stops reading
+	 * at the gzip trailer) so the entry is stored anyway (it's bounded by the max entry bytes); if the client aborts,
+	 * the endpoint request is aborted and the entry is NOT stored
+	 * @param inFlight the leader of the key in flight
+	 * @param endPointResponse a cacheable response (see {@link #isCacheable(HttpResponse, boolean)})
+	 * @param requestWithCredentials true if the request carried credentials or cookies (see {@link #hasCredentials(HttpServletRequest)})
+	 * @param receivedAt
+	 * @return
+	 */
+	public HttpEntity recording(final InFlight inFlight,
+								final HttpResponse endPointResponse,
+								final boolean requestWithCredentials,
+								final long receivedAt) {
+		return new HttpEntityWrapper(endPointResponse.getEntity()) {
+						private RecordingInputStream _recordingIS;
+
+						@Override
+						public InputStream getContent() throws IOException {
+							if (_recordingIS == null) _recordingIS = new RecordingInputStream(inFlight,
+																							  endPointResponse,
+																							  requestWithCredentials,
+																							  receivedAt,
+																							  super.getContent());
+							return _recordingIS;
+						}
+						@Override
+						public void writeTo(final OutputStream os) throws IOException {
+							try (InputStream is = this.getContent()) {
+								ByteStreams.copy(is,os);
+							}
+						}
+						@Override
+						public boolean isRepeatable() {
+							return false;
+						}
+			   };
+	}
+	private final class RecordingInputStream
+				extends FilterInputStream {
+		private final InFlight _recInFlight;
+		private final HttpResponse _endPointResponse;
+		private final boolean _requestWithCredentials;
+		private final long _receivedAt;
+
+		private ByteArrayOutputStream _memory = new ByteArrayOutputStream(FOUR_KB);
+		private FileID _spilledBodyFileId;
+		private OutputStream _spilled;
+		private long _spilledLength;			// bytes accounted at the spilled bytes
+		private long _length;
+		private boolean _recording = true;
+		private boolean _closed;
+
+		RecordingInputStream(final InFlight inFlight,
+							 final HttpResponse endPointResponse,
+							 final boolean requestWithCredentials,
+							 final long receivedAt,
+							 final InputStream is) {
+			super(is);
+			_recInFlight = inFlight;
+			_endPointResponse = endPointResponse;
+			_requestWithCredentials = requestWithCredentials;
+			_receivedAt = receivedAt;
+		}
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if (b < 0) {
+				_store();
+			} else {
+				_record(new byte[] { (byte)b },0,1);
+			}
+			return b;
+		}
+		@Override
+		public int read(final byte[] b,final int off,final int len) throws IOException {
+			int n = super.read(b,off,len);
+			if (n < 0) {
+				_store();
+			} else if (n > 0) {
+				_record(b,off,n);
+			}
+			return n;
+		}
+		@Override
+		public long skip(final long n) throws IOException {
+			_abandon("the body was skipped");
+			return super.skip(n);
+		}
+		@Override
+		public boolean markSupported() {
+			return false;
+		}
+		@Override
+		public void close() throws IOException {
+			if (_closed) return;
+			_closed = true;
+			try {
+				// read the remaining body so the entry is stored
+				// (ie: the gzip stream stops reading at the gzip trailer)
+				byte[] buffer = new byte[FOUR_KB];
+				while (_recording && this.read(buffer) >= 0) {
+					// drain
+				}
+			} catch (IOException ioEx) {
+				_abandon(ioEx.getMessage());
+			} finally {
+				_abandon("the body was NOT fully read");		// no-op if the entry was stored
+				super.close();
+			}
+		}
+		private void _record(final byte[] b,final int off,final int len) {
+			if (!_recording) return;
+			_length += len;
+			if (_length > _config.getMaxEntryBytes()) {
+				_abandon("the body is bigger than " + _config.getMaxEntryBytes() + " bytes");
+				return;
+			}
+			try {
+				// start spilling to disk: the bytes kept in memory are moved to the file
+				if (_spilled == null
+				 && _config.isSpillToDisk()
+				 && _length > _config.getSpillThresholdBytes()) {
+					_spilledBodyFileId = Path.from(_config.getSpillFolder().asString(),
+												   UUID.randomUUID().toString());
+					_spilled = _config.getSpillFileStoreApi().getFileOutputStreamForWriting(_spilledBodyFileId,
+																							true);		// overwrite
+					byte[] inMemory = _memory.toByteArray();
+					_memory = null;
+					if (!_spill(inMemory,0,inMemory.length)) return;
+				}
+				if (_spilled != null) {
+					_spill(b,off,len);
+				} else {
+					_memory.write(b,off,len);
+				}
+			} catch (IOException ioEx) {
+				_abandon("could NOT spill the body to disk: " + ioEx.getMessage());
+			}
+		}
+		private boolean _spill(final byte[] b,final int off,final int len) throws IOException {
+			if (_spilledBytes.addAndGet(len) > _config.getMaxSpilledBytes()) {
+				_spilledBytes.addAndGet(-len);
+				_abandon("the max spilled bytes (" + _config.getMaxSpilledBytes() + ") was reached");
+				return false;
+			}
+			_spilledLength += len;
+			_spilled.write(b,off,len);
+			return true;
+		}
+		private void _store() {
+			if (!_recording) return;
+			if (_spilled != null) {
+				try {
+					_spilled.close();
+				} catch (IOException ioEx) {
+					_abandon("could NOT spill the body to disk: " + ioEx.getMessage());
+					return;
+				}
+			}
+			_recording = false;
+			HttpProxyServletCacheEntry entry = new HttpProxyServletCacheEntry(_recInFlight.getKey(),
+																			  _endPointResponse,
+																			  _memory != null ? _memory.toByteArray() : null,_spilledBodyFileId,_length,
+																			  _requestWithCredentials,
+																			  _receivedAt,
+																			  _config);
+			_memory = null;
+			HttpProxyServletCache.this.put(entry);
+			_recInFlight.complete(entry);
+			log.debug("[proxy cache] > stored {} ({} bytes{})",
+					  entry.getKey(),_length,entry.isBodySpilledToDisk() ? " spilled to disk" : "");
+		}
+		private void _abandon(final String reason) {
+			if (!_recording) return;
+			_recording = false;
+			_memory = null;
+			if (_spilled != null) {
+				try {
+					_spilled.close();
+				} catch (IOException ioEx) {
+					// ignored: the file is deleted
+				}
+				_deleteSpilledBody(_spilledBodyFileId,
+								   _spilledLength);
+				_spilled = null;
+			}
+			_recInFlight.complete(null);
+			log.debug("[proxy cache] > {} NOT stored: {}",_recInFlight.getKey(),reason);
+		}
+	}
+	private void _deleteSpilledBody(final FileID fileId,
+									final long length) {
+		try {
+			_config.getSpillFileStoreApi().deleteFile(fileId);
+		} catch (IOException ioEx) {
+			log.warn("[proxy cache] > could NOT delete the spilled body {}: {}",fileId,ioEx.getMessage());
+		} finally {
+			_spilledBytes.addAndGet(-length);
+		}
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	CLOSE
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Stops the background revalidations and removes all the entries (the spilled bodies are deleted)
+	 */
+	@Override
+	public void close() throws IOException {
+		_revalidationExecutor.shutdownNow();
+		_store.clear();
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	DEBUG
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Override
+	public CharSequence debugInfo() {
+		return Strings.customized("{} entries ({} bytes in memory, {} bytes spilled to disk) hits={} misses={} collapsed={} background revalidations={}",
+								  _store.size(),_store.getWeight(),_spilledBytes.get(),
+								  _hits.sum(),_misses.sum(),_collapsed.sum(),_revalidations.sum());
+	}
+}
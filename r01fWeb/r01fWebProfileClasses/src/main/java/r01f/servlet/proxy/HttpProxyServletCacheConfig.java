@@ -0,0 +1,166 @@
+package r01f.servlet.proxy;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+import r01f.debug.Debuggable;
+import r01f.filestore.api.FileStoreAPI;
+import r01f.types.Path;
+import r01f.util.types.Strings;
+
+/**
+ * Config of the (in-process) response cache used by the {@link HttpProxyServletDelegate} to serve the cacheable GET requests
+ * (see {@link HttpProxyServletCache})
+ * <ul>
+ * 		<li>the cache is bounded by bytes: the memory held by the cached bodies (and the disk used by the spilled ones)</li>
+ * 		<li>the entries are evicted by LRU or W-TinyLFU (a small LRU window in front of a segmented LRU whose admission
+ * 			is decided by the access frequency, so a burst of one-hit requests does NOT flush the popular entries)</li>
+ * 		<li>the bodies bigger than a threshold can be spilled to disk through a {@link FileStoreAPI}</li>
+ * 		<li>a stale entry is served while it's revalidated in the background if the endpoint allows it
+ * 			(Cache-Control: stale-while-revalidate) or if a default window is configured</li>
+ * </ul>
+ * <pre class='brush:java'>
+ * 		HttpProxyServletCacheConfig config = HttpProxyServletCacheConfig.create()
+ * 																	.maxBytes(64 * 1024 * 1024)
+ * 																	.evictByWTinyLFU()
+ * 																	.spillToDisk(new LocalFileStoreAPI(),Path.from("/tmp/proxyCache"),
+ * 																				 256 * 1024,1024 * 1024 * 1024);
+ * </pre>
+ */
+@Accessors(prefix="_")
+@NoArgsConstructor
+public class HttpProxyServletCacheConfig
+  implements Debuggable {
+/////////////////////////////////////////////////////////////////////////////////////////
+//	CONSTANTS
+/////////////////////////////////////////////////////////////////////////////////////////
+	public static final long DEF_MAX_BYTES = 64 * 1024 * 1024;
+	public static final long DEF_MAX_ENTRY_BYTES = 8 * 1024 * 1024;
+	public static final long DEF_SPILL_THRESHOLD_BYTES = 256 * 1024;
+	public static final long DEF_MAX_HEURISTIC_FRESHNESS = 24 * 60 * 60 * 1000;
+	public static final long DEF_COLLAPSED_REQUEST_TIMEOUT = 2000;
+	public static final long MAX_COLLAPSED_REQUEST_TIMEOUT = 5000;		// the collapsed requests block container threads
+/////////////////////////////////////////////////////////////////////////////////////////
+//	EVICTION
+/////////////////////////////////////////////////////////////////////////////////////////
+	public enum HttpProxyServletCacheEviction {
+		LRU,				// the least recently used entries are evicted
+		W_TINY_LFU;			// window LRU + frequency-based admission to a segmented LRU
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	FIELDS
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Getter private long _maxBytes = DEF_MAX_BYTES;								// max bytes held in memory by the cached entries
+	@Getter private long _maxEntryBytes = DEF_MAX_ENTRY_BYTES;					// bodies bigger than this are NOT cached
+	@Getter private HttpProxyServletCacheEviction _eviction = HttpProxyServletCacheEviction.W_TINY_LFU;
+
+	@Getter private FileStoreAPI _spillFileStoreApi;								// null = the bodies are NOT spilled to disk
+	@Getter private Path _spillFolder;											// the folder where the spilled bodies are stored
+	@Getter private long _spillThresholdBytes = DEF_SPILL_THRESHOLD_BYTES;		// bodies bigger than this are spilled to disk
+	@Getter private long _maxSpilledBytes;										// max bytes held in disk by the spilled bodies
+
+	@Getter private int _heuristicFreshnessPercent = 10;						// % of the time since the Last-Modified date a response without explicit freshness is fresh
+	@Getter private long _maxHeuristicFreshness = DEF_MAX_HEURISTIC_FRESHNESS;	// max milis of the heuristic freshness
+	@Getter private long _defaultStaleWhileRevalidate = 0;						// milis a stale entry is served while it's revalidated if the endpoint does NOT tell it
+	@Getter private long _collapsedRequestTimeOut = DEF_COLLAPSED_REQUEST_TIMEOUT;	// milis a request waits for the response of the same request in flight
+	@Getter private int _revalidationThreads = 2;								// number of threads used to revalidate the stale entries in the background
+/////////////////////////////////////////////////////////////////////////////////////////
+//	BUILDER
+/////////////////////////////////////////////////////////////////////////////////////////
+	public static HttpProxyServletCacheConfig create() {
+		return new HttpProxyServletCacheConfig();
+	}
+	public HttpProxyServletCacheConfig maxBytes(final long max) {
+		if (max <= 0) throw new IllegalArgumentException("The cache max bytes must be greater than zero!");
+		_maxBytes = max;
+		return this;
+	}
+	public HttpProxyServletCacheConfig maxEntryBytes(final long max) {
+		if (max <= 0) throw new IllegalArgumentException("The cache max entry bytes must be greater than zero!");
+		_maxEntryBytes = max;
+		return this;
+	}
+	public HttpProxyServletCacheConfig evictByLRU() {
+		_eviction = HttpProxyServletCacheEviction.LRU;
+		return this;
+	}
+	public HttpProxyServletCacheConfig evictByWTinyLFU() {
+		_eviction = HttpProxyServletCacheEviction.W_TINY_LFU;
+		return this;
+	}
+	public HttpProxyServletCacheConfig evictBy(final HttpProxyServletCacheEviction eviction) {
+		if (eviction == null) throw new IllegalArgumentException("The cache eviction cannot be null!");
+		_eviction = eviction;
+		return this;
+	}
+	/**
+	 * The bodies bigger than the threshold are spilled to disk so they do NOT use memory
+	 * (only the entry headers are kept in memory)
+	 * @param fileStoreApi the api used to store the bodies
+	 * @param folder the folder where the bodies are stored (it should be used only by this cache)
+	 * @param thresholdBytes bodies bigger than this are spilled to disk
+	 * @param maxSpilledBytes max bytes held in disk by the spilled bodies
+	 * @return
+	 */
+	public HttpProxyServletCacheConfig spillToDisk(final FileStoreAPI fileStoreApi,final Path folder,
+												   final long thresholdBytes,final long maxSpilledBytes) {
+		if (fileStoreApi == null || folder == null) throw new IllegalArgumentException("The file store api and the folder are mandatory to spill the cached bodies to disk!");
+		if (thresholdBytes < 0 || maxSpilledBytes <= 0) throw new IllegalArgumentException("The spill threshold cannot be negative and the max spilled bytes must be greater than zero!");
+		_spillFileStoreApi = fileStoreApi;
+		_spillFolder = folder;
+		_spillThresholdBytes = thresholdBytes;
+		_maxSpilledBytes = maxSpilledBytes;
+		return this;
+	}
+	public HttpProxyServletCacheConfig heuristicFreshness(final int percentSinceLastModified,final long maxMilis) {
+		if (percentSinceLastModified < 0 || percentSinceLastModified > 100) throw new IllegalArgumentException("The heuristic freshness percent must be between 0 and 100!");
+		_heuristicFreshnessPercent = percentSinceLastModified;
+		_maxHeuristicFreshness = maxMilis;
+		return this;
+	}
+	public HttpProxyServletCacheConfig noHeuristicFreshness() {
+		_heuristicFreshnessPercent = 0;
+		return this;
+	}
+	public HttpProxyServletCacheConfig defaultStaleWhileRevalidate(final long milis) {
+		if (milis < 0) throw new IllegalArgumentException("The stale-while-revalidate window cannot be negative!");
+		_defaultStaleWhileRevalidate = milis;
+		return this;
+	}
+	/**
+	 * Sets the milis a request waits for the response of the same request in flight (0 = the requests are NOT collapsed)
+	 * BEWARE! the waiting requests block container threads so the wait is capped (see {@link #MAX_COLLAPSED_REQUEST_TIMEOUT}):
+	 * 		   if the response is NOT received in time the request is proxied bypassing the cache
+	 * @param milis
+	 * @return
+	 */
+	public HttpProxyServletCacheConfig collapsedRequestTimeOut(final long milis) {
+		if (milis < 0 || milis > MAX_COLLAPSED_REQUEST_TIMEOUT) throw new IllegalArgumentException("The collapsed request timeout must be between 0 and " + MAX_COLLAPSED_REQUEST_TIMEOUT + " milis!");
+		_collapsedRequestTimeOut = milis;
+		return this;
+	}
+	public HttpProxyServletCacheConfig revalidationThreads(final int threads) {
+		if (threads <= 0) throw new IllegalArgumentException("The revalidation threads must be greater than zero!");
+		_revalidationThreads = threads;
+		return this;
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	METHODS
+/////////////////////////////////////////////////////////////////////////////////////////
+	public boolean isSpillToDisk() {
+		return _spillFileStoreApi != null;
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	DEBUG
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Override
+	public CharSequence debugInfo() {
+		return Strings.customized("max bytes={} (max entry bytes={}) eviction={} spill to disk={} heuristic freshness={}% (max {}ms) default stale-while-revalidate={}ms",
+								  _maxBytes,_maxEntryBytes,
+								  _eviction,
+								  this.isSpillToDisk() ? _spillFolder + " (threshold=" + _spillThresholdBytes + " max=" + _maxSpilledBytes + ")"
+										  			   : "false",
+								  _heuristicFreshnessPercent,_maxHeuristicFreshness,
+								  _defaultStaleWhileRevalidate);
+	}
+}
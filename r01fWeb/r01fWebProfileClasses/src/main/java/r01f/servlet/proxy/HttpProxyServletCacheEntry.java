@@ -0,0 +1,158 @@
+package r01f.servlet.proxy;
+
+import java.util.List;
+
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.message.BasicHttpResponse;
+
+import com.google.common.collect.Lists;
+
+import lombok.Getter;
+import lombok.experimental.Accessors;
+import r01f.file.FileID;
+
+/**
+ * A response stored at the {@link HttpProxyServletCache}
+ * The entry is immutable: when it's revalidated (the endpoint returned a 304) a new entry that shares the body is created
+ * (see {@link #revalidatedWith(HttpResponse, boolean, long, HttpProxyServletCacheConfig)})
+ */
+@Accessors(prefix="_")
+public class HttpProxyServletCacheEntry {
+/////////////////////////////////////////////////////////////////////////////////////////
+//	CONSTANTS
+/////////////////////////////////////////////////////////////////////////////////////////
+	private static final int HEADER_WEIGHT = 64;		// approx bytes held by a header
+/////////////////////////////////////////////////////////////////////////////////////////
+//	FIELDS
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Getter private final String _key;
+	@Getter private final int _statusCode;
+	@Getter private final String _reasonPhrase;
+	@Getter private final Header[] _headers;			// the end-to-end headers (the hop-by-hop headers are NOT stored)
+	@Getter private final byte[] _body;					// null if the body was spilled to disk
+	@Getter private final FileID _spilledBodyFileId;	// null if the body is in memory
+	@Getter private final long _bodyLength;
+	@Getter private final long _receivedAt;				// local time the response was received
+	@Getter private final long _initialAge;				// milis the response was cached by upstream caches when it was received (Age header)
+	@Getter private final long _freshnessLifetime;		// milis the response is fresh
+	@Getter private final long _staleWhileRevalidate;	// milis the stale response can be served while it's revalidated
+	@Getter private final String _eTag;
+	@Getter private final String _lastModified;
+/////////////////////////////////////////////////////////////////////////////////////////
+//	CONSTRUCTOR
+/////////////////////////////////////////////////////////////////////////////////////////
+	HttpProxyServletCacheEntry(final String key,
+							   final HttpResponse endPointResponse,
+							   final byte[] body,final FileID spilledBodyFileId,final long bodyLength,
+							   final boolean requestWithCredentials,
+							   final long receivedAt,
+							   final HttpProxyServletCacheConfig config) {
+		_key = key;
+		_statusCode = endPointResponse.getStatusLine().getStatusCode();
+		_reasonPhrase = endPointResponse.getStatusLine().getReasonPhrase();
+		_headers = _endToEndHeadersOf(endPointResponse.getAllHeaders());
+		_body = body;
+		_spilledBodyFileId = spilledBodyFileId;
+		_bodyLength = bodyLength;
+		_receivedAt = receivedAt;
+		_initialAge = HttpProxyServletCachePolicy.ageOf(endPointResponse);
+		_freshnessLifetime = HttpProxyServletCachePolicy.freshnessLifetimeOf(endPointResponse,requestWithCredentials,config);
+		_staleWhileRevalidate = HttpProxyServletCachePolicy.staleWhileRevalidateOf(endPointResponse,config);
+		_eTag = endPointResponse.getFirstHeader("ETag") != null ? endPointResponse.getFirstHeader("ETag").getValue() : null;
+		_lastModified = endPointResponse.getFirstHeader("Last-Modified") != null ? endPointResponse.getFirstHeader("Last-Modified").getValue() : null;
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	FRESHNESS
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * @param now
+	 * @return the milis since the response was generated at the endpoint
+	 */
+	public long getAge(final long now) {
+		return _initialAge + Math.max(0,now - _receivedAt);
+	}
+	public boolean isFresh(final long now) {
+		return this.getAge(now) < _freshnessLifetime;
+	}
+	/**
+	 * @param now
+	 * @return true if the entry is stale BUT it can still be served while it's revalidated in the background
+	 */
+	public boolean isStaleWhileRevalidate(final long now) {
+		long age = this.getAge(now);
+		return age >= _freshnessLifetime
+			&& age < _freshnessLifetime + _staleWhileRevalidate;
+	}
+	public boolean hasValidators() {
+		return _eTag != null || _lastModified != null;
+	}
+	public boolean isBodySpilledToDisk() {
+		return _spilledBodyFileId != null;
+	}
+	/**
+	 * @return the approx bytes held in memory by the entry
+	 */
+	public long getWeight() {
+		return (_body != null ? _body.length : 0)
+			 + (_headers.length * HEADER_WEIGHT)
+			 + (_key.length() * 2);
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	REVALIDATION
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Creates a new entry updated with the headers of a 304 (not modified) endpoint response
+	 * (the body is shared with this entry)
+	 * @param notModifiedResponse
+	 * @param requestWithCredentials true if the conditional request carried credentials or cookies
+	 * @param receivedAt
+	 * @param config
+	 * @return
+	 */
+	public HttpProxyServletCacheEntry revalidatedWith(final HttpResponse notModifiedResponse,
+													  final boolean requestWithCredentials,
+													  final long receivedAt,
+													  final HttpProxyServletCacheConfig config) {
+		// the headers of the 304 response replace the stored ones
+		HttpResponse merged = new BasicHttpResponse(HttpVersion.HTTP_1_1,_statusCode,_reasonPhrase);
+		for (Header header : _headers) {
+			if (!notModifiedResponse.containsHeader(header.getName())) merged.addHeader(header);
+		}
+		for (Header header : _endToEndHeadersOf(notModifiedResponse.getAllHeaders())) {
+			if (header.getName().equalsIgnoreCase("Content-Length")) continue;		// the 304 has no body
+			merged.addHeader(header);
+		}
+		if (notModifiedResponse.containsHeader("Age")) merged.addHeader(notModifiedResponse.getFirstHeader("Age"));
+		return new HttpProxyServletCacheEntry(_key,
+											  merged,
+											  _body,_spilledBodyFileId,_bodyLength,
+											  requestWithCredentials,
+											  receivedAt,
+											  config);
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	UTILS
+/////////////////////////////////////////////////////////////////////////////////////////
+	private static Header[] _endToEndHeadersOf(final Header[] headers) {
+		List<Header> outHeaders = Lists.newArrayListWithExpectedSize(headers.length);
+		for (Header header : headers) {
+			if (_isHopByHop(header.getName())) continue;
+			outHeaders.add(header);
+		}
+		return outHeaders.toArray(new Header[outHeaders.size()]);
+	}
+	private static boolean _isHopByHop(final String headerName) {
+		return headerName.equalsIgnoreCase("Connection")
+			|| headerName.equalsIgnoreCase("Keep-Alive")
+			|| headerName.equalsIgnoreCase("Transfer-Encoding")
+			|| headerName.equalsIgnoreCase("TE")
+			|| headerName.equalsIgnoreCase("Trailer")
+			|| headerName.equalsIgnoreCase("Upgrade")
+			|| headerName.equalsIgnoreCase("Proxy-Authenticate")
+			|| headerName.equalsIgnoreCase("Proxy-Authorization")
+			|| headerName.equalsIgnoreCase("WWW-Authenticate")	// the proxy never copies it (see HttpProxyServletDelegate)
+			|| headerName.equalsIgnoreCase("Age");				// it's computed when the entry is served
+	}
+}
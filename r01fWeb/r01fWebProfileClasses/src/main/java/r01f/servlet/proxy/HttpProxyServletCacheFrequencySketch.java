@@ -0,0 +1,87 @@
+package r01f.servlet.proxy;
+
+/**
+ * A count-min sketch that estimates the access frequency of the {@link HttpProxyServletCache} keys
+ * with a small fixed memory footprint (used by the W-TinyLFU admission, see {@link HttpProxyServletCacheStore})
+ * <ul>
+ * 		<li>every key increments a counter at each of the four rows: the estimated frequency is the minimum of the four counters</li>
+ * 		<li>the counters saturate at 15 and they're all halved when the number of increments reaches ten times the table size
+ * 			so the old popularity fades away (aging)</li>
+ * </ul>
+ * BEWARE! the sketch is NOT thread-safe: it's guarded by the store lock
+ */
+final class HttpProxyServletCacheFrequencySketch {
+/////////////////////////////////////////////////////////////////////////////////////////
+//	CONSTANTS
+/////////////////////////////////////////////////////////////////////////////////////////
+	private static final int MAX_FREQUENCY = 15;
+	private static final int[] SEEDS = { 0x97cb3127,0xb1cb5d7f,0x8a8f5c1b,0xd6e8feb9 };
+/////////////////////////////////////////////////////////////////////////////////////////
+//	FIELDS
+/////////////////////////////////////////////////////////////////////////////////////////
+	private final byte[][] _table;
+	private final int _mask;
+	private final int _sampleSize;
+	private int _increments;
+/////////////////////////////////////////////////////////////////////////////////////////
+//	CONSTRUCTOR
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * @param expectedEntries the expected number of cached entries (the table size is the next power of two)
+	 */
+	HttpProxyServletCacheFrequencySketch(final long expectedEntries) {
+		int width = Integer.highestOneBit((int)Math.max(64,Math.min(1 << 22,expectedEntries)) - 1) << 1;
+		_table = new byte[SEEDS.length][width];
+		_mask = width - 1;
+		_sampleSize = width * 10;
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	METHODS
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * @param key
+	 * @return the estimated access frequency of the key (0 to 15)
+	 */
+	int frequencyOf(final Object key) {
+		int hash = _spread(key.hashCode());
+		int outFrequency = MAX_FREQUENCY;
+		for (int i = 0; i < SEEDS.length; i++) {
+			outFrequency = Math.min(outFrequency,_table[i][_indexOf(hash,i)]);
+		}
+		return outFrequency;
+	}
+	/**
+	 * Records an access to the key
+	 * @param key
+	 */
+	void increment(final Object key) {
+		int hash = _spread(key.hashCode());
+		boolean incremented = false;
+		for (int i = 0; i < SEEDS.length; i++) {
+			int index = _indexOf(hash,i);
+			if (_table[i][index] < MAX_FREQUENCY) {
+				_table[i][index]++;
+				incremented = true;
+			}
+		}
+		if (incremented && ++_increments >= _sampleSize) _reset();
+	}
+	/**
+	 * Halves all the counters
+	 */
+	private void _reset() {
+		for (byte[] row : _table) {
+			for (int i = 0; i < row.length; i++) row[i] = (byte)(row[i] >>> 1);
+		}
+		_increments = _increments / 2;
+	}
+	private int _indexOf(final int hash,final int row) {
+		int h = hash * SEEDS[row];
+		h ^= h >>> 16;
+		return h & _mask;
+	}
+	private static int _spread(final int hash) {
+		int h = hash * 0x9e3779b9;
+		return h ^ (h >>> 16);
+	}
+}
@@ -0,0 +1,238 @@
+package r01f.servlet.proxy;
+
+import java.util.Date;
+import java.util.Enumeration;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.utils.DateUtils;
+
+import com.google.common.collect.Maps;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * The HTTP caching rules (RFC 7234) used by the {@link HttpProxyServletCache}
+ * BEWARE! the proxy is a SHARED cache so:
+ * <ul>
+ * 		<li>the requests with credentials (Authorization header) are NOT cached</li>
+ * 		<li>the responses to requests with cookies are ONLY cached if they're explicitly shared (public or s-maxage)
+ * 			and they're NOT heuristically fresh</li>
+ * 		<li>the private responses and the responses that set cookies are NOT cached</li>
+ * 		<li>s-maxage takes precedence over max-age</li>
+ * </ul>
+ * Only the variants by Accept-Encoding are supported (the cache key includes it): a response that varies by any other header is NOT cached
+ */
+@NoArgsConstructor(access=AccessLevel.PRIVATE)
+abstract class HttpProxyServletCachePolicy {
+/////////////////////////////////////////////////////////////////////////////////////////
+//	REQUEST
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Checks if the response to a request can be served from (or stored at) the cache
+	 * (a request that asks for an end-to-end reload -no-cache, no-store or max-age=0- is NOT served from the cache)
+	 * @param originalRequest
+	 * @return
+	 */
+	static boolean isCacheableRequest(final HttpServletRequest originalRequest) {
+		if (!"GET".equalsIgnoreCase(originalRequest.getMethod())) return false;
+		if (originalRequest.getHeader("Authorization") != null) return false;
+		if (originalRequest.getHeader("Range") != null) return false;		// partial content is NOT cached
+
+		Map<String,String> cacheControl = _cacheControlOf(originalRequest.getHeaders("Cache-Control"));
+		if (cacheControl.containsKey("no-store")
+		 || cacheControl.containsKey("no-cache")
+		 || "0".equals(cacheControl.get("max-age"))) return false;
+		String pragma = originalRequest.getHeader("Pragma");
+		if (pragma != null && pragma.toLowerCase().contains("no-cache")) return false;
+		return true;
+	}
+	/**
+	 * Checks if the request carries credentials (Authorization header) or cookies: the response may be personalized
+	 * so it's ONLY stored if it's explicitly shared (see {@link #isCacheableResponse(HttpResponse, boolean, HttpProxyServletCacheConfig)})
+	 * @param originalRequest
+	 * @return
+	 */
+	static boolean hasCredentials(final HttpServletRequest originalRequest) {
+		return originalRequest.getHeader("Authorization") != null
+			|| originalRequest.getHeader("Cookie") != null;
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	RESPONSE
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Checks if an endpoint response can be stored at the cache: it must be fresh for some time
+	 * or it must have a validator (ETag or Last-Modified) so it can be revalidated
+	 * If the request carried credentials or cookies the response must be explicitly shared (public or s-maxage)
+	 * @param endPointResponse
+	 * @param requestWithCredentials true if the request carried credentials or cookies (see {@link #hasCredentials(HttpServletRequest)})
+	 * @param config
+	 * @return
+	 */
+	static boolean isCacheableResponse(final HttpResponse endPointResponse,
+									   final boolean requestWithCredentials,
+									   final HttpProxyServletCacheConfig config) {
+		int status = endPointResponse.getStatusLine().getStatusCode();
+		if (status != HttpStatus.SC_OK
+		 && status != HttpStatus.SC_NON_AUTHORITATIVE_INFORMATION) return false;
+
+		Map<String,String> cacheControl = _cacheControlOf(endPointResponse.getHeaders("Cache-Control"));
+		if (cacheControl.containsKey("no-store")
+		 || cacheControl.containsKey("private")) return false;
+		if (endPointResponse.containsHeader("Set-Cookie")) return false;
+		if (requestWithCredentials
+		 && !cacheControl.containsKey("public")
+		 && !cacheControl.containsKey("s-maxage")) return false;
+		for (Header vary : endPointResponse.getHeaders("Vary")) {
+			for (String varyHeader : vary.getValue().split(",")) {
+				if (!varyHeader.trim().equalsIgnoreCase("Accept-Encoding")) return false;
+			}
+		}
+		return freshnessLifetimeOf(endPointResponse,requestWithCredentials,config) > 0
+			|| endPointResponse.containsHeader("ETag")
+			|| endPointResponse.containsHeader("Last-Modified");
+	}
+	/**
+	 * Returns the milis the response is fresh since it was received:
+	 * s-maxage, max-age, Expires - Date or a fraction of the time since the Last-Modified date (heuristic freshness)
+	 * (a no-cache response is never fresh: it must be revalidated every time it's used)
+	 * The heuristic freshness is NOT applied to the responses to requests with credentials or cookies
+	 * @param endPointResponse
+	 * @param requestWithCredentials true if the request carried credentials or cookies
+	 * @param config
+	 * @return
+	 */
+	static long freshnessLifetimeOf(final HttpResponse endPointResponse,
+									final boolean requestWithCredentials,
+									final HttpProxyServletCacheConfig config) {
+		Map<String,String> cacheControl = _cacheControlOf(endPointResponse.getHeaders("Cache-Control"));
+		if (cacheControl.containsKey("no-cache")) return 0;
+
+		long sMaxAge = _secondsOf(cacheControl.get("s-maxage"));
+		if (sMaxAge >= 0) return sMaxAge * 1000;
+		long maxAge = _secondsOf(cacheControl.get("max-age"));
+		if (maxAge >= 0) return maxAge * 1000;
+
+		Date date = _dateOf(endPointResponse,"Date");
+		long dateMilis = date != null ? date.getTime() : System.currentTimeMillis();
+		if (endPointResponse.containsHeader("Expires")) {
+			Date expires = _dateOf(endPointResponse,"Expires");
+			return expires != null ? Math.max(0,expires.getTime() - dateMilis)
+								   : 0;		// an invalid Expires date means already expired
+		}
+		Date lastModified = _dateOf(endPointResponse,"Last-Modified");
+		if (lastModified != null && !requestWithCredentials && config.getHeuristicFreshnessPercent() > 0) {
+			long heuristic = ((dateMilis - lastModified.getTime()) * config.getHeuristicFreshnessPercent()) / 100;
+			return Math.max(0,Math.min(heuristic,config.getMaxHeuristicFreshness()));
+		}
+		return 0;
+	}
+	/**
+	 * Returns the milis a stale response can be served while it's revalidated in the background
+	 * @param endPointResponse
+	 * @param config
+	 * @return
+	 */
+	static long staleWhileRevalidateOf(final HttpResponse endPointResponse,
+									   final HttpProxyServletCacheConfig config) {
+		Map<String,String> cacheControl = _cacheControlOf(endPointResponse.getHeaders("Cache-Control"));
+		if (cacheControl.containsKey("no-cache")
+		 || cacheControl.containsKey("must-revalidate")
+		 || cacheControl.containsKey("proxy-revalidate")) return 0;
+		long staleWhileRevalidate = _secondsOf(cacheControl.get("stale-while-revalidate"));
+		return staleWhileRevalidate >= 0 ? staleWhileRevalidate * 1000
+										 : config.getDefaultStaleWhileRevalidate();
+	}
+	/**
+	 * @param endPointResponse
+	 * @return the milis the response was already cached by an upstream cache (Age header)
+	 */
+	static long ageOf(final HttpResponse endPointResponse) {
+		Header age = endPointResponse.getFirstHeader("Age");
+		long ageSecs = age != null ? _secondsOf(age.getValue()) : -1;
+		return ageSecs > 0 ? ageSecs * 1000 : 0;
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	CONDITIONAL REQUESTS
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Checks if the client already has the cached response (If-None-Match or If-Modified-Since) so a 304 can be sent
+	 * @param originalRequest
+	 * @param entry
+	 * @return
+	 */
+	static boolean isNotModifiedFor(final HttpServletRequest originalRequest,
+									final HttpProxyServletCacheEntry entry) {
+		String ifNoneMatch = originalRequest.getHeader("If-None-Match");
+		if (ifNoneMatch != null) {
+			if (entry.getETag() == null) return false;
+			for (String eTag : ifNoneMatch.split(",")) {
+				eTag = eTag.trim();
+				if (eTag.equals("*") || _weakETag(eTag).equals(_weakETag(entry.getETag()))) return true;
+			}
+			return false;		// If-Modified-Since is ignored if If-None-Match is present
+		}
+		String ifModifiedSince = originalRequest.getHeader("If-Modified-Since");
+		if (ifModifiedSince != null && entry.getLastModified() != null) {
+			Date since = DateUtils.parseDate(ifModifiedSince);
+			Date lastModified = DateUtils.parseDate(entry.getLastModified());
+			return since != null && lastModified != null
+				&& !lastModified.after(since);
+		}
+		return false;
+	}
+	private static String _weakETag(final String eTag) {
+		// the weak comparison is used for GET requests
+		return eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	UTILS
+/////////////////////////////////////////////////////////////////////////////////////////
+	private static Map<String,String> _cacheControlOf(final Enumeration<String> headerValues) {
+		Map<String,String> outDirectives = Maps.newHashMap();
+		if (headerValues == null) return outDirectives;
+		while (headerValues.hasMoreElements()) _parseCacheControl(headerValues.nextElement(),outDirectives);
+		return outDirectives;
+	}
+	private static Map<String,String> _cacheControlOf(final Header[] headers) {
+		Map<String,String> outDirectives = Maps.newHashMap();
+		if (headers == null) return outDirectives;
+		for (Header header : headers) _parseCacheControl(header.getValue(),outDirectives);
+		return outDirectives;
+	}
+	private static void _parseCacheControl(final String headerValue,
+										   final Map<String,String> directives) {
+		if (headerValue == null) return;
+		for (String directive : headerValue.split(",")) {
+			directive = directive.trim();
+			if (directive.isEmpty()) continue;
+			int eq = directive.indexOf('=');
+			if (eq < 0) {
+				directives.put(directive.toLowerCase(),"");
+			} else {
+				String value = directive.substring(eq + 1).trim();
+				if (value.startsWith("\"") && value.endsWith("\"") && value.length() >= 2) value = value.substring(1,value.length() - 1);
+				directives.put(directive.substring(0,eq).trim().toLowerCase(),value);
+			}
+		}
+	}
+	private static long _secondsOf(final String value) {
+		if (value == null) return -1;
+		try {
+			return Long.parseLong(value.trim());
+		} catch (NumberFormatException nfEx) {
+			return -1;
+		}
+	}
+	private static Date _dateOf(final HttpResponse endPointResponse,
+								final String headerName) {
+		Header header = endPointResponse.getFirstHeader(headerName);
+		return header != null ? DateUtils.parseDate(header.getValue())
+							  : null;
+	}
+}
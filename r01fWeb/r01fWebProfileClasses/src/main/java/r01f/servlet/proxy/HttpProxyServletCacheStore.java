@@ -0,0 +1,243 @@
+package r01f.servlet.proxy;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import lombok.extern.slf4j.Slf4j;
+import r01f.servlet.proxy.HttpProxyServletCacheConfig.HttpProxyServletCacheEviction;
+
+/**
+ * The entries of the {@link HttpProxyServletCache} bounded by the bytes they hold in memory (see {@link HttpProxyServletCacheEntry#getWeight()})
+ * <ul>
+ * 		<li>LRU: the least recently used entries are evicted</li>
+ * 		<li>W-TinyLFU: new entries are stored at a small LRU window (1% of the bytes); the entries evicted from the window
+ * 			compete to be admitted at the main segmented LRU (probation + protected segments) with its LRU victim:
+ * 			the one that was accessed more frequently (see {@link HttpProxyServletCacheFrequencySketch}) stays
+ * 			so a burst of one-hit requests (ie: a crawler) does NOT flush the popular entries;
+ * 			an entry accessed again at the probation segment is promoted to the protected segment (80% of the main bytes)</li>
+ * </ul>
+ * The removal listener is called for the evicted and removed entries (NOT for the replaced ones: see {@link #put(HttpProxyServletCacheEntry)})
+ * The operations are guarded by a single lock: they only re-link map entries so the lock is held for a very short time
+ */
+@Slf4j
+final class HttpProxyServletCacheStore {
+/////////////////////////////////////////////////////////////////////////////////////////
+//	CONSTANTS
+/////////////////////////////////////////////////////////////////////////////////////////
+	private static final int WINDOW_PERCENT = 1;
+	private static final int PROTECTED_PERCENT = 80;
+	private static final long EXPECTED_ENTRY_WEIGHT = 4 * 1024;		// used to size the frequency sketch
+/////////////////////////////////////////////////////////////////////////////////////////
+//	FIELDS
+/////////////////////////////////////////////////////////////////////////////////////////
+	private final HttpProxyServletCacheEviction _eviction;
+	private final long _maxWeight;
+	private final long _maxWindowWeight;
+	private final long _maxProtectedWeight;
+	private final Consumer<HttpProxyServletCacheEntry> _removalListener;
+
+	// access-ordered maps: the first entry is the least recently used one
+	// (LRU eviction only uses the window)
+	private final LinkedHashMap<String,HttpProxyServletCacheEntry> _window = new LinkedHashMap<>(16,0.75f,true);
+	private final LinkedHashMap<String,HttpProxyServletCacheEntry> _probation = new LinkedHashMap<>(16,0.75f,true);
+	private final LinkedHashMap<String,HttpProxyServletCacheEntry> _protected = new LinkedHashMap<>(16,0.75f,true);
+	private long _windowWeight;
+	private long _probationWeight;
+	private long _protectedWeight;
+
+	private final HttpProxyServletCacheFrequencySketch _sketch;		// null if LRU
+/////////////////////////////////////////////////////////////////////////////////////////
+//	CONSTRUCTOR
+/////////////////////////////////////////////////////////////////////////////////////////
+	HttpProxyServletCacheStore(final HttpProxyServletCacheEviction eviction,
+							   final long maxWeight,
+							   final Consumer<HttpProxyServletCacheEntry> removalListener) {
+		_eviction = eviction;
+		_maxWeight = maxWeight;
+		_removalListener = removalListener;
+		if (eviction == HttpProxyServletCacheEviction.W_TINY_LFU) {
+			_maxWindowWeight = Math.max(1,(maxWeight * WINDOW_PERCENT) / 100);
+			_maxProtectedWeight = ((maxWeight - _maxWindowWeight) * PROTECTED_PERCENT) / 100;
+			_sketch = new HttpProxyServletCacheFrequencySketch(maxWeight / EXPECTED_ENTRY_WEIGHT);
+		} else {
+			_maxWindowWeight = maxWeight;
+			_maxProtectedWeight = 0;
+			_sketch = null;
+		}
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	GET
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Returns an entry: it's an access so the key frequency is incremented (even if it's a miss: the entry
+	 * stored afterwards is NOT counted again, see {@link #put(HttpProxyServletCacheEntry)})
+	 * @param key
+	 * @return the entry or null if it's NOT stored
+	 */
+	synchronized HttpProxyServletCacheEntry get(final String key) {
+		if (_sketch != null) _sketch.increment(key);
+
+		HttpProxyServletCacheEntry outEntry = _window.get(key);		// moved to the MRU position
+		if (outEntry != null || _sketch == null) return outEntry;
+
+		outEntry = _protected.get(key);
+		if (outEntry != null) return outEntry;
+
+		// an entry accessed again at the probation segment is promoted to the protected segment
+		outEntry = _probation.remove(key);
+		if (outEntry != null) {
+			_probationWeight -= outEntry.getWeight();
+			_protected.put(key,outEntry);
+			_protectedWeight += outEntry.getWeight();
+			// the protected segment overflows: its LRU entries are demoted to the probation segment
+			while (_protectedWeight > _maxProtectedWeight && _protected.size() > 1) {
+				HttpProxyServletCacheEntry demoted = _removeEldest(_protected);
+				_protectedWeight -= demoted.getWeight();
+				_probation.put(demoted.getKey(),demoted);
+				_probationWeight += demoted.getWeight();
+			}
+		}
+		return outEntry;
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	PUT & REMOVE
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Stores an entry evicting other entries if needed
+	 * (the key frequency is NOT incremented: it's only incremented on access, see {@link #get(String)})
+	 * @param entry
+	 * @return the replaced entry (if any): the removal listener is NOT called for it since the caller knows if it shares the body
+	 */
+	synchronized HttpProxyServletCacheEntry put(final HttpProxyServletCacheEntry entry) {
+		HttpProxyServletCacheEntry outReplaced = _remove(entry.getKey());
+		if (entry.getWeight() > _maxWeight
+		 || (_sketch != null && entry.getWeight() > _maxWeight - _maxWindowWeight)) {
+			// too big to be ever admitted
+			_removalListener.accept(entry);
+			return outReplaced;
+		}
+		// the new entries always enter at the window
+		_window.put(entry.getKey(),entry);
+		_windowWeight += entry.getWeight();
+
+		if (_sketch != null) {
+			// the entries evicted from the window are candidates to be admitted at the main segments
+			while (_windowWeight > _maxWindowWeight && !_window.isEmpty()) {
+				HttpProxyServletCacheEntry candidate = _removeEldest(_window);
+				_windowWeight -= candidate.getWeight();
+				_admit(candidate);
+			}
+		}
+		// evict until the weight is within the bounds
+		while (this.getWeight() > _maxWeight) {
+			HttpProxyServletCacheEntry victim = _evictEldest();
+			if (victim == null) break;
+			_removalListener.accept(victim);
+		}
+		return outReplaced;
+	}
+	/**
+	 * Removes an entry: the removal listener is called
+	 * @param key
+	 */
+	synchronized void remove(final String key) {
+		HttpProxyServletCacheEntry removed = _remove(key);
+		if (removed != null) _removalListener.accept(removed);
+	}
+	/**
+	 * Removes all the entries: the removal listener is called for every entry
+	 */
+	synchronized void clear() {
+		_clear(_window);
+		_clear(_probation);
+		_clear(_protected);
+		_windowWeight = 0;
+		_probationWeight = 0;
+		_protectedWeight = 0;
+	}
+	synchronized long getWeight() {
+		return _windowWeight + _probationWeight + _protectedWeight;
+	}
+	synchronized int size() {
+		return _window.size() + _probation.size() + _protected.size();
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	W-TinyLFU ADMISSION
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Admits an entry evicted from the window at the probation segment if there's room for it
+	 * or if it's accessed more frequently than the probation LRU entry (the victim)
+	 * @param candidate
+	 */
+	private void _admit(final HttpProxyServletCacheEntry candidate) {
+		long maxMainWeight = _maxWeight - _maxWindowWeight;
+		boolean admit = _probationWeight + _protectedWeight + candidate.getWeight() <= maxMainWeight;
+		if (!admit) {
+			HttpProxyServletCacheEntry victim = _eldestOf(!_probation.isEmpty() ? _probation : _protected);
+			admit = victim == null
+				 || _sketch.frequencyOf(candidate.getKey()) > _sketch.frequencyOf(victim.getKey());
+		}
+		if (admit) {
+			// the victims are evicted afterwards (see put)
+			_probation.put(candidate.getKey(),candidate);
+			_probationWeight += candidate.getWeight();
+		} else {
+			log.trace("[proxy cache] > {} NOT admitted: it's accessed less frequently than the eviction victim",candidate.getKey());
+			_removalListener.accept(candidate);
+		}
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	UTILS
+/////////////////////////////////////////////////////////////////////////////////////////
+	private HttpProxyServletCacheEntry _remove(final String key) {
+		HttpProxyServletCacheEntry outRemoved = _window.remove(key);
+		if (outRemoved != null) {
+			_windowWeight -= outRemoved.getWeight();
+			return outRemoved;
+		}
+		outRemoved = _probation.remove(key);
+		if (outRemoved != null) {
+			_probationWeight -= outRemoved.getWeight();
+			return outRemoved;
+		}
+		outRemoved = _protected.remove(key);
+		if (outRemoved != null) _protectedWeight -= outRemoved.getWeight();
+		return outRemoved;
+	}
+	/**
+	 * Evicts the least recently used entry of the probation segment, the protected segment or the window (in this order)
+	 * @return the evicted entry or null if the store is empty
+	 */
+	private HttpProxyServletCacheEntry _evictEldest() {
+		HttpProxyServletCacheEntry outEvicted = _removeEldest(_probation);
+		if (outEvicted != null) {
+			_probationWeight -= outEvicted.getWeight();
+			return outEvicted;
+		}
+		outEvicted = _removeEldest(_protected);
+		if (outEvicted != null) {
+			_protectedWeight -= outEvicted.getWeight();
+			return outEvicted;
+		}
+		outEvicted = _removeEldest(_window);
+		if (outEvicted != null) _windowWeight -= outEvicted.getWeight();
+		return outEvicted;
+	}
+	private void _clear(final Map<String,HttpProxyServletCacheEntry> segment) {
+		for (HttpProxyServletCacheEntry entry : segment.values()) _removalListener.accept(entry);
+		segment.clear();
+	}
+	private static HttpProxyServletCacheEntry _eldestOf(final LinkedHashMap<String,HttpProxyServletCacheEntry> segment) {
+		return segment.isEmpty() ? null
+								 : segment.values().iterator().next();
+	}
+	private static HttpProxyServletCacheEntry _removeEldest(final LinkedHashMap<String,HttpProxyServletCacheEntry> segment) {
+		Iterator<HttpProxyServletCacheEntry> it = segment.values().iterator();
+		if (!it.hasNext()) return null;
+		HttpProxyServletCacheEntry outEldest = it.next();
+		it.remove();
+		return outEldest;
+	}
+}
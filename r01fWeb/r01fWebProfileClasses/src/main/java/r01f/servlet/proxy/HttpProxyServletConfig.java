@@ -1,9 +1,18 @@
 package r01f.servlet.proxy;
 
+import java.io.IOException;
 import java.util.Collection;
+import java.util.concurrent.TimeUnit;
 
 import javax.servlet.ServletConfig;
 
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+
 import com.google.common.base.Function;
 import com.google.common.base.Joiner;
 import com.google.common.base.Splitter;
@@ -16,8 +25,11 @@ import lombok.experimental.Accessors;
 import lombok.extern.slf4j.Slf4j;
 import r01f.config.ContainsConfigData;
 import r01f.debug.Debuggable;
+import r01f.filestore.api.local.LocalFileStoreAPI;
 import r01f.patterns.Memoized;
 import r01f.patterns.Supplier;
+import r01f.servlet.proxy.HttpProxyServletCacheConfig.HttpProxyServletCacheEviction;
+import r01f.types.Path;
 import r01f.types.url.Host;
 import r01f.types.url.Url;
 import r01f.types.url.UrlPath;
@@ -40,6 +52,17 @@ public class HttpProxyServletConfig
 	public static final String INIT_PARAM_NAME_FOR_PATH_TRIM = "PathTrim";
 	public static final String INIT_PARAM_NAME_FOR_PATH_PREPEND = "PathPrepend";
 	public static final String INIT_PARAM_NAME_FOR_MAX_FILE_UPLOAD_SIZE = "maxFileUploadSize";
+	public static final String INIT_PARAM_NAME_FOR_MAX_CONNECTIONS = "maxConnections";
+	public static final String INIT_PARAM_NAME_FOR_MAX_CONNECTIONS_PER_ROUTE = "maxConnectionsPerRoute";
+	public static final String INIT_PARAM_NAME_FOR_CONNECT_TIMEOUT = "connectTimeOut";
+	public static final String INIT_PARAM_NAME_FOR_SOCKET_TIMEOUT = "socketTimeOut";
+	public static final String INIT_PARAM_NAME_FOR_UNGZIP_RESPONSES = "ungzipResponses";
+	public static final String INIT_PARAM_NAME_FOR_ASYNC = "async";
+	public static final String INIT_PARAM_NAME_FOR_PARSE_MULTIPART_REQUESTS = "parseMultipartRequests";
+	public static final String INIT_PARAM_NAME_FOR_CACHE_MAX_MEGABYTES = "cacheMaxMegaBytes";
+	public static final String INIT_PARAM_NAME_FOR_CACHE_EVICTION = "cacheEviction";
+	public static final String INIT_PARAM_NAME_FOR_CACHE_SPILL_FOLDER = "cacheSpillFolder";
+	public static final String INIT_PARAM_NAME_FOR_CACHE_MAX_SPILLED_MEGABYTES = "cacheMaxSpilledMegaBytes";
 
 	public static final int DEF_MAX_UPLOAD_FILE_SIZE =  5 * 1024 * 1024;
 /////////////////////////////////////////////////////////////////////////////////////////
@@ -71,6 +94,35 @@ public class HttpProxyServletConfig
 	 * If the endopoint returns a redir, must this redir be followed?
 	 */
 	@Getter private final boolean _followRedirects;
+	/**
+	 * The config of the (pooled) http client used to send the requests to the endpoints
+	 */
+	@Getter private final HttpProxyServletUpstreamConfig _upstreamConfig;
+	/**
+	 * The (pooled) http client used to send the requests to the endpoints: it's lazily created
+	 * and shared by all the requests proxied with this config
+	 */
+			private volatile CloseableHttpClient _upstreamHttpClient;
+	/**
+	 * The (pooled) non-blocking http client used to send the requests to the endpoints in async mode
+	 */
+			private volatile CloseableHttpAsyncClient _upstreamHttpAsyncClient;
+	/**
+	 * Set when the upstream http clients are closed: they're NOT created again (a late request would leak a new client)
+	 */
+			private volatile boolean _upstreamHttpClientClosed;
+	/**
+	 * The config of the response cache (null if the responses are NOT cached)
+	 */
+	@Getter private final HttpProxyServletCacheConfig _cacheConfig;
+	/**
+	 * The response cache: it's lazily created and shared by all the requests proxied with this config
+	 */
+			private volatile HttpProxyServletCache _responseCache;
+	/**
+	 * Set when the response cache is closed: it's NOT created again (a late request would leak a new cache and its spilled bodies)
+	 */
+			private volatile boolean _responseCacheClosed;
 /////////////////////////////////////////////////////////////////////////////////////////
 //	CONSTRUCTOR
 /////////////////////////////////////////////////////////////////////////////////////////
@@ -128,12 +180,41 @@ public class HttpProxyServletConfig
 								  final UrlPath pathTrim,final UrlPath pathPrepend,
 								  final int maxFileUploadSize,
 								  final boolean followRedirects) {
+		this(endPoints,
+			 pathTrim,pathPrepend,
+			 maxFileUploadSize,
+			 followRedirects,
+			 HttpProxyServletUpstreamConfig.create());		// default pool & timeouts
+	}
+	public HttpProxyServletConfig(// proxy params
+								  final Collection<Url> endPoints,
+								  final UrlPath pathTrim,final UrlPath pathPrepend,
+								  final int maxFileUploadSize,
+								  final boolean followRedirects,
+								  final HttpProxyServletUpstreamConfig upstreamConfig) {
+		this(endPoints,
+			 pathTrim,pathPrepend,
+			 maxFileUploadSize,
+			 followRedirects,
+			 upstreamConfig,
+			 null);		// responses NOT cached
+	}
+	public HttpProxyServletConfig(// proxy params
+								  final Collection<Url> endPoints,
+								  final UrlPath pathTrim,final UrlPath pathPrepend,
+								  final int maxFileUploadSize,
+								  final boolean followRedirects,
+								  final HttpProxyServletUpstreamConfig upstreamConfig,
+								  final HttpProxyServletCacheConfig cacheConfig) {
 		// proxy params
 		_endPoints = endPoints;
 		_pathTrim = pathTrim;
 		_pathPrepend = pathPrepend;
 		_maxFileUploadSize = maxFileUploadSize;
 		_followRedirects = followRedirects;
+		_upstreamConfig = upstreamConfig != null ? upstreamConfig
+												 : HttpProxyServletUpstreamConfig.create();
+		_cacheConfig = cacheConfig;
 	}
 	public HttpProxyServletConfig(final ServletConfig servletConfig) {
 		String proxyHostsFromWebXML = servletConfig.getInitParameter(INIT_PARAM_NAME_FOR_TARGET_APP_SERVER_HOSTS);
@@ -188,6 +269,54 @@ public class HttpProxyServletConfig
 
 		// follow redirects
 		_followRedirects = true;
+
+		// upstream connection pool & timeouts
+		HttpProxyServletUpstreamConfig upstreamConfig = HttpProxyServletUpstreamConfig.create();
+		Integer maxConnections = _intInitParam(servletConfig,INIT_PARAM_NAME_FOR_MAX_CONNECTIONS);
+		if (maxConnections != null) upstreamConfig.maxConnections(maxConnections);
+		Integer maxConnectionsPerRoute = _intInitParam(servletConfig,INIT_PARAM_NAME_FOR_MAX_CONNECTIONS_PER_ROUTE);
+		if (maxConnectionsPerRoute != null) upstreamConfig.maxConnectionsPerRoute(maxConnectionsPerRoute);
+		Integer connectTimeOut = _intInitParam(servletConfig,INIT_PARAM_NAME_FOR_CONNECT_TIMEOUT);
+		if (connectTimeOut != null) upstreamConfig.connectTimeOut(connectTimeOut);
+		Integer socketTimeOut = _intInitParam(servletConfig,INIT_PARAM_NAME_FOR_SOCKET_TIMEOUT);
+		if (socketTimeOut != null) upstreamConfig.socketTimeOut(socketTimeOut);
+		if (Boolean.parseBoolean(servletConfig.getInitParameter(INIT_PARAM_NAME_FOR_UNGZIP_RESPONSES))) upstreamConfig.ungzipResponses();
+		if (Boolean.parseBoolean(servletConfig.getInitParameter(INIT_PARAM_NAME_FOR_ASYNC))) upstreamConfig.async();
+		if (Boolean.parseBoolean(servletConfig.getInitParameter(INIT_PARAM_NAME_FOR_PARSE_MULTIPART_REQUESTS))) upstreamConfig.parseMultipartRequests();
+		_upstreamConfig = upstreamConfig;
+
+		// response cache (only if the max size is set)
+		Integer cacheMaxMegaBytes = _intInitParam(servletConfig,INIT_PARAM_NAME_FOR_CACHE_MAX_MEGABYTES);
+		if (cacheMaxMegaBytes != null && cacheMaxMegaBytes > 0) {
+			HttpProxyServletCacheConfig cacheConfig = HttpProxyServletCacheConfig.create()
+																				 .maxBytes(cacheMaxMegaBytes * 1024L * 1024L);
+			String cacheEviction = servletConfig.getInitParameter(INIT_PARAM_NAME_FOR_CACHE_EVICTION);
+			if (Strings.isNOTNullOrEmpty(cacheEviction)) {
+				try {
+					cacheConfig.evictBy(HttpProxyServletCacheEviction.valueOf(cacheEviction.trim().toUpperCase()));
+				} catch (IllegalArgumentException illArgEx) {
+					log.error("Error in {} web.xml param: {}={} is NOT a valid eviction ({})",
+							  HttpProxyServletDelegate.class,INIT_PARAM_NAME_FOR_CACHE_EVICTION,cacheEviction,
+							  HttpProxyServletCacheEviction.values());
+				}
+			}
+			String cacheSpillFolder = servletConfig.getInitParameter(INIT_PARAM_NAME_FOR_CACHE_SPILL_FOLDER);
+			if (Strings.isNOTNullOrEmpty(cacheSpillFolder)) {
+				Integer cacheMaxSpilledMegaBytes = _intInitParam(servletConfig,INIT_PARAM_NAME_FOR_CACHE_MAX_SPILLED_MEGABYTES);
+				try {
+					cacheConfig.spillToDisk(new LocalFileStoreAPI(),Path.from(cacheSpillFolder),
+											HttpProxyServletCacheConfig.DEF_SPILL_THRESHOLD_BYTES,
+											(cacheMaxSpilledMegaBytes != null && cacheMaxSpilledMegaBytes > 0 ? cacheMaxSpilledMegaBytes : 1024) * 1024L * 1024L);
+				} catch (IOException ioEx) {
+					log.error("[proxy servlet] > could NOT create the file store api to spill the cached bodies to {}: {}",
+							  cacheSpillFolder,ioEx.getMessage(),ioEx);
+				}
+			}
+			_cacheConfig = cacheConfig;
+		} else {
+			_cacheConfig = null;
+		}
+
 		log.warn("{} intance initialized proxying to {}",
 				 HttpProxyServletDelegate.class.getSimpleName(),this.endPointsAsString());
 	}
@@ -211,13 +340,182 @@ public class HttpProxyServletConfig
 									? this.getMaxFileUploadSize()
 									: other.getMaxFileUploadSize();
 		boolean followRedirects = this.isFollowRedirects() | other.isFollowRedirects();
+		HttpProxyServletUpstreamConfig upstreamConfig = this.getUpstreamConfig().mixedWith(other.getUpstreamConfig());
+		HttpProxyServletCacheConfig cacheConfig = this.getCacheConfig() != null ? this.getCacheConfig()
+																				: other.getCacheConfig();
 
 		HttpProxyServletConfig out = new HttpProxyServletConfig(endPoints,
 										  						pathTrim,pathPrepend,
 										  						maxFileUploadSize,
-										  						followRedirects);
+										  						followRedirects,
+										  						upstreamConfig,
+										  						cacheConfig);
 		return out;
 	}
+	private static Integer _intInitParam(final ServletConfig servletConfig,
+										 final String paramName) {
+		String paramValue = servletConfig.getInitParameter(paramName);
+		if (Strings.isNullOrEmpty(paramValue)) return null;
+		if (!Numbers.isInteger(paramValue)) {
+			log.error("Error in {} web.xml param: {}={} is NOT a valid number",
+					  HttpProxyServletDelegate.class,paramName,paramValue);
+			return null;
+		}
+		return Integer.parseInt(paramValue);
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	UPSTREAM HTTP CLIENT
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Returns the pooled http client used to send the requests to the endpoints
+	 * The client is created the first time it's used and it's shared by all the requests proxied with this config
+	 * so the connections to the endpoints are re-used
+	 * <ul>
+	 * 		<li>redirects are NOT followed by the client (they're handled by the proxy)</li>
+	 * 		<li>cookies are NOT managed by the client (they're transferred from the original request)</li>
+	 * 		<li>content compression is disabled so gzipped bodies are NOT transparently decompressed
+	 * 			(see {@link HttpProxyServletUpstreamConfig#isUngzipResponses()})</li>
+	 * </ul>
+	 * BEWARE! the client must be closed when no longer used (see {@link #closeUpstreamHttpClient()})
+	 * @return
+	 * @throws IllegalStateException if the client was closed
+	 */
+	public CloseableHttpClient getUpstreamHttpClient() {
+		CloseableHttpClient outClient = _upstreamHttpClient;
+		if (outClient == null) {
+			synchronized(this) {
+				outClient = _upstreamHttpClient;
+				if (outClient == null) {
+					if (_upstreamHttpClientClosed) throw new IllegalStateException("The upstream http client was closed!");
+					outClient = _createUpstreamHttpClient(_upstreamConfig);
+					_upstreamHttpClient = outClient;
+				}
+			}
+		}
+		return outClient;
+	}
+	/**
+	 * Returns the pooled non-blocking http client used to send the requests to the endpoints in async mode
+	 * (see {@link HttpProxyServletAsyncExchange})
+	 * The client is created (and started) the first time it's used and it's shared by all the requests proxied with this config
+	 * BEWARE! the client must be closed when no longer used (see {@link #closeUpstreamHttpClient()})
+	 * @return
+	 * @throws IllegalStateException if the client was closed
+	 */
+	public CloseableHttpAsyncClient getUpstreamHttpAsyncClient() {
+		CloseableHttpAsyncClient outClient = _upstreamHttpAsyncClient;
+		if (outClient == null) {
+			synchronized(this) {
+				outClient = _upstreamHttpAsyncClient;
+				if (outClient == null) {
+					if (_upstreamHttpClientClosed) throw new IllegalStateException("The upstream non-blocking http client was closed!");
+					outClient = _createUpstreamHttpAsyncClient(_upstreamConfig);
+					outClient.start();
+					_upstreamHttpAsyncClient = outClient;
+				}
+			}
+		}
+		return outClient;
+	}
+	/**
+	 * Closes the pooled http clients used to send the requests to the endpoints (if they were created)
+	 * Once closed, the clients are NOT created again
+	 */
+	public synchronized void closeUpstreamHttpClient() {
+		_upstreamHttpClientClosed = true;
+		if (_upstreamHttpClient != null) {
+			try {
+				_upstreamHttpClient.close();
+			} catch (IOException ioEx) {
+				log.warn("[proxy servlet] > error closing the upstream http client: {}",ioEx.getMessage());
+			} finally {
+				_upstreamHttpClient = null;
+			}
+		}
+		if (_upstreamHttpAsyncClient != null) {
+			try {
+				_upstreamHttpAsyncClient.close();
+			} catch (IOException ioEx) {
+				log.warn("[proxy servlet] > error closing the upstream non-blocking http client: {}",ioEx.getMessage());
+			} finally {
+				_upstreamHttpAsyncClient = null;
+			}
+		}
+	}
+	private static CloseableHttpClient _createUpstreamHttpClient(final HttpProxyServletUpstreamConfig upstreamConfig) {
+		log.info("[proxy servlet] > creating the upstream http client: {}",upstreamConfig.debugInfo());
+		PoolingHttpClientConnectionManager connManager = new PoolingHttpClientConnectionManager();
+		connManager.setMaxTotal(upstreamConfig.getMaxConnections());
+		connManager.setDefaultMaxPerRoute(upstreamConfig.getMaxConnectionsPerRoute());
+
+		return HttpClientBuilder.create()
+								.setConnectionManager(connManager)
+								.setDefaultRequestConfig(_upstreamRequestConfig(upstreamConfig))
+								.disableRedirectHandling()
+								.disableCookieManagement()
+								.disableContentCompression()
+								.evictExpiredConnections()
+								.evictIdleConnections(upstreamConfig.getMaxIdleTime(),TimeUnit.MILLISECONDS)
+								.build();
+	}
+	private static CloseableHttpAsyncClient _createUpstreamHttpAsyncClient(final HttpProxyServletUpstreamConfig upstreamConfig) {
+		log.info("[proxy servlet] > creating the upstream non-blocking http client: {}",upstreamConfig.debugInfo());
+		// the non-blocking client does NOT decompress the content nor follows redirects (they're disabled at the request config)
+		return HttpAsyncClients.custom()
+							   .setMaxConnTotal(upstreamConfig.getMaxConnections())
+							   .setMaxConnPerRoute(upstreamConfig.getMaxConnectionsPerRoute())
+							   .setDefaultRequestConfig(_upstreamRequestConfig(upstreamConfig))
+							   .disableCookieManagement()
+							   .build();
+	}
+	private static RequestConfig _upstreamRequestConfig(final HttpProxyServletUpstreamConfig upstreamConfig) {
+		return RequestConfig.custom()
+							.setConnectTimeout(upstreamConfig.getConnectTimeOut())
+							.setConnectionRequestTimeout(upstreamConfig.getConnectionRequestTimeOut())
+							.setSocketTimeout(upstreamConfig.getSocketTimeOut())
+							.setRedirectsEnabled(false)
+							.build();
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	RESPONSE CACHE
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Returns the response cache (see {@link HttpProxyServletCache})
+	 * The cache is created the first time it's used and it's shared by all the requests proxied with this config
+	 * BEWARE! the cache must be closed when no longer used (see {@link #closeResponseCache()})
+	 * @return the cache or null if the responses are NOT cached (or the cache was closed)
+	 */
+	public HttpProxyServletCache getResponseCache() {
+		if (_cacheConfig == null || _responseCacheClosed) return null;
+		HttpProxyServletCache outCache = _responseCache;
+		if (outCache == null) {
+			synchronized(this) {
+				if (_responseCacheClosed) return null;
+				outCache = _responseCache;
+				if (outCache == null) {
+					outCache = new HttpProxyServletCache(_cacheConfig);
+					_responseCache = outCache;
+				}
+			}
+		}
+		return outCache;
+	}
+	/**
+	 * Closes the response cache (if it was created): the spilled bodies are deleted
+	 * (once closed, the cache is NOT created again: the responses are NOT cached)
+	 */
+	public synchronized void closeResponseCache() {
+		_responseCacheClosed = true;
+		if (_responseCache == null) return;
+		try {
+			log.info("[proxy servlet] > closing the response cache: {}",_responseCache.debugInfo());
+			_responseCache.close();
+		} catch (IOException ioEx) {
+			log.warn("[proxy servlet] > error closing the response cache: {}",ioEx.getMessage());
+		} finally {
+			_responseCache = null;
+		}
+	}
 /////////////////////////////////////////////////////////////////////////////////////////
 //	URL PATH REWRITE
 /////////////////////////////////////////////////////////////////////////////////////////
@@ -241,11 +539,13 @@ public class HttpProxyServletConfig
 /////////////////////////////////////////////////////////////////////////////////////////
 	@Override
 	public CharSequence debugInfo() {
-		return Strings.customized("end-points={} max upload file size={} pathTrim={} follow redirects={}",
+		return Strings.customized("end-points={} max upload file size={} pathTrim={} follow redirects={} upstream: {} cache: {}",
 								  this.endPointsAsString(),
 								  _maxFileUploadSize,
 								  _pathTrim,
-								  _followRedirects);
+								  _followRedirects,
+								  _upstreamConfig.debugInfo(),
+								  _cacheConfig != null ? _cacheConfig.debugInfo() : "NO");
 	}
 	public String endPointsAsString() {
 		return CollectionUtils.hasData(_endPoints) ? FluentIterable.from(_endPoints)
@@ -1,18 +1,20 @@
 package r01f.servlet.proxy;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
 import java.security.SecureRandom;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.zip.GZIPInputStream;
 
 import javax.servlet.ServletException;
@@ -33,26 +35,37 @@ import org.apache.http.NameValuePair;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
 import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpPut;
 import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.entity.ContentType;
-import org.apache.http.entity.StringEntity;
+import org.apache.http.entity.InputStreamEntity;
 import org.apache.http.entity.mime.MultipartEntityBuilder;
 import org.apache.http.entity.mime.content.ContentBody;
 import org.apache.http.entity.mime.content.InputStreamBody;
 import org.apache.http.entity.mime.content.StringBody;
-import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.message.BasicHeader;
 import org.apache.http.message.BasicNameValuePair;
+import org.apache.http.util.EntityUtils;
 
 import com.google.common.base.Splitter;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
+import com.google.common.io.ByteStreams;
 
 import lombok.Cleanup;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
 import lombok.experimental.Accessors;
 import lombok.extern.slf4j.Slf4j;
-import r01f.io.util.StringPersistenceUtils;
+import r01f.http.loadbalance.LoadBalancedBackendServerStats;
+import r01f.http.loadbalance.LoadBalancerIDs.LoadBalancedServiceID;
+import r01f.http.loadbalance.LoadBalancerManager;
+import r01f.http.loadbalance.LoadBalancerRetryBudget;
+import r01f.http.loadbalance.balancer.LoadBalancerContext;
+import r01f.httpclient.loadbalanced.LoadBalancedHttpClientUtil;
+import r01f.io.ByteReplacingInputStream;
 import r01f.types.url.Host;
 import r01f.types.url.Url;
 import r01f.types.url.UrlPath;
@@ -78,6 +91,8 @@ public class HttpProxyServletDelegate {
 
 	private static final String LOCATION_HEADER = "Location";					// Key for redirect location header.
 	private static final String CONTENT_LENGTH_HEADER_NAME = "Content-Length";	// Key for content length header.
+	private static final String CONTENT_ENCODING_HEADER_NAME = "Content-Encoding";	// Key for content encoding header.
+	private static final String TRANSFER_ENCODING_HEADER_NAME = "Transfer-Encoding";	// Key for transfer encoding header.
 	private static final String HOST_HEADER_NAME = "Host";						// Key for host header
 
 	public static final String GWT_COMPILEDCODE_PROXIEDWAR_RELPATH_HEADER = "X-gwtCodeRelPath";	// Key for proxy servlet informationKey for proxy servlet information
@@ -90,6 +105,12 @@ public class HttpProxyServletDelegate {
 /////////////////////////////////////////////////////////////////////////////////////////
 	private final HttpProxyServletConfig _config;
 	private final HttpProxyServletUrlPathRewriter _urlPathRewriter;
+	/**
+	 * If a load balancer is set, the [endpoints] are chosen by the load balancer among the servers of the service
+	 * (instead of randomly among the config endpoints) and the proxied requests latency & errors are recorded at the server stats
+	 */
+	private final LoadBalancerManager _loadBalancer;
+	private final LoadBalancedServiceID _loadBalancedServiceId;
 /////////////////////////////////////////////////////////////////////////////////////////
 //	CONSTRUCTOR
 /////////////////////////////////////////////////////////////////////////////////////////
@@ -99,7 +120,17 @@ public class HttpProxyServletDelegate {
 	}
 	public HttpProxyServletDelegate(final HttpProxyServletConfig config,
 									final HttpProxyServletUrlPathRewriter urlPathRewriter) {
+		this(config,
+			 urlPathRewriter,
+			 null,null);	// no load balancer
+	}
+	public HttpProxyServletDelegate(final HttpProxyServletConfig config,
+									final HttpProxyServletUrlPathRewriter urlPathRewriter,
+									final LoadBalancerManager loadBalancer,final LoadBalancedServiceID loadBalancedServiceId) {
+		if (loadBalancer != null && loadBalancedServiceId == null) throw new IllegalArgumentException("The load balanced service id is mandatory when using a load balancer!");
 		_config = config;
+		_loadBalancer = loadBalancer;
+		_loadBalancedServiceId = loadBalancedServiceId;
 		_urlPathRewriter = config.getUrlPathRewriter() != null
 						&& urlPathRewriter != null
 									? // combine config-based url path rewriter with the given one
@@ -123,6 +154,8 @@ public class HttpProxyServletDelegate {
 /////////////////////////////////////////////////////////////////////////////////////////
 	/**
 	 * Performs an HTTP GET request
+	 * (if the load balanced endpoint does NOT respond, the GET is failed over once to another server of the service:
+	 * see {@link #_chooseFailOverEndPoint(HttpServletRequest, HttpProxyEndPoint)})
 	 * @param originalRequest The {@link HttpServletRequest} object passed
 	 *						  in by the servlet engine representing the
 	 *						  client request to be proxied
@@ -132,38 +165,285 @@ public class HttpProxyServletDelegate {
 	public void proxyGET(final HttpServletRequest originalRequest,
 					  	 final HttpServletResponse responseToClient) throws IOException,
 					  													 	ServletException {
+		// Serve the request through the response cache (if enabled)
+		HttpProxyServletCache cache = _config.getResponseCache();
+		if (cache != null
+		 && HttpProxyServletCache.isCacheable(originalRequest)
+		 && _proxyGETUsingCache(cache,
+				 				originalRequest,responseToClient)) return;
+
 		// [0] Get the endpoint url
 		HttpProxyEndPoint endPoint = _chooseEndPoint(originalRequest);
+		if (endPoint == null) {
+			_sendNoEndPointAvailable(originalRequest,responseToClient);
+			return;
+		}
 
-		// [1] Create a GET request
-		//	   beware that R01F Url object when serialized to string does NOT include the final '/' char if present
-		UrlPath urlPath = _getTargetUrlPath(originalRequest,
-											_urlPathRewriter);
-		UrlQueryString urlQueryString  = UrlQueryString.fromParamsString(originalRequest.getQueryString());
-		Url destinationUrl = Url.from(urlPath,urlQueryString);
+		// [1] Create a GET request & transfer the original request headers/cookies to the proxied request
+		//	   and get the [endpoint] response (failing over to another endpoint if there's NO response)
+		HttpProxyFetchedGET fetched = _fetchGETWithFailOver(originalRequest,
+															endPoint,
+															theEndPoint -> _createGETRequestToBeProxied(originalRequest,
+																										theEndPoint));
+
+		// [2] Send the [endpoint] response to the client
+		_sendEndPointResponse(originalRequest,responseToClient,
+							  fetched.getEndPoint(),
+							  _config.isFollowRedirects(),
+							  fetched.getRequestToBeProxied(),
+							  fetched.getEndPointResponse());
+	}
+	/**
+	 * Performs an HTTP GET request WITHOUT blocking the container thread while the endpoint response is received
+	 * (see {@link HttpProxyServletAsyncExchange})
+	 * As in {@link #proxyGET(HttpServletRequest, HttpServletResponse)}, if the load balanced endpoint does NOT respond
+	 * the GET is failed over once to another server of the service
+	 * BEWARE! the request MUST support async processing (see {@link HttpServletRequest#isAsyncSupported()})
+	 * @param originalRequest The {@link HttpServletRequest} object passed
+	 *						  in by the servlet engine representing the
+	 *						  client request to be proxied
+	 * @param responseToClient The {@link HttpServletResponse} object by which
+	 *						   we can send a proxied response to the client
+	 */
+	public void proxyGETAsync(final HttpServletRequest originalRequest,
+					  	 	  final HttpServletResponse responseToClient) throws IOException {
+		// [0] Get the endpoint url
+		HttpProxyEndPoint endPoint = _chooseEndPoint(originalRequest);
+		if (endPoint == null) {
+			_sendNoEndPointAvailable(originalRequest,responseToClient);
+			return;
+		}
+
+		// [1] Create a GET request & transfer the original request headers/cookies to the proxied request
+		HttpGet getRequestToBeProxied = _createGETRequestToBeProxied(originalRequest,
+																	 endPoint);
 
-		String theDestinationUrlStr = originalRequest.getRequestURL().toString().endsWith("/")
-											? destinationUrl.asString() + "/"
-											: destinationUrl.asString();
+		// [2] Start the non-blocking exchange
+		HttpProxyServletAsyncExchange.start(this,
+											_config.getUpstreamHttpAsyncClient(),
+											originalRequest,responseToClient,
+											endPoint,
+											_config.isFollowRedirects(),
+											getRequestToBeProxied,
+											theEndPoint -> _createGETRequestToBeProxied(originalRequest,	// the GET to the fail over endpoint
+																						theEndPoint));
+	}
+	private HttpGet _createGETRequestToBeProxied(final HttpServletRequest originalRequest,
+												 final HttpProxyEndPoint endPoint) {
+		String theDestinationUrlStr = _getDestinationUrl(originalRequest,
+														 _urlPathRewriter);
 		log.warn("PROXY GET: requested url={} to url={}{}",
 				 originalRequest.getRequestURL(),
 				 endPoint.getUrl(),theDestinationUrlStr);
 
 		HttpGet getRequestToBeProxied = new HttpGet(theDestinationUrlStr);
 
-		// [2] Transfer the original request headers/cookies to the proxied request
+		// Transfer the original request headers/cookies to the proxied request
 		_transferRequestHeaders(originalRequest,
 								endPoint.getUrl(),
 								getRequestToBeProxied);
 		_transferRequestCookies(originalRequest,
 								endPoint.getUrl(),
 								getRequestToBeProxied);
+		return getRequestToBeProxied;
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	CACHED GET
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Performs an HTTP GET request through the response cache (see {@link HttpProxyServletCache}):
+	 * <ul>
+	 * 		<li>fresh entry: it's served WITHOUT contacting the endpoint</li>
+	 * 		<li>stale entry within the stale-while-revalidate window: it's served and revalidated in the background</li>
+	 * 		<li>miss or stale entry: only one of the concurrent requests of the same key is sent to the endpoint
+	 * 			(a conditional request if there's a stale entry) and the others wait for its response</li>
+	 * </ul>
+	 * BEWARE! the cache is only used by the blocking proxy: in async mode the requests are NOT cached
+	 * @param cache
+	 * @param originalRequest
+	 * @param responseToClient
+	 * @return true if the request was handled, false if it must be proxied bypassing the cache
+	 * 		   (ie: the response of the request in flight was NOT cacheable)
+	 * @throws IOException
+	 * @throws ServletException
+	 */
+	private boolean _proxyGETUsingCache(final HttpProxyServletCache cache,
+										final HttpServletRequest originalRequest,
+										final HttpServletResponse responseToClient) throws IOException,
+																						   ServletException {
+		String key = HttpProxyServletCache.keyOf(originalRequest,
+												 _getDestinationUrl(originalRequest,_urlPathRewriter));
+		HttpProxyServletCacheEntry entry = cache.get(key);
+		long now = System.currentTimeMillis();
 
-		// [3] Execute the proxy request
-		_executeProxyRequest(originalRequest,responseToClient,
-							 endPoint,
-							 _config.isFollowRedirects(),
-							 getRequestToBeProxied);
+		// a response to a request with credentials or cookies is only stored if it's explicitly shared
+		boolean withCredentials = HttpProxyServletCache.hasCredentials(originalRequest);
+
+		// [1] - fresh entry
+		if (entry != null && entry.isFresh(now)) {
+			return cache.serve(entry,
+							   originalRequest,responseToClient);
+		}
+		// [2] - stale entry that can be served while it's revalidated in the background
+		//		 (unless it's already being revalidated)
+		if (entry != null && entry.isStaleWhileRevalidate(now)) {
+			HttpProxyServletCache.InFlight inFlight = cache.inFlight(key);
+			if (inFlight.isLeader()) {
+				HttpProxyEndPoint endPoint = _chooseEndPoint(originalRequest);
+				if (endPoint != null) {
+					HttpGet revalidationRequest = _createCachedGETRequestToBeProxied(originalRequest,
+																					 endPoint,
+																					 entry);
+					cache.revalidateInBackground(inFlight,
+												 () -> _revalidate(cache,inFlight,
+														 		   endPoint,
+														 		   revalidationRequest,withCredentials,
+														 		   entry));
+				} else {
+					inFlight.complete(null);
+				}
+			}
+			return cache.serve(entry,
+							   originalRequest,responseToClient);
+		}
+		// [3] - miss or stale entry: only one request is sent to the endpoint, the others wait for its response
+		HttpProxyServletCache.InFlight inFlight = cache.inFlight(key);
+		if (!inFlight.isLeader()) {
+			HttpProxyServletCacheEntry collapsedEntry = inFlight.await();
+			return collapsedEntry != null
+				&& cache.serve(collapsedEntry,
+							   originalRequest,responseToClient);
+		}
+		try {
+			HttpProxyEndPoint endPoint = _chooseEndPoint(originalRequest);
+			if (endPoint == null) {
+				_sendNoEndPointAvailable(originalRequest,responseToClient);
+				return true;
+			}
+			HttpProxyFetchedGET fetched = _fetchGETWithFailOver(originalRequest,
+																endPoint,
+																theEndPoint -> _createCachedGETRequestToBeProxied(originalRequest,
+																												  theEndPoint,
+																												  entry));		// conditional if there's a stale entry
+			HttpRequestBase getRequestToBeProxied = fetched.getRequestToBeProxied();
+			HttpResponse endPointResponse = fetched.getEndPointResponse();
+			if (endPointResponse == null) {
+				log.error("PROXY: NO response from the load balanced endpoint {}",fetched.getEndPoint().getUrl());
+				responseToClient.sendError(HttpServletResponse.SC_BAD_GATEWAY);
+				return true;
+			}
+			long receivedAt = System.currentTimeMillis();
+			try {
+				// the stale entry is still valid
+				if (entry != null
+				 && endPointResponse.getStatusLine().getStatusCode() == HttpServletResponse.SC_NOT_MODIFIED) {
+					HttpProxyServletCacheEntry revalidated = entry.revalidatedWith(endPointResponse,withCredentials,
+																				   receivedAt,
+																				   cache.getConfig());
+					cache.put(revalidated);
+					inFlight.complete(revalidated);
+					return cache.serve(revalidated,
+									   originalRequest,responseToClient);
+				}
+				// the body of a cacheable response is recorded while it's streamed to the client
+				if (cache.isCacheable(endPointResponse,withCredentials)) {
+					endPointResponse.setEntity(cache.recording(inFlight,
+															   endPointResponse,withCredentials,
+															   receivedAt));
+				} else {
+					// (a response NOT shared with the requests with credentials or cookies does NOT invalidate the entry)
+					if (entry != null && !withCredentials) cache.invalidate(key);
+					inFlight.complete(null);
+				}
+				_transferEndPointResponse(originalRequest,responseToClient,
+										  fetched.getEndPoint(),
+										  _config.isFollowRedirects(),
+										  getRequestToBeProxied,
+										  endPointResponse);
+				return true;
+			} catch (IOException | ServletException | RuntimeException ex) {
+				// client abort or I/O error: abort the endpoint request so the remaining body is NOT drained
+				// (the entry is NOT stored)
+				getRequestToBeProxied.abort();
+				throw ex;
+			} finally {
+				// releases the recording (if any): after an abort it fails fast (the connection was shut down)
+				EntityUtils.consumeQuietly(endPointResponse.getEntity());
+			}
+		} finally {
+			inFlight.complete(null);		// no-op if it was already completed
+		}
+	}
+	/**
+	 * Revalidates a stale entry (it's called in the background, see {@link HttpProxyServletCache#revalidateInBackground(HttpProxyServletCache.InFlight, java.util.concurrent.Callable)})
+	 * @param cache
+	 * @param inFlight
+	 * @param endPoint
+	 * @param revalidationRequest the conditional request
+	 * @param withCredentials true if the request carried credentials or cookies
+	 * @param staleEntry
+	 * @return the revalidated entry or null if it was replaced, invalidated or kept as is
+	 * @throws IOException
+	 */
+	private HttpProxyServletCacheEntry _revalidate(final HttpProxyServletCache cache,
+												   final HttpProxyServletCache.InFlight inFlight,
+												   final HttpProxyEndPoint endPoint,
+												   final HttpGet revalidationRequest,final boolean withCredentials,
+												   final HttpProxyServletCacheEntry staleEntry) throws IOException {
+		HttpResponse endPointResponse = _fetchEndPointResponse(endPoint,
+															   revalidationRequest);
+		if (endPointResponse == null) return null;		// the stale entry is kept
+		long receivedAt = System.currentTimeMillis();
+		try {
+			int statusCode = endPointResponse.getStatusLine().getStatusCode();
+
+			// [1] - NOT modified: the entry is refreshed
+			if (statusCode == HttpServletResponse.SC_NOT_MODIFIED) {
+				HttpProxyServletCacheEntry outRevalidated = staleEntry.revalidatedWith(endPointResponse,withCredentials,
+																					   receivedAt,
+																					   cache.getConfig());
+				cache.put(outRevalidated);
+				return outRevalidated;
+			}
+			// [2] - modified: the new response replaces the entry (the body is fully read so it's recorded)
+			if (cache.isCacheable(endPointResponse,withCredentials)) {
+				try (InputStream is = cache.recording(inFlight,
+													  endPointResponse,withCredentials,
+													  receivedAt)
+										   .getContent()) {
+					ByteStreams.exhaust(is);
+				}
+				return null;		// the recording completed the request in flight
+			}
+			// [3] - endpoint error: the stale entry is kept
+			if (statusCode >= HttpServletResponse.SC_INTERNAL_SERVER_ERROR) return null;
+
+			// [4] - the response is NOT cacheable anymore
+			//		 (unless it's NOT shared just because the request carried credentials or cookies)
+			if (!withCredentials) cache.invalidate(staleEntry.getKey());
+			return null;
+		} finally {
+			EntityUtils.consumeQuietly(endPointResponse.getEntity());
+		}
+	}
+	/**
+	 * Creates the GET request sent to the endpoint when the response is going to be cached:
+	 * the client validators are NOT sent (a full response is needed to be cached) but the stale entry ones (if any)
+	 * @param originalRequest
+	 * @param endPoint
+	 * @param staleEntry
+	 * @return
+	 */
+	private HttpGet _createCachedGETRequestToBeProxied(final HttpServletRequest originalRequest,
+													   final HttpProxyEndPoint endPoint,
+													   final HttpProxyServletCacheEntry staleEntry) {
+		HttpGet outGet = _createGETRequestToBeProxied(originalRequest,
+													  endPoint);
+		outGet.removeHeaders("If-None-Match");
+		outGet.removeHeaders("If-Modified-Since");
+		if (staleEntry != null && staleEntry.getETag() != null) outGet.setHeader("If-None-Match",staleEntry.getETag());
+		if (staleEntry != null && staleEntry.getLastModified() != null) outGet.setHeader("If-Modified-Since",staleEntry.getLastModified());
+		return outGet;
 	}
 /////////////////////////////////////////////////////////////////////////////////////////
 //	POST
@@ -179,16 +459,14 @@ public class HttpProxyServletDelegate {
 					   													  	 ServletException {
 		// [0] Get the endpoint url
 		HttpProxyEndPoint endPoint = _chooseEndPoint(originalRequest);
+		if (endPoint == null) {
+			_sendNoEndPointAvailable(originalRequest,responseToClient);
+			return;
+		}
 
 		// [1] Create the POST request
-		UrlPath urlPath = _getTargetUrlPath(originalRequest,
-											_urlPathRewriter);
-		UrlQueryString urlQueryString  = UrlQueryString.fromParamsString(originalRequest.getQueryString());
-		Url destinationUrl = Url.from(urlPath,urlQueryString);
-
-		String theDestinationUrlStr = originalRequest.getRequestURL().toString().endsWith("/")
-											? destinationUrl.asString() + "/"
-											: destinationUrl.asString();
+		String theDestinationUrlStr = _getDestinationUrl(originalRequest,
+														 _urlPathRewriter);
 
 		ContentType contentType = Strings.isNOTNullOrEmpty(originalRequest.getContentType())
 												// beware that content type might be like [application/x-www-form-urlencoded; charset=UTF-8]
@@ -212,23 +490,27 @@ public class HttpProxyServletDelegate {
 								postRequestToBeProxied);
 
 		// [3] Transfer the data depending on the post way:
-		//		- mulitpart (file upload) POST data to the proxied request
+		//		- mulitpart (file upload) POST data to the proxied request: it's only parsed if explicitly configured
+		//		  (otherwise the raw multipart body is streamed as any other content)
 		//		- form-url encoded
-		//		- raw post
-		if (ServletFileUpload.isMultipartContent(originalRequest)) {
+		//		- raw post: streamed
+		boolean multipart = ServletFileUpload.isMultipartContent(originalRequest);
+		if (multipart
+		 && _config.getUpstreamConfig().isParseMultipartRequests()) {
 			_transferMultipartPost(originalRequest,
 								   endPoint.getUrl(),
 								   postRequestToBeProxied,
 								   _config.getMaxFileUploadSize());
-		} else if ((contentType == null)
-				|| (originalRequest.getContentType() != null && originalRequest.getContentType().contains("application/x-www-form-urlencoded"))) {
+		} else if (!multipart
+				&& ((contentType == null)
+				 || (originalRequest.getContentType() != null && originalRequest.getContentType().contains("application/x-www-form-urlencoded")))) {
 			_transferFormUrlEncodedPost(originalRequest,
 										endPoint.getUrl(),
 										postRequestToBeProxied);
 		} else {
-			_transferContentPost(originalRequest,
-								 endPoint.getUrl(),
-								 postRequestToBeProxied);
+			_transferContent(originalRequest,
+							 endPoint.getUrl(),
+							 postRequestToBeProxied);
 		}
 
 		// [4] Execute the proxy request
@@ -237,6 +519,145 @@ public class HttpProxyServletDelegate {
 							 _config.isFollowRedirects(),
 							 postRequestToBeProxied);
 	}
+	/**
+	 * Performs an HTTP POST request WITHOUT blocking the container thread neither while the request body is
+	 * sent to the endpoint nor while the endpoint response is received (see {@link HttpProxyServletAsyncExchange})
+	 * The body is streamed as is (multipart and form-url-encoded bodies are NOT parsed) BUT GWT-RPC bodies
+	 * must be rewritten so they're proxied synchronously (see {@link #proxyPOST(HttpServletRequest, HttpServletResponse)})
+	 * BEWARE! the request MUST support async processing (see {@link HttpServletRequest#isAsyncSupported()})
+	 * @param originalRequest The {@link HttpServletRequest} object passed in by the servlet engine representing the
+	 *					 	  client request to be proxied
+	 * @param responseToClient The {@link HttpServletResponse} object by which we can send a proxied response to the client
+	 */
+	public void proxyPOSTAsync(final HttpServletRequest originalRequest,
+							   final HttpServletResponse responseToClient) throws IOException,
+						   													  	  ServletException {
+		if (_isGwtRpcContent(originalRequest)) {
+			this.proxyPOST(originalRequest,
+						   responseToClient);
+			return;
+		}
+		// [0] Get the endpoint url
+		HttpProxyEndPoint endPoint = _chooseEndPoint(originalRequest);
+		if (endPoint == null) {
+			_sendNoEndPointAvailable(originalRequest,responseToClient);
+			return;
+		}
+
+		// [1] Create the POST request
+		String theDestinationUrlStr = _getDestinationUrl(originalRequest,
+														 _urlPathRewriter);
+		log.warn("PROXY POST (async): requested url={} - Content-Type: {} - to url={}",
+				  originalRequest.getRequestURL(),originalRequest.getContentType(),
+				  theDestinationUrlStr);
+
+		HttpPost postRequestToBeProxied = new HttpPost(theDestinationUrlStr);
+
+		// [2] Transfer the original request headers/cookies to the proxied request
+		//	   (the content-type header -including the multipart boundary- is transferred as is since the body is NOT parsed)
+		_transferRequestHeaders(originalRequest,
+								endPoint.getUrl(),
+								postRequestToBeProxied);
+		_transferRequestCookies(originalRequest,
+								endPoint.getUrl(),
+								postRequestToBeProxied);
+
+		// [3] Start the non-blocking exchange: the body is streamed to the endpoint as it's received
+		HttpProxyServletAsyncExchange.start(this,
+											_config.getUpstreamHttpAsyncClient(),
+											originalRequest,responseToClient,
+											endPoint,
+											_config.isFollowRedirects(),
+											postRequestToBeProxied);
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	PUT
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Performs an HTTP PUT request: the body is streamed to the endpoint
+	 * @param originalRequest The {@link HttpServletRequest} object passed in by the servlet engine representing the
+	 *					 	  client request to be proxied
+	 * @param responseToClient The {@link HttpServletResponse} object by which we can send a proxied response to the client
+	 */
+	public void proxyPUT(final HttpServletRequest originalRequest,
+						 final HttpServletResponse responseToClient) throws IOException,
+					   													  	ServletException {
+		// [0] Get the endpoint url
+		HttpProxyEndPoint endPoint = _chooseEndPoint(originalRequest);
+		if (endPoint == null) {
+			_sendNoEndPointAvailable(originalRequest,responseToClient);
+			return;
+		}
+
+		// [1] Create the PUT request & transfer the original request headers/cookies to the proxied request
+		HttpPut putRequestToBeProxied = _createPUTRequestToBeProxied(originalRequest,
+																	 endPoint);
+
+		// [2] Stream the body
+		_transferContent(originalRequest,
+						 endPoint.getUrl(),
+						 putRequestToBeProxied);
+
+		// [3] Execute the proxy request
+		_executeProxyRequest(originalRequest,responseToClient,
+							 endPoint,
+							 _config.isFollowRedirects(),
+							 putRequestToBeProxied);
+	}
+	/**
+	 * Performs an HTTP PUT request WITHOUT blocking the container thread (see {@link HttpProxyServletAsyncExchange})
+	 * (GWT-RPC bodies must be rewritten so they're proxied synchronously)
+	 * BEWARE! the request MUST support async processing (see {@link HttpServletRequest#isAsyncSupported()})
+	 * @param originalRequest The {@link HttpServletRequest} object passed in by the servlet engine representing the
+	 *					 	  client request to be proxied
+	 * @param responseToClient The {@link HttpServletResponse} object by which we can send a proxied response to the client
+	 */
+	public void proxyPUTAsync(final HttpServletRequest originalRequest,
+							  final HttpServletResponse responseToClient) throws IOException,
+						   													  	 ServletException {
+		if (_isGwtRpcContent(originalRequest)) {
+			this.proxyPUT(originalRequest,
+						  responseToClient);
+			return;
+		}
+		// [0] Get the endpoint url
+		HttpProxyEndPoint endPoint = _chooseEndPoint(originalRequest);
+		if (endPoint == null) {
+			_sendNoEndPointAvailable(originalRequest,responseToClient);
+			return;
+		}
+
+		// [1] Create the PUT request & transfer the original request headers/cookies to the proxied request
+		HttpPut putRequestToBeProxied = _createPUTRequestToBeProxied(originalRequest,
+																	 endPoint);
+
+		// [2] Start the non-blocking exchange: the body is streamed to the endpoint as it's received
+		HttpProxyServletAsyncExchange.start(this,
+											_config.getUpstreamHttpAsyncClient(),
+											originalRequest,responseToClient,
+											endPoint,
+											_config.isFollowRedirects(),
+											putRequestToBeProxied);
+	}
+	private HttpPut _createPUTRequestToBeProxied(final HttpServletRequest originalRequest,
+												 final HttpProxyEndPoint endPoint) {
+		String theDestinationUrlStr = _getDestinationUrl(originalRequest,
+														 _urlPathRewriter);
+		log.warn("PROXY PUT: requested url={} - Content-Type: {} - to url={}",
+				  originalRequest.getRequestURL(),originalRequest.getContentType(),
+				  theDestinationUrlStr);
+
+		HttpPut putRequestToBeProxied = new HttpPut(theDestinationUrlStr);
+
+		// Transfer the original request headers/cookies to the proxied request
+		_transferRequestHeaders(originalRequest,
+								endPoint.getUrl(),
+								putRequestToBeProxied);
+		_transferRequestCookies(originalRequest,
+								endPoint.getUrl(),
+								putRequestToBeProxied);
+		return putRequestToBeProxied;
+	}
 /////////////////////////////////////////////////////////////////////////////////////////
 //
 /////////////////////////////////////////////////////////////////////////////////////////
@@ -251,16 +672,114 @@ public class HttpProxyServletDelegate {
 	 * @throws IOException	  Can be thrown by the {@link HttpClient}.executeMethod
 	 * @throws ServletException Can be thrown to indicate that another error has occurred
 	 */
-	@SuppressWarnings("resource")
 	private void _executeProxyRequest(final HttpServletRequest originalReq,final HttpServletResponse responseToClient,
 									  final HttpProxyEndPoint endPoint,
 									  final boolean followRedirects,
 									  final HttpRequestBase requestToBeProxied) throws IOException,
 									  											   	   ServletException {
 		// [1] - Get the [end point] respones
-		HttpResponse endPointResponse = _getEndPointResponse(endPoint,
-															 requestToBeProxied);
+		HttpResponse endPointResponse = _fetchEndPointResponse(endPoint,
+															   requestToBeProxied);
+		// [2] - Send it to the client
+		_sendEndPointResponse(originalReq,responseToClient,
+							  endPoint,
+							  followRedirects,
+							  requestToBeProxied,
+							  endPointResponse);
+	}
+	/**
+	 * Sends the [endpoint] response back to the client (or a 502 if there's NO response)
+	 * @param originalReq
+	 * @param responseToClient
+	 * @param endPoint
+	 * @param followRedirects
+	 * @param requestToBeProxied
+	 * @param endPointResponse the response or null if the load balanced request failed
+	 * @throws IOException
+	 * @throws ServletException
+	 */
+	private void _sendEndPointResponse(final HttpServletRequest originalReq,final HttpServletResponse responseToClient,
+									   final HttpProxyEndPoint endPoint,
+									   final boolean followRedirects,
+									   final HttpRequestBase requestToBeProxied,
+									   final HttpResponse endPointResponse) throws IOException,
+									   											   ServletException {
+		if (endPointResponse == null) {
+			// the load balanced server failed (the error was recorded at the server stats)
+			log.error("PROXY: NO response from the load balanced endpoint {}",endPoint.getUrl());
+			responseToClient.sendError(HttpServletResponse.SC_BAD_GATEWAY);
+			return;
+		}
+		try {
+			_transferEndPointResponse(originalReq,responseToClient,
+									  endPoint,
+									  followRedirects,
+									  requestToBeProxied,
+									  endPointResponse);
+		} catch (IOException | ServletException | RuntimeException ex) {
+			// client abort or I/O error: abort the endpoint request so the remaining body is NOT drained
+			requestToBeProxied.abort();
+			throw ex;
+		} finally {
+			// ensure the endpoint response is fully consumed so the pooled connection is released
+			// (it's a no-op if the body was already streamed to the client or the request was aborted)
+			if (!requestToBeProxied.isAborted()) EntityUtils.consumeQuietly(endPointResponse.getEntity());
+		}
+	}
+	private void _transferEndPointResponse(final HttpServletRequest originalReq,final HttpServletResponse responseToClient,
+										   final HttpProxyEndPoint endPoint,
+										   final boolean followRedirects,
+										   final HttpRequestBase requestToBeProxied,
+										   final HttpResponse endPointResponse) throws IOException,
+										   											   ServletException {
+		// [2] + [3] transfer the status code & headers (or handle the redirection)
+		//		 	 (if the response is gzipped and it's ungzipped on the fly, the content encoding & length are NOT transferred)
+		boolean ungzip = _config.getUpstreamConfig().isUngzipResponses()
+					  && _isBodyGzipped(endPointResponse);
+		boolean hasToTransferBody = _transferEndPointResponseHead(originalReq,responseToClient,
+																  endPoint,
+																  followRedirects,
+																  requestToBeProxied,
+																  endPointResponse,
+																  ungzip);
+		if (!hasToTransferBody) return;
 
+		// [3.3] stream the content sent by the proxied endpoint to the client
+		//		 (gzipped content is passed through untouched or ungzipped on the fly: it's NEVER fully loaded in memory)
+		HttpEntity endPointResponseEntity = endPointResponse.getEntity();
+		if (endPointResponseEntity == null) {
+			log.debug("Received status code: {} - NO content",endPointResponse.getStatusLine());
+			return;
+		}
+		InputStream endPointResponseIS = ungzip ? new GZIPInputStream(endPointResponseEntity.getContent(),FOUR_KB)
+												: endPointResponseEntity.getContent();
+		long bytes = _copy(endPointResponseIS,
+			  			   responseToClient.getOutputStream());
+
+		log.debug("Received status code: {} - {} bytes streamed to the client (ungzipped={})",endPointResponse.getStatusLine(),
+													  		 							 	 	  bytes,ungzip);
+	}
+	/**
+	 * Transfers the status code and the headers of the endpoint response to the client
+	 * (it's used both by the blocking and the non-blocking -see {@link HttpProxyServletAsyncExchange}- proxy)
+	 * @param originalReq The origingal servlet request
+	 * @param responseToClient An object by which we can send the proxied response back to the client
+	 * @param endPoint the target endpoint url
+	 * @param followRedirects
+	 * @param requestToBeProxied the proxied request
+	 * @param endPointResponse the endpoint response
+	 * @param ungzip if the gzipped body is ungzipped on the fly
+	 * @return true if the endpoint response body must be transferred to the client, false if a redirection or a 304 was handled
+	 * @throws IOException
+	 * @throws ServletException
+	 */
+	boolean _transferEndPointResponseHead(final HttpServletRequest originalReq,final HttpServletResponse responseToClient,
+										  final HttpProxyEndPoint endPoint,
+										  final boolean followRedirects,
+										  final HttpRequestBase requestToBeProxied,
+										  final HttpResponse endPointResponse,
+										  final boolean ungzip) throws IOException,
+										   							   ServletException {
 		// [2]  Handle redirects (301) or client cache usage advices (304)
 		if (followRedirects
 		 && endPointResponse.getStatusLine().getStatusCode() >= HttpServletResponse.SC_MULTIPLE_CHOICES /* 300 */
@@ -270,7 +789,7 @@ public class HttpProxyServletDelegate {
 									   				   requestToBeProxied,
 									   				   endPoint.getUrl(),
 									   				   endPointResponse);
-			if (!hasToContinue) return;	// there is a redirection... do not continue
+			if (!hasToContinue) return false;	// there is a redirection... do not continue
 
 		}
 		else if (!followRedirects
@@ -281,7 +800,7 @@ public class HttpProxyServletDelegate {
 			//endPointResponse.setStatusCode(HttpServletResponse.SC_OK);
 			responseToClient.setHeader(LOCATION_HEADER,loc);
 
-			return;
+			return false;
 		}
 		else if (endPointResponse.getStatusLine().getStatusCode() == HttpServletResponse.SC_NOT_MODIFIED) {
 			// 304 needs special handling.  See: http://www.ics.uci.edu/pub/ietf/http/rfc1945.html#Code304
@@ -290,7 +809,7 @@ public class HttpProxyServletDelegate {
 			responseToClient.setIntHeader(CONTENT_LENGTH_HEADER_NAME, 0);
 			responseToClient.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
 
-			return;
+			return false;
 		}
 
 		// [3] - Pass the response code back to the client
@@ -299,30 +818,9 @@ public class HttpProxyServletDelegate {
 
 		// [3.2] Copy the headers of the proxied server to the client response
 		_transferResponseHeaders(endPointResponse,
-								 responseToClient);
-
-		// [3.3] transfer the content sent by the proxied endpoint to the client
-		//		 (the response from the proxied endpoint could be ziped... unzip befor transfer it to the response to client)
-		InputStream endPointResponseIS = endPointResponse.getEntity()
-														 .getContent();
-
-		boolean endpointResponseIsGzipped = _isBodyParameterGzipped(endPointResponse);
-		if (endpointResponseIsGzipped) {
-			log.debug("GZipped: true");
-			int length = 0;
-
-			final byte[] bytes = _ungzip(endPointResponseIS);
-			length = bytes.length;
-			endPointResponseIS = new ByteArrayInputStream(bytes);
-
-			responseToClient.setContentLength(length);
-		}
-
-		_copy(endPointResponseIS,
-			  responseToClient.getOutputStream());
-
-		log.debug("Received status code: {} - Response: {}",endPointResponse,
-													  		endPointResponseIS);
+								 responseToClient,
+								 ungzip);
+		return true;
 	}
 /////////////////////////////////////////////////////////////////////////////////////////
 //	ENDPOINT RESPONSE (default impl)
@@ -330,20 +828,17 @@ public class HttpProxyServletDelegate {
 	/**
 	 * Returns the [endpoint] {@link HttpResponse}
 	 * Override this method if a custom impl has to be used
+	 * BEWARE! the response entity is streamed to the client and consumed afterwards so the pooled connection is released
 	 * @param choosenEndPoint
 	 * @param requestToBeProxied
 	 * @return
 	 * @throws IOException
 	 */
-	@SuppressWarnings( {"static-method","resource"} )
 	protected HttpResponse _getEndPointResponse(final HttpProxyEndPoint choosenEndPoint,
 												final HttpRequest requestToBeProxied) throws IOException {
-		// [1] - Create a default HttpClient
-		HttpClientBuilder clientBuilder = HttpClientBuilder.create();	// HttpParams httpClientParams = new BasicHttpParams();
-		clientBuilder.disableRedirectHandling();						// httpClientParams.setParameter(ClientPNames.HANDLE_REDIRECTS,false);
-																		// httpClientParams.setParameter(ClientPNames.ALLOW_CIRCULAR_REDIRECTS,false);
-																		// HttpClientParams.setRedirecting(httpClientParams,false);
-		HttpClient httpClient = clientBuilder.build(); 					// HttpClient httpClient = new SystemDefaultHttpClient(httpClientParams);
+		// [1] - Get the shared (pooled) HttpClient: redirects are NOT followed, cookies are NOT managed
+		//		 and the content is NOT transparently decompressed
+		HttpClient httpClient = _config.getUpstreamHttpClient();
 
 		// [2] - Execute the request
 		HttpHost host = HttpHost.create(choosenEndPoint.getUrl().asString());
@@ -351,17 +846,106 @@ public class HttpProxyServletDelegate {
 														   requestToBeProxied);
 		return endPointResponse;
 	}
+	/**
+	 * Returns the [endpoint] {@link HttpResponse}
+	 * (if the endpoint was chosen by the load balancer, the server stats -latency, errors...- are updated)
+	 * @param endPoint
+	 * @param requestToBeProxied
+	 * @return the response or null if the load balanced request failed
+	 * @throws IOException
+	 */
+	private HttpResponse _fetchEndPointResponse(final HttpProxyEndPoint endPoint,
+												final HttpRequest requestToBeProxied) throws IOException {
+		return endPoint instanceof HttpProxyEndPointLoadBalancedImpl
+						? _getLoadBalancedEndPointResponse((HttpProxyEndPointLoadBalancedImpl)endPoint,
+														   requestToBeProxied)
+						: _getEndPointResponse(endPoint,
+											   requestToBeProxied);
+	}
+	/**
+	 * Returns the [endpoint] {@link HttpResponse} of a GET: if the load balanced [endpoint] does NOT respond
+	 * (ie: connection refused or timeout) the GET is re-created for another [endpoint] and sent again
+	 * (see {@link #_chooseFailOverEndPoint(HttpServletRequest, HttpProxyEndPoint)})
+	 * @param originalRequest
+	 * @param endPoint
+	 * @param requestFactory creates the GET to be sent to an [endpoint]
+	 * @return the [endpoint] that responded (or the last one tried), the request and the response (null if NO endpoint responded)
+	 * @throws IOException
+	 */
+	private HttpProxyFetchedGET _fetchGETWithFailOver(final HttpServletRequest originalRequest,
+													  final HttpProxyEndPoint endPoint,
+													  final Function<HttpProxyEndPoint,? extends HttpRequestBase> requestFactory) throws IOException {
+		HttpRequestBase requestToBeProxied = requestFactory.apply(endPoint);
+		HttpResponse endPointResponse = _fetchEndPointResponse(endPoint,
+															   requestToBeProxied);
+		if (endPointResponse != null) return new HttpProxyFetchedGET(endPoint,requestToBeProxied,endPointResponse);
+
+		HttpProxyEndPoint failOverEndPoint = _chooseFailOverEndPoint(originalRequest,
+																	 endPoint);
+		if (failOverEndPoint == null) return new HttpProxyFetchedGET(endPoint,requestToBeProxied,null);
+
+		HttpRequestBase failOverRequestToBeProxied = requestFactory.apply(failOverEndPoint);
+		return new HttpProxyFetchedGET(failOverEndPoint,failOverRequestToBeProxied,
+									   _fetchEndPointResponse(failOverEndPoint,
+															  failOverRequestToBeProxied));
+	}
+	@Accessors(prefix="_")
+	@RequiredArgsConstructor
+	private static final class HttpProxyFetchedGET {
+		@Getter private final HttpProxyEndPoint _endPoint;
+		@Getter private final HttpRequestBase _requestToBeProxied;
+		@Getter private final HttpResponse _endPointResponse;
+	}
+	/**
+	 * Returns the load balanced [endpoint] {@link HttpResponse} recording the latency and the errors at the server stats
+	 * (a 5xx response is also recorded as an error so the server can be short-circuited or ejected)
+	 * @param choosenEndPoint
+	 * @param requestToBeProxied
+	 * @return the response or null if the request failed
+	 */
+	private HttpResponse _getLoadBalancedEndPointResponse(final HttpProxyEndPointLoadBalancedImpl choosenEndPoint,
+														  final HttpRequest requestToBeProxied) {
+		return LoadBalancedHttpClientUtil.executeWithLoadBalancer(choosenEndPoint.getServerStats(),
+																  server -> {
+																		try {
+																			return _getEndPointResponse(choosenEndPoint,
+																										requestToBeProxied);
+																		} catch (IOException ioEx) {
+																			throw new UncheckedIOException(ioEx);
+																		}
+																  });
+	}
 /////////////////////////////////////////////////////////////////////////////////////////
 //	ENDPOINT SELECTION (default impl)
 /////////////////////////////////////////////////////////////////////////////////////////
 	private static final SecureRandom RANDOM = new SecureRandom(UUID.randomUUID().toString().getBytes());
 	/**
-	 * Randomly chooses an [endpoint]
+	 * Chooses an [endpoint]:
+	 * <ul>
+	 * 		<li>if a load balancer is set, the load balancer chooses among the available servers of the service
+	 * 			(the short-circuited, ejected or unhealthy servers are skipped)</li>
+	 * 		<li>otherwise an [endpoint] is randomly choosen among the config endpoints</li>
+	 * </ul>
 	 * Override this method if a custom [endpoint] selection algorithm has to be used
 	 * @param originalRequest
-	 * @return
+	 * @return the [endpoint] or null if there's NO available endpoint
 	 */
 	protected HttpProxyEndPoint _chooseEndPoint(final HttpServletRequest originalRequest) {
+		// load balanced
+		if (_loadBalancer != null) {
+			LoadBalancedBackendServerStats serverStats = _loadBalancer.chooseServerFor(_loadBalancedServiceId,
+																					   _loadBalancerContextFor(originalRequest));
+			if (serverStats == null) {
+				log.error("PROXY: there's NO available server of service {} to proxy {}",
+						  _loadBalancedServiceId,originalRequest.getRequestURL());
+				return null;
+			}
+			// every request deposits into the retry budget that bounds the fail overs
+			LoadBalancerRetryBudget retryBudget = _loadBalancer.getRetryBudgetOf(_loadBalancedServiceId);
+			if (retryBudget != null) retryBudget.onRequest();
+			return new HttpProxyEndPointLoadBalancedImpl(serverStats);
+		}
+		// random
 		Url url = null;
 		if (_config.getEndPoints().size() == 1) {
 			url = CollectionUtils.firstOf(_config.getEndPoints());
@@ -372,6 +956,63 @@ public class HttpProxyServletDelegate {
 		}
 		return new HttpProxyEndPointUrlImpl(url);
 	}
+	/**
+	 * Chooses the [endpoint] where a request that got NO response from the given load balanced [endpoint] is failed over
+	 * BEWARE! only the requests WITHOUT body can be failed over (the original request body is streamed to the
+	 * 		   first endpoint so it cannot be replayed)
+	 * @param originalRequest
+	 * @param failedEndPoint
+	 * @return another server of the service or null if the endpoint is NOT load balanced, there's NO other available server
+	 * 		   or the service retry budget is exhausted
+	 */
+	HttpProxyEndPoint _chooseFailOverEndPoint(final HttpServletRequest originalRequest,
+											  final HttpProxyEndPoint failedEndPoint) {
+		if (_loadBalancer == null
+		 || !(failedEndPoint instanceof HttpProxyEndPointLoadBalancedImpl)) return null;
+		LoadBalancedBackendServerStats failedServerStats = ((HttpProxyEndPointLoadBalancedImpl)failedEndPoint).getServerStats();
+		LoadBalancedBackendServerStats serverStats = _loadBalancer.chooseServerFor(_loadBalancedServiceId,
+																				   _loadBalancerContextFor(originalRequest),
+																				   Collections.singleton(failedServerStats.getServerInstance().getId()));
+		if (serverStats == null) return null;
+
+		LoadBalancerRetryBudget retryBudget = _loadBalancer.getRetryBudgetOf(_loadBalancedServiceId);
+		if (retryBudget != null && !retryBudget.tryAcquireRetry()) {
+			log.warn("PROXY: the retry budget of service {} is exhausted: {} is NOT failed over",
+					 _loadBalancedServiceId,originalRequest.getRequestURL());
+			return null;
+		}
+		log.warn("PROXY: NO response from the load balanced endpoint {}: {} is failed over to {}",
+				 failedEndPoint.getUrl(),originalRequest.getRequestURL(),serverStats.getServerInstance().getUrl());
+		return new HttpProxyEndPointLoadBalancedImpl(serverStats);
+	}
+	/**
+	 * Returns the context used by the load balancer to choose an [endpoint]
+	 * Override this method if the requests must be routed with affinity (ie: session) or to a zone
+	 * (see {@link HttpProxyLoadBalancerContext})
+	 * @param originalRequest
+	 * @return
+	 */
+	@SuppressWarnings("static-method")
+	protected LoadBalancerContext _loadBalancerContextFor(final HttpServletRequest originalRequest) {
+		return new HttpProxyLoadBalancerContext(originalRequest);
+	}
+	private static void _sendNoEndPointAvailable(final HttpServletRequest originalRequest,
+												 final HttpServletResponse responseToClient) throws IOException {
+		log.warn("PROXY: NO endpoint available for {}",originalRequest.getRequestURL());
+		responseToClient.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+	}
+	private static String _getDestinationUrl(final HttpServletRequest originalRequest,
+											 final HttpProxyServletUrlPathRewriter urlPathRewriter) {
+		// beware that R01F Url object when serialized to string does NOT include the final '/' char if present
+		UrlPath urlPath = _getTargetUrlPath(originalRequest,
+											urlPathRewriter);
+		UrlQueryString urlQueryString  = UrlQueryString.fromParamsString(originalRequest.getQueryString());
+		Url destinationUrl = Url.from(urlPath,urlQueryString);
+
+		return originalRequest.getRequestURL().toString().endsWith("/")
+						? destinationUrl.asString() + "/"
+						: destinationUrl.asString();
+	}
 	private static UrlPath _getTargetUrlPath(final HttpServletRequest originalRequest,
 									  		 final HttpProxyServletUrlPathRewriter urlPathRewriter) {
 		// get the servlet context
@@ -442,27 +1083,31 @@ public class HttpProxyServletDelegate {
 		postRequestToBeProxied.setEntity(paramEntity);
 	}
 	/**
-	 * Sets up the given {@link PostMethod} to send the same content POST
-	 * data (JSON, XML, etc.) as was sent in the given {@link HttpServletRequest}
+	 * Sets up the given request to send the same content (JSON, XML, multipart etc.)
+	 * as was sent in the given {@link HttpServletRequest}
+	 * The content is NOT loaded in memory: it's streamed to the endpoint as it's read from the client
+	 * (GWT-RPC content is rewritten on the fly)
 	 * @param originalRequest	The {@link HttpServletRequest} that contains
-	 *							   		the POST data to be sent via the {@link PostMethod}
+	 *							the data to be sent
   	 * @param endPointUrl
- 	 * @param postRequestToBeProxied The {@link PostMethod} that we are
- 	 *							   	 configuring to send a standard POST request
+ 	 * @param requestToBeProxied The request (POST / PUT) that we are
+ 	 *							 configuring to send the content
 	 */
-	private static void _transferContentPost(final HttpServletRequest originalRequest,
-									  		 final Url endPointUrl,
-									  		 final HttpPost postRequestToBeProxied) throws IOException {
-		// [1] Read the original POST content
-		log.debug("... reading {} POST",
-				  originalRequest.getContentLength());
-		String postContent = StringPersistenceUtils.load(originalRequest.getInputStream());
+	private static void _transferContent(final HttpServletRequest originalRequest,
+								  		 final Url endPointUrl,
+								  		 final HttpEntityEnclosingRequestBase requestToBeProxied) throws IOException {
+		// [1] Get the original content stream
+		ContentType contentType = Strings.isNOTNullOrEmpty(originalRequest.getContentType())
+										? ContentType.parse(originalRequest.getContentType())
+										: null;
+		InputStream contentIS = originalRequest.getInputStream();
+		long contentLength = originalRequest.getContentLengthLong();	// -1 if unknown (chunked)
+		log.debug("... streaming {} bytes of {} content",
+				  contentLength,contentType);
 
 		// [2] Replace all the references to the original server with the proxied one
-		ContentType contentType = ContentType.create(originalRequest.getContentType());
-		if (contentType != null
-		 && contentType.getMimeType() != null
-		 && contentType.getMimeType().startsWith("text/x-gwt-rpc")) {
+		//	   (the content length changes so the content is chunked)
+		if (_isGwtRpcContent(originalRequest)) {
 			String clientHost = originalRequest.getLocalName();
 			if (clientHost.equals("127.0.0.1")) {
 				clientHost = "localhost";
@@ -472,15 +1117,20 @@ public class HttpProxyServletDelegate {
 			String serverUrl = Urls.serverAndPort(endPointUrl.getHost(),endPointUrl.getPort()) +
 							   originalRequest.getServletPath();
 			//debug("Replacing client (" + clientUrl + ") with server (" + serverUrl + ")");
-			postContent = postContent.replace(clientUrl,
-											  serverUrl);
+			contentIS = new ByteReplacingInputStream(contentIS,
+													 clientUrl.getBytes(StandardCharsets.UTF_8),
+													 serverUrl.getBytes(StandardCharsets.UTF_8));
+			contentLength = -1;
 		}
-		// [3] Hand the POST data to the proxied server
-		log.debug("POST Content Type: {} - Content: {} ",contentType,
-														 postContent);
-		StringEntity entity = new StringEntity(postContent,
-									  		   contentType);
-		postRequestToBeProxied.setEntity(entity);
+		// [3] Hand the data to the proxied server as it's read
+		InputStreamEntity entity = new InputStreamEntity(contentIS,
+														 contentLength,
+														 contentType);
+		requestToBeProxied.setEntity(entity);
+	}
+	private static boolean _isGwtRpcContent(final HttpServletRequest originalRequest) {
+		return originalRequest.getContentType() != null
+			&& originalRequest.getContentType().startsWith("text/x-gwt-rpc");
 	}
 	/**
 	 * Sets up the given {@link PostMethod} to send the same multipart POST
@@ -580,7 +1230,8 @@ public class HttpProxyServletDelegate {
 		Enumeration<String> headerNames = originalRequest.getHeaderNames();
 		while (headerNames.hasMoreElements()) {
 			String headerName = headerNames.nextElement();
-			if (headerName.equalsIgnoreCase(CONTENT_LENGTH_HEADER_NAME)) {
+			if (headerName.equalsIgnoreCase(CONTENT_LENGTH_HEADER_NAME)
+			 || headerName.equalsIgnoreCase(TRANSFER_ENCODING_HEADER_NAME)) {	// the body length / encoding is set by the http client
 				continue;
 			}
 			// As per the Java Servlet API 2.5 documentation:
@@ -632,17 +1283,21 @@ public class HttpProxyServletDelegate {
 	 * received in the proxied server's response
 	 * @param endPointResponse	response received from the proxied server
 	 * @param responseToClient 	response to send to the client
+	 * @param ungzip			if the gzipped body is ungzipped on the fly (the content encoding & length headers are NOT copied)
 	 */
 	private static void _transferResponseHeaders(final HttpResponse endPointResponse,
-										  		 final HttpServletResponse responseToClient) {
+										  		 final HttpServletResponse responseToClient,
+										  		 final boolean ungzip) {
 		Header[] endPointResponseHeaders = endPointResponse.getAllHeaders();
 		for (Header header : endPointResponseHeaders) {
-			if ((header.getName().equals("Transfer-Encoding") && header.getValue().equals("chunked"))
+			if ((header.getName().equalsIgnoreCase(TRANSFER_ENCODING_HEADER_NAME))		// the servlet container sets its own transfer encoding
+				 ||
+				(ungzip && header.getName().equalsIgnoreCase(CONTENT_ENCODING_HEADER_NAME))	// the body is ungzipped: don't copy gzip header
 				 ||
-				(header.getName().equals("Content-Encoding") && header.getValue().equals("gzip"))  // don't copy gzip header
+				(ungzip && header.getName().equalsIgnoreCase(CONTENT_LENGTH_HEADER_NAME))	// ... nor the gzipped content length
 				 ||
 				(header.getName().equals("WWW-Authenticate"))) { 	// don't copy WWW-Authenticate header so browser doesn't prompt on failed basic auth
-				// proxy servlet does not support chunked encoding
+				// not copied
 			} else {
 				responseToClient.setHeader(header.getName(),
 										   header.getValue());
@@ -726,16 +1381,17 @@ public class HttpProxyServletDelegate {
 //	GZIP
 /////////////////////////////////////////////////////////////////////////////////////////
 	/**
-	 * The response body will be assumed to be gzipped if the GZIP header has been set.
-	 * @param responseHeaders of response headers
+	 * The response body will be assumed to be gzipped if the Content-Encoding header is gzip.
+	 * @param response the endpoint response
 	 * @return true if the body is gzipped
 	 */
-	private static boolean _isBodyParameterGzipped(final HttpResponse response) {
+	private static boolean _isBodyGzipped(final HttpResponse response) {
 		boolean outGzipped = false;
-		Header[] responseHeaders = response.getAllHeaders();
-		if (CollectionUtils.hasData(responseHeaders)) {
-			for (Header header : responseHeaders) {
-				if (header.getValue().equals("gzip")) {
+		Header[] contentEncodingHeaders = response.getHeaders(CONTENT_ENCODING_HEADER_NAME);
+		if (CollectionUtils.hasData(contentEncodingHeaders)) {
+			for (Header header : contentEncodingHeaders) {
+				if (header.getValue() != null
+				 && header.getValue().trim().equalsIgnoreCase("gzip")) {
 					outGzipped = true;
 					break;
 				}
@@ -743,35 +1399,14 @@ public class HttpProxyServletDelegate {
 		}
 		return outGzipped;
 	}
-	/**
-	 * A highly performant ungzip implementation. Do not refactor this without taking new timings.
-	 * See ElementTest in ehcache for timings
-	 * @param gzipped the gzipped content
-	 * @return an ungzipped byte[]
-	 * @throws java.io.IOException when something bad happens
-	 */
-	private static byte[] _ungzip(final InputStream gzipped) throws IOException {
-		final GZIPInputStream inputStream = new GZIPInputStream(gzipped);
-		ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-		final byte[] buffer = new byte[FOUR_KB];
-		int bytesRead = 0;
-		while (bytesRead != -1) {
-			bytesRead = inputStream.read(buffer,0,FOUR_KB);
-			if (bytesRead != -1) {
-				byteArrayOutputStream.write(buffer,0,bytesRead);
-			}
-		}
-		byte[] ungzipped = byteArrayOutputStream.toByteArray();
-		inputStream.close();
-		byteArrayOutputStream.close();
-		return ungzipped;
-	}
 /////////////////////////////////////////////////////////////////////////////////////////
 //	STREAM UTILS
 /////////////////////////////////////////////////////////////////////////////////////////
 	/**
 	 * Copy the contents of the given InputStream to the given OutputStream.
 	 * Closes both streams when done.
+	 * BEWARE! the streams are NOT closed if the copy fails: closing a partially read endpoint response stream
+	 * 		   reads the remaining body, so the caller must abort the endpoint request instead
 	 *
 	 * @param in  the stream to copy from
 	 * @param out the stream to copy to
@@ -780,20 +1415,17 @@ public class HttpProxyServletDelegate {
 	 */
 	private static long _copy(final InputStream in,
 							  final OutputStream out) throws IOException {
-		try {
-			int byteCount = 0;
-			byte[] buffer = new byte[FOUR_KB];
-			int bytesRead;
-			while ((bytesRead = in.read(buffer)) != -1) {
-				out.write(buffer,0,bytesRead);
-				byteCount += bytesRead;
-			}
-			out.flush();
-			return byteCount;
-		} finally {
-			_close(in);
-			_close(out);
+		long byteCount = 0;
+		byte[] buffer = new byte[FOUR_KB];
+		int bytesRead;
+		while ((bytesRead = in.read(buffer)) != -1) {
+			out.write(buffer,0,bytesRead);
+			byteCount += bytesRead;
 		}
+		out.flush();
+		_close(in);
+		_close(out);
+		return byteCount;
 	}
 	/**
 	 * Close the given stream if the stream is not null.
@@ -0,0 +1,183 @@
+package r01f.servlet.proxy;
+
+import java.util.EnumSet;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+import r01f.debug.Debuggable;
+import r01f.util.types.Strings;
+
+/**
+ * Config of the (pooled) http client used by the {@link HttpProxyServletDelegate} to send the requests to the proxied endpoints
+ * <ul>
+ * 		<li>the connections to the endpoints are pooled and re-used (the pool is bounded by route -endpoint- and in total)</li>
+ * 		<li>the endpoint response body is streamed to the client: gzipped bodies are passed through untouched (the client
+ * 			receives the Content-Encoding header) unless the proxy is configured to ungzip them on the fly</li>
+ * 		<li>the request bodies are streamed to the endpoint: multipart bodies are passed through raw unless
+ * 			the proxy is configured to parse them</li>
+ * 		<li>in async mode the requests are proxied with a non-blocking client WITHOUT blocking the container threads
+ * 			(see {@link HttpProxyServletAsyncExchange}); gzipped bodies are always passed through in async mode</li>
+ * </ul>
+ * <pre class='brush:java'>
+ * 		HttpProxyServletUpstreamConfig config = HttpProxyServletUpstreamConfig.create()
+ * 																	.maxConnections(200)
+ * 																	.maxConnectionsPerRoute(50)
+ * 																	.connectTimeOut(5000)
+ * 																	.socketTimeOut(60000);
+ * </pre>
+ */
+@Accessors(prefix="_")
+@NoArgsConstructor
+public class HttpProxyServletUpstreamConfig
+  implements Debuggable {
+/////////////////////////////////////////////////////////////////////////////////////////
+//	CONSTANTS
+/////////////////////////////////////////////////////////////////////////////////////////
+	public static final int DEF_MAX_CONNECTIONS = 200;
+	public static final int DEF_MAX_CONNECTIONS_PER_ROUTE = 50;
+	public static final int DEF_CONNECT_TIMEOUT = 5000;
+	public static final int DEF_CONNECTION_REQUEST_TIMEOUT = 5000;
+	public static final int DEF_SOCKET_TIMEOUT = 60000;
+	public static final long DEF_MAX_IDLE_TIME = 30000;
+/////////////////////////////////////////////////////////////////////////////////////////
+//	FIELDS
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Getter private int _maxConnections = DEF_MAX_CONNECTIONS;							// max pooled connections (all endpoints)
+	@Getter private int _maxConnectionsPerRoute = DEF_MAX_CONNECTIONS_PER_ROUTE;		// max pooled connections to a single endpoint
+	@Getter private int _connectTimeOut = DEF_CONNECT_TIMEOUT;							// milis to establish a connection with the endpoint
+	@Getter private int _connectionRequestTimeOut = DEF_CONNECTION_REQUEST_TIMEOUT;		// milis to wait for a free connection from the pool
+	@Getter private int _socketTimeOut = DEF_SOCKET_TIMEOUT;							// milis of inactivity while waiting for data
+	@Getter private long _maxIdleTime = DEF_MAX_IDLE_TIME;								// milis a pooled connection can be idle before it's evicted
+	@Getter private boolean _ungzipResponses = false;									// ungzip the endpoint responses on the fly? (false = pass-through)
+	@Getter private boolean _async = false;												// proxy with a non-blocking client WITHOUT blocking the container threads?
+	@Getter private boolean _parseMultipartRequests = false;							// parse the multipart request bodies? (false = pass-through)
+
+			private final EnumSet<UpstreamConfigParam> _explicitParams = EnumSet.noneOf(UpstreamConfigParam.class);	// the params set using the builder methods (see mixedWith)
+	/**
+	 * The params that can be explicitly set
+	 */
+	private enum UpstreamConfigParam {
+		MAX_CONNECTIONS,
+		MAX_CONNECTIONS_PER_ROUTE,
+		CONNECT_TIMEOUT,
+		CONNECTION_REQUEST_TIMEOUT,
+		SOCKET_TIMEOUT,
+		MAX_IDLE_TIME,
+		UNGZIP_RESPONSES,
+		ASYNC,
+		PARSE_MULTIPART_REQUESTS;
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	BUILDER
+/////////////////////////////////////////////////////////////////////////////////////////
+	public static HttpProxyServletUpstreamConfig create() {
+		return new HttpProxyServletUpstreamConfig();
+	}
+	public HttpProxyServletUpstreamConfig maxConnections(final int max) {
+		if (max <= 0) throw new IllegalArgumentException("The max connections must be greater than zero!");
+		_maxConnections = max;
+		_explicitParams.add(UpstreamConfigParam.MAX_CONNECTIONS);
+		return this;
+	}
+	public HttpProxyServletUpstreamConfig maxConnectionsPerRoute(final int max) {
+		if (max <= 0) throw new IllegalArgumentException("The max connections per route must be greater than zero!");
+		_maxConnectionsPerRoute = max;
+		_explicitParams.add(UpstreamConfigParam.MAX_CONNECTIONS_PER_ROUTE);
+		return this;
+	}
+	public HttpProxyServletUpstreamConfig connectTimeOut(final int milis) {
+		_connectTimeOut = milis;
+		_explicitParams.add(UpstreamConfigParam.CONNECT_TIMEOUT);
+		return this;
+	}
+	public HttpProxyServletUpstreamConfig connectionRequestTimeOut(final int milis) {
+		_connectionRequestTimeOut = milis;
+		_explicitParams.add(UpstreamConfigParam.CONNECTION_REQUEST_TIMEOUT);
+		return this;
+	}
+	public HttpProxyServletUpstreamConfig socketTimeOut(final int milis) {
+		_socketTimeOut = milis;
+		_explicitParams.add(UpstreamConfigParam.SOCKET_TIMEOUT);
+		return this;
+	}
+	public HttpProxyServletUpstreamConfig maxIdleTime(final long milis) {
+		_maxIdleTime = milis;
+		_explicitParams.add(UpstreamConfigParam.MAX_IDLE_TIME);
+		return this;
+	}
+	public HttpProxyServletUpstreamConfig ungzipResponses() {
+		_ungzipResponses = true;
+		_explicitParams.add(UpstreamConfigParam.UNGZIP_RESPONSES);
+		return this;
+	}
+	public HttpProxyServletUpstreamConfig passThroughGzippedResponses() {
+		_ungzipResponses = false;
+		_explicitParams.add(UpstreamConfigParam.UNGZIP_RESPONSES);
+		return this;
+	}
+	/**
+	 * Parse the multipart request bodies (the file items are stored in a temp dir) instead of streaming them raw
+	 * (only needed if the endpoint cannot handle the client multipart body as is)
+	 * @return
+	 */
+	public HttpProxyServletUpstreamConfig parseMultipartRequests() {
+		_parseMultipartRequests = true;
+		_explicitParams.add(UpstreamConfigParam.PARSE_MULTIPART_REQUESTS);
+		return this;
+	}
+	/**
+	 * Proxy the requests WITHOUT blocking the container threads (servlet 3.1 non-blocking io)
+	 * BEWARE! the servlet MUST be configured with async-supported=true
+	 * @return
+	 */
+	public HttpProxyServletUpstreamConfig async() {
+		_async = true;
+		_explicitParams.add(UpstreamConfigParam.ASYNC);
+		return this;
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	MIX
+/////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Mixes this config with another one: every param is taken from the config where it was explicitly set
+	 * (if it's explicitly set at both configs, this config wins; if it's NOT set at any of them, the default is used)
+	 * ie: a lower timeout set at the code is NOT overridden by the default timeout of the web.xml config
+	 * @param other
+	 * @return
+	 */
+	public HttpProxyServletUpstreamConfig mixedWith(final HttpProxyServletUpstreamConfig other) {
+		if (other == null) return this;
+		HttpProxyServletUpstreamConfig out = new HttpProxyServletUpstreamConfig();
+		out._maxConnections = _wins(UpstreamConfigParam.MAX_CONNECTIONS,other) ? _maxConnections : other.getMaxConnections();
+		out._maxConnectionsPerRoute = _wins(UpstreamConfigParam.MAX_CONNECTIONS_PER_ROUTE,other) ? _maxConnectionsPerRoute : other.getMaxConnectionsPerRoute();
+		out._connectTimeOut = _wins(UpstreamConfigParam.CONNECT_TIMEOUT,other) ? _connectTimeOut : other.getConnectTimeOut();
+		out._connectionRequestTimeOut = _wins(UpstreamConfigParam.CONNECTION_REQUEST_TIMEOUT,other) ? _connectionRequestTimeOut : other.getConnectionRequestTimeOut();
+		out._socketTimeOut = _wins(UpstreamConfigParam.SOCKET_TIMEOUT,other) ? _socketTimeOut : other.getSocketTimeOut();
+		out._maxIdleTime = _wins(UpstreamConfigParam.MAX_IDLE_TIME,other) ? _maxIdleTime : other.getMaxIdleTime();
+		out._ungzipResponses = _wins(UpstreamConfigParam.UNGZIP_RESPONSES,other) ? _ungzipResponses : other.isUngzipResponses();
+		out._async = _wins(UpstreamConfigParam.ASYNC,other) ? _async : other.isAsync();
+		out._parseMultipartRequests = _wins(UpstreamConfigParam.PARSE_MULTIPART_REQUESTS,other) ? _parseMultipartRequests : other.isParseMultipartRequests();
+		out._explicitParams.addAll(_explicitParams);
+		out._explicitParams.addAll(other._explicitParams);
+		return out;
+	}
+	private boolean _wins(final UpstreamConfigParam param,
+						  final HttpProxyServletUpstreamConfig other) {
+		return _explicitParams.contains(param)
+			|| !other._explicitParams.contains(param);
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	DEBUG
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Override
+	public CharSequence debugInfo() {
+		return Strings.customized("max connections={} (per route={}) connect timeout={}ms connection request timeout={}ms socket timeout={}ms max idle time={}ms ungzip responses={} async={} parse multipart requests={}",
+								  _maxConnections,_maxConnectionsPerRoute,
+								  _connectTimeOut,_connectionRequestTimeOut,_socketTimeOut,
+								  _maxIdleTime,
+								  _ungzipResponses,
+								  _async,
+								  _parseMultipartRequests);
+	}
+}
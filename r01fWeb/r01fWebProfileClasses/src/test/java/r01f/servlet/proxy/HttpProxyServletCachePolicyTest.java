@@ -0,0 +1,166 @@
+package r01f.servlet.proxy;
+
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.utils.DateUtils;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+
+public class HttpProxyServletCachePolicyTest {
+/////////////////////////////////////////////////////////////////////////////////////////
+//	
+/////////////////////////////////////////////////////////////////////////////////////////
+	private static final long DAY = 24 * 60 * 60 * 1000L;
+	private static final HttpProxyServletCacheConfig CONFIG = HttpProxyServletCacheConfig.create()
+																						 .heuristicFreshness(10,DAY);
+/////////////////////////////////////////////////////////////////////////////////////////
+//	REQUEST
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Test
+	public void testCacheableRequest() {
+		Assert.assertTrue(HttpProxyServletCachePolicy.isCacheableRequest(_request("GET",ImmutableMap.of())));
+		Assert.assertTrue(HttpProxyServletCachePolicy.isCacheableRequest(_request("GET",ImmutableMap.of("Cookie","session=1"))));
+
+		Assert.assertFalse(HttpProxyServletCachePolicy.isCacheableRequest(_request("POST",ImmutableMap.of())));
+		Assert.assertFalse(HttpProxyServletCachePolicy.isCacheableRequest(_request("GET",ImmutableMap.of("Authorization","Basic xxx"))));
+		Assert.assertFalse(HttpProxyServletCachePolicy.isCacheableRequest(_request("GET",ImmutableMap.of("Range","bytes=0-10"))));
+		Assert.assertFalse(HttpProxyServletCachePolicy.isCacheableRequest(_request("GET",ImmutableMap.of("Cache-Control","no-cache"))));
+		Assert.assertFalse(HttpProxyServletCachePolicy.isCacheableRequest(_request("GET",ImmutableMap.of("Cache-Control","max-age=0"))));
+		Assert.assertFalse(HttpProxyServletCachePolicy.isCacheableRequest(_request("GET",ImmutableMap.of("Pragma","no-cache"))));
+	}
+	@Test
+	public void testRequestWithCredentials() {
+		Assert.assertFalse(HttpProxyServletCachePolicy.hasCredentials(_request("GET",ImmutableMap.of())));
+		Assert.assertTrue(HttpProxyServletCachePolicy.hasCredentials(_request("GET",ImmutableMap.of("Cookie","session=1"))));
+		Assert.assertTrue(HttpProxyServletCachePolicy.hasCredentials(_request("GET",ImmutableMap.of("Authorization","Basic xxx"))));
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	RESPONSE
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Test
+	public void testCacheableResponse() {
+		Assert.assertTrue(_isCacheable(_response(200,"Cache-Control","max-age=60"),false));
+		Assert.assertTrue(_isCacheable(_response(200,"ETag","\"v1\""),false));									// it can be revalidated
+		Assert.assertTrue(_isCacheable(_response(200,"Cache-Control","max-age=60","Vary","Accept-Encoding"),false));
+
+		Assert.assertFalse(_isCacheable(_response(404,"Cache-Control","max-age=60"),false));
+		Assert.assertFalse(_isCacheable(_response(200,"Cache-Control","private, max-age=60"),false));
+		Assert.assertFalse(_isCacheable(_response(200,"Cache-Control","no-store"),false));
+		Assert.assertFalse(_isCacheable(_response(200,"Cache-Control","max-age=60","Set-Cookie","session=1"),false));
+		Assert.assertFalse(_isCacheable(_response(200,"Cache-Control","max-age=60","Vary","Cookie"),false));
+		Assert.assertFalse(_isCacheable(_response(200),false));													// neither fresh nor validators
+	}
+	@Test
+	public void testResponseToRequestWithCookiesIsOnlyCachedIfShared() {
+		Assert.assertFalse(_isCacheable(_response(200,"Cache-Control","max-age=60"),true));
+		Assert.assertFalse(_isCacheable(_response(200,"ETag","\"v1\""),true));
+
+		Assert.assertTrue(_isCacheable(_response(200,"Cache-Control","public, max-age=60"),true));
+		Assert.assertTrue(_isCacheable(_response(200,"Cache-Control","s-maxage=60"),true));
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	FRESHNESS
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Test
+	public void testExplicitFreshness() {
+		Assert.assertEquals(120000,HttpProxyServletCachePolicy.freshnessLifetimeOf(_response(200,"Cache-Control","max-age=60, s-maxage=120"),false,CONFIG));
+		Assert.assertEquals(60000,HttpProxyServletCachePolicy.freshnessLifetimeOf(_response(200,"Cache-Control","max-age=60"),false,CONFIG));
+		Assert.assertEquals(0,HttpProxyServletCachePolicy.freshnessLifetimeOf(_response(200,"Cache-Control","no-cache, max-age=60"),false,CONFIG));
+
+		long now = System.currentTimeMillis();
+		HttpResponse expiring = _response(200,"Date",_httpDate(now),
+											  "Expires",_httpDate(now + 30000));
+		Assert.assertEquals(30000,HttpProxyServletCachePolicy.freshnessLifetimeOf(expiring,false,CONFIG));
+		Assert.assertEquals(0,HttpProxyServletCachePolicy.freshnessLifetimeOf(_response(200,"Expires","invalid"),false,CONFIG));
+	}
+	@Test
+	public void testHeuristicFreshness() {
+		long now = System.currentTimeMillis();
+		HttpResponse response = _response(200,"Date",_httpDate(now),
+											  "Last-Modified",_httpDate(now - 10 * 60 * 60 * 1000L));	// 10 hours ago
+		Assert.assertEquals(60 * 60 * 1000L,HttpProxyServletCachePolicy.freshnessLifetimeOf(response,false,CONFIG));		// 10%
+		Assert.assertEquals(0,HttpProxyServletCachePolicy.freshnessLifetimeOf(response,true,CONFIG));						// NOT applied to requests with cookies
+		Assert.assertEquals(0,HttpProxyServletCachePolicy.freshnessLifetimeOf(response,false,
+																			  HttpProxyServletCacheConfig.create().noHeuristicFreshness()));
+		// capped
+		HttpResponse old = _response(200,"Date",_httpDate(now),
+										 "Last-Modified",_httpDate(now - 100 * DAY));
+		Assert.assertEquals(DAY,HttpProxyServletCachePolicy.freshnessLifetimeOf(old,false,CONFIG));
+	}
+	@Test
+	public void testStaleWhileRevalidateAndAge() {
+		Assert.assertEquals(30000,HttpProxyServletCachePolicy.staleWhileRevalidateOf(_response(200,"Cache-Control","max-age=60, stale-while-revalidate=30"),CONFIG));
+		Assert.assertEquals(0,HttpProxyServletCachePolicy.staleWhileRevalidateOf(_response(200,"Cache-Control","max-age=60, stale-while-revalidate=30, must-revalidate"),CONFIG));
+		Assert.assertEquals(5000,HttpProxyServletCachePolicy.staleWhileRevalidateOf(_response(200,"Cache-Control","max-age=60"),
+																					HttpProxyServletCacheConfig.create().defaultStaleWhileRevalidate(5000)));
+		Assert.assertEquals(10000,HttpProxyServletCachePolicy.ageOf(_response(200,"Age","10")));
+		Assert.assertEquals(0,HttpProxyServletCachePolicy.ageOf(_response(200)));
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	CONDITIONAL REQUESTS
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Test
+	public void testNotModified() {
+		String lastModified = _httpDate(System.currentTimeMillis() - DAY);
+		HttpProxyServletCacheEntry entry = new HttpProxyServletCacheEntry("key",
+																		  _response(200,"ETag","\"v1\"",
+																				  		"Last-Modified",lastModified),
+																		  new byte[0],null,0,
+																		  false,
+																		  System.currentTimeMillis(),
+																		  CONFIG);
+		Assert.assertTrue(HttpProxyServletCachePolicy.isNotModifiedFor(_request("GET",ImmutableMap.of("If-None-Match","\"v0\", W/\"v1\"")),entry));
+		Assert.assertFalse(HttpProxyServletCachePolicy.isNotModifiedFor(_request("GET",ImmutableMap.of("If-None-Match","\"v2\"")),entry));
+		Assert.assertTrue(HttpProxyServletCachePolicy.isNotModifiedFor(_request("GET",ImmutableMap.of("If-Modified-Since",lastModified)),entry));
+		Assert.assertFalse(HttpProxyServletCachePolicy.isNotModifiedFor(_request("GET",ImmutableMap.of()),entry));
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	
+/////////////////////////////////////////////////////////////////////////////////////////
+	private static boolean _isCacheable(final HttpResponse response,
+										final boolean requestWithCredentials) {
+		return HttpProxyServletCachePolicy.isCacheableResponse(response,requestWithCredentials,
+															   CONFIG);
+	}
+	private static HttpServletRequest _request(final String method,
+											   final Map<String,String> headers) {
+		return (HttpServletRequest)Proxy.newProxyInstance(HttpServletRequest.class.getClassLoader(),
+														  new Class<?>[] { HttpServletRequest.class },
+														  (proxy,m,args) -> {
+																switch (m.getName()) {
+																case "getMethod":
+																	return method;
+																case "getHeader":
+																	return headers.get(args[0]);
+																case "getHeaders":
+																	return headers.containsKey(args[0]) ? Collections.enumeration(Collections.singleton(headers.get(args[0])))
+																										: Collections.emptyEnumeration();
+																default:
+																	throw new UnsupportedOperationException(m.getName());
+																}
+														  });
+	}
+	private static HttpResponse _response(final int status,
+								  final String... headerNamesAndValues) {
+		HttpResponse outResponse = new BasicHttpResponse(HttpVersion.HTTP_1_1,status,"");
+		for (int i = 0; i < headerNamesAndValues.length; i += 2) {
+			outResponse.addHeader(headerNamesAndValues[i],headerNamesAndValues[i + 1]);
+		}
+		outResponse.setEntity(new ByteArrayEntity(new byte[0]));
+		return outResponse;
+	}
+	private static String _httpDate(final long milis) {
+		return DateUtils.formatDate(new Date(milis));
+	}
+}
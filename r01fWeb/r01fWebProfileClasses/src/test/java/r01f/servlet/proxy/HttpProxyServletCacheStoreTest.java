@@ -0,0 +1,144 @@
+package r01f.servlet.proxy;
+
+import java.util.List;
+
+import org.apache.http.HttpVersion;
+import org.apache.http.message.BasicHttpResponse;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+import r01f.servlet.proxy.HttpProxyServletCacheConfig.HttpProxyServletCacheEviction;
+
+public class HttpProxyServletCacheStoreTest {
+/////////////////////////////////////////////////////////////////////////////////////////
+//	
+/////////////////////////////////////////////////////////////////////////////////////////
+	private static final int BODY_BYTES = 10000;
+	private static final HttpProxyServletCacheConfig CONFIG = HttpProxyServletCacheConfig.create();
+/////////////////////////////////////////////////////////////////////////////////////////
+//	LRU
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Test
+	public void testLRUEvictsTheLeastRecentlyUsedEntry() {
+		List<String> removed = Lists.newArrayList();
+		HttpProxyServletCacheStore store = new HttpProxyServletCacheStore(HttpProxyServletCacheEviction.LRU,
+																		  3 * _entry("k0").getWeight(),
+																		  entry -> removed.add(entry.getKey()));
+		store.put(_entry("k1"));
+		store.put(_entry("k2"));
+		store.put(_entry("k3"));
+		Assert.assertNotNull(store.get("k1"));		// k2 is now the least recently used
+
+		store.put(_entry("k4"));
+		Assert.assertEquals(3,store.size());
+		Assert.assertNull(store.get("k2"));
+		Assert.assertNotNull(store.get("k1"));
+		Assert.assertEquals(Lists.newArrayList("k2"),removed);
+		Assert.assertTrue(store.getWeight() <= 3 * _entry("k0").getWeight());
+	}
+	@Test
+	public void testReplacedEntryIsReturnedAndNotNotified() {
+		List<String> removed = Lists.newArrayList();
+		HttpProxyServletCacheStore store = new HttpProxyServletCacheStore(HttpProxyServletCacheEviction.LRU,
+																		  10 * BODY_BYTES,
+																		  entry -> removed.add(entry.getKey()));
+		HttpProxyServletCacheEntry first = _entry("k1");
+		Assert.assertNull(store.put(first));
+		Assert.assertSame(first,store.put(_entry("k1")));
+		Assert.assertEquals(1,store.size());
+		Assert.assertTrue(removed.isEmpty());
+
+		store.remove("k1");
+		Assert.assertEquals(0,store.size());
+		Assert.assertEquals(0,store.getWeight());
+		Assert.assertEquals(Lists.newArrayList("k1"),removed);
+	}
+	@Test
+	public void testTooBigEntryIsNotStored() {
+		List<String> removed = Lists.newArrayList();
+		HttpProxyServletCacheStore store = new HttpProxyServletCacheStore(HttpProxyServletCacheEviction.LRU,
+																		  BODY_BYTES / 2,
+																		  entry -> removed.add(entry.getKey()));
+		store.put(_entry("big"));
+		Assert.assertEquals(0,store.size());
+		Assert.assertNull(store.get("big"));
+		Assert.assertEquals(Lists.newArrayList("big"),removed);
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	W-TinyLFU
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Test
+	public void testWTinyLFUKeepsThePopularEntriesOnABurstOfOneHitEntries() {
+		List<String> removed = Lists.newArrayList();
+		long maxWeight = 10 * _entry("k0").getWeight();
+		HttpProxyServletCacheStore store = new HttpProxyServletCacheStore(HttpProxyServletCacheEviction.W_TINY_LFU,
+																		  maxWeight,
+																		  entry -> removed.add(entry.getKey()));
+		store.put(_entry("popular"));
+		for (int i = 0; i < 10; i++) Assert.assertNotNull(store.get("popular"));
+
+		// a crawler: many keys requested once
+		for (int i = 0; i < 100; i++) store.put(_entry("oneHit" + i));
+
+		Assert.assertNotNull(store.get("popular"));
+		Assert.assertFalse(removed.contains("popular"));
+		Assert.assertTrue(store.getWeight() <= maxWeight);
+		Assert.assertEquals(100 + 1 - store.size(),removed.size());		// every entry NOT stored is notified
+	}
+	@Test
+	public void testWTinyLFUOnlyCountsTheAccesses() {
+		List<String> removed = Lists.newArrayList();
+		long entryWeight = _entry("k0").getWeight();
+		HttpProxyServletCacheStore store = new HttpProxyServletCacheStore(HttpProxyServletCacheEviction.W_TINY_LFU,
+																		  100 * entryWeight + entryWeight / 2,	// window = 1 entry / main = 99 entries
+																		  entry -> removed.add(entry.getKey()));
+		// fill the main segments with entries that were only stored (and replaced: ie: revalidated)
+		for (int i = 0; i < 100; i++) {
+			store.put(_entry("stored" + i));
+			store.put(_entry("stored" + i));
+		}
+		Assert.assertTrue(removed.isEmpty());
+
+		// an entry accessed once (the miss) is admitted over the entries that were only stored...
+		Assert.assertNull(store.get("accessed"));
+		store.put(_entry("accessed"));		// evicts "stored99" from the window: it's NOT admitted
+		Assert.assertEquals(Lists.newArrayList("stored99"),removed);
+		store.put(_entry("next"));			// evicts "accessed" from the window: it's admitted
+		Assert.assertFalse(removed.contains("accessed"));
+		Assert.assertNotNull(store.get("accessed"));
+	}
+	@Test
+	public void testWTinyLFUAdmitsWhileThereIsRoom() {
+		HttpProxyServletCacheStore store = new HttpProxyServletCacheStore(HttpProxyServletCacheEviction.W_TINY_LFU,
+																		  10 * _entry("k0").getWeight(),
+																		  entry -> { /* nothing */ });
+		for (int i = 0; i < 5; i++) store.put(_entry("k" + i));
+		Assert.assertEquals(5,store.size());
+		for (int i = 0; i < 5; i++) Assert.assertNotNull(store.get("k" + i));
+	}
+	@Test
+	public void testClearNotifiesEveryEntry() {
+		List<String> removed = Lists.newArrayList();
+		HttpProxyServletCacheStore store = new HttpProxyServletCacheStore(HttpProxyServletCacheEviction.W_TINY_LFU,
+																		  10 * _entry("k0").getWeight(),
+																		  entry -> removed.add(entry.getKey()));
+		for (int i = 0; i < 3; i++) store.put(_entry("k" + i));
+		store.clear();
+		Assert.assertEquals(0,store.size());
+		Assert.assertEquals(0,store.getWeight());
+		Assert.assertEquals(3,removed.size());
+	}
+/////////////////////////////////////////////////////////////////////////////////////////
+//	
+/////////////////////////////////////////////////////////////////////////////////////////
+	private static HttpProxyServletCacheEntry _entry(final String key) {
+		return new HttpProxyServletCacheEntry(key,
+											  new BasicHttpResponse(HttpVersion.HTTP_1_1,200,"OK"),
+											  new byte[BODY_BYTES],null,BODY_BYTES,
+											  false,
+											  System.currentTimeMillis(),
+											  CONFIG);
+	}
+}
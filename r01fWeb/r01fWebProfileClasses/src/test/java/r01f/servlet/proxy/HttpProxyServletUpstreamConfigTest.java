@@ -0,0 +1,44 @@
+package r01f.servlet.proxy;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class HttpProxyServletUpstreamConfigTest {
+/////////////////////////////////////////////////////////////////////////////////////////
+//	
+/////////////////////////////////////////////////////////////////////////////////////////
+	@Test
+	public void testExplicitValueWinsOverDefault() {
+		HttpProxyServletUpstreamConfig fromCode = HttpProxyServletUpstreamConfig.create()
+																				.socketTimeOut(1000)
+																				.maxConnections(10);
+		HttpProxyServletUpstreamConfig fromWebXml = HttpProxyServletUpstreamConfig.create()
+																				  .connectTimeOut(20000);
+		HttpProxyServletUpstreamConfig mixed = fromCode.mixedWith(fromWebXml);
+		// the lower values set at the code are NOT overridden by the (greater) defaults
+		Assert.assertEquals(1000,mixed.getSocketTimeOut());
+		Assert.assertEquals(10,mixed.getMaxConnections());
+		// ... the values set only at the other config are used
+		Assert.assertEquals(20000,mixed.getConnectTimeOut());
+		// ... and the values NOT set are the defaults
+		Assert.assertEquals(HttpProxyServletUpstreamConfig.DEF_MAX_CONNECTIONS_PER_ROUTE,mixed.getMaxConnectionsPerRoute());
+	}
+	@Test
+	public void testThisConfigWinsIfBothAreExplicit() {
+		HttpProxyServletUpstreamConfig mixed = HttpProxyServletUpstreamConfig.create()
+																			 .socketTimeOut(1000)
+																			 .passThroughGzippedResponses()
+																			 .mixedWith(HttpProxyServletUpstreamConfig.create()
+																					 								  .socketTimeOut(90000)
+																					 								  .ungzipResponses()
+																					 								  .async());
+		Assert.assertEquals(1000,mixed.getSocketTimeOut());
+		Assert.assertFalse(mixed.isUngzipResponses());
+		Assert.assertTrue(mixed.isAsync());
+
+		// the explicit values are kept when mixed again
+		HttpProxyServletUpstreamConfig mixedAgain = HttpProxyServletUpstreamConfig.create()
+																				  .mixedWith(mixed);
+		Assert.assertEquals(1000,mixedAgain.getSocketTimeOut());
+	}
+}